@@ -15,6 +15,10 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // The learned embedding stage; its model is not checked in, see FaceEmbeddingModel
+        buildConfigField("boolean", "EMBEDDING_MODEL",
+            (findProperty("attendlytics.embeddingModel") ?: "false").toString())
     }
 
     buildTypes {
@@ -25,6 +29,19 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release code signed with the debug key, so :macrobenchmark can install and measure it
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+    androidResources {
+        // Keep .tflite models uncompressed so they can be memory-mapped from the APK
+        noCompress += "tflite"
+    }
+    buildFeatures {
+        buildConfig = true
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -37,6 +54,9 @@ android {
 }
 
 dependencies {
+    // Face math, session state and token signing; plain Java, tested on the JVM
+    implementation(project(":core"))
+
     implementation("androidx.appcompat:appcompat:1.7.1")
     implementation("com.google.android.material:material:1.13.0")
     implementation("androidx.activity:activity-ktx:1.11.0")
@@ -47,8 +67,11 @@ dependencies {
     implementation("androidx.navigation:navigation-fragment:2.7.7")
     implementation("androidx.navigation:navigation-ui:2.7.7")
 
-    // ZXing for QR Scanning
-    implementation("com.journeyapps:zxing-android-embedded:4.3.0")
+    // Virtualized class rosters
+    implementation("androidx.recyclerview:recyclerview:1.4.0")
+
+    // ZXing core: QR encoding and decoding straight from CameraX frames
+    implementation("com.google.zxing:core:3.5.3")
 
     // Firebase
     implementation(platform("com.google.firebase:firebase-bom:34.2.0"))
@@ -58,6 +81,10 @@ dependencies {
     // Firebase App Check for Play Integrity
     implementation("com.google.firebase:firebase-appcheck-playintegrity")
     debugImplementation("com.google.firebase:firebase-appcheck-debug")
+    "benchmarkImplementation"("com.google.firebase:firebase-appcheck-debug")
+
+    // Installs the bundled baseline profile (src/main/baseline-prof.txt) on sideloaded builds
+    implementation("androidx.profileinstaller:profileinstaller:1.4.1")
 
     // CameraX and ML Kit Face Detection (Adding these now as planned earlier)
     implementation("androidx.camera:camera-core:1.5.0")
@@ -66,6 +93,9 @@ dependencies {
     implementation("androidx.camera:camera-view:1.5.0")
     implementation("com.google.mlkit:face-detection:16.1.7")
 
+    // TFLite for the optional learned face embedding stage (XNNPACK CPU delegate is built in)
+    implementation("org.tensorflow:tensorflow-lite:2.16.1")
+
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit-ktx:1.3.0")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.7.0")
@@ -0,0 +1,186 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.hackathon.attendlytics.core.CsvWriter;
+import com.hackathon.attendlytics.core.SheetWriter;
+import com.hackathon.attendlytics.core.XlsxWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports attendance records of a department, optionally narrowed to a year and section, over
+ * a date range to a CSV or Excel file chosen by the user.
+ *
+ * Records are read {@link #PAGE_SIZE} at a time in timestamp order, each page continuing after
+ * the last document of the one before, and every row is written to the output stream as soon
+ * as it is read. Only the current page and the names of the students seen so far are held in
+ * memory, so a department's whole semester exports on a low-memory phone. Student names and
+ * ids are looked up once per student, {@link #LOOKUP_CHUNK} profiles per query.
+ *
+ * Runs on its own background thread; the listener is called on the main thread.
+ */
+public final class AttendanceExporter {
+
+    private static final String TAG = "AttendanceExporter";
+    private static final int PAGE_SIZE = 500;
+    // Firestore allows at most 30 values in an in-filter
+    private static final int LOOKUP_CHUNK = 30;
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_XLSX = "xlsx";
+
+    private static final String[] HEADER = {
+            "Date", "Time", "Student ID", "Student Name", "Department", "Year", "Section", "Subject", "Method",
+            "Session"
+    };
+
+    public interface Listener {
+        void onProgress(int rows);
+
+        /** @param error null if every record in the range was written */
+        void onFinished(int rows, @Nullable Exception error);
+    }
+
+    private final Context context;
+    private final FirebaseFirestore db;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public AttendanceExporter(@NonNull Context context, @NonNull FirebaseFirestore db) {
+        this.context = context.getApplicationContext();
+        this.db = db;
+    }
+
+    /**
+     * @param year    null for every year of the department
+     * @param section null for every section
+     * @param toMillis exclusive end of the range
+     */
+    public void start(@NonNull Uri uri, @NonNull String format, @NonNull String department,
+                      @Nullable String year, @Nullable String section, long fromMillis, long toMillis,
+                      @NonNull Listener listener) {
+        Query query = db.collection(AttendanceWriteQueue.COLLECTION).whereEqualTo("department", department);
+        if (year != null) query = query.whereEqualTo("year", year);
+        if (section != null) query = query.whereEqualTo("section", section);
+        Query range = query
+                .whereGreaterThanOrEqualTo("timestamp", fromMillis)
+                .whereLessThan("timestamp", toMillis)
+                .orderBy("timestamp")
+                .limit(PAGE_SIZE);
+        String sheetName = department + (year != null ? " " + year : "") + (section != null ? " " + section : "");
+        executor.execute(() -> run(uri, format, sheetName, range, listener));
+    }
+
+    /** Lets a running export finish, then stops the thread. */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Exporter thread
+    private void run(Uri uri, String format, String sheetName, Query range, Listener listener) {
+        HashMap<String, String[]> students = new HashMap<>();
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.US);
+        int rows = 0;
+        Exception failure = null;
+        try (OutputStream stream = context.getContentResolver().openOutputStream(uri)) {
+            if (stream == null) throw new IOException("Could not open " + uri);
+            OutputStream buffered = new BufferedOutputStream(stream, 64 * 1024);
+            try (SheetWriter writer = FORMAT_XLSX.equals(format)
+                    ? new XlsxWriter(buffered, sheetName)
+                    : new CsvWriter(new BufferedWriter(new OutputStreamWriter(buffered, StandardCharsets.UTF_8)))) {
+                writer.writeRow((Object[]) HEADER);
+                DocumentSnapshot cursor = null;
+                while (true) {
+                    QuerySnapshot page = Tasks.await((cursor != null ? range.startAfter(cursor) : range).get());
+                    List<DocumentSnapshot> documents = page.getDocuments();
+                    lookUpStudents(documents, students);
+                    for (DocumentSnapshot record : documents) {
+                        Long timestamp = record.getLong("timestamp");
+                        Date time = new Date(timestamp != null ? timestamp : 0);
+                        String[] student = students.get(record.getString("studentUid"));
+                        writer.writeRow(dateFormat.format(time), timeFormat.format(time),
+                                student != null ? student[0] : null,
+                                student != null ? student[1] : record.getString("studentUid"),
+                                record.getString("department"), record.getString("year"),
+                                record.getString("section"), record.getString("subject"),
+                                record.getString("method"), record.getString("sessionId"));
+                    }
+                    rows += documents.size();
+                    if (documents.size() < PAGE_SIZE) break;
+                    cursor = documents.get(documents.size() - 1);
+                    post(listener, rows, null, false);
+                }
+            }
+            Log.d(TAG, "Exported " + rows + " attendance records for " + students.size() + " students");
+        } catch (IOException | ExecutionException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+        if (failure != null) Log.w(TAG, "Export stopped after " + rows + " rows", failure);
+        post(listener, rows, failure, true);
+    }
+
+    // Fills in student id and name for students not seen on earlier pages
+    private void lookUpStudents(List<DocumentSnapshot> records, HashMap<String, String[]> students)
+            throws ExecutionException, InterruptedException {
+        ArrayList<String> missing = new ArrayList<>();
+        for (DocumentSnapshot record : records) {
+            String uid = record.getString("studentUid");
+            if (uid != null && !students.containsKey(uid)) {
+                students.put(uid, null);
+                missing.add(uid);
+            }
+        }
+        for (int start = 0; start < missing.size(); start += LOOKUP_CHUNK) {
+            List<String> chunk = missing.subList(start, Math.min(start + LOOKUP_CHUNK, missing.size()));
+            QuerySnapshot profiles = Tasks.await(db.collection(ProfileRepository.STUDENTS)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+            for (DocumentSnapshot profile : profiles.getDocuments()) {
+                students.put(profile.getId(),
+                        new String[]{profile.getString("studentId"), profile.getString("studentName")});
+            }
+        }
+    }
+
+    private void post(Listener listener, int rows, @Nullable Exception error, boolean finished) {
+        mainHandler.post(() -> {
+            if (finished) {
+                listener.onFinished(rows, error);
+            } else {
+                listener.onProgress(rows);
+            }
+        });
+    }
+}
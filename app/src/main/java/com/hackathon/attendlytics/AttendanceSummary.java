@@ -0,0 +1,164 @@
+package com.hackathon.attendlytics;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.hackathon.attendlytics.core.AttendanceEvent;
+import com.hackathon.attendlytics.core.AttendanceHistory;
+import com.hackathon.attendlytics.core.AttendanceSession;
+import com.hackathon.attendlytics.core.SectionReport;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-student attendance summary in {@code attendanceSummary/{uid}}, so a student's whole
+ * semester loads with one document read.
+ *
+ * Under {@code terms.{semester}} the document holds {@code subjects.{subject}.held} and
+ * {@code subjects.{subject}.attended}, the keys of the sessions held for the student's section
+ * and of those attended, and {@code days}, the days of the semester the student was present.
+ * The teacher's device writes {@code held} through {@link #writeHeld} when the session starts,
+ * in batches of its own. {@code attended} and {@code days} are written by whichever device
+ * made the mark, through {@link #addPresent} from {@link AttendanceWriteQueue}, in the same
+ * batch as the {@code attendance} document, so they commit atomically with it. As in
+ * {@link SectionStats}, every field is an {@link FieldValue#arrayUnion}, so a replayed batch
+ * changes nothing.
+ */
+public final class AttendanceSummary {
+
+    private static final String TAG = "AttendanceSummary";
+    public static final String COLLECTION = "attendanceSummary";
+
+    private AttendanceSummary() {
+    }
+
+    /**
+     * Counts the session as held for every student on its roster. Commits its own batches, as
+     * a roster may not fit in the batch of the session document.
+     */
+    public static void writeHeld(@NonNull FirebaseFirestore db, @NonNull AttendanceSession session) {
+        String semester = SectionReport.semesterStart(session.getStartedAt());
+        Map<String, Object> subject = new HashMap<>();
+        subject.put("held", FieldValue.arrayUnion(SectionReport.sessionKey(session.getSessionId())));
+        Map<String, Object> update = term(semester, Collections.<String, Object>singletonMap(
+                "subjects", Collections.singletonMap(session.getSubject(), subject)));
+
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (int i = 0; i < session.getRosterSize(); i++) {
+            batch.set(db.collection(COLLECTION).document(session.uidAt(i)), update, SetOptions.merge());
+            if (++writes == AttendanceWriteQueue.MAX_BATCH_SIZE || i == session.getRosterSize() - 1) {
+                int count = writes;
+                batch.commit().addOnFailureListener(e ->
+                        Log.w(TAG, "Failed to count session for " + count + " students", e));
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds one merge write per student in {@code events}. Returns the number of writes added,
+     * at most {@code events.size()}.
+     */
+    public static int addPresent(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                 @NonNull Collection<AttendanceEvent> events) {
+        // uid -> semester -> (subject -> session keys, days)
+        HashMap<String, HashMap<String, Term>> grouped = new HashMap<>();
+        for (AttendanceEvent event : events) {
+            HashMap<String, Term> terms = grouped.get(event.studentUid);
+            if (terms == null) {
+                terms = new HashMap<>();
+                grouped.put(event.studentUid, terms);
+            }
+            long startedAt = SectionReport.sessionStart(event.sessionId, event.timestampMillis);
+            String semester = SectionReport.semesterStart(startedAt);
+            Term term = terms.get(semester);
+            if (term == null) {
+                term = new Term();
+                terms.put(semester, term);
+            }
+            List<String> keys = term.attended.get(event.subject);
+            if (keys == null) {
+                keys = new ArrayList<>(1);
+                term.attended.put(event.subject, keys);
+            }
+            keys.add(SectionReport.sessionKey(event.sessionId));
+            term.days.add((long) AttendanceHistory.dayOfSemester(startedAt));
+        }
+
+        for (Map.Entry<String, HashMap<String, Term>> student : grouped.entrySet()) {
+            Map<String, Object> terms = new HashMap<>();
+            for (Map.Entry<String, Term> entry : student.getValue().entrySet()) {
+                Map<String, Object> subjects = new HashMap<>();
+                for (Map.Entry<String, List<String>> subject : entry.getValue().attended.entrySet()) {
+                    subjects.put(subject.getKey(), Collections.singletonMap("attended",
+                            FieldValue.arrayUnion(subject.getValue().toArray())));
+                }
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("subjects", subjects);
+                fields.put("days", FieldValue.arrayUnion(entry.getValue().days.toArray()));
+                terms.put(entry.getKey(), fields);
+            }
+            batch.set(db.collection(COLLECTION).document(student.getKey()),
+                    Collections.singletonMap("terms", terms), SetOptions.merge());
+        }
+        return grouped.size();
+    }
+
+    /** The student's history for the semester starting in {@code semester}, empty if none. */
+    @NonNull
+    public static AttendanceHistory toHistory(@NonNull DocumentSnapshot document, @NonNull String semester) {
+        Map<String, List<String>> held = new HashMap<>();
+        Map<String, List<String>> attended = new HashMap<>();
+        List<Number> days = new ArrayList<>();
+        Map<?, ?> term = asMap(asMap(document.get("terms")).get(semester));
+        for (Map.Entry<?, ?> subject : asMap(term.get("subjects")).entrySet()) {
+            Map<?, ?> fields = asMap(subject.getValue());
+            held.put(String.valueOf(subject.getKey()), strings(fields.get("held")));
+            attended.put(String.valueOf(subject.getKey()), strings(fields.get("attended")));
+        }
+        Object storedDays = term.get("days");
+        if (storedDays instanceof List) {
+            for (Object day : (List<?>) storedDays) {
+                if (day instanceof Number) days.add((Number) day);
+            }
+        }
+        return AttendanceHistory.build(semester, held, attended, days);
+    }
+
+    private static final class Term {
+        final HashMap<String, List<String>> attended = new HashMap<>();
+        final HashSet<Long> days = new HashSet<>();
+    }
+
+    private static Map<String, Object> term(String semester, Map<String, Object> fields) {
+        return Collections.<String, Object>singletonMap("terms", Collections.singletonMap(semester, fields));
+    }
+
+    private static Map<?, ?> asMap(@Nullable Object value) {
+        return value instanceof Map ? (Map<?, ?>) value : Collections.emptyMap();
+    }
+
+    private static List<String> strings(@Nullable Object value) {
+        List<String> strings = new ArrayList<>();
+        if (!(value instanceof List)) return strings;
+        for (Object item : (List<?>) value) {
+            if (item instanceof String) strings.add((String) item);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,341 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+import com.hackathon.attendlytics.core.AttendanceEvent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent write-ahead queue for attendance events.
+ *
+ * Every {@link #enqueue} is appended to a log file in {@code filesDir} and fsynced before it
+ * is acknowledged, so a mark survives the app being killed on a dead network. Pending events
+ * are kept in memory keyed by their idempotent {@link AttendanceEvent#eventId}; a student
+ * marked twice in the same session coalesces into a single write. Flushes go out as
+ * {@link WriteBatch} commits of at most {@link #MAX_BATCH_SIZE} documents to
+ * {@code attendance/{eventId}}, together with the {@link AttendanceSummary} of each student
+ * marked. A commit that fails for a transient reason, such as no network, is retried with
+ * jittered exponential backoff. One that Firestore rejects outright, e.g. for a permission,
+ * is split in half until the rejected event is alone; that event is moved to a separate
+ * failed log, the user is told, and the rest of the queue carries on. The shared
+ * {@link SectionStats} aggregate is left to the teacher's device, which watches the session's
+ * marks, so students' phones never write to it. Because document ids are deterministic,
+ * replaying a batch after a crash is harmless.
+ *
+ * All state is confined to a single background thread.
+ */
+public final class AttendanceWriteQueue {
+
+    private static final String TAG = "AttendanceWriteQueue";
+    private static final String LOG_FILE = "attendance_queue.log";
+    // Events Firestore rejected, kept for support; never replayed
+    private static final String FAILED_FILE = "attendance_failed.log";
+    static final String COLLECTION = "attendance";
+
+    // Firestore rejects batches with more than 500 writes
+    static final int MAX_BATCH_SIZE = 500;
+    // Each event costs its own write plus at most one student aggregate write
+    private static final int MAX_EVENTS_PER_BATCH = MAX_BATCH_SIZE / 2;
+    // Short delay before a flush so a burst of marks goes out as one batch
+    private static final long COALESCE_DELAY_MS = 750;
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1_000;
+    // Rewrite the log once this many committed records have piled up in it
+    private static final int COMPACT_THRESHOLD = 1_000;
+
+    private static final char RECORD_ADD = 'A';
+    private static final char RECORD_COMMIT = 'C';
+
+    private static volatile AttendanceWriteQueue instance;
+
+    private final Context context;
+    private final File logFile;
+    private final File failedFile;
+    private final CollectionReference collection;
+    private final ScheduledExecutorService executor;
+    private final LinkedHashMap<String, AttendanceEvent> pending = new LinkedHashMap<>();
+
+    private Writer logWriter;
+    private FileOutputStream logStream;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean flushInFlight;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    // Halved on each rejected batch until the rejected event goes out alone
+    private int chunkLimit = MAX_EVENTS_PER_BATCH;
+    private int deadRecords;
+    private volatile int pendingCount;
+
+    private AttendanceWriteQueue(Context context, FirebaseFirestore db) {
+        this.context = context;
+        this.logFile = new File(context.getFilesDir(), LOG_FILE);
+        this.failedFile = new File(context.getFilesDir(), FAILED_FILE);
+        this.collection = db.collection(COLLECTION);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, TAG);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        executor.execute(this::restore);
+    }
+
+    @NonNull
+    public static AttendanceWriteQueue getInstance(@NonNull Context context) {
+        AttendanceWriteQueue queue = instance;
+        if (queue == null) {
+            synchronized (AttendanceWriteQueue.class) {
+                queue = instance;
+                if (queue == null) {
+                    queue = new AttendanceWriteQueue(context.getApplicationContext(), FirebaseFirestore.getInstance());
+                    instance = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /** Durably records {@code event} and schedules a flush. Safe to call from any thread. */
+    public void enqueue(@NonNull AttendanceEvent event) {
+        executor.execute(() -> {
+            if (!appendRecord(RECORD_ADD, event.toLine())) {
+                // Still try to deliver it; it just won't survive a process death
+                Log.w(TAG, "Could not persist " + event.eventId);
+            }
+            if (pending.put(event.eventId, event) != null) {
+                deadRecords++;
+            }
+            pendingCount = pending.size();
+            scheduleFlush(COALESCE_DELAY_MS);
+        });
+    }
+
+    /** Flushes immediately, e.g. when a session ends or connectivity returns. */
+    public void flushNow() {
+        executor.execute(() -> {
+            backoffMs = INITIAL_BACKOFF_MS;
+            scheduleFlush(0);
+        });
+    }
+
+    /** Number of events not yet acknowledged by Firestore. */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (flushInFlight || pending.isEmpty()) return;
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            if (scheduledFlush.getDelay(TimeUnit.MILLISECONDS) <= delayMs) return;
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = executor.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush() {
+        scheduledFlush = null;
+        if (flushInFlight || pending.isEmpty()) return;
+
+        List<AttendanceEvent> chunk = new ArrayList<>(Math.min(pending.size(), chunkLimit));
+        WriteBatch batch = collection.getFirestore().batch();
+        for (AttendanceEvent event : pending.values()) {
+            if (chunk.size() == chunkLimit) break;
+            // Full overwrite keyed by event id, so a replayed batch is a no-op
+            batch.set(collection.document(event.eventId), event.toFirestore());
+            chunk.add(event);
+        }
+        // Array unions of session keys, so the aggregate is just as safe to replay
+        AttendanceSummary.addPresent(collection.getFirestore(), batch, chunk);
+
+        flushInFlight = true;
+        batch.commit().addOnCompleteListener(executor, task -> {
+            flushInFlight = false;
+            if (task.isSuccessful()) {
+                onChunkCommitted(chunk);
+                backoffMs = INITIAL_BACKOFF_MS;
+                scheduleFlush(0);
+            } else if (!isTransient(task.getException())) {
+                onChunkRejected(chunk, task.getException());
+                scheduleFlush(0);
+            } else {
+                long delay = backoffMs + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+                Log.w(TAG, "Batch of " + chunk.size() + " failed, retrying in " + delay + " ms",
+                        task.getException());
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                scheduleFlush(delay);
+            }
+        });
+    }
+
+    private void onChunkCommitted(List<AttendanceEvent> chunk) {
+        for (AttendanceEvent event : chunk) {
+            // A newer mark for the same id may have replaced this one while the batch was out
+            if (pending.get(event.eventId) == event) {
+                pending.remove(event.eventId);
+                appendRecord(RECORD_COMMIT, event.eventId);
+                deadRecords += 2;
+            }
+        }
+        pendingCount = pending.size();
+        Log.d(TAG, "Committed " + chunk.size() + " attendance events, " + pendingCount + " pending");
+        if (deadRecords >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    // Failures worth retrying as they are; anything else fails the same way every time
+    private static boolean isTransient(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) return true;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case RESOURCE_EXHAUSTED:
+            case ABORTED:
+            case INTERNAL:
+            case UNKNOWN:
+            case CANCELLED:
+            // Clears once the user signs in again
+            case UNAUTHENTICATED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void onChunkRejected(List<AttendanceEvent> chunk, Exception e) {
+        if (chunk.size() > 1) {
+            chunkLimit = chunk.size() / 2;
+            Log.w(TAG, "Batch of " + chunk.size() + " rejected, retrying in batches of " + chunkLimit, e);
+            return;
+        }
+        AttendanceEvent event = chunk.get(0);
+        String code = ((FirebaseFirestoreException) e).getCode().name();
+        Log.e(TAG, "Dropping rejected attendance event " + event.eventId, e);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(failedFile, true), StandardCharsets.UTF_8)) {
+            writer.write(code + ' ' + event.toLine() + '\n');
+        } catch (IOException io) {
+            Log.e(TAG, "Failed to record rejected event " + event.eventId, io);
+        }
+        if (pending.get(event.eventId) == event) {
+            pending.remove(event.eventId);
+            appendRecord(RECORD_COMMIT, event.eventId);
+            deadRecords += 2;
+        }
+        pendingCount = pending.size();
+        chunkLimit = MAX_EVENTS_PER_BATCH;
+        new Handler(Looper.getMainLooper()).post(() -> Toast.makeText(context,
+                "Attendance for " + event.subject + " could not be saved (" + code + ")", Toast.LENGTH_LONG).show());
+    }
+
+    private void restore() {
+        if (logFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() < 2) continue;
+                    String body = line.substring(1);
+                    if (line.charAt(0) == RECORD_ADD) {
+                        AttendanceEvent event = AttendanceEvent.fromLine(body);
+                        if (event != null) pending.put(event.eventId, event);
+                    } else if (line.charAt(0) == RECORD_COMMIT) {
+                        pending.remove(body);
+                    }
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read attendance queue log", e);
+            }
+        }
+        // Start every process from a log that holds only what is still pending
+        compact();
+        pendingCount = pending.size();
+        if (!pending.isEmpty()) {
+            Log.d(TAG, "Restored " + pending.size() + " pending attendance events");
+            scheduleFlush(0);
+        }
+    }
+
+    private void compact() {
+        closeLog();
+        File tmp = new File(logFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            for (AttendanceEvent event : pending.values()) {
+                writer.write(RECORD_ADD);
+                writer.write(event.toLine());
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to compact attendance queue log", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(logFile)) {
+            Log.e(TAG, "Failed to replace attendance queue log");
+            tmp.delete();
+            return;
+        }
+        deadRecords = 0;
+    }
+
+    private boolean appendRecord(char type, String body) {
+        try {
+            if (logWriter == null) {
+                logStream = new FileOutputStream(logFile, true);
+                logWriter = new OutputStreamWriter(logStream, StandardCharsets.UTF_8);
+            }
+            logWriter.write(type);
+            logWriter.write(body);
+            logWriter.write('\n');
+            logWriter.flush();
+            // Only adds need to hit the disk before returning; a lost commit record just replays
+            if (type == RECORD_ADD) {
+                logStream.getFD().sync();
+            }
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append to attendance queue log", e);
+            closeLog();
+            return false;
+        }
+    }
+
+    private void closeLog() {
+        if (logWriter != null) {
+            try {
+                logWriter.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close attendance queue log", e);
+            }
+        }
+        logWriter = null;
+        logStream = null;
+    }
+}
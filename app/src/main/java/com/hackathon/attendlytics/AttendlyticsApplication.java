@@ -0,0 +1,47 @@
+package com.hackathon.attendlytics;
+
+import android.app.Application;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.appcheck.FirebaseAppCheck;
+import com.google.firebase.appcheck.debug.DebugAppCheckProviderFactory;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+/**
+ * Keeps application startup off the critical path to the first frame.
+ *
+ * Only App Check is set up on the main thread, and before anything else, so no Firebase
+ * request can go out without it; installing the provider factory is cheap. Auth, Firestore
+ * and the attendance queue are then initialized on one background thread while the activity
+ * inflates, so the first screen that needs them finds them warm.
+ */
+public class AttendlyticsApplication extends Application {
+
+    private static final String TAG = "AttendlyticsApp";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Before any Firestore or Auth request can be made (debug provider for development)
+        FirebaseAppCheck.getInstance().installAppCheckProviderFactory(
+                DebugAppCheckProviderFactory.getInstance());
+        RoleCache.prefetch(this);
+        Thread warmUp = new Thread(this::initInBackground, "StartupInit");
+        warmUp.start();
+    }
+
+    private void initInBackground() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = SystemClock.elapsedRealtime();
+
+        FirebaseAuth.getInstance();
+        FirebaseFirestore.getInstance();
+        // Replays marks left over from a previous run without waiting for the attendance screen
+        AttendanceWriteQueue.getInstance(this);
+
+        Log.d(TAG, "Background init took " + (SystemClock.elapsedRealtime() - start) + " ms");
+    }
+}
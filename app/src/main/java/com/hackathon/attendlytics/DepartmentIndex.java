@@ -0,0 +1,241 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.hackathon.attendlytics.core.HnswIndex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Face index over every enrolled student of one department, for exam halls where students of
+ * all sections and years sit together.
+ *
+ * The {@link HnswIndex} and the students' names are kept in {@code filesDir/faceIndex}. Each
+ * {@link #load} reads the saved index and then pulls only the department's students whose face
+ * was enrolled, updated or withdrawn after the newest template it already holds
+ * ({@code lastFaceUpdateTimestamp}), plus the profiles saved anywhere in the school since the
+ * last load ({@code profileCompletionTimestamp}), so students who moved into or out of the
+ * department are added or dropped. A student left without a usable template is removed from the
+ * index, which stops them being identified. Those timestamps come from students' phones, so the
+ * queries reach {@link SectionTemplateLoader#WATERMARK_OVERLAP_MS} further back and the
+ * watermarks never move past this device's clock; the change time stored per student keeps a
+ * template already inserted from being inserted again. The first load of a department builds
+ * it from scratch. Loading, building and all later searches run on the supplied executor.
+ */
+public final class DepartmentIndex {
+
+    private static final String TAG = "DepartmentIndex";
+    private static final String DIR = "faceIndex";
+    // Negative, so names files from before the profile watermark was stored are discarded
+    private static final int NAMES_FORMAT = -3;
+
+    private final HnswIndex index;
+    private final HashMap<String, String> names;
+    private final HashMap<String, Long> changedAt;
+    // Newest profile change applied; 0 until the index has been built once
+    private long profileWatermark;
+
+    private DepartmentIndex(HnswIndex index, HashMap<String, String> names, HashMap<String, Long> changedAt,
+                            long profileWatermark) {
+        this.index = index;
+        this.names = names;
+        this.changedAt = changedAt;
+        this.profileWatermark = profileWatermark;
+    }
+
+    @NonNull
+    public HnswIndex getIndex() {
+        return index;
+    }
+
+    /** Enrolled students of the department, uid to display name. */
+    @NonNull
+    public Map<String, String> getNames() {
+        return names;
+    }
+
+    @NonNull
+    public static Task<DepartmentIndex> load(@NonNull Context context, @NonNull FirebaseFirestore db,
+                                             @NonNull Executor executor, @NonNull String department) {
+        File dir = new File(context.getApplicationContext().getFilesDir(), DIR);
+        File indexFile = new File(dir, department + ".hnsw");
+        File namesFile = new File(dir, department + ".names");
+        return Tasks.call(executor, () -> readSaved(indexFile, namesFile))
+                .continueWithTask(task -> {
+                    DepartmentIndex saved = task.getResult();
+                    Task<QuerySnapshot> faces = db.collection("users")
+                            .whereEqualTo("department", department)
+                            .whereGreaterThan("lastFaceUpdateTimestamp",
+                                    SectionTemplateLoader.since(saved.index.getWatermark()))
+                            .get();
+                    // Every department, since a student who left this one is only found under their new one.
+                    // A first build already reflects every department change made before it.
+                    Task<QuerySnapshot> profiles = saved.profileWatermark == 0L
+                            ? Tasks.forResult(null)
+                            : db.collection("users")
+                                    .whereGreaterThan("profileCompletionTimestamp",
+                                            SectionTemplateLoader.since(saved.profileWatermark))
+                                    .get();
+                    return Tasks.whenAll(faces, profiles).continueWith(executor, sync -> {
+                        saved.apply(department, faces.getResult(), profiles.getResult(), dir, indexFile,
+                                namesFile);
+                        return saved;
+                    });
+                });
+    }
+
+    // Executor thread
+    private void apply(String department, QuerySnapshot faces, @Nullable QuerySnapshot profiles, File dir,
+                       File indexFile, File namesFile) {
+        if (faces.isEmpty() && profiles != null && profiles.isEmpty()) {
+            Log.d(TAG, "Index for " + indexFile.getName() + " is current: " + index.liveSize() + " students");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long watermark = index.getWatermark();
+        int changed = 0;
+        for (DocumentSnapshot document : faces.getDocuments()) {
+            Long updatedAt = document.getLong("lastFaceUpdateTimestamp");
+            if (updatedAt == null) continue;
+            watermark = SectionTemplateLoader.advance(watermark, updatedAt, now);
+            if (update(document, updatedAt)) changed++;
+        }
+        if (profiles == null) {
+            profileWatermark = now;
+        } else {
+            for (DocumentSnapshot document : profiles.getDocuments()) {
+                Long profileAt = document.getLong("profileCompletionTimestamp");
+                if (profileAt == null) continue;
+                profileWatermark = SectionTemplateLoader.advance(profileWatermark, profileAt, now);
+                if (!department.equals(document.getString("department"))) {
+                    if (remove(document.getId())) changed++;
+                    continue;
+                }
+                // Moved in: their face may be older than anything the face query still reaches
+                Long updatedAt = document.getLong("lastFaceUpdateTimestamp");
+                if (updatedAt != null && update(document, updatedAt)) changed++;
+            }
+        }
+        index.setWatermark(watermark);
+        Log.d(TAG, "Applied " + changed + " changes, index now holds " + index.liveSize() + " students");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Could not create " + dir);
+            return;
+        }
+        try {
+            // Names first: an index newer than its names file would skip those students next time
+            writeNames(names, changedAt, profileWatermark, namesFile);
+            index.save(indexFile);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save " + indexFile.getName() + "; it will be rebuilt next time", e);
+        }
+    }
+
+    // Executor thread. Returns whether the student's entry changed.
+    private boolean update(DocumentSnapshot document, long updatedAt) {
+        String uid = document.getId();
+        // Re-read by the overlap window; adding it again would only leave a dead node behind
+        Long inserted = changedAt.get(uid);
+        if (inserted != null && updatedAt <= inserted) return false;
+        FaceEmbedding template = Boolean.TRUE.equals(document.getBoolean("faceEnrolled"))
+                && !Boolean.TRUE.equals(document.getBoolean("provisioned"))
+                ? SectionTemplateLoader.readTemplate(document) : null;
+        if (template == null || index.add(uid, template.values()) < 0) {
+            // Withdrawn or unreadable: the old template must not keep matching
+            return remove(uid);
+        }
+        String name = document.getString("studentName");
+        names.put(uid, name != null ? name : uid);
+        changedAt.put(uid, updatedAt);
+        return true;
+    }
+
+    private boolean remove(String uid) {
+        names.remove(uid);
+        changedAt.remove(uid);
+        return index.remove(uid);
+    }
+
+    // Executor thread
+    @NonNull
+    private static DepartmentIndex readSaved(File indexFile, File namesFile) {
+        if (indexFile.isFile() && namesFile.isFile()) {
+            try {
+                HnswIndex index = HnswIndex.load(indexFile);
+                HashMap<String, String> names = new HashMap<>();
+                HashMap<String, Long> changedAt = new HashMap<>();
+                long[] profileWatermark = new long[1];
+                if (index.getDimension() == FaceEmbedding.CURRENT_DIMENSION
+                        && readNames(namesFile, names, changedAt, profileWatermark)) {
+                    return new DepartmentIndex(index, names, changedAt, profileWatermark[0]);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Discarding unreadable " + indexFile.getName(), e);
+            }
+        }
+        indexFile.delete();
+        namesFile.delete();
+        return new DepartmentIndex(new HnswIndex(FaceEmbedding.CURRENT_DIMENSION, 256), new HashMap<>(),
+                new HashMap<>(), 0L);
+    }
+
+    private static boolean readNames(File file, Map<String, String> names, Map<String, Long> changedAt,
+                                     long[] profileWatermark) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != NAMES_FORMAT) {
+                Log.d(TAG, "Rebuilding " + file.getName() + " saved in an older format");
+                return false;
+            }
+            profileWatermark[0] = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String uid = in.readUTF();
+                names.put(uid, in.readUTF());
+                changedAt.put(uid, in.readLong());
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable " + file.getName(), e);
+            return false;
+        }
+    }
+
+    private static void writeNames(Map<String, String> names, Map<String, Long> changedAt,
+                                   long profileWatermark, File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(NAMES_FORMAT);
+            out.writeLong(profileWatermark);
+            out.writeInt(names.size());
+            for (Map.Entry<String, String> entry : names.entrySet()) {
+                Long changed = changedAt.get(entry.getKey());
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+                out.writeLong(changed != null ? changed : 0L);
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+}
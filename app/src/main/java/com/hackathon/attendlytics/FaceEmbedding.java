@@ -0,0 +1,153 @@
+package com.hackathon.attendlytics;
+
+import android.graphics.PointF;
+import android.graphics.Rect;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.Blob;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceLandmark;
+import com.hackathon.attendlytics.core.EmbeddingCodec;
+import com.hackathon.attendlytics.core.GeometricEmbedding;
+
+import java.util.List;
+
+/**
+ * Fixed-size face embedding backed by a primitive float array.
+ *
+ * One instance is meant to be reused for every captured frame: {@link #populate(Face)}
+ * overwrites the values in place, so the camera executor does not allocate per frame.
+ * Instances are not thread-safe.
+ * The Firestore form is a {@link Blob} holding the {@link EmbeddingCodec} encoding; the
+ * geometry itself is computed by {@link GeometricEmbedding}.
+ */
+public final class FaceEmbedding {
+
+    // Schema constants live in EmbeddingCodec; aliased here for existing callers
+    public static final int VERSION_LANDMARKS_V1 = EmbeddingCodec.VERSION_LANDMARKS_V1;
+    public static final int DIMENSION_V1 = EmbeddingCodec.DIMENSION_V1;
+    public static final int VERSION_GEOMETRIC_V2 = EmbeddingCodec.VERSION_GEOMETRIC_V2;
+    public static final int DIMENSION_V2 = EmbeddingCodec.DIMENSION_V2;
+    public static final int VERSION_MOBILEFACENET = EmbeddingCodec.VERSION_MOBILEFACENET;
+    public static final int CURRENT_VERSION = EmbeddingCodec.CURRENT_VERSION;
+    public static final int CURRENT_DIMENSION = EmbeddingCodec.CURRENT_DIMENSION;
+
+    // Same order as GeometricEmbedding expects
+    private static final int[] LANDMARKS_V2 = {
+            FaceLandmark.LEFT_EYE,
+            FaceLandmark.RIGHT_EYE,
+            FaceLandmark.NOSE_BASE,
+            FaceLandmark.MOUTH_LEFT,
+            FaceLandmark.MOUTH_RIGHT,
+            FaceLandmark.MOUTH_BOTTOM,
+            FaceLandmark.LEFT_CHEEK,
+            FaceLandmark.RIGHT_CHEEK,
+            FaceLandmark.LEFT_EAR,
+            FaceLandmark.RIGHT_EAR
+    };
+
+    private final int version;
+    private final float[] values;
+    // Raw landmark positions of the frame being populated, reused across frames
+    private final float[] landmarkScratch = new float[GeometricEmbedding.LANDMARK_COUNT * 2];
+
+    public FaceEmbedding() {
+        this(CURRENT_VERSION, new float[CURRENT_DIMENSION]);
+    }
+
+    private FaceEmbedding(int version, float[] values) {
+        this.version = version;
+        this.values = values;
+    }
+
+    /** Wraps an existing array, e.g. a template reduced from several frames. No copy is made. */
+    @NonNull
+    public static FaceEmbedding wrap(int version, @NonNull float[] values) {
+        return new FaceEmbedding(version, values);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public float get(int index) {
+        return values[index];
+    }
+
+    /** Backing array, exposed so matchers can read it without copying. Do not modify. */
+    @NonNull
+    public float[] values() {
+        return values;
+    }
+
+    /**
+     * Overwrites this embedding with the normalized geometry of {@code face}. Returns false
+     * if the face lacks the eye, nose or mouth landmarks the schema is anchored on.
+     * Only identity-bearing geometry is kept: absolute position, head angles, tracking id
+     * and expression probabilities are deliberately left out.
+     */
+    public boolean populate(@NonNull Face face) {
+        if (version != VERSION_GEOMETRIC_V2 || values.length != DIMENSION_V2) {
+            throw new IllegalStateException("Only schema " + VERSION_GEOMETRIC_V2 + " embeddings can be populated");
+        }
+        float[] points = landmarkScratch;
+        for (int i = 0; i < LANDMARKS_V2.length; i++) {
+            FaceLandmark landmark = face.getLandmark(LANDMARKS_V2[i]);
+            if (landmark != null) {
+                PointF position = landmark.getPosition();
+                points[2 * i] = position.x;
+                points[2 * i + 1] = position.y;
+            } else {
+                points[2 * i] = Float.NaN;
+                points[2 * i + 1] = Float.NaN;
+            }
+        }
+        Rect bounds = face.getBoundingBox();
+        return GeometricEmbedding.compute(points, bounds.width(), bounds.height(), values);
+    }
+
+    @NonNull
+    public byte[] toBytes() {
+        return EmbeddingCodec.encode(version, values);
+    }
+
+    @NonNull
+    public Blob toBlob() {
+        return Blob.fromBytes(toBytes());
+    }
+
+    @NonNull
+    public static FaceEmbedding fromBytes(@NonNull byte[] bytes) {
+        return new FaceEmbedding(EmbeddingCodec.version(bytes), EmbeddingCodec.decode(bytes));
+    }
+
+    /**
+     * Reads the {@code faceData} field of a user document. Accepts the blob encoding and the
+     * legacy list-of-numbers encoding written by earlier app versions; returns null otherwise.
+     */
+    @Nullable
+    public static FaceEmbedding fromFirestoreValue(@Nullable Object faceData) {
+        if (faceData instanceof Blob) {
+            return fromBytes(((Blob) faceData).toBytes());
+        }
+        if (faceData instanceof List) {
+            List<?> list = (List<?>) faceData;
+            float[] values = new float[list.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object item = list.get(i);
+                if (!(item instanceof Number)) {
+                    return null;
+                }
+                values[i] = ((Number) item).floatValue();
+            }
+            return new FaceEmbedding(VERSION_LANDMARKS_V1, values);
+        }
+        return null;
+    }
+}
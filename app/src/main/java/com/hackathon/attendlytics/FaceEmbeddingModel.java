@@ -0,0 +1,156 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Rect;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.ImageProxy;
+
+import com.hackathon.attendlytics.core.YuvCrop;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Optional learned embedding stage that runs after ML Kit has found a face.
+ *
+ * Wraps a MobileFaceNet-style TFLite model ({@link #MODEL_ASSET}) on the XNNPACK CPU
+ * delegate. The interpreter, the direct input buffer and the output array are allocated
+ * once in {@link #create(Context)} and reused for every inference. The face crop is sampled
+ * straight from the YUV planes into the input buffer by {@link YuvCrop}, so a frame costs no
+ * Bitmap allocations.
+ *
+ * Off by default: the model is not in this repository, and {@link #create(Context)} returns
+ * null unless the app is built with {@code -Pattendlytics.embeddingModel=true} and the model
+ * placed in {@code app/src/main/assets}. Callers skip this stage when it returns null, so
+ * enrollment and recognition then use the ML Kit landmark templates alone.
+ *
+ * Not thread-safe: create, use and close it on the camera analyzer thread.
+ */
+public final class FaceEmbeddingModel implements AutoCloseable {
+
+    private static final String TAG = "FaceEmbeddingModel";
+    public static final String MODEL_ASSET = "mobilefacenet.tflite";
+    private static final int NUM_THREADS = 2;
+    // Extra context around the ML Kit box; MobileFaceNet is trained on loosely cropped faces
+    private static final float CROP_MARGIN = 0.15f;
+    // MobileFaceNet expects RGB scaled to roughly [-1, 1]
+    private static final float PIXEL_MEAN = 127.5f;
+    private static final float PIXEL_STD = 128f;
+
+    private final Interpreter interpreter;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final int outputSize;
+    private final ByteBuffer input;
+    private final float[][] output;
+
+    private FaceEmbeddingModel(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        int[] inputShape = interpreter.getInputTensor(0).shape();   // [1, H, W, 3]
+        int[] outputShape = interpreter.getOutputTensor(0).shape(); // [1, D]
+        this.inputHeight = inputShape[1];
+        this.inputWidth = inputShape[2];
+        this.outputSize = outputShape[outputShape.length - 1];
+        this.input = ByteBuffer.allocateDirect(inputWidth * inputHeight * 3 * Float.BYTES)
+                .order(ByteOrder.nativeOrder());
+        this.output = new float[1][outputSize];
+    }
+
+    @Nullable
+    public static FaceEmbeddingModel create(@NonNull Context context) {
+        if (!BuildConfig.EMBEDDING_MODEL) return null;
+        try (AssetFileDescriptor fd = context.getAssets().openFd(MODEL_ASSET);
+             FileInputStream stream = new FileInputStream(fd.getFileDescriptor())) {
+            MappedByteBuffer model = stream.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getDeclaredLength());
+            Interpreter.Options options = new Interpreter.Options()
+                    .setNumThreads(NUM_THREADS)
+                    .setUseXNNPACK(true);
+            FaceEmbeddingModel embeddingModel = new FaceEmbeddingModel(new Interpreter(model, options));
+            Log.d(TAG, "Loaded " + MODEL_ASSET + ": input " + embeddingModel.inputWidth + "x"
+                    + embeddingModel.inputHeight + ", " + embeddingModel.outputSize + "-d output");
+            return embeddingModel;
+        } catch (IOException e) {
+            Log.w(TAG, "Embedding model enabled but " + MODEL_ASSET + " is not bundled", e);
+            return null;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to initialize embedding model", e);
+            return null;
+        }
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Crops {@code faceBounds} (in upright, rotation-corrected coordinates as reported by
+     * ML Kit) out of {@code imageProxy}, runs the model and writes the L2-normalized
+     * embedding to {@code out}. Returns false if the crop is empty.
+     */
+    public boolean embed(@NonNull ImageProxy imageProxy, @NonNull Rect faceBounds, @NonNull float[] out) {
+        if (out.length != outputSize) {
+            throw new IllegalArgumentException("Expected output of " + outputSize + ", got " + out.length);
+        }
+        if (!fillInput(imageProxy, faceBounds)) {
+            return false;
+        }
+        interpreter.run(input, output);
+
+        float[] embedding = output[0];
+        float norm = 0f;
+        for (float v : embedding) norm += v * v;
+        if (norm == 0f) return false;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < outputSize; i++) {
+            out[i] = embedding[i] * inv;
+        }
+        return true;
+    }
+
+    private boolean fillInput(ImageProxy imageProxy, Rect faceBounds) {
+        int rotation = imageProxy.getImageInfo().getRotationDegrees();
+        int frameWidth = imageProxy.getWidth();
+        int frameHeight = imageProxy.getHeight();
+        boolean swapped = rotation == 90 || rotation == 270;
+        int uprightWidth = swapped ? frameHeight : frameWidth;
+        int uprightHeight = swapped ? frameWidth : frameHeight;
+
+        // Square crop around the face with some margin, clamped to the upright frame
+        int side = (int) (Math.max(faceBounds.width(), faceBounds.height()) * (1f + 2f * CROP_MARGIN));
+        int left = Math.max(0, faceBounds.centerX() - side / 2);
+        int top = Math.max(0, faceBounds.centerY() - side / 2);
+        int right = Math.min(uprightWidth, left + side);
+        int bottom = Math.min(uprightHeight, top + side);
+        if (right - left < 2 || bottom - top < 2) return false;
+
+        // Sample straight from the YUV planes into the interpreter's input buffer
+        ImageProxy.PlaneProxy[] planes = imageProxy.getPlanes();
+        ImageProxy.PlaneProxy yPlane = planes[0];
+        ImageProxy.PlaneProxy uPlane = planes[1];
+        ImageProxy.PlaneProxy vPlane = planes[2];
+        YuvCrop.cropToFloatRgb(
+                yPlane.getBuffer(), yPlane.getRowStride(), yPlane.getPixelStride(),
+                uPlane.getBuffer(), vPlane.getBuffer(), uPlane.getRowStride(), uPlane.getPixelStride(),
+                frameWidth, frameHeight, rotation,
+                left, top, right, bottom,
+                inputWidth, inputHeight,
+                PIXEL_MEAN, PIXEL_STD, input);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+}
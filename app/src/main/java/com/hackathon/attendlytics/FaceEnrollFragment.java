@@ -1,12 +1,18 @@
 package com.hackathon.attendlytics;
 
 import android.Manifest;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.graphics.PointF;
-import android.graphics.Rect;
 import android.media.Image;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Size;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -23,6 +29,9 @@ import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
@@ -30,7 +39,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Lifecycle;
 import androidx.navigation.fragment.NavHostFragment;
 
-import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -41,29 +50,88 @@ import com.google.mlkit.vision.face.Face;
 import com.google.mlkit.vision.face.FaceDetection;
 import com.google.mlkit.vision.face.FaceDetector;
 import com.google.mlkit.vision.face.FaceDetectorOptions;
-import com.google.mlkit.vision.face.FaceLandmark;
-
-import java.util.ArrayList;
-import java.util.Collections;
+import com.hackathon.attendlytics.core.AnalysisPolicy;
+import com.hackathon.attendlytics.core.EnrollmentAccumulator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class FaceEnrollFragment extends Fragment {
 
     private static final String TAG = "FaceEnrollFragment";
+    private static final String METRICS_FILE = "face_pipeline_metrics.json";
+    private static final long METRICS_REFRESH_MS = 500;
+    // Camera timestamps older than this are from a different clock base and are ignored
+    private static final long MAX_QUEUE_NANOS = 5_000_000_000L;
+    // Consecutive well-scored frames of the same tracked face before a capture may fire
+    private static final int MIN_STABLE_FRAMES = 2;
+    // After this long, capture the best frame seen so far instead of waiting for the threshold
+    private static final long CAPTURE_GRACE_MS = 1500;
+    // Enrollment gives up (or settles for MIN_FRAMES) after this long
+    private static final long ENROLLMENT_TIMEOUT_MS = 10000;
+    // Spacing between enrollment samples so the frames are not near-duplicates
+    private static final long MIN_SAMPLE_INTERVAL_MS = 120;
+    public static final String ARG_ENROLLMENT_FRAMES = "enrollmentFrames";
     private PreviewView previewView;
     private Button buttonCaptureFace;
     private TextView textViewStatus;
     private ProgressBar progressBar;
+    private TextView textViewMetrics;
 
     private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
     private ExecutorService cameraExecutor;
+    // Fast tracker runs on every frame; the accurate detector only on the frame chosen for capture
+    private FaceDetector trackingDetector;
     private FaceDetector faceDetector;
     private ImageAnalysis imageAnalysis; // Member variable, can be nullified
-    private boolean isProcessingFace = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AnalysisPolicy analysisPolicy = new AnalysisPolicy();
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+    private final Runnable metricsRefresher = new Runnable() {
+        @Override
+        public void run() {
+            if (textViewMetrics == null) return;
+            textViewMetrics.setText(metrics.overlayText());
+            mainHandler.postDelayed(this, METRICS_REFRESH_MS);
+        }
+    };
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    // Written by the capture button on the main thread, read by the analyzer thread
+    private volatile boolean captureRequested = false;
+    private volatile long captureRequestedAt;
+    // Analyzer-thread state for the live quality score
+    private float bestQualitySinceRequest;
+    private Integer lastTrackingId;
+    private int stableFrames;
+    private String lastHint;
+    // Reused for every capture so no per-frame feature list is allocated
+    private final FaceEmbedding faceEmbedding = new FaceEmbedding();
+    // Multi-frame enrollment state; only touched on the analyzer thread until completion
+    private EnrollmentAccumulator enrollment;
+    private FaceEmbedding enrolledTemplate;
+    private FaceEmbedding enrolledVariance;
+    private long handledRequestAt;
+    private long lastSampleAt;
+    // Optional learned embedding stage; created lazily on the analyzer thread and only when
+    // the model asset is bundled. Buffers are sized once from the model's output.
+    private Context appContext;
+    private boolean embeddingModelLoaded;
+    private FaceEmbeddingModel embeddingModel;
+    private float[] modelEmbedding;
+    private EnrollmentAccumulator modelEnrollment;
+    private FaceEmbedding enrolledModelTemplate;
+    private volatile boolean modelTemplateReady;
 
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
@@ -88,6 +156,7 @@ public class FaceEnrollFragment extends Fragment {
         super.onCreate(savedInstanceState);
         mAuth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
+        appContext = requireContext().getApplicationContext();
         if (cameraExecutor == null || cameraExecutor.isShutdown()) {
             cameraExecutor = Executors.newSingleThreadExecutor();
         }
@@ -101,6 +170,24 @@ public class FaceEnrollFragment extends Fragment {
                         .setMinFaceSize(0.15f)
                         .build();
         faceDetector = FaceDetection.getClient(highAccuracyOpts);
+
+        FaceDetectorOptions trackingOpts =
+                new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_NONE)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .setMinFaceSize(0.15f)
+                        .enableTracking()
+                        .build();
+        trackingDetector = FaceDetection.getClient(trackingOpts);
+
+        int targetFrames = getArguments() != null
+                ? getArguments().getInt(ARG_ENROLLMENT_FRAMES, EnrollmentAccumulator.DEFAULT_TARGET_FRAMES)
+                : EnrollmentAccumulator.DEFAULT_TARGET_FRAMES;
+        enrollment = new EnrollmentAccumulator(faceEmbedding.size(), targetFrames);
+        enrolledTemplate = FaceEmbedding.wrap(faceEmbedding.getVersion(), new float[faceEmbedding.size()]);
+        enrolledVariance = FaceEmbedding.wrap(faceEmbedding.getVersion(), new float[faceEmbedding.size()]);
     }
 
     @Override
@@ -116,11 +203,21 @@ public class FaceEnrollFragment extends Fragment {
         buttonCaptureFace = view.findViewById(R.id.buttonCaptureFace);
         textViewStatus = view.findViewById(R.id.textViewFaceEnrollStatus);
         progressBar = view.findViewById(R.id.progressBarFaceEnroll);
+        textViewMetrics = view.findViewById(R.id.textViewPipelineMetrics);
+
+        // Latency overlay only on debuggable builds
+        boolean debuggable = (requireContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        if (debuggable && textViewMetrics != null) {
+            textViewMetrics.setVisibility(View.VISIBLE);
+            mainHandler.post(metricsRefresher);
+        }
 
         if (cameraExecutor == null || cameraExecutor.isShutdown()) {
             cameraExecutor = Executors.newSingleThreadExecutor();
         }
 
+        registerThermalListener();
+
         if (allPermissionsGranted()) {
             startCamera();
         } else {
@@ -129,23 +226,46 @@ public class FaceEnrollFragment extends Fragment {
 
         if (buttonCaptureFace != null) {
             buttonCaptureFace.setOnClickListener(v -> {
-                if (!isProcessingFace) {
-                    isProcessingFace = true;
+                if (!captureRequested) {
+                    // The analyzer fires the capture on the next frame the tracker has validated
+                    captureRequestedAt = SystemClock.elapsedRealtime();
+                    captureRequested = true;
                     if (textViewStatus != null) {
                         textViewStatus.setVisibility(View.VISIBLE);
-                        textViewStatus.setText("Processing...");
+                        textViewStatus.setText("Capturing...");
                     }
                     if (progressBar != null) {
                         progressBar.setVisibility(View.VISIBLE);
                     }
-                    if (isAdded() && getContext() != null) {
-                        Toast.makeText(getContext(), "Attempting to capture face...", Toast.LENGTH_SHORT).show();
-                    }
                 }
             });
         }
     }
 
+    private void registerThermalListener() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || thermalListener != null) return;
+        PowerManager powerManager = requireContext().getSystemService(PowerManager.class);
+        if (powerManager == null) return;
+        analysisPolicy.onThermalStatus(powerManager.getCurrentThermalStatus());
+        thermalListener = status -> {
+            Log.d(TAG, "Thermal status changed: " + status);
+            // Rebind only when the analysis resolution actually changes; frame pacing adapts on its own
+            if (analysisPolicy.onThermalStatus(status) && isAdded() && getView() != null) {
+                startCamera();
+            }
+        };
+        powerManager.addThermalStatusListener(ContextCompat.getMainExecutor(requireContext()), thermalListener);
+    }
+
+    private void unregisterThermalListener() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || thermalListener == null) return;
+        PowerManager powerManager = requireContext().getSystemService(PowerManager.class);
+        if (powerManager != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+        }
+        thermalListener = null;
+    }
+
     private boolean allPermissionsGranted() {
         if (getContext() == null) return false;
         return ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED;
@@ -195,7 +315,17 @@ public class FaceEnrollFragment extends Fragment {
                      cameraExecutor = Executors.newSingleThreadExecutor();
                 }
 
+                // Detection does not need more than ~VGA; asking for it explicitly keeps ML Kit
+                // from getting whatever large stream the camera would otherwise pick.
+                ResolutionSelector analysisResolution = new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                        .setResolutionStrategy(new ResolutionStrategy(
+                                new Size(analysisPolicy.getTargetWidth(), analysisPolicy.getTargetHeight()),
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                        .build();
+
                 ImageAnalysis localImageAnalysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(analysisResolution)
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                         .build();
 
@@ -231,70 +361,226 @@ public class FaceEnrollFragment extends Fragment {
     }
 
     private void analyzeImage(@NonNull ImageProxy imageProxy) {
-        if (!isAdded() || faceDetector == null) {
-            Log.w(TAG, "analyzeImage: Fragment not added or FaceDetector is null. Closing image proxy.");
-            imageProxy.close();
-            return;
-        }
+        try {
+            if (!isAdded() || faceDetector == null || trackingDetector == null) {
+                Log.w(TAG, "analyzeImage: Fragment not added or FaceDetector is null. Closing image proxy.");
+                return;
+            }
 
-        @androidx.camera.core.ExperimentalGetImage
-        Image mediaImage = imageProxy.getImage();
-        if (mediaImage != null) {
+            @androidx.camera.core.ExperimentalGetImage
+            Image mediaImage = imageProxy.getImage();
+            if (mediaImage == null) {
+                Log.w(TAG, "analyzeImage: mediaImage is null.");
+                return;
+            }
             InputImage image = InputImage.fromMediaImage(mediaImage, imageProxy.getImageInfo().getRotationDegrees());
 
-            if (image == null) {
-                Log.e(TAG, "analyzeImage: InputImage is null. Skipping face detection.");
-                if (isProcessingFace) {
-                    if (textViewStatus != null) {
-                        textViewStatus.setText("Error processing image. Try again.");
-                    }
-                    isProcessingFace = false;
-                    if (progressBar != null) {
-                         progressBar.setVisibility(View.GONE);
-                    }
+            long frameStart = SystemClock.elapsedRealtimeNanos();
+            if (!analysisPolicy.shouldAnalyze(frameStart)) {
+                return;
+            }
+            // CameraX timestamps normally share the elapsedRealtimeNanos base; skip them if not
+            long queued = frameStart - imageProxy.getImageInfo().getTimestamp();
+            if (queued >= 0 && queued < MAX_QUEUE_NANOS) {
+                metrics.queue.recordNanos(queued);
+            }
+
+            // Load the optional model on the first frame rather than on the capture tap
+            ensureEmbeddingModel();
+
+            // Tier 1: cheap tracking pass on every frame keeps the live quality score current.
+            // Blocking here is fine: we are on the analyzer thread and KEEP_ONLY_LATEST drops
+            // frames that arrive meanwhile.
+            long detectStart = SystemClock.elapsedRealtimeNanos();
+            List<Face> trackedFaces = Tasks.await(trackingDetector.process(image));
+            long detectNanos = SystemClock.elapsedRealtimeNanos() - detectStart;
+            analysisPolicy.recordDetectorLatency(detectNanos);
+            metrics.detector.recordNanos(detectNanos);
+            Face trackedFace = trackedFaces.size() == 1 ? trackedFaces.get(0) : null;
+            float quality = 0f;
+            if (trackedFace != null) {
+                quality = FaceQuality.score(trackedFace, image.getWidth(), image.getHeight());
+                Integer trackingId = trackedFace.getTrackingId();
+                if (trackingId != null && trackingId.equals(lastTrackingId) && quality >= FaceQuality.CAPTURE_THRESHOLD) {
+                    stableFrames++;
+                } else {
+                    stableFrames = quality >= FaceQuality.CAPTURE_THRESHOLD ? 1 : 0;
                 }
-                imageProxy.close();
+                lastTrackingId = trackingId;
+            } else {
+                stableFrames = 0;
+                lastTrackingId = null;
+            }
+
+            if (!captureRequested) {
+                bestQualitySinceRequest = 0f;
+                postStatus(FaceQuality.hint(trackedFace, trackedFaces.size(), image.getWidth(), image.getHeight()));
                 return;
             }
 
-            if (isProcessingFace) {
-                Task<List<Face>> result = faceDetector.process(image)
-                    .addOnSuccessListener(faces -> {
-                        if (!isAdded()) return;
-                        if (faces.isEmpty()) {
-                            if (textViewStatus != null) textViewStatus.setText("No face detected. Try again.");
-                        } else if (faces.size() > 1) {
-                            if (textViewStatus != null) textViewStatus.setText("Multiple faces detected. Ensure only one face is visible.");
-                        } else {
-                            if (textViewStatus != null) textViewStatus.setText("Face detected!");
-                            captureFaceAndStore(faces.get(0));
-                        }
-                        isProcessingFace = false; 
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    })
-                    .addOnFailureListener(e -> {
-                        if (!isAdded()) return;
-                        Log.e(TAG, "Face detection failed", e);
-                        if (textViewStatus != null) textViewStatus.setText("Face detection error. Try again.");
-                        isProcessingFace = false;
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    })
-                    .addOnCompleteListener(task -> imageProxy.close());
+            long requestedAt = captureRequestedAt;
+            if (handledRequestAt != requestedAt) {
+                // New tap: start a fresh multi-frame enrollment
+                handledRequestAt = requestedAt;
+                enrollment.reset();
+                lastSampleAt = 0;
+                if (modelEnrollment != null) {
+                    modelEnrollment.reset();
+                }
+                modelTemplateReady = false;
+            }
+
+            long now = SystemClock.elapsedRealtime();
+            long waited = now - requestedAt;
+            if (waited > ENROLLMENT_TIMEOUT_MS) {
+                if (enrollment.hasMinimumFrames()) {
+                    completeEnrollment();
+                } else {
+                    finishCapture("Could not capture enough clear frames. Try again.");
+                }
+                return;
+            }
+            if (now - lastSampleAt < MIN_SAMPLE_INTERVAL_MS || !isCaptureFrame(quality, waited)) {
+                return;
+            }
+
+            // Tier 2: the accurate detector runs only on frames the tracker already validated
+            long accurateStart = SystemClock.elapsedRealtimeNanos();
+            List<Face> faces = Tasks.await(faceDetector.process(image));
+            metrics.detector.recordNanos(SystemClock.elapsedRealtimeNanos() - accurateStart);
+            if (faces.size() != 1) {
+                // A single bad frame is not fatal during multi-frame enrollment
+                return;
+            }
+            Face face = faces.get(0);
+            long embedStart = SystemClock.elapsedRealtimeNanos();
+            if (!faceEmbedding.populate(face)) {
+                return;
+            }
+            lastSampleAt = now;
+            boolean accepted = enrollment.offer(faceEmbedding.values(),
+                    face.getHeadEulerAngleY(), face.getHeadEulerAngleX(), face.getHeadEulerAngleZ(),
+                    face.getLeftEyeOpenProbability(), face.getRightEyeOpenProbability());
+            // The learned stage only runs on frames the geometric gate already accepted
+            if (accepted && embeddingModel != null
+                    && embeddingModel.embed(imageProxy, face.getBoundingBox(), modelEmbedding)) {
+                modelEnrollment.offer(modelEmbedding,
+                        face.getHeadEulerAngleY(), face.getHeadEulerAngleX(), face.getHeadEulerAngleZ(),
+                        face.getLeftEyeOpenProbability(), face.getRightEyeOpenProbability());
+            }
+            metrics.embedding.recordNanos(SystemClock.elapsedRealtimeNanos() - embedStart);
+
+            if (enrollment.isFull()) {
+                completeEnrollment();
             } else {
-                imageProxy.close();
+                postProgress("Capturing " + enrollment.getAcceptedCount() + "/" + enrollment.getTargetFrames()
+                        + "... hold still");
             }
-        } else {
-            Log.w(TAG, "analyzeImage: mediaImage is null.");
-            if (isProcessingFace) {
-                 if (isAdded() && textViewStatus != null) textViewStatus.setText("Error capturing image. Try again.");
-                isProcessingFace = false;
-                if (isAdded() && progressBar != null) progressBar.setVisibility(View.GONE);
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Face detection failed", e);
+            if (captureRequested) {
+                finishCapture("Face detection error. Try again.");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
             imageProxy.close();
         }
     }
 
-    private void captureFaceAndStore(Face face) {
+    private boolean isCaptureFrame(float quality, long waitedMillis) {
+        if (quality <= 0f) return false;
+        if (quality > bestQualitySinceRequest) {
+            bestQualitySinceRequest = quality;
+            // After the grace period settle for the best frame seen since the button was tapped
+            if (waitedMillis > CAPTURE_GRACE_MS) return true;
+        }
+        return quality >= FaceQuality.CAPTURE_THRESHOLD && stableFrames >= MIN_STABLE_FRAMES;
+    }
+
+    // Called from the analyzer thread once enough frames were accepted
+    private void completeEnrollment() {
+        enrollment.meanInto(enrolledTemplate.values());
+        enrollment.varianceInto(enrolledVariance.values());
+        if (modelEnrollment != null && modelEnrollment.hasMinimumFrames()) {
+            modelEnrollment.meanInto(enrolledModelTemplate.values());
+            modelTemplateReady = true;
+        }
+        int frames = enrollment.getAcceptedCount();
+        Log.d(TAG, "Enrollment complete: " + frames + " frames accepted, " + enrollment.getRejectedCount() + " rejected");
+        finishCapture("Face captured from " + frames + " frames!");
+        mainHandler.post(() -> captureFaceAndStore(frames));
+    }
+
+    // Called from the analyzer thread; the interpreter is created at most once per view
+    private void ensureEmbeddingModel() {
+        if (embeddingModelLoaded) return;
+        embeddingModelLoaded = true;
+        embeddingModel = FaceEmbeddingModel.create(appContext);
+        if (embeddingModel != null) {
+            int size = embeddingModel.getOutputSize();
+            modelEmbedding = new float[size];
+            modelEnrollment = new EnrollmentAccumulator(size, enrollment.getTargetFrames());
+            enrolledModelTemplate = FaceEmbedding.wrap(FaceEmbedding.VERSION_MOBILEFACENET, new float[size]);
+        }
+    }
+
+    // Runs on the analyzer thread after the last in-flight frame
+    private void releaseEmbeddingModel() {
+        if (embeddingModel != null) {
+            embeddingModel.close();
+            embeddingModel = null;
+        }
+        embeddingModelLoaded = false;
+    }
+
+    // Runs on the analyzer thread; the dump can be pulled with adb from the app's cache dir
+    private void dumpMetrics(File target) {
+        String json = metrics.toJson();
+        Log.d(TAG, "Pipeline metrics: " + json);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write pipeline metrics", e);
+        }
+    }
+
+    // Called from the analyzer thread
+    private void postProgress(String message) {
+        lastHint = message;
+        mainHandler.post(() -> {
+            if (isAdded() && textViewStatus != null && captureRequested) {
+                textViewStatus.setText(message);
+            }
+        });
+    }
+
+    // Called from the analyzer thread
+    private void finishCapture(String message) {
+        captureRequested = false;
+        bestQualitySinceRequest = 0f;
+        lastHint = message;
+        mainHandler.post(() -> {
+            if (!isAdded()) return;
+            if (textViewStatus != null) textViewStatus.setText(message);
+            if (progressBar != null) progressBar.setVisibility(View.GONE);
+        });
+    }
+
+    // Called from the analyzer thread; only touches the UI when the hint actually changes
+    private void postStatus(String hint) {
+        if (hint.equals(lastHint)) return;
+        lastHint = hint;
+        mainHandler.post(() -> {
+            if (isAdded() && textViewStatus != null && !captureRequested) {
+                textViewStatus.setVisibility(View.VISIBLE);
+                textViewStatus.setText(hint);
+            }
+        });
+    }
+
+    // Runs on the main thread once the analyzer has reduced the enrollment frames
+    private void captureFaceAndStore(int frameCount) {
         if (!isAdded() || getContext() == null) return;
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
@@ -303,33 +589,35 @@ public class FaceEnrollFragment extends Fragment {
         }
         String uid = currentUser.getUid();
         
-        // Generate face embeddings from detected face features
-        List<Float> faceEmbedding = generateFaceEmbedding(face);
-        
-        if (faceEmbedding.isEmpty()) {
-            Toast.makeText(getContext(), "Failed to generate face features. Please try again.", Toast.LENGTH_LONG).show();
-            return;
-        }
-        
         Map<String, Object> faceDataUpdate = new HashMap<>();
-        faceDataUpdate.put("faceData", faceEmbedding);
+        faceDataUpdate.put("faceData", enrolledTemplate.toBlob());
+        faceDataUpdate.put("faceDataVariance", enrolledVariance.toBlob());
+        faceDataUpdate.put("faceEnrollmentFrames", frameCount);
+        if (modelTemplateReady) {
+            faceDataUpdate.put("faceModelData", enrolledModelTemplate.toBlob());
+            faceDataUpdate.put("faceModelVersion", enrolledModelTemplate.getVersion());
+        }
         faceDataUpdate.put("faceEnrollmentTimestamp", System.currentTimeMillis());
         faceDataUpdate.put("faceEnrollmentDate", new java.util.Date());
         faceDataUpdate.put("faceEnrolled", true);
-        faceDataUpdate.put("faceEmbeddingSize", faceEmbedding.size());
-        faceDataUpdate.put("faceEnrollmentMethod", "ml_kit_landmarks");
+        faceDataUpdate.put("faceEmbeddingSize", enrolledTemplate.size());
+        faceDataUpdate.put("faceEmbeddingVersion", enrolledTemplate.getVersion());
+        faceDataUpdate.put("faceEnrollmentMethod", "ml_kit_landmarks_multiframe");
         faceDataUpdate.put("lastFaceUpdateTimestamp", System.currentTimeMillis());
         
         Log.d(TAG, "Storing face enrollment data for user: " + uid);
-        Log.d(TAG, "Face embedding contains " + faceEmbedding.size() + " features");
+        Log.d(TAG, "Face template contains " + enrolledTemplate.size() + " features averaged over " + frameCount + " frames");
 
         // Use set with merge option instead of update for new users
+        ProfileRepository.getInstance(requireContext()).invalidate(ProfileRepository.STUDENTS, uid);
+        long writeStart = SystemClock.elapsedRealtimeNanos();
         db.collection("users").document(uid)
                 .set(faceDataUpdate, SetOptions.merge())
                 .addOnSuccessListener(aVoid -> {
+                    metrics.firestoreWrite.recordNanos(SystemClock.elapsedRealtimeNanos() - writeStart);
                     if (!isAdded() || getContext() == null) return;
-                    Log.d(TAG, "Face enrollment successful for user: " + uid + " with " + faceEmbedding.size() + " features");
-                    Toast.makeText(getContext(), "Face enrollment successful! " + faceEmbedding.size() + " features captured.", Toast.LENGTH_LONG).show();
+                    Log.d(TAG, "Face enrollment successful for user: " + uid + " with " + enrolledTemplate.size() + " features");
+                    Toast.makeText(getContext(), "Face enrollment successful! " + frameCount + " frames captured.", Toast.LENGTH_LONG).show();
                     NavHostFragment.findNavController(FaceEnrollFragment.this)
                         .navigate(R.id.action_faceEnrollFragment_to_captchaFragment);
                 })
@@ -342,7 +630,7 @@ public class FaceEnrollFragment extends Fragment {
                         if (errorMessage.contains("Cloud Firestore API has not been used")) {
                             Toast.makeText(getContext(), "⚠️ Firestore API not enabled. Please enable it in Firebase Console.\n\nFor now, continuing without cloud storage...", Toast.LENGTH_LONG).show();
                             // Continue to next step even without cloud storage
-                            Log.d(TAG, "Face embedding generated locally with " + faceEmbedding.size() + " features");
+                            Log.d(TAG, "Face embedding generated locally with " + enrolledTemplate.size() + " features");
                             NavHostFragment.findNavController(FaceEnrollFragment.this)
                                 .navigate(R.id.action_faceEnrollFragment_to_captchaFragment);
                         } else {
@@ -356,141 +644,10 @@ public class FaceEnrollFragment extends Fragment {
                 });
     }
 
-    private List<Float> generateFaceEmbedding(Face face) {
-        List<Float> embedding = new ArrayList<>();
-        
-        try {
-            // Get face bounding box coordinates
-            Rect bounds = face.getBoundingBox();
-            embedding.add((float) bounds.left);
-            embedding.add((float) bounds.top);
-            embedding.add((float) bounds.right);
-            embedding.add((float) bounds.bottom);
-            
-            // Add face rotation angles
-            embedding.add(face.getHeadEulerAngleX()); // Pitch
-            embedding.add(face.getHeadEulerAngleY()); // Yaw
-            embedding.add(face.getHeadEulerAngleZ()); // Roll
-            
-            // Add landmark positions if available
-            FaceLandmark leftEye = face.getLandmark(FaceLandmark.LEFT_EYE);
-            if (leftEye != null) {
-                PointF leftEyePos = leftEye.getPosition();
-                embedding.add(leftEyePos.x);
-                embedding.add(leftEyePos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark rightEye = face.getLandmark(FaceLandmark.RIGHT_EYE);
-            if (rightEye != null) {
-                PointF rightEyePos = rightEye.getPosition();
-                embedding.add(rightEyePos.x);
-                embedding.add(rightEyePos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark nose = face.getLandmark(FaceLandmark.NOSE_BASE);
-            if (nose != null) {
-                PointF nosePos = nose.getPosition();
-                embedding.add(nosePos.x);
-                embedding.add(nosePos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark mouth = face.getLandmark(FaceLandmark.MOUTH_BOTTOM);
-            if (mouth != null) {
-                PointF mouthPos = mouth.getPosition();
-                embedding.add(mouthPos.x);
-                embedding.add(mouthPos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark leftEar = face.getLandmark(FaceLandmark.LEFT_EAR);
-            if (leftEar != null) {
-                PointF leftEarPos = leftEar.getPosition();
-                embedding.add(leftEarPos.x);
-                embedding.add(leftEarPos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark rightEar = face.getLandmark(FaceLandmark.RIGHT_EAR);
-            if (rightEar != null) {
-                PointF rightEarPos = rightEar.getPosition();
-                embedding.add(rightEarPos.x);
-                embedding.add(rightEarPos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark leftCheek = face.getLandmark(FaceLandmark.LEFT_CHEEK);
-            if (leftCheek != null) {
-                PointF leftCheekPos = leftCheek.getPosition();
-                embedding.add(leftCheekPos.x);
-                embedding.add(leftCheekPos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            FaceLandmark rightCheek = face.getLandmark(FaceLandmark.RIGHT_CHEEK);
-            if (rightCheek != null) {
-                PointF rightCheekPos = rightCheek.getPosition();
-                embedding.add(rightCheekPos.x);
-                embedding.add(rightCheekPos.y);
-            } else {
-                embedding.add(0f);
-                embedding.add(0f);
-            }
-            
-            // Add face dimensions as ratios for better comparison
-            float faceWidth = bounds.width();
-            float faceHeight = bounds.height();
-            embedding.add(faceWidth);
-            embedding.add(faceHeight);
-            embedding.add(faceWidth / faceHeight); // Aspect ratio
-            
-            // Add confidence score if available
-            if (face.getTrackingId() != null) {
-                embedding.add((float) face.getTrackingId());
-            } else {
-                embedding.add(1.0f); // Default confidence
-            }
-            
-            // Add classification features (smile, eye open probabilities)
-            float leftEyeOpenProb = face.getLeftEyeOpenProbability() != null ? 
-                face.getLeftEyeOpenProbability() : 0.5f;
-            float rightEyeOpenProb = face.getRightEyeOpenProbability() != null ? 
-                face.getRightEyeOpenProbability() : 0.5f;
-            float smilingProb = face.getSmilingProbability() != null ? 
-                face.getSmilingProbability() : 0.5f;
-                
-            embedding.add(leftEyeOpenProb);
-            embedding.add(rightEyeOpenProb);
-            embedding.add(smilingProb);
-            
-            Log.d(TAG, "Generated face embedding with " + embedding.size() + " features");
-            return embedding;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error generating face embedding", e);
-            return new ArrayList<>();
-        }
-    }
-
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        unregisterThermalListener();
         try {
             if (cameraProviderFuture != null && cameraProviderFuture.isDone()) {
                 // Use get() as isDone() is true; handle potential exceptions.
@@ -505,17 +662,36 @@ public class FaceEnrollFragment extends Fragment {
 
         if (cameraExecutor != null) {
             if (!cameraExecutor.isShutdown()) {
+                // Queued before shutdown, so it runs after any frame still being analyzed
+                cameraExecutor.execute(this::releaseEmbeddingModel);
+                File metricsFile = new File(requireContext().getCacheDir(), METRICS_FILE);
+                cameraExecutor.execute(() -> dumpMetrics(metricsFile));
                 cameraExecutor.shutdown();
             }
             cameraExecutor = null;
         }
-        faceDetector = null;
-        
+        captureRequested = false;
+        mainHandler.removeCallbacksAndMessages(null);
+
         previewView = null;
+        textViewMetrics = null;
         buttonCaptureFace = null;
         textViewStatus = null;
         progressBar = null;
         imageAnalysis = null;
         cameraProviderFuture = null;
     }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (faceDetector != null) {
+            faceDetector.close();
+            faceDetector = null;
+        }
+        if (trackingDetector != null) {
+            trackingDetector.close();
+            trackingDetector = null;
+        }
+    }
 }
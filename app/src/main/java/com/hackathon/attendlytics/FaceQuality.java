@@ -0,0 +1,82 @@
+package com.hackathon.attendlytics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.mlkit.vision.face.Face;
+
+/**
+ * Scores how usable a tracked face is for enrollment or matching, from 0 (unusable) to 1.
+ * Only reads values the fast tracker already computed, so it is cheap enough to run on
+ * every analysis frame.
+ */
+public final class FaceQuality {
+
+    // Face width as a fraction of the shorter frame side at which size stops mattering
+    private static final float IDEAL_FACE_FRACTION = 0.35f;
+    // Faces smaller than this are too far away to give stable landmarks
+    private static final float MIN_FACE_FRACTION = 0.12f;
+    // Head rotation (degrees) beyond which a frame is rejected outright
+    private static final float MAX_YAW_DEGREES = 30f;
+    private static final float MAX_PITCH_DEGREES = 25f;
+    private static final float MAX_ROLL_DEGREES = 25f;
+
+    public static final float CAPTURE_THRESHOLD = 0.6f;
+
+    private FaceQuality() {
+    }
+
+    public static float score(@NonNull Face face, int frameWidth, int frameHeight) {
+        int shortSide = Math.min(frameWidth, frameHeight);
+        if (shortSide <= 0) return 0f;
+        float faceFraction = face.getBoundingBox().width() / (float) shortSide;
+        return score(faceFraction,
+                face.getHeadEulerAngleY(),
+                face.getHeadEulerAngleX(),
+                face.getHeadEulerAngleZ(),
+                face.getLeftEyeOpenProbability(),
+                face.getRightEyeOpenProbability());
+    }
+
+    public static float score(float faceFraction, float yaw, float pitch, float roll,
+                              @Nullable Float leftEyeOpen, @Nullable Float rightEyeOpen) {
+        if (faceFraction < MIN_FACE_FRACTION) return 0f;
+        float sizeScore = Math.min(1f, (faceFraction - MIN_FACE_FRACTION)
+                / (IDEAL_FACE_FRACTION - MIN_FACE_FRACTION));
+
+        float yawScore = 1f - Math.abs(yaw) / MAX_YAW_DEGREES;
+        float pitchScore = 1f - Math.abs(pitch) / MAX_PITCH_DEGREES;
+        float rollScore = 1f - Math.abs(roll) / MAX_ROLL_DEGREES;
+        if (yawScore <= 0f || pitchScore <= 0f || rollScore <= 0f) return 0f;
+        float poseScore = yawScore * pitchScore * rollScore;
+
+        // Missing classification counts as neutral rather than closed
+        float left = leftEyeOpen != null ? leftEyeOpen : 0.5f;
+        float right = rightEyeOpen != null ? rightEyeOpen : 0.5f;
+        float eyeScore = Math.min(left, right);
+
+        return sizeScore * (0.6f * poseScore + 0.4f * eyeScore);
+    }
+
+    /** Short user-facing hint explaining what is holding the score down. */
+    @NonNull
+    public static String hint(@Nullable Face face, int faceCount, int frameWidth, int frameHeight) {
+        if (faceCount == 0 || face == null) return "Position face in camera view";
+        if (faceCount > 1) return "Multiple faces detected. Ensure only one face is visible.";
+        int shortSide = Math.min(frameWidth, frameHeight);
+        if (shortSide > 0 && face.getBoundingBox().width() / (float) shortSide < IDEAL_FACE_FRACTION * 0.7f) {
+            return "Move closer to the camera";
+        }
+        if (Math.abs(face.getHeadEulerAngleY()) > MAX_YAW_DEGREES * 0.5f
+                || Math.abs(face.getHeadEulerAngleX()) > MAX_PITCH_DEGREES * 0.5f
+                || Math.abs(face.getHeadEulerAngleZ()) > MAX_ROLL_DEGREES * 0.5f) {
+            return "Look straight at the camera";
+        }
+        Float left = face.getLeftEyeOpenProbability();
+        Float right = face.getRightEyeOpenProbability();
+        if ((left != null && left < 0.4f) || (right != null && right < 0.4f)) {
+            return "Keep your eyes open";
+        }
+        return "Face looks good. Tap Capture Face.";
+    }
+}
@@ -312,6 +312,7 @@ public class LoginFragment extends Fragment {
             Log.d(TAG, "Storing comprehensive user data for UID: " + uid);
             Log.d(TAG, "Phone: " + validatedPhoneNumber + ", Email: " + validatedEmail);
 
+            ProfileRepository.getInstance(requireContext()).invalidate(ProfileRepository.STUDENTS, uid);
             db.collection("users").document(uid)
                 .set(userData) // set() will create or overwrite
                 .addOnSuccessListener(aVoid -> {
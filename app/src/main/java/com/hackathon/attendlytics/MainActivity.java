@@ -11,15 +11,11 @@ import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.navigation.NavController;
-import androidx.navigation.fragment.NavHostFragment;
+import androidx.navigation.NavGraph;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 
-import com.google.firebase.appcheck.FirebaseAppCheck;
-import com.google.firebase.appcheck.playintegrity.PlayIntegrityAppCheckProviderFactory;
-import com.google.firebase.appcheck.debug.DebugAppCheckProviderFactory;
-
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
@@ -31,12 +27,7 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         Log.d(TAG, "onCreate: Starting.");
 
-        // Initialize Firebase App Check (using debug provider for development)
-        FirebaseAppCheck firebaseAppCheck = FirebaseAppCheck.getInstance();
-        firebaseAppCheck.installAppCheckProviderFactory(
-            DebugAppCheckProviderFactory.getInstance()
-        );
-
+        // Firebase App Check is installed by AttendlyticsApplication before this runs
         setContentView(R.layout.activity_main);
         Log.d(TAG, "onCreate: setContentView completed.");
 
@@ -85,6 +76,16 @@ public class MainActivity extends AppCompatActivity {
         navController = navHostFragment.getNavController();
         Log.d(TAG, "setupNavigation: NavController obtained");
 
+        // The graph is set here rather than in the layout so a returning user starts on their dashboard
+        NavGraph graph = navController.getNavInflater().inflate(R.navigation.nav_graph);
+        graph.setStartDestination(startDestination());
+        // Benchmark builds only: lets the macrobenchmark open enrollment without going through sign-up
+        String enrollLink = getString(R.string.enroll_deep_link);
+        if (!enrollLink.isEmpty()) {
+            graph.findNode(R.id.faceEnrollFragment).addDeepLink(enrollLink);
+        }
+        navController.setGraph(graph, null);
+
         // Create AppBarConfiguration
         appBarConfiguration = new AppBarConfiguration.Builder(navController.getGraph()).build();
         Log.d(TAG, "setupNavigation: AppBarConfiguration built");
@@ -104,6 +105,17 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // Decided from the role cache alone; Auth may still be loading on the startup thread
+    private int startDestination() {
+        String role = RoleCache.getRole(this);
+        if (RoleCache.ROLE_STUDENT.equals(role)) {
+            return R.id.studentDashboardFragment;
+        } else if (RoleCache.ROLE_TEACHER.equals(role)) {
+            return R.id.teacherDashboardFragment;
+        }
+        return R.id.roleSelectionFragment;
+    }
+
     private void setupWindowInsets() {
         ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
             Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
@@ -0,0 +1,70 @@
+package com.hackathon.attendlytics;
+
+import com.hackathon.attendlytics.core.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * Process-wide latency histograms for the face pipeline, one per stage.
+ *
+ * Stages: time a frame waited between capture and analysis, ML Kit detection, embedding
+ * (geometry plus the optional model), QR decoding, and the Firestore write of the result.
+ * Shared by every screen that runs the pipeline so a debug dump covers the whole session.
+ */
+public final class PipelineMetrics {
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    public final LatencyHistogram queue = new LatencyHistogram();
+    public final LatencyHistogram detector = new LatencyHistogram();
+    public final LatencyHistogram embedding = new LatencyHistogram();
+    public final LatencyHistogram qrDecode = new LatencyHistogram();
+    public final LatencyHistogram firestoreWrite = new LatencyHistogram();
+
+    private PipelineMetrics() {
+    }
+
+    public static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    public void reset() {
+        queue.reset();
+        detector.reset();
+        embedding.reset();
+        qrDecode.reset();
+        firestoreWrite.reset();
+    }
+
+    public String toJson() {
+        StringBuilder out = new StringBuilder(512);
+        out.append("{\"queue\":");
+        queue.appendJson(out);
+        out.append(",\"detector\":");
+        detector.appendJson(out);
+        out.append(",\"embedding\":");
+        embedding.appendJson(out);
+        out.append(",\"qrDecode\":");
+        qrDecode.appendJson(out);
+        out.append(",\"firestoreWrite\":");
+        firestoreWrite.appendJson(out);
+        out.append('}');
+        return out.toString();
+    }
+
+    /** Compact multi-line p50/p95 summary for the debug overlay. */
+    public String overlayText() {
+        return line("queue", queue) + "\n"
+                + line("detect", detector) + "\n"
+                + line("embed", embedding) + "\n"
+                + line("qr", qrDecode) + "\n"
+                + line("write", firestoreWrite);
+    }
+
+    private static String line(String label, LatencyHistogram histogram) {
+        return String.format(Locale.US, "%-6s n=%-5d p50 %5.1fms p95 %5.1fms",
+                label, histogram.getCount(),
+                histogram.getPercentileMicros(50) / 1000.0,
+                histogram.getPercentileMicros(95) / 1000.0);
+    }
+}
@@ -0,0 +1,362 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of student and teacher profile documents in front of Firestore.
+ *
+ * Profiles live in an in-memory LRU backed by one small JSON snapshot per profile in
+ * {@code cacheDir}, so a dashboard can render from the last known profile before the network
+ * answers. {@link #fetch} serves a cached profile younger than the caller's limit and goes to
+ * Firestore otherwise; {@link #observe} delivers the cached profile first and then keeps it
+ * current through a snapshot listener, notifying only when a field actually changed.
+ *
+ * Only plain fields (strings, booleans and numbers) are cached; blobs such as
+ * {@code faceData} are read from Firestore by the screens that need them. Call from the main
+ * thread; callbacks are delivered on the main thread.
+ */
+public final class ProfileRepository {
+
+    private static final String TAG = "ProfileRepository";
+    public static final String STUDENTS = "users";
+    public static final String TEACHERS = "teachers";
+
+    /** Profiles younger than this are served by {@link #fetch} without a server round-trip. */
+    public static final long FRESH_MILLIS = 60_000;
+    private static final String CACHE_DIR = "profiles";
+    private static final int MEMORY_ENTRIES = 16;
+
+    public interface Callback {
+        void onProfile(@NonNull Profile profile);
+
+        void onError(@NonNull Exception e);
+    }
+
+    /** Immutable copy of a profile document's plain fields. */
+    public static final class Profile {
+        private final String uid;
+        @Nullable
+        private final Map<String, Object> fields;
+        private final long fetchedAt;
+
+        Profile(@NonNull String uid, @Nullable Map<String, Object> fields, long fetchedAt) {
+            this.uid = uid;
+            this.fields = fields;
+            this.fetchedAt = fetchedAt;
+        }
+
+        @NonNull
+        public String getUid() {
+            return uid;
+        }
+
+        /** False if the document does not exist. */
+        public boolean exists() {
+            return fields != null;
+        }
+
+        @Nullable
+        public String getString(@NonNull String field) {
+            Object value = fields != null ? fields.get(field) : null;
+            return value instanceof String ? (String) value : null;
+        }
+
+        @Nullable
+        public Boolean getBoolean(@NonNull String field) {
+            Object value = fields != null ? fields.get(field) : null;
+            return value instanceof Boolean ? (Boolean) value : null;
+        }
+
+        @Nullable
+        public Long getLong(@NonNull String field) {
+            Object value = fields != null ? fields.get(field) : null;
+            return value instanceof Number ? ((Number) value).longValue() : null;
+        }
+
+        /** Wall-clock time the server last confirmed this profile. */
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+
+        boolean sameFieldsAs(@Nullable Profile other) {
+            if (other == null) return false;
+            return fields == null ? other.fields == null : fields.equals(other.fields);
+        }
+    }
+
+    private static volatile ProfileRepository instance;
+
+    private final FirebaseFirestore db;
+    private final File cacheDir;
+    private final LruCache<String, Profile> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ProfileRepository(File cacheDir, FirebaseFirestore db) {
+        this.cacheDir = cacheDir;
+        this.db = db;
+    }
+
+    @NonNull
+    public static ProfileRepository getInstance(@NonNull Context context) {
+        ProfileRepository repository = instance;
+        if (repository == null) {
+            synchronized (ProfileRepository.class) {
+                repository = instance;
+                if (repository == null) {
+                    File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+                    repository = new ProfileRepository(dir, FirebaseFirestore.getInstance());
+                    instance = repository;
+                }
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * Delivers the profile exactly once: from cache if it was confirmed within
+     * {@code maxAgeMillis}, from Firestore otherwise. If Firestore fails, a stale cached
+     * profile is delivered rather than an error.
+     */
+    public void fetch(@NonNull String collection, @NonNull String uid, long maxAgeMillis,
+                      @NonNull Callback callback) {
+        readCached(collection, uid, cached -> {
+            if (cached != null && System.currentTimeMillis() - cached.fetchedAt <= maxAgeMillis) {
+                callback.onProfile(cached);
+                return;
+            }
+            db.collection(collection).document(uid)
+                    .get()
+                    .addOnSuccessListener(snapshot -> callback.onProfile(store(collection, snapshot)))
+                    .addOnFailureListener(e -> {
+                        if (cached != null) {
+                            Log.w(TAG, "Serving stale " + collection + "/" + uid, e);
+                            callback.onProfile(cached);
+                        } else {
+                            callback.onError(e);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Delivers the cached profile, if any, then every change seen by a Firestore snapshot
+     * listener until the returned registration is removed. Unchanged snapshots are not
+     * delivered again.
+     */
+    @NonNull
+    public ListenerRegistration observe(@NonNull String collection, @NonNull String uid,
+                                        @NonNull Callback callback) {
+        Observation observation = new Observation();
+        readCached(collection, uid, cached -> {
+            if (observation.removed) return;
+            if (cached != null) {
+                observation.last = cached;
+                callback.onProfile(cached);
+            }
+            long listenStart = SystemClock.elapsedRealtime();
+            observation.firestore = db.collection(collection).document(uid)
+                    .addSnapshotListener((snapshot, e) -> {
+                        if (observation.removed) return;
+                        if (e != null) {
+                            Log.w(TAG, "Listener failed for " + collection + "/" + uid, e);
+                            if (observation.last == null) callback.onError(e);
+                            return;
+                        }
+                        if (snapshot == null) return;
+                        Profile profile = store(collection, snapshot);
+                        if (profile.sameFieldsAs(observation.last)) return;
+                        Log.d(TAG, collection + "/" + uid + " changed "
+                                + (SystemClock.elapsedRealtime() - listenStart) + " ms after listening");
+                        observation.last = profile;
+                        callback.onProfile(profile);
+                    });
+        });
+        return observation;
+    }
+
+    /** Drops a profile so the next read goes to Firestore. Call before writing the document. */
+    public void invalidate(@NonNull String collection, @NonNull String uid) {
+        String key = key(collection, uid);
+        memory.remove(key);
+        io.execute(() -> fileFor(key).delete());
+    }
+
+    /** Forgets every cached profile, e.g. on sign-out. */
+    public void clear() {
+        memory.evictAll();
+        io.execute(() -> {
+            File[] files = cacheDir.listFiles();
+            if (files == null) return;
+            for (File file : files) {
+                file.delete();
+            }
+        });
+    }
+
+    private static final class Observation implements ListenerRegistration {
+        // Main thread only
+        boolean removed;
+        Profile last;
+        ListenerRegistration firestore;
+
+        @Override
+        public void remove() {
+            removed = true;
+            if (firestore != null) {
+                firestore.remove();
+                firestore = null;
+            }
+        }
+    }
+
+    private interface CachedRead {
+        void onCached(@Nullable Profile cached);
+    }
+
+    // Memory hits answer synchronously; disk reads answer on the main thread
+    private void readCached(String collection, String uid, CachedRead read) {
+        String key = key(collection, uid);
+        Profile cached = memory.get(key);
+        if (cached != null) {
+            read.onCached(cached);
+            return;
+        }
+        io.execute(() -> {
+            Profile fromDisk = readFile(uid, fileFor(key));
+            mainHandler.post(() -> {
+                // A fresher copy may have been stored while the file was being read
+                Profile current = memory.get(key);
+                if (current == null && fromDisk != null) {
+                    memory.put(key, fromDisk);
+                    current = fromDisk;
+                }
+                read.onCached(current);
+            });
+        });
+    }
+
+    private Profile store(String collection, DocumentSnapshot snapshot) {
+        String key = key(collection, snapshot.getId());
+        Map<String, Object> fields = snapshot.exists() ? plainFields(snapshot.getData()) : null;
+        // Firestore's own offline cache does not count as confirmation from the server
+        Profile previous = memory.get(key);
+        long fetchedAt = snapshot.getMetadata().isFromCache() && previous != null
+                ? previous.fetchedAt : System.currentTimeMillis();
+        Profile profile = new Profile(snapshot.getId(), fields, fetchedAt);
+        if (fields == null) {
+            memory.remove(key);
+            io.execute(() -> fileFor(key).delete());
+        } else {
+            memory.put(key, profile);
+            io.execute(() -> writeFile(profile, fileFor(key)));
+        }
+        return profile;
+    }
+
+    private static Map<String, Object> plainFields(@Nullable Map<String, Object> data) {
+        HashMap<String, Object> fields = new HashMap<>();
+        if (data == null) return fields;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = normalize(entry.getValue());
+            if (value != null) fields.put(entry.getKey(), value);
+        }
+        return fields;
+    }
+
+    // JSON hands back Integers where Firestore had Longs; normalize both sides so they compare equal
+    @Nullable
+    private static Object normalize(Object value) {
+        if (value instanceof String || value instanceof Boolean || value instanceof Double) return value;
+        if (value instanceof Float) return ((Float) value).doubleValue();
+        if (value instanceof Number) return ((Number) value).longValue();
+        return null;
+    }
+
+    private String key(String collection, String uid) {
+        return collection + "_" + uid;
+    }
+
+    private File fileFor(String key) {
+        return new File(cacheDir, key + ".json");
+    }
+
+    // IO thread
+    private void writeFile(Profile profile, File file) {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("fetchedAt", profile.fetchedAt);
+            json.put("fields", new JSONObject(profile.fields));
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+                Log.w(TAG, "Could not create profile cache directory");
+                return;
+            }
+            // Write then rename, so a reader never sees half a snapshot
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (!tmp.renameTo(file)) {
+                Log.w(TAG, "Could not replace " + file.getName());
+                tmp.delete();
+            }
+        } catch (JSONException | IOException e) {
+            Log.w(TAG, "Could not cache " + file.getName(), e);
+        }
+    }
+
+    // IO thread
+    @Nullable
+    private static Profile readFile(String uid, File file) {
+        if (!file.isFile()) return null;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int n = in.read(bytes, read, bytes.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+            JSONObject json = new JSONObject(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            JSONObject stored = json.getJSONObject("fields");
+            HashMap<String, Object> fields = new HashMap<>();
+            Iterator<String> names = stored.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                Object value = normalize(stored.get(name));
+                if (value != null) fields.put(name, value);
+            }
+            return new Profile(uid, fields, json.getLong("fetchedAt"));
+        } catch (JSONException | IOException e) {
+            Log.w(TAG, "Discarding unreadable " + file.getName(), e);
+            file.delete();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.hackathon.attendlytics;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import com.hackathon.attendlytics.core.AttendanceToken;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Renders QR codes of a fixed version into one reusable bitmap.
+ *
+ * Pinning the QR version keeps the module count constant, so the pixel buffer and the
+ * {@link Bitmap} are allocated once and every {@link #render} only rewrites pixels. The
+ * bitmap holds one pixel per module; show it in an ImageView with filtering disabled and
+ * let the view scale it up. ZXing's encoder still builds its own small module matrix per
+ * call, but nothing proportional to the on-screen size is allocated.
+ *
+ * Not thread-safe; render on the main thread, which also owns the bitmap.
+ */
+public final class QrCodeRenderer {
+
+    // Version 10 at level M holds 213 bytes, enough for an ECDSA-signed pass with full uids
+    public static final int DEFAULT_VERSION = 10;
+    private static final int QUIET_ZONE_MODULES = 4;
+
+    private final int size;
+    private final Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+    private final int[] pixels;
+    private final Bitmap bitmap;
+
+    public QrCodeRenderer() {
+        this(DEFAULT_VERSION);
+    }
+
+    public QrCodeRenderer(int version) {
+        int modules = 17 + 4 * version;
+        this.size = modules + 2 * QUIET_ZONE_MODULES;
+        hints.put(EncodeHintType.QR_VERSION, version);
+        // Tokens are ASCII; ISO-8859-1 avoids an ECI header and keeps byte mode compact
+        hints.put(EncodeHintType.CHARACTER_SET, "ISO-8859-1");
+        this.pixels = new int[size * size];
+        this.bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Arrays.fill(pixels, Color.WHITE);
+    }
+
+    /** Side length of the bitmap in pixels (one pixel per module, quiet zone included). */
+    public int getSize() {
+        return size;
+    }
+
+    /** The shared bitmap; blank until the first {@link #render}. */
+    @NonNull
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * Encodes {@code contents} into the shared bitmap and returns it. The same instance is
+     * returned every time; callers must not recycle it.
+     */
+    @NonNull
+    public Bitmap render(@NonNull String contents) throws WriterException {
+        QRCode code = Encoder.encode(contents, ErrorCorrectionLevel.M, hints);
+        ByteMatrix matrix = code.getMatrix();
+        int modules = matrix.getWidth();
+        for (int y = 0; y < modules; y++) {
+            int row = (y + QUIET_ZONE_MODULES) * size + QUIET_ZONE_MODULES;
+            for (int x = 0; x < modules; x++) {
+                pixels[row + x] = matrix.get(x, y) == 1 ? Color.BLACK : Color.WHITE;
+            }
+        }
+        bitmap.setPixels(pixels, 0, size, 0, 0, size, size);
+        return bitmap;
+    }
+}
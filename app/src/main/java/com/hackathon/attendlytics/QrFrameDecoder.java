@@ -0,0 +1,98 @@
+package com.hackathon.attendlytics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decodes QR codes straight from the luminance plane of a camera frame.
+ *
+ * Only a centred square region of interest is copied out of the Y plane, into a buffer that
+ * is reused across frames, and handed to ZXing as a {@link PlanarYUVLuminanceSource}. No
+ * RGB conversion or Bitmap is involved, and QR decoding is rotation invariant so the frame's
+ * rotation does not matter. Meant to be called from a CameraX analyzer thread.
+ *
+ * Not thread-safe.
+ */
+public final class QrFrameDecoder {
+
+    /** Side of the region of interest as a fraction of the frame's shorter side. */
+    public static final float DEFAULT_ROI_FRACTION = 0.75f;
+
+    private final float roiFraction;
+    private final QRCodeReader reader = new QRCodeReader();
+    private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+    private byte[] roi = new byte[0];
+
+    public QrFrameDecoder() {
+        this(DEFAULT_ROI_FRACTION);
+    }
+
+    public QrFrameDecoder(float roiFraction) {
+        if (roiFraction <= 0f || roiFraction > 1f) {
+            throw new IllegalArgumentException("roiFraction must be in (0, 1]");
+        }
+        this.roiFraction = roiFraction;
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.QR_CODE));
+        hints.put(DecodeHintType.CHARACTER_SET, "ISO-8859-1");
+    }
+
+    /**
+     * Looks for a QR code in the centre of a Y plane of {@code width} x {@code height} pixels.
+     * Returns its text, or null if none was found. The buffer's position is left unchanged.
+     */
+    @Nullable
+    public String decode(@NonNull ByteBuffer yBuffer, int rowStride, int pixelStride, int width, int height) {
+        int side = (int) (Math.min(width, height) * roiFraction);
+        if (side < 21) return null; // smaller than a version 1 code
+        int left = (width - side) / 2;
+        int top = (height - side) / 2;
+        if (roi.length < side * side) {
+            roi = new byte[side * side];
+        }
+
+        int start = yBuffer.position();
+        try {
+            for (int y = 0; y < side; y++) {
+                int rowStart = start + (top + y) * rowStride + left * pixelStride;
+                if (pixelStride == 1) {
+                    yBuffer.position(rowStart);
+                    yBuffer.get(roi, y * side, side);
+                } else {
+                    int out = y * side;
+                    for (int x = 0; x < side; x++) {
+                        roi[out + x] = yBuffer.get(rowStart + x * pixelStride);
+                    }
+                }
+            }
+        } finally {
+            yBuffer.position(start);
+        }
+
+        PlanarYUVLuminanceSource source = new PlanarYUVLuminanceSource(
+                roi, side, side, 0, 0, side, side, false);
+        try {
+            Result result = reader.decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+            return result.getText();
+        } catch (NotFoundException | ChecksumException | FormatException e) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.hackathon.attendlytics.core.SectionReport;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semester attendance reports for every section and subject the teacher has held sessions for.
+ *
+ * Each report is built from one pre-rolled {@link SectionStats} document plus the section
+ * roster already stored on this device, so the screen costs one read per section rather than
+ * one per attendance record. Firestore answers from its local cache when offline. Before
+ * reading them, the check-ins that synced after their session closed are rolled in with
+ * {@link SectionStats#reconcileLateMarks}.
+ *
+ * The screen also exports raw attendance records to CSV or Excel through
+ * {@link AttendanceExporter}.
+ */
+public class ReportsFragment extends Fragment {
+
+    private static final String TAG = "ReportsFragment";
+    private static final String ALL_YEARS = "All Years";
+    private static final String XLSX_MIME = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    // Saved state keys of the export parameters
+    private static final String STATE_EXPORT_DEPARTMENT = "exportDepartment";
+    private static final String STATE_EXPORT_YEAR = "exportYear";
+    private static final String STATE_EXPORT_SECTION = "exportSection";
+    private static final String STATE_EXPORT_FROM = "exportFrom";
+    private static final String STATE_EXPORT_TO = "exportTo";
+
+    private FirebaseAuth mAuth;
+    private FirebaseFirestore db;
+    private ExecutorService executor;
+    private AttendanceExporter exporter;
+    private boolean exporting;
+    // Last export report, kept so it survives the view being rebuilt
+    private String exportStatus;
+    // Validated export parameters, waiting for the user to pick a file
+    private String exportDepartment, exportYear, exportSection;
+    private long exportFrom, exportTo;
+
+    private TextView textViewStatus;
+    private ProgressBar progressBar;
+    private LinearLayout layoutSections;
+    private Spinner spinnerExportDepartment, spinnerExportYear;
+    private EditText editTextExportSection, editTextExportFrom, editTextExportTo;
+    private Button buttonExportCsv, buttonExportXlsx;
+    private TextView textViewExportStatus;
+
+    private final ActivityResultLauncher<String> createCsvLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"), uri -> {
+                if (uri != null) export(uri, AttendanceExporter.FORMAT_CSV);
+            });
+    private final ActivityResultLauncher<String> createXlsxLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(XLSX_MIME), uri -> {
+                if (uri != null) export(uri, AttendanceExporter.FORMAT_XLSX);
+            });
+
+    public ReportsFragment() {
+        // Required empty public constructor
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mAuth = FirebaseAuth.getInstance();
+        db = FirebaseFirestore.getInstance();
+        executor = Executors.newSingleThreadExecutor();
+        exporter = new AttendanceExporter(requireContext(), db);
+        if (savedInstanceState != null) {
+            exportDepartment = savedInstanceState.getString(STATE_EXPORT_DEPARTMENT);
+            exportYear = savedInstanceState.getString(STATE_EXPORT_YEAR);
+            exportSection = savedInstanceState.getString(STATE_EXPORT_SECTION);
+            exportFrom = savedInstanceState.getLong(STATE_EXPORT_FROM);
+            exportTo = savedInstanceState.getLong(STATE_EXPORT_TO);
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // The process may be killed while the user picks a file; the result still needs these
+        outState.putString(STATE_EXPORT_DEPARTMENT, exportDepartment);
+        outState.putString(STATE_EXPORT_YEAR, exportYear);
+        outState.putString(STATE_EXPORT_SECTION, exportSection);
+        outState.putLong(STATE_EXPORT_FROM, exportFrom);
+        outState.putLong(STATE_EXPORT_TO, exportTo);
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_reports, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        textViewStatus = view.findViewById(R.id.textViewReportsStatus);
+        progressBar = view.findViewById(R.id.progressBarReports);
+        layoutSections = view.findViewById(R.id.layoutReportSections);
+        setupExport(view);
+        loadReports();
+    }
+
+    private void loadReports() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) {
+            showStatus("Please sign in again to view reports");
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        long now = System.currentTimeMillis();
+        String fromMonth = SectionReport.semesterStart(now);
+        String toMonth = SectionReport.monthKey(now);
+        Context appContext = requireContext().getApplicationContext();
+
+        SectionStats.reconcileLateMarks(db, executor, user.getUid(), now)
+                .continueWithTask(reconciled -> {
+                    if (!reconciled.isSuccessful()) {
+                        Log.d(TAG, "Late check-ins not reconciled this time", reconciled.getException());
+                    }
+                    return db.collection(ProfileRepository.TEACHERS).document(user.getUid()).get();
+                })
+                .continueWithTask(teacher -> {
+                    List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+                    Object ids = teacher.getResult().get(SectionStats.TEACHER_SECTIONS);
+                    if (ids instanceof List) {
+                        for (Object id : (List<?>) ids) {
+                            if (!(id instanceof String)) continue;
+                            reads.add(db.collection(SectionStats.COLLECTION).document((String) id).get());
+                        }
+                    }
+                    return Tasks.whenAllSuccess(reads);
+                })
+                .continueWith(executor, done -> {
+                    List<SectionReport> reports = new ArrayList<>();
+                    // Sections of the same class share one roster across subjects
+                    Map<String, Map<String, String>> rosters = new HashMap<>();
+                    for (Object result : done.getResult()) {
+                        DocumentSnapshot stats = (DocumentSnapshot) result;
+                        if (!stats.exists()) continue;
+                        String department = stats.getString("department");
+                        String year = stats.getString("year");
+                        String section = stats.getString("section");
+                        Map<String, String> roster = null;
+                        if (department != null && year != null && section != null) {
+                            String key = department + "_" + year + "_" + section;
+                            if (!rosters.containsKey(key)) {
+                                rosters.put(key, SectionTemplateLoader.readRoster(appContext, department, year, section));
+                            }
+                            roster = rosters.get(key);
+                        }
+                        reports.add(SectionStats.toReport(stats, roster, fromMonth, toMonth));
+                    }
+                    Collections.sort(reports, (a, b) -> a.getTitle().compareTo(b.getTitle()));
+                    return reports;
+                })
+                .addOnCompleteListener(requireActivity(), task -> {
+                    if (!isAdded() || getView() == null) return;
+                    progressBar.setVisibility(View.GONE);
+                    if (!task.isSuccessful()) {
+                        Log.e(TAG, "Failed to load reports", task.getException());
+                        showStatus("Could not load reports");
+                        Toast.makeText(getContext(), "Error loading reports", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    List<SectionReport> reports = task.getResult();
+                    showReports(reports);
+                    Log.d(TAG, "Built " + reports.size() + " section reports in "
+                            + (SystemClock.elapsedRealtime() - start) + " ms");
+                });
+    }
+
+    private void showReports(List<SectionReport> reports) {
+        if (reports.isEmpty()) {
+            showStatus("No attendance sessions this semester yet");
+            return;
+        }
+        textViewStatus.setText(String.format(Locale.US,
+                "This semester. Students below %.0f%% are marked with !", SectionReport.DEFAULTER_PERCENT));
+        LayoutInflater inflater = LayoutInflater.from(requireContext());
+        layoutSections.removeAllViews();
+        for (SectionReport report : reports) {
+            View card = inflater.inflate(R.layout.item_section_report, layoutSections, false);
+            ((TextView) card.findViewById(R.id.textViewSectionTitle)).setText(report.getTitle());
+            ((TextView) card.findViewById(R.id.textViewSectionSummary)).setText(String.format(Locale.US,
+                    "%d sessions held\nAverage attendance: %.1f%%\nDefaulters: %d of %d students",
+                    report.getHeld(), report.getAveragePercent(), report.getDefaulters().size(),
+                    report.getRows().size()));
+            StringBuilder students = new StringBuilder();
+            for (SectionReport.StudentRow row : report.getRows()) {
+                if (students.length() > 0) students.append('\n');
+                students.append(String.format(Locale.US, "%s%5.1f%%  %d/%d  streak %d (best %d)  %s",
+                        row.isDefaulter() ? "! " : "  ", row.getPercent(), row.attended, row.held,
+                        row.currentStreak, row.longestStreak, row.name));
+            }
+            ((TextView) card.findViewById(R.id.textViewSectionStudents)).setText(students.toString());
+            layoutSections.addView(card);
+        }
+    }
+
+    private void setupExport(View view) {
+        spinnerExportDepartment = view.findViewById(R.id.spinnerExportDepartment);
+        spinnerExportYear = view.findViewById(R.id.spinnerExportYear);
+        editTextExportSection = view.findViewById(R.id.editTextExportSection);
+        editTextExportFrom = view.findViewById(R.id.editTextExportFrom);
+        editTextExportTo = view.findViewById(R.id.editTextExportTo);
+        buttonExportCsv = view.findViewById(R.id.buttonExportCsv);
+        buttonExportXlsx = view.findViewById(R.id.buttonExportXlsx);
+        textViewExportStatus = view.findViewById(R.id.textViewExportStatus);
+
+        ArrayAdapter<String> departmentAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, StudentProfileSetupFragment.DEPARTMENTS);
+        departmentAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerExportDepartment.setAdapter(departmentAdapter);
+        // Same years as profiles, with the placeholder standing for every year
+        String[] years = StudentProfileSetupFragment.YEARS.clone();
+        years[0] = ALL_YEARS;
+        ArrayAdapter<String> yearAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, years);
+        yearAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerExportYear.setAdapter(yearAdapter);
+
+        // Defaults to the semester so far
+        long now = System.currentTimeMillis();
+        String semester = SectionReport.semesterStart(now);
+        if (TextUtils.isEmpty(editTextExportFrom.getText())) {
+            editTextExportFrom.setText(semester.substring(0, 4) + "-" + semester.substring(4) + "-01");
+        }
+        if (TextUtils.isEmpty(editTextExportTo.getText())) {
+            editTextExportTo.setText(new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(now)));
+        }
+
+        buttonExportCsv.setOnClickListener(v -> {
+            if (prepareExport()) createCsvLauncher.launch(exportFileName("csv"));
+        });
+        buttonExportXlsx.setOnClickListener(v -> {
+            if (prepareExport()) createXlsxLauncher.launch(exportFileName("xlsx"));
+        });
+        showExportStatus();
+    }
+
+    // Validates the export form into the export fields
+    private boolean prepareExport() {
+        String department = spinnerExportDepartment.getSelectedItem().toString();
+        if (department.equals(StudentProfileSetupFragment.DEPARTMENTS[0])) {
+            Toast.makeText(getContext(), "Please select a department", Toast.LENGTH_SHORT).show();
+            return false;
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        dateFormat.setLenient(false);
+        Date from, to;
+        try {
+            from = dateFormat.parse(editTextExportFrom.getText().toString().trim());
+        } catch (ParseException e) {
+            editTextExportFrom.setError("Use yyyy-MM-dd");
+            return false;
+        }
+        try {
+            to = dateFormat.parse(editTextExportTo.getText().toString().trim());
+        } catch (ParseException e) {
+            editTextExportTo.setError("Use yyyy-MM-dd");
+            return false;
+        }
+        if (to.before(from)) {
+            editTextExportTo.setError("Must not be before the start date");
+            return false;
+        }
+        String year = spinnerExportYear.getSelectedItem().toString();
+        String section = editTextExportSection.getText().toString().trim().toUpperCase();
+        exportDepartment = StudentProfileSetupFragment.extractDepartmentCode(department);
+        exportYear = year.equals(ALL_YEARS) ? null : year;
+        exportSection = section.isEmpty() ? null : section;
+        exportFrom = from.getTime();
+        // Through the end of the last day
+        exportTo = to.getTime() + TimeUnit.DAYS.toMillis(1);
+        return true;
+    }
+
+    private String exportFileName(String extension) {
+        return "attendance_" + exportDepartment
+                + (exportYear != null ? "_" + exportYear.replace(' ', '_') : "")
+                + (exportSection != null ? "_" + exportSection : "")
+                + "_" + editTextExportFrom.getText().toString().trim()
+                + "_" + editTextExportTo.getText().toString().trim() + "." + extension;
+    }
+
+    private void export(Uri uri, String format) {
+        exporting = true;
+        exportStatus = "Exporting...";
+        showExportStatus();
+        exporter.start(uri, format, exportDepartment, exportYear, exportSection, exportFrom, exportTo,
+                new AttendanceExporter.Listener() {
+                    @Override
+                    public void onProgress(int rows) {
+                        exportStatus = "Exporting... " + rows + " records written";
+                        showExportStatus();
+                    }
+
+                    @Override
+                    public void onFinished(int rows, @Nullable Exception error) {
+                        exporting = false;
+                        exportStatus = error == null
+                                ? "Exported " + rows + " records"
+                                : "Export stopped after " + rows + " records: " + error.getMessage();
+                        showExportStatus();
+                        if (isAdded()) {
+                            Toast.makeText(getContext(), error == null ? "Export complete" : "Export failed",
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
+
+    private void showExportStatus() {
+        if (textViewExportStatus == null) return;
+        buttonExportCsv.setEnabled(!exporting);
+        buttonExportXlsx.setEnabled(!exporting);
+        textViewExportStatus.setVisibility(exportStatus != null ? View.VISIBLE : View.GONE);
+        textViewExportStatus.setText(exportStatus);
+    }
+
+    private void showStatus(String message) {
+        progressBar.setVisibility(View.GONE);
+        textViewStatus.setText(message);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        textViewStatus = null;
+        progressBar = null;
+        layoutSections = null;
+        spinnerExportDepartment = null;
+        spinnerExportYear = null;
+        editTextExportSection = null;
+        editTextExportFrom = null;
+        editTextExportTo = null;
+        buttonExportCsv = null;
+        buttonExportXlsx = null;
+        textViewExportStatus = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        executor.shutdown();
+        exporter.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Remembers which dashboard a signed-in user last reached, so a cold start can open it
+ * directly instead of walking through role selection and sign-in again.
+ *
+ * The role is stored together with the uid it belongs to. {@link #getRole} answers without
+ * asking Firebase Auth, so the start destination is known before Auth has loaded; the
+ * dashboard it opens then checks that the user is still signed in.
+ */
+public final class RoleCache {
+
+    public static final String ROLE_STUDENT = "student";
+    public static final String ROLE_TEACHER = "teacher";
+
+    private static final String PREFS = "startup";
+    private static final String KEY_UID = "uid";
+    private static final String KEY_ROLE = "role";
+
+    private RoleCache() {
+    }
+
+    /** Starts loading the preferences file in the background so the first read does not wait on disk. */
+    public static void prefetch(@NonNull Context context) {
+        prefs(context);
+    }
+
+    /** The role of whoever reached a dashboard last, or null if nobody is cached. */
+    @Nullable
+    public static String getRole(@NonNull Context context) {
+        return prefs(context).getString(KEY_ROLE, null);
+    }
+
+    public static void put(@NonNull Context context, @NonNull String uid, @NonNull String role) {
+        prefs(context).edit()
+                .putString(KEY_UID, uid)
+                .putString(KEY_ROLE, role)
+                .apply();
+    }
+
+    public static void clear(@NonNull Context context) {
+        prefs(context).edit().clear().apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,93 @@
+package com.hackathon.attendlytics;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Objects;
+
+/**
+ * Rows of a class roster. Lists are diffed off the main thread by {@link ListAdapter}, and
+ * every student keeps the same item id across pages and searches, so filtering animates rows
+ * instead of rebinding the whole list.
+ */
+final class RosterAdapter extends ListAdapter<RosterAdapter.Row, RosterAdapter.Holder> {
+
+    /** One student as shown in the roster. Immutable, so diffing can compare fields. */
+    static final class Row {
+        final long id;
+        final String uid;
+        final String name;
+        @Nullable
+        final String studentId;
+        final boolean faceEnrolled;
+
+        Row(long id, @NonNull String uid, @NonNull String name, @Nullable String studentId, boolean faceEnrolled) {
+            this.id = id;
+            this.uid = uid;
+            this.name = name;
+            this.studentId = studentId;
+            this.faceEnrolled = faceEnrolled;
+        }
+
+        boolean sameContentAs(Row other) {
+            return name.equals(other.name) && Objects.equals(studentId, other.studentId)
+                    && faceEnrolled == other.faceEnrolled;
+        }
+    }
+
+    private static final DiffUtil.ItemCallback<Row> DIFF = new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldItem, @NonNull Row newItem) {
+            return oldItem.uid.equals(newItem.uid);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldItem, @NonNull Row newItem) {
+            return oldItem.sameContentAs(newItem);
+        }
+    };
+
+    RosterAdapter() {
+        super(DIFF);
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    @NonNull
+    @Override
+    public Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_roster_student, parent, false);
+        return new Holder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull Holder holder, int position) {
+        Row row = getItem(position);
+        holder.name.setText(row.name);
+        holder.detail.setText((row.studentId != null ? row.studentId : "No student ID")
+                + (row.faceEnrolled ? " · Face enrolled" : " · Face not enrolled"));
+    }
+
+    static final class Holder extends RecyclerView.ViewHolder {
+        final TextView name;
+        final TextView detail;
+
+        Holder(@NonNull View itemView) {
+            super(itemView);
+            name = itemView.findViewById(R.id.textViewRosterName);
+            detail = itemView.findViewById(R.id.textViewRosterDetail);
+        }
+    }
+}
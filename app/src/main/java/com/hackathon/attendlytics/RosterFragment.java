@@ -0,0 +1,341 @@
+package com.hackathon.attendlytics;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.hackathon.attendlytics.core.PrefixIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class roster for teachers: the students of one section, paged in from Firestore as the list
+ * scrolls and searchable as you type.
+ *
+ * Pages of {@link #PAGE_SIZE} are ordered by {@code studentName} and continued with
+ * {@code startAfter} the last document, so only what is scrolled to is read. Names and student
+ * ids of the loaded rows go into a {@link PrefixIndex}; a search answers from it immediately
+ * and keeps paging in the background until the section is complete.
+ *
+ * Students can also be imported in bulk from a CSV file through {@link RosterImporter}.
+ */
+public class RosterFragment extends Fragment {
+
+    private static final String TAG = "RosterFragment";
+    private static final int PAGE_SIZE = 50;
+    // Load the next page when the last visible row is this close to the end
+    private static final int PREFETCH_DISTANCE = 15;
+
+    private FirebaseFirestore db;
+    private RosterImporter importer;
+    private boolean importing;
+    // Last import report, kept so it survives the view being rebuilt
+    private String importStatus;
+
+    private Spinner spinnerDepartment, spinnerYear;
+    private EditText editTextSection, editTextSearch;
+    private Button buttonLoad, buttonImport;
+    private TextView textViewStatus, textViewImportStatus;
+    private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
+    private RosterAdapter adapter;
+
+    // Main thread only
+    private final ArrayList<RosterAdapter.Row> rows = new ArrayList<>();
+    private final PrefixIndex searchIndex = new PrefixIndex();
+    private Query rosterQuery;
+    private DocumentSnapshot cursor;
+    private boolean loading;
+    private boolean endReached = true;
+    // Bumped when another class is loaded, so late pages of the previous one are dropped
+    private int generation;
+    private long nextRowId;
+    private int shownCount;
+
+    private final ActivityResultLauncher<String[]> pickCsvLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) importRoster(uri);
+            });
+
+    public RosterFragment() {
+        // Required empty public constructor
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        db = FirebaseFirestore.getInstance();
+        importer = new RosterImporter(requireContext(), db);
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_roster, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        spinnerDepartment = view.findViewById(R.id.spinnerRosterDepartment);
+        spinnerYear = view.findViewById(R.id.spinnerRosterYear);
+        editTextSection = view.findViewById(R.id.editTextRosterSection);
+        editTextSearch = view.findViewById(R.id.editTextRosterSearch);
+        buttonLoad = view.findViewById(R.id.buttonLoadRoster);
+        textViewStatus = view.findViewById(R.id.textViewRosterStatus);
+        buttonImport = view.findViewById(R.id.buttonImportRoster);
+        textViewImportStatus = view.findViewById(R.id.textViewImportStatus);
+        recyclerView = view.findViewById(R.id.recyclerViewRoster);
+
+        ArrayAdapter<String> departmentAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, StudentProfileSetupFragment.DEPARTMENTS);
+        departmentAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerDepartment.setAdapter(departmentAdapter);
+        ArrayAdapter<String> yearAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, StudentProfileSetupFragment.YEARS);
+        yearAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerYear.setAdapter(yearAdapter);
+
+        adapter = new RosterAdapter();
+        layoutManager = new LinearLayoutManager(requireContext());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        buttonLoad.setOnClickListener(v -> loadRoster());
+        buttonImport.setOnClickListener(v ->
+                pickCsvLauncher.launch(new String[]{"text/csv", "text/comma-separated-values", "text/plain"}));
+        showImportStatus();
+        editTextSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                showRows();
+                // Search covers the whole section, so keep paging while a query is typed
+                if (isSearching()) loadNextPage();
+            }
+        });
+
+        // Rows survive a trip to another screen; only the views are rebuilt
+        if (rosterQuery != null) {
+            editTextSearch.setEnabled(true);
+            showRows();
+        }
+    }
+
+    private void importRoster(Uri uri) {
+        importing = true;
+        importStatus = "Importing students...";
+        showImportStatus();
+        importer.start(uri, new RosterImporter.Listener() {
+            @Override
+            public void onProgress(@NonNull RosterImporter.Progress progress) {
+                importStatus = String.format(Locale.US, "Importing... %d students saved, %d rows rejected",
+                        progress.imported, progress.rejected);
+                showImportStatus();
+            }
+
+            @Override
+            public void onFinished(@NonNull RosterImporter.Progress progress, @Nullable Exception error) {
+                importing = false;
+                StringBuilder report = new StringBuilder();
+                if (error != null) {
+                    report.append("Import stopped: ").append(error.getMessage())
+                            .append("\nPick the same file again to resume.\n");
+                } else {
+                    report.append("Import complete.\n");
+                }
+                report.append(String.format(Locale.US, "%d students saved, %d rows rejected",
+                        progress.imported, progress.rejected));
+                for (String line : progress.errors) {
+                    report.append('\n').append(line);
+                }
+                if (progress.rejected > progress.errors.size()) report.append("\n...");
+                importStatus = report.toString();
+                showImportStatus();
+                if (isAdded()) {
+                    Toast.makeText(getContext(), error == null ? "Roster import complete" : "Roster import stopped",
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void showImportStatus() {
+        if (textViewImportStatus == null) return;
+        buttonImport.setEnabled(!importing);
+        textViewImportStatus.setVisibility(importStatus != null ? View.VISIBLE : View.GONE);
+        textViewImportStatus.setText(importStatus);
+    }
+
+    private void loadRoster() {
+        String department = spinnerDepartment.getSelectedItem().toString();
+        String year = spinnerYear.getSelectedItem().toString();
+        String section = editTextSection.getText().toString().trim().toUpperCase();
+        if (department.equals(StudentProfileSetupFragment.DEPARTMENTS[0])) {
+            Toast.makeText(getContext(), "Please select a department", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (year.equals(StudentProfileSetupFragment.YEARS[0])) {
+            Toast.makeText(getContext(), "Please select a year", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (TextUtils.isEmpty(section)) {
+            editTextSection.setError("Enter section (e.g., A, B, C)");
+            return;
+        }
+
+        generation++;
+        rows.clear();
+        searchIndex.clear();
+        cursor = null;
+        loading = false;
+        endReached = false;
+        rosterQuery = db.collection(ProfileRepository.STUDENTS)
+                .whereEqualTo("department", StudentProfileSetupFragment.extractDepartmentCode(department))
+                .whereEqualTo("year", year)
+                .whereEqualTo("section", section)
+                .orderBy("studentName")
+                .limit(PAGE_SIZE);
+        editTextSearch.setEnabled(true);
+        showRows();
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached || rosterQuery == null) return;
+        loading = true;
+        int requested = generation;
+        Query page = cursor != null ? rosterQuery.startAfter(cursor) : rosterQuery;
+        page.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (requested != generation) return;
+                    loading = false;
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    for (DocumentSnapshot document : documents) {
+                        // The student has signed up and is listed under their own profile
+                        if (document.getString("claimedBy") != null) continue;
+                        String name = document.getString("studentName");
+                        String studentId = document.getString("studentId");
+                        searchIndex.add(rows.size(), name + " " + (studentId != null ? studentId : ""));
+                        rows.add(new RosterAdapter.Row(nextRowId++, document.getId(),
+                                name != null ? name : document.getId(), studentId,
+                                Boolean.TRUE.equals(document.getBoolean("faceEnrolled"))));
+                    }
+                    if (!documents.isEmpty()) cursor = documents.get(documents.size() - 1);
+                    endReached = documents.size() < PAGE_SIZE;
+                    if (!isAdded() || getView() == null) return;
+                    showRows();
+                    if (isSearching()) loadNextPage();
+                })
+                .addOnFailureListener(e -> {
+                    if (requested != generation) return;
+                    loading = false;
+                    Log.e(TAG, "Failed to load roster page", e);
+                    if (!isAdded() || getView() == null) return;
+                    textViewStatus.setText("Could not load students. Scroll to retry.");
+                    Toast.makeText(getContext(), "Error loading students", Toast.LENGTH_SHORT).show();
+                });
+        if (textViewStatus != null) showStatus();
+    }
+
+    private boolean isSearching() {
+        return editTextSearch != null && editTextSearch.getText().toString().trim().length() > 0;
+    }
+
+    private void showRows() {
+        if (adapter == null) return;
+        if (isSearching()) {
+            int[] matches = searchIndex.search(editTextSearch.getText().toString());
+            ArrayList<RosterAdapter.Row> filtered = new ArrayList<>(matches.length);
+            for (int row : matches) {
+                filtered.add(rows.get(row));
+            }
+            shownCount = filtered.size();
+            adapter.submitList(filtered);
+        } else {
+            shownCount = rows.size();
+            // ListAdapter diffs against the list it holds, so it must get a fresh copy
+            adapter.submitList(new ArrayList<>(rows));
+        }
+        showStatus();
+    }
+
+    private void showStatus() {
+        if (rosterQuery == null) return;
+        String more = loading ? ", loading more..." : "";
+        if (isSearching()) {
+            textViewStatus.setText(String.format(Locale.US, "%d matches in %d students%s",
+                    shownCount, rows.size(), more));
+        } else if (rows.isEmpty() && endReached) {
+            textViewStatus.setText("No students found in this class");
+        } else {
+            textViewStatus.setText(String.format(Locale.US, "%d students%s", rows.size(), more));
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        spinnerDepartment = null;
+        spinnerYear = null;
+        editTextSection = null;
+        editTextSearch = null;
+        buttonLoad = null;
+        buttonImport = null;
+        textViewStatus = null;
+        textViewImportStatus = null;
+        recyclerView = null;
+        layoutManager = null;
+        adapter = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        importer.shutdown();
+    }
+}
@@ -0,0 +1,203 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.hackathon.attendlytics.core.CsvReader;
+import com.hackathon.attendlytics.core.RosterCsv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bulk import of students from a CSV roster: student id, name, department, year, section.
+ *
+ * The file is streamed record by record through a {@link CsvReader}, so its size does not
+ * matter. Each valid row becomes a pre-provisioned profile at {@code users/import_{studentId}},
+ * which lists the student in Manage Classes before they sign up. When the student claims
+ * that id, {@link StudentProfileSetupFragment} marks the placeholder {@code claimedBy} their
+ * uid rather than deleting it, so no student needs delete rights on another's profile.
+ * Placeholders never enter session rosters; see {@link SectionTemplateLoader}. Rows go out in {@link WriteBatch} commits of
+ * {@link AttendanceWriteQueue#MAX_BATCH_SIZE}, and the number of records committed is saved
+ * after each one. Importing the same file again after a failure resumes from there. Writes are
+ * keyed by student id, so rows replayed across a crash are harmless.
+ *
+ * Runs on its own background thread; the listener is called on the main thread.
+ */
+public final class RosterImporter {
+
+    private static final String TAG = "RosterImporter";
+    private static final String PREFS = "roster_import";
+    static final String PROVISIONED_PREFIX = "import_";
+    // Rejected rows listed to the teacher; the rest are only counted
+    private static final int MAX_REPORTED_ERRORS = 20;
+    // Offline commits only resolve once the server has them; give up and resume later instead
+    private static final long COMMIT_TIMEOUT_SECONDS = 60;
+
+    /** Counts so far. Immutable; a new one is delivered with each update. */
+    public static final class Progress {
+        public final long records;
+        public final int imported;
+        public final int rejected;
+        public final List<String> errors;
+
+        Progress(long records, int imported, int rejected, List<String> errors) {
+            this.records = records;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+    }
+
+    public interface Listener {
+        void onProgress(@NonNull Progress progress);
+
+        /** @param error null if the whole file was imported */
+        void onFinished(@NonNull Progress progress, @Nullable Exception error);
+    }
+
+    private final Context context;
+    private final FirebaseFirestore db;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public RosterImporter(@NonNull Context context, @NonNull FirebaseFirestore db) {
+        this.context = context.getApplicationContext();
+        this.db = db;
+    }
+
+    /** Profile id of a student imported before signing up. */
+    @NonNull
+    static String provisionedId(@NonNull String studentId) {
+        return PROVISIONED_PREFIX + studentId;
+    }
+
+    public void start(@NonNull Uri uri, @NonNull Listener listener) {
+        executor.execute(() -> run(uri, listener));
+    }
+
+    /** Lets a running import finish, then stops the thread. */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Importer thread
+    private void run(Uri uri, Listener listener) {
+        SharedPreferences checkpoints = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String key = uri.toString();
+        long resumeAfter = checkpoints.getLong(key + ":records", 0);
+        int imported = checkpoints.getInt(key + ":imported", 0);
+        int rejected = checkpoints.getInt(key + ":rejected", 0);
+        if (resumeAfter > 0) Log.d(TAG, "Resuming import after record " + resumeAfter);
+
+        RosterCsv validator = new RosterCsv(department -> {
+            String code = StudentProfileSetupFragment.extractDepartmentCode(department.toUpperCase());
+            return "UNKNOWN".equals(code) ? null : code;
+        });
+        ArrayList<String> errors = new ArrayList<>();
+        long records = 0;
+        Exception failure = null;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) throw new IOException("Could not open " + uri);
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            WriteBatch batch = db.batch();
+            int batched = 0;
+            String[] record;
+            while ((record = reader.next()) != null) {
+                records++;
+                if (records <= resumeAfter || (records == 1 && RosterCsv.isHeader(record))) continue;
+                RosterCsv.Student student;
+                try {
+                    student = validator.parse(record);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + reader.getLine() + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                batch.set(db.collection(ProfileRepository.STUDENTS).document(provisionedId(student.studentId)),
+                        toProfile(student), SetOptions.merge());
+                imported++;
+                if (++batched == AttendanceWriteQueue.MAX_BATCH_SIZE) {
+                    commit(batch);
+                    saveCheckpoint(checkpoints, key, records, imported, rejected);
+                    post(listener, new Progress(records, imported, rejected, errors), null, false);
+                    batch = db.batch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) commit(batch);
+            // Done: importing the same file again starts over
+            checkpoints.edit().remove(key + ":records").remove(key + ":imported").remove(key + ":rejected").apply();
+            Log.d(TAG, "Imported " + imported + " students, rejected " + rejected + " rows");
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+        if (failure != null) Log.w(TAG, "Import stopped after record " + records, failure);
+        post(listener, new Progress(records, imported, rejected, errors), failure, true);
+    }
+
+    private static Map<String, Object> toProfile(RosterCsv.Student student) {
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("studentName", student.name);
+        profile.put("studentId", student.studentId);
+        profile.put("department", student.department);
+        profile.put("year", student.year);
+        profile.put("section", student.section);
+        profile.put("provisioned", true);
+        profile.put("faceEnrolled", false);
+        return profile;
+    }
+
+    private static void commit(WriteBatch batch)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Tasks.await(batch.commit(), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void saveCheckpoint(SharedPreferences checkpoints, String key, long records,
+                                       int imported, int rejected) {
+        checkpoints.edit()
+                .putLong(key + ":records", records)
+                .putInt(key + ":imported", imported)
+                .putInt(key + ":rejected", rejected)
+                .apply();
+    }
+
+    private void post(Listener listener, Progress progress, @Nullable Exception error, boolean finished) {
+        mainHandler.post(() -> {
+            if (finished) {
+                listener.onFinished(progress, error);
+            } else {
+                listener.onProgress(progress);
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.hackathon.attendlytics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+import com.hackathon.attendlytics.core.AttendanceSession;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.SectionReport;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-rolled attendance aggregates in {@code sectionStats/{statsId}}, one document per section
+ * and subject.
+ *
+ * The document holds {@code held.{yyyyMM}}, the keys of the sessions held each month, and
+ * {@code present.{uid}.{yyyyMM}}, the keys of the sessions each student attended. Both are
+ * maintained with {@link FieldValue#arrayUnion} by the teacher's device, {@code held} in the
+ * same batch as the session document and {@code present} as the session's marks come in, so
+ * a replayed write changes nothing and a report reads one document per section instead of
+ * every attendance record.
+ *
+ * A check-in that reaches Firestore only after its session closed, e.g. from a phone that was
+ * offline, is missed by the live session. {@link #reconcileLateMarks} picks those up: once a
+ * closed session is {@link #LATE_MARK_GRACE_MS} old, the teacher's device reads its marks from
+ * the server, verifies their tokens against the session's key and rolls up the students
+ * present. Each session is reconciled once, so marks arriving after that are not counted.
+ */
+public final class SectionStats {
+
+    public static final String COLLECTION = "sectionStats";
+    /** Array field on the teacher profile listing the stats documents of the teacher's sessions. */
+    static final String TEACHER_SECTIONS = "reportSections";
+    /** Boolean on a closed session document; false until its late marks are rolled up. */
+    static final String LATE_MARKS_RECONCILED = "lateMarksReconciled";
+    // Time a closed session gets for check-ins still queued on students' phones
+    static final long LATE_MARK_GRACE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private SectionStats() {
+    }
+
+    @NonNull
+    public static String idOf(@NonNull AttendanceSession session) {
+        return SectionReport.statsId(session.getDepartment(), session.getYear(), session.getSection(),
+                session.getSubject());
+    }
+
+    /** Counts the session as held and files it under the teacher's report sections. */
+    public static void addHeld(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                               @NonNull AttendanceSession session) {
+        String statsId = idOf(session);
+        Map<String, Object> held = new HashMap<>();
+        held.put(SectionReport.monthKey(session.getStartedAt()),
+                FieldValue.arrayUnion(SectionReport.sessionKey(session.getSessionId())));
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("department", session.getDepartment());
+        stats.put("year", session.getYear());
+        stats.put("section", session.getSection());
+        stats.put("subject", session.getSubject());
+        stats.put("held", held);
+        batch.set(db.collection(COLLECTION).document(statsId), stats, SetOptions.merge());
+
+        Map<String, Object> teacher = new HashMap<>();
+        teacher.put(TEACHER_SECTIONS, FieldValue.arrayUnion(statsId));
+        batch.set(db.collection(ProfileRepository.TEACHERS).document(session.getTeacherUid()), teacher,
+                SetOptions.merge());
+    }
+
+    /**
+     * Counts {@code uids} present at {@code session}. Only the teacher's device calls this, so
+     * the document has a single writer and students never need write access to it.
+     */
+    public static void addPresent(@NonNull FirebaseFirestore db, @NonNull WriteBatch batch,
+                                  @NonNull AttendanceSession session, @NonNull Collection<String> uids) {
+        addPresent(db, batch, idOf(session), session.getSessionId(), session.getStartedAt(), uids);
+    }
+
+    private static void addPresent(FirebaseFirestore db, WriteBatch batch, String statsId, String sessionId,
+                                   long startedAt, Collection<String> uids) {
+        Object sessionKeys = FieldValue.arrayUnion(SectionReport.sessionKey(sessionId));
+        String month = SectionReport.monthKey(startedAt);
+        Map<String, Object> present = new HashMap<>();
+        for (String uid : uids) {
+            present.put(uid, Collections.singletonMap(month, sessionKeys));
+        }
+        batch.set(db.collection(COLLECTION).document(statsId),
+                Collections.singletonMap("present", present), SetOptions.merge());
+    }
+
+    /**
+     * Rolls up the late check-ins of every closed session of {@code teacherUid} that is past its
+     * grace period and not yet reconciled. Reads only from the server, so the task fails when
+     * offline and those sessions are tried again next time. Tokens are verified on
+     * {@code executor}.
+     */
+    @NonNull
+    public static Task<Void> reconcileLateMarks(@NonNull FirebaseFirestore db, @NonNull Executor executor,
+                                                @NonNull String teacherUid, long now) {
+        return db.collection(TeacherAttendanceFragment.SESSIONS_COLLECTION)
+                .whereEqualTo("teacherUid", teacherUid)
+                .whereEqualTo(LATE_MARKS_RECONCILED, false)
+                .get(Source.SERVER)
+                .continueWithTask(sessions -> {
+                    List<Task<Void>> reconciled = new ArrayList<>();
+                    for (DocumentSnapshot session : sessions.getResult().getDocuments()) {
+                        Long endedAt = session.getLong("endedAt");
+                        if (endedAt == null || now - endedAt < LATE_MARK_GRACE_MS) continue;
+                        reconciled.add(reconcile(db, executor, session));
+                    }
+                    return Tasks.whenAll(reconciled);
+                });
+    }
+
+    private static Task<Void> reconcile(FirebaseFirestore db, Executor executor, DocumentSnapshot session) {
+        return db.collection(AttendanceWriteQueue.COLLECTION)
+                .whereEqualTo("sessionId", session.getId())
+                .get(Source.SERVER)
+                .continueWithTask(executor, marks -> {
+                    PublicKey key = SigningKeys.decode(session.getString(TeacherAttendanceFragment.TOKEN_KEY_FIELD));
+                    String department = session.getString("department");
+                    String year = session.getString("year");
+                    String section = session.getString("section");
+                    String subject = session.getString("subject");
+                    Long startedAt = session.getLong("startedAt");
+                    WriteBatch batch = db.batch();
+                    if (key != null && department != null && year != null && section != null && subject != null
+                            && startedAt != null) {
+                        AttendanceToken verifier = new AttendanceToken(null, key);
+                        List<String> present = new ArrayList<>();
+                        for (DocumentSnapshot mark : marks.getResult().getDocuments()) {
+                            String uid = mark.getString("studentUid");
+                            String token = mark.getString("token");
+                            Long markedAt = mark.getLong("timestamp");
+                            if (uid == null || token == null || markedAt == null) continue;
+                            // Only students' own check-ins carry a session token; the teacher's device
+                            // rolled up its face and kiosk marks when the session closed
+                            if (verifier.verify(token, session.getId(), markedAt) == AttendanceToken.VALID) {
+                                present.add(uid);
+                            }
+                        }
+                        if (!present.isEmpty()) {
+                            addPresent(db, batch, SectionReport.statsId(department, year, section, subject),
+                                    session.getId(), startedAt, present);
+                        }
+                    }
+                    batch.update(session.getReference(), LATE_MARKS_RECONCILED, true);
+                    return batch.commit();
+                });
+    }
+
+    /** Report over {@code fromMonth} to {@code toMonth} from a stats document. */
+    @NonNull
+    public static SectionReport toReport(@NonNull DocumentSnapshot document, @Nullable Map<String, String> roster,
+                                         @NonNull String fromMonth, @NonNull String toMonth) {
+        String title = document.getString("department") + " " + document.getString("year") + " "
+                + document.getString("section") + " - " + document.getString("subject");
+        Map<String, List<String>> held = months(document.get("held"));
+        Map<String, Map<String, List<String>>> present = new HashMap<>();
+        Object students = document.get("present");
+        if (students instanceof Map) {
+            for (Map.Entry<?, ?> student : ((Map<?, ?>) students).entrySet()) {
+                present.put(String.valueOf(student.getKey()), months(student.getValue()));
+            }
+        }
+        return SectionReport.build(title, held, present, roster, fromMonth, toMonth);
+    }
+
+    // Firestore hands back maps of lists of strings as raw Maps and Lists
+    private static Map<String, List<String>> months(@Nullable Object value) {
+        Map<String, List<String>> months = new HashMap<>();
+        if (!(value instanceof Map)) return months;
+        for (Map.Entry<?, ?> month : ((Map<?, ?>) value).entrySet()) {
+            if (!(month.getValue() instanceof List)) continue;
+            List<String> keys = new ArrayList<>();
+            for (Object key : (List<?>) month.getValue()) {
+                if (key instanceof String) keys.add((String) key);
+            }
+            months.put(String.valueOf(month.getKey()), keys);
+        }
+        return months;
+    }
+}
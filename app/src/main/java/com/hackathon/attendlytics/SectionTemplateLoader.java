@@ -0,0 +1,224 @@
+package com.hackathon.attendlytics;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.hackathon.attendlytics.core.AttendanceSession;
+import com.hackathon.attendlytics.core.TemplateStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the roster of one section, with the students' enrolled face templates, into an
+ * {@link AttendanceSession}.
+ *
+ * Roster and templates are kept on the device in one {@link TemplateStore} file per section
+ * under {@code filesDir/templates}. Each load asks Firestore only for students whose profile
+ * ({@code profileCompletionTimestamp}) or face ({@code lastFaceUpdateTimestamp}) changed after
+ * the newest change already stored, so a sync after a week pulls just those students. Those
+ * timestamps come from students' phones, so each sync re-reads {@link #WATERMARK_OVERLAP_MS}
+ * before the watermark, and a watermark never moves past this device's clock. If
+ * Firestore cannot be reached the stored roster is used as is. Placeholders from a roster
+ * import ({@code provisioned}) are never kept: nobody can check in as one, and a claimed
+ * placeholder would list its student twice. Decoding, normalization and
+ * all file access run on the supplied executor, not the main thread.
+ */
+public final class SectionTemplateLoader {
+
+    private static final String TAG = "SectionTemplateLoader";
+    private static final String STORE_DIR = "templates";
+    // Changes stamped by a phone whose clock runs behind are still picked up; re-applying
+    // a change already stored just rewrites the same record
+    static final long WATERMARK_OVERLAP_MS = TimeUnit.DAYS.toMillis(1);
+
+    private SectionTemplateLoader() {
+    }
+
+    /**
+     * Builds a session over every student of the section, enrolled or not, so the roster
+     * also covers students who can only be marked by QR or by hand.
+     */
+    @NonNull
+    public static Task<AttendanceSession> loadSession(@NonNull Context context, @NonNull FirebaseFirestore db,
+                                                      @NonNull Executor executor,
+                                                      @NonNull String sessionId, @NonNull String teacherUid,
+                                                      @NonNull String subject, @NonNull String department,
+                                                      @NonNull String year, @NonNull String section,
+                                                      long startedAt) {
+        return sync(context, db, executor, department, year, section, store -> {
+            AttendanceSession session = new AttendanceSession(sessionId, teacherUid, subject,
+                    department, year, section, startedAt, store.size());
+            // The session copies each template into its matcher, so one buffer serves all rows
+            float[] template = new float[store.getDimension()];
+            for (int i = 0; i < store.size(); i++) {
+                session.addStudent(store.uidAt(i), store.nameAt(i),
+                        store.readTemplate(i, template) ? template : null);
+            }
+            Log.d(TAG, "Session roster: " + session.getRosterSize() + " students, "
+                    + session.getEnrolledCount() + " with face templates");
+            return session;
+        });
+    }
+
+    /**
+     * Names of the section's students as last synced to this device, keyed by uid, without
+     * asking Firestore. Null if the section was never loaded here. Call off the main thread.
+     */
+    @Nullable
+    static Map<String, String> readRoster(@NonNull Context context, @NonNull String department,
+                                          @NonNull String year, @NonNull String section) {
+        File file = storeFile(context, department, year, section);
+        if (!file.isFile()) return null;
+        try (TemplateStore store = TemplateStore.open(file, FaceEmbedding.CURRENT_DIMENSION)) {
+            HashMap<String, String> roster = new HashMap<>(store.size() * 2);
+            for (int i = 0; i < store.size(); i++) {
+                String uid = store.uidAt(i);
+                String name = store.nameAt(i);
+                roster.put(uid, name.isEmpty() ? uid : name);
+            }
+            return roster;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read stored roster " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private static File storeFile(Context context, String department, String year, String section) {
+        File dir = new File(context.getApplicationContext().getFilesDir(), STORE_DIR);
+        return new File(dir, department + "_" + year + "_" + section + ".bin");
+    }
+
+    private interface StoreReader<T> {
+        T read(@NonNull TemplateStore store);
+    }
+
+    // Opens the section's store, applies the Firestore delta and hands the store to reader
+    private static <T> Task<T> sync(Context context, FirebaseFirestore db, Executor executor,
+                                    String department, String year, String section, StoreReader<T> reader) {
+        File file = storeFile(context, department, year, section);
+        File dir = file.getParentFile();
+        Query roster = db.collection("users")
+                .whereEqualTo("department", department)
+                .whereEqualTo("year", year)
+                .whereEqualTo("section", section);
+        return Tasks.call(executor, () -> {
+                    if (!dir.isDirectory() && !dir.mkdirs()) {
+                        Log.w(TAG, "Could not create " + dir);
+                    }
+                    return TemplateStore.open(file, FaceEmbedding.CURRENT_DIMENSION);
+                })
+                .continueWithTask(opened -> {
+                    TemplateStore store = opened.getResult();
+                    Task<QuerySnapshot> profiles = roster
+                            .whereGreaterThan("profileCompletionTimestamp", since(store.getProfileWatermark()))
+                            .get();
+                    Task<QuerySnapshot> faces = roster
+                            .whereGreaterThan("lastFaceUpdateTimestamp", since(store.getFaceWatermark()))
+                            .get();
+                    return Tasks.whenAllComplete(profiles, faces).continueWith(executor, done -> {
+                        try {
+                            if (profiles.isSuccessful() && faces.isSuccessful()) {
+                                apply(store, profiles.getResult(), faces.getResult());
+                            } else {
+                                Exception e = profiles.isSuccessful() ? faces.getException() : profiles.getException();
+                                if (store.size() == 0) {
+                                    throw e != null ? e : new IllegalStateException("Roster sync was cancelled");
+                                }
+                                Log.w(TAG, "Sync failed, using " + store.size() + " stored students", e);
+                            }
+                            return reader.read(store);
+                        } finally {
+                            store.close();
+                        }
+                    });
+                });
+    }
+
+    /** Lower bound of a delta query for {@code watermark}. */
+    static long since(long watermark) {
+        return Math.max(0L, watermark - WATERMARK_OVERLAP_MS);
+    }
+
+    /**
+     * Advances {@code watermark} to {@code changedAt}, but never past {@code now}: one phone
+     * with a fast clock would otherwise hide every later change stamped by a correct one.
+     */
+    static long advance(long watermark, long changedAt, long now) {
+        return Math.max(watermark, Math.min(changedAt, now));
+    }
+
+    // Executor thread
+    private static void apply(TemplateStore store, QuerySnapshot profiles, QuerySnapshot faces)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        long profileWatermark = store.getProfileWatermark();
+        long faceWatermark = store.getFaceWatermark();
+        for (DocumentSnapshot document : profiles.getDocuments()) {
+            long changedAt = timestamp(document, "profileCompletionTimestamp");
+            profileWatermark = advance(profileWatermark, changedAt, now);
+            // A claim bumps the placeholder's timestamp, which removes a ghost synced earlier
+            if (Boolean.TRUE.equals(document.getBoolean("provisioned"))) {
+                store.remove(document.getId());
+                continue;
+            }
+            store.put(document.getId(), document.getString("studentName"), changedAt, null);
+        }
+        int templates = 0;
+        for (DocumentSnapshot document : faces.getDocuments()) {
+            if (Boolean.TRUE.equals(document.getBoolean("provisioned"))) continue;
+            long changedAt = timestamp(document, "lastFaceUpdateTimestamp");
+            FaceEmbedding template = Boolean.TRUE.equals(document.getBoolean("faceEnrolled"))
+                    ? readTemplate(document) : null;
+            int index = store.put(document.getId(), document.getString("studentName"), changedAt,
+                    template != null ? template.values() : null);
+            if (template != null) {
+                templates++;
+            } else {
+                // Withdrawn or unreadable: the old template must not keep matching
+                store.clearTemplate(index);
+            }
+            faceWatermark = advance(faceWatermark, changedAt, now);
+        }
+        store.setWatermarks(profileWatermark, faceWatermark);
+        store.force();
+        Log.d(TAG, "Synced " + profiles.size() + " profile and " + templates + " face changes");
+    }
+
+    private static long timestamp(DocumentSnapshot document, String field) {
+        Long value = document.getLong(field);
+        return value != null ? value : 0L;
+    }
+
+    /** Returns the document's current-schema template, or null if it has none. */
+    @Nullable
+    static FaceEmbedding readTemplate(@NonNull DocumentSnapshot document) {
+        FaceEmbedding template;
+        try {
+            template = FaceEmbedding.fromFirestoreValue(document.get("faceData"));
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Unreadable faceData for " + document.getId(), e);
+            return null;
+        }
+        // Templates from another embedding schema cannot be compared with this one
+        if (template == null
+                || template.getVersion() != FaceEmbedding.CURRENT_VERSION
+                || template.size() != FaceEmbedding.CURRENT_DIMENSION) {
+            return null;
+        }
+        return template;
+    }
+}
@@ -0,0 +1,160 @@
+package com.hackathon.attendlytics;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.hackathon.attendlytics.core.AttendanceEvent;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import java.security.PublicKey;
+import java.util.HashMap;
+
+/**
+ * Student-side cache of the open attendance sessions of one section and their public token keys.
+ *
+ * {@link #prefetch} loads every open session of the student's section, and every open exam
+ * hall session of their department, once, so scanning the teacher's QR code is verified
+ * entirely on the device. A code from a session that opened after the prefetch costs a
+ * single {@link #fetch}. Used from the main thread only.
+ */
+public final class SessionTokenVerifier {
+
+    private static final String TAG = "SessionTokenVerifier";
+
+    /** Returned by {@link #verify} when the code names a session that is not cached. */
+    public static final int UNKNOWN_SESSION = 100;
+
+    /** An open session the student may check in to. */
+    public static final class OpenSession {
+        public final String sessionId;
+        public final String subject;
+        public final String department;
+        public final String year;
+        public final String section;
+        /** Covers the whole department rather than one year and section. */
+        public final boolean examHall;
+        final AttendanceToken token;
+
+        OpenSession(String sessionId, String subject, String department, String year, String section,
+                    boolean examHall, AttendanceToken token) {
+            this.sessionId = sessionId;
+            this.subject = subject;
+            this.department = department;
+            this.year = year;
+            this.section = section;
+            this.examHall = examHall;
+            this.token = token;
+        }
+
+        /** Whether a student of this department, year and section may check in. */
+        public boolean admits(@Nullable String department, @Nullable String year, @Nullable String section) {
+            return this.department.equals(department)
+                    && (examHall || (this.year.equals(year) && this.section.equals(section)));
+        }
+
+        /** @param token the scanned code, kept on the mark so it can be verified again */
+        @NonNull
+        public AttendanceEvent newEvent(@NonNull String studentUid, @NonNull String method, long timestampMillis,
+                                        @NonNull String token) {
+            return new AttendanceEvent(sessionId, studentUid, subject, department, year, section,
+                    method, timestampMillis, token);
+        }
+    }
+
+    private final HashMap<String, OpenSession> sessions = new HashMap<>();
+
+    /**
+     * Loads all open sessions of a section and the open exam hall sessions of its department.
+     * The task resolves to the number cached.
+     */
+    @NonNull
+    public Task<Integer> prefetch(@NonNull FirebaseFirestore db, @NonNull String department,
+                                  @NonNull String year, @NonNull String section) {
+        Query open = db.collection(TeacherAttendanceFragment.SESSIONS_COLLECTION)
+                .whereEqualTo("department", department)
+                .whereEqualTo("status", "open");
+        Task<QuerySnapshot> sectionSessions = open
+                .whereEqualTo("year", year)
+                .whereEqualTo("section", section)
+                .get();
+        Task<QuerySnapshot> examHalls = open.whereEqualTo("examHall", true).get();
+        return Tasks.whenAllSuccess(sectionSessions, examHalls)
+                .continueWith(task -> {
+                    for (Object result : task.getResult()) {
+                        for (DocumentSnapshot document : ((QuerySnapshot) result).getDocuments()) {
+                            put(document);
+                        }
+                    }
+                    Log.d(TAG, "Cached " + sessions.size() + " open sessions");
+                    return sessions.size();
+                });
+    }
+
+    /** Loads one session by id. The task resolves to null unless it exists, is open and has a key. */
+    @NonNull
+    public Task<OpenSession> fetch(@NonNull FirebaseFirestore db, @NonNull String sessionId) {
+        return db.collection(TeacherAttendanceFragment.SESSIONS_COLLECTION).document(sessionId)
+                .get()
+                .continueWith(task -> put(task.getResult()));
+    }
+
+    @Nullable
+    public OpenSession get(@NonNull String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    /** Most recently started cached session, or null if none is open. */
+    @Nullable
+    public OpenSession latest() {
+        OpenSession latest = null;
+        for (OpenSession session : sessions.values()) {
+            // Session ids start with the start time in millis, so they sort chronologically
+            if (latest == null || session.sessionId.compareTo(latest.sessionId) > 0) {
+                latest = session;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Verifies a scanned payload against the cached session key at {@code scannedAt}.
+     * Returns an {@link AttendanceToken} status or {@link #UNKNOWN_SESSION}.
+     */
+    public int verify(@NonNull String payload, long scannedAt) {
+        String sessionId = AttendanceToken.sessionIdOf(payload);
+        if (sessionId == null) return AttendanceToken.MALFORMED;
+        OpenSession session = sessions.get(sessionId);
+        if (session == null) return UNKNOWN_SESSION;
+        return session.token.verify(payload, sessionId, scannedAt);
+    }
+
+    @Nullable
+    private OpenSession put(@Nullable DocumentSnapshot document) {
+        // A closed session no longer accepts check-ins, even with a fresh-looking code
+        if (document == null || !document.exists() || !"open".equals(document.getString("status"))) {
+            return null;
+        }
+        PublicKey key = SigningKeys.decode(document.getString(TeacherAttendanceFragment.TOKEN_KEY_FIELD));
+        String subject = document.getString("subject");
+        String department = document.getString("department");
+        String year = document.getString("year");
+        String section = document.getString("section");
+        if (key == null || subject == null || department == null || year == null || section == null) {
+            Log.w(TAG, "Session " + document.getId() + " has no usable token key");
+            return null;
+        }
+        OpenSession session = new OpenSession(document.getId(), subject, department, year, section,
+                Boolean.TRUE.equals(document.getBoolean("examHall")), new AttendanceToken(null, key));
+        sessions.put(session.sessionId, session);
+        return session;
+    }
+}
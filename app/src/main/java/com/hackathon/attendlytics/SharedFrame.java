@@ -0,0 +1,43 @@
+package com.hackathon.attendlytics;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ImageProxy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A camera frame handed to several analyzers at once.
+ *
+ * Each consumer calls {@link #release()} exactly once when it is done; the underlying
+ * {@link ImageProxy} is closed by whichever finishes last. With
+ * {@link androidx.camera.core.ImageAnalysis#STRATEGY_KEEP_ONLY_LATEST}, CameraX delivers the
+ * next frame only after that close, so the consumers never fall behind each other.
+ */
+public final class SharedFrame {
+
+    private final ImageProxy image;
+    private final AtomicInteger holders;
+
+    public SharedFrame(@NonNull ImageProxy image, int consumers) {
+        if (consumers < 1) {
+            throw new IllegalArgumentException("consumers must be at least 1");
+        }
+        this.image = image;
+        this.holders = new AtomicInteger(consumers);
+    }
+
+    /** The shared frame. Must not be closed directly; call {@link #release()} instead. */
+    @NonNull
+    public ImageProxy get() {
+        return image;
+    }
+
+    public void release() {
+        int left = holders.decrementAndGet();
+        if (left == 0) {
+            image.close();
+        } else if (left < 0) {
+            throw new IllegalStateException("Frame released more times than it has consumers");
+        }
+    }
+}
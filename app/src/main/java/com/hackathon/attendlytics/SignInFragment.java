@@ -23,8 +23,6 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.PhoneAuthCredential;
 import com.google.firebase.auth.PhoneAuthOptions;
 import com.google.firebase.auth.PhoneAuthProvider;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +37,6 @@ public class SignInFragment extends Fragment {
     private com.google.android.material.textfield.TextInputLayout textInputLayoutOtp;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private PhoneAuthProvider.ForceResendingToken mResendToken;
     private String mVerificationId;
     private String validatedPhoneNumber;
@@ -53,7 +50,6 @@ public class SignInFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
         
         // Get role from arguments
         if (getArguments() != null) {
@@ -203,63 +199,68 @@ public class SignInFragment extends Fragment {
     private void checkUserProfileAndNavigate(String uid) {
         Log.d(TAG, "Checking user profile for UID: " + uid);
         
-        db.collection("users").document(uid)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Log.d(TAG, "User profile found, checking completion status");
-                        
-                        // Check if profile is completed
-                        Boolean profileCompleted = documentSnapshot.getBoolean("profileCompleted");
-                        Boolean faceEnrolled = documentSnapshot.getBoolean("faceEnrolled");
-                        
-                        String studentName = documentSnapshot.getString("studentName");
-                        String studentId = documentSnapshot.getString("studentId");
-                        
-                        if (profileCompleted != null && profileCompleted) {
-                            if (faceEnrolled != null && faceEnrolled) {
-                                // Fully registered user - go to dashboard
-                                Toast.makeText(getContext(), "Welcome back, " + 
-                                    (studentName != null ? studentName : "Student") + "!", Toast.LENGTH_SHORT).show();
-                                NavHostFragment.findNavController(SignInFragment.this)
-                                    .navigate(R.id.action_signInFragment_to_studentDashboardFragment);
+        // A profile confirmed in the last minute is trusted as-is; the dashboard revalidates it
+        ProfileRepository.getInstance(requireContext()).fetch(ProfileRepository.STUDENTS, uid,
+                ProfileRepository.FRESH_MILLIS, new ProfileRepository.Callback() {
+                    @Override
+                    public void onProfile(@NonNull ProfileRepository.Profile profile) {
+                        if (profile.exists()) {
+                            Log.d(TAG, "User profile found, checking completion status");
+
+                            // Check if profile is completed
+                            Boolean profileCompleted = profile.getBoolean("profileCompleted");
+                            Boolean faceEnrolled = profile.getBoolean("faceEnrolled");
+
+                            String studentName = profile.getString("studentName");
+                            String studentId = profile.getString("studentId");
+
+                            if (profileCompleted != null && profileCompleted) {
+                                if (faceEnrolled != null && faceEnrolled) {
+                                    // Fully registered user - go to dashboard
+                                    Toast.makeText(getContext(), "Welcome back, " +
+                                        (studentName != null ? studentName : "Student") + "!", Toast.LENGTH_SHORT).show();
+                                    NavHostFragment.findNavController(SignInFragment.this)
+                                        .navigate(R.id.action_signInFragment_to_studentDashboardFragment);
+                                } else {
+                                    // Profile complete but face not enrolled
+                                    Toast.makeText(getContext(), "Welcome back! Please complete face enrollment.", Toast.LENGTH_SHORT).show();
+                                    NavHostFragment.findNavController(SignInFragment.this)
+                                        .navigate(R.id.action_signInFragment_to_faceEnrollFragment);
+                                }
                             } else {
-                                // Profile complete but face not enrolled
-                                Toast.makeText(getContext(), "Welcome back! Please complete face enrollment.", Toast.LENGTH_SHORT).show();
+                                // Profile not completed - go to profile setup
+                                Toast.makeText(getContext(), "Welcome back! Please complete your profile.", Toast.LENGTH_SHORT).show();
                                 NavHostFragment.findNavController(SignInFragment.this)
-                                    .navigate(R.id.action_signInFragment_to_faceEnrollFragment);
+                                    .navigate(R.id.action_signInFragment_to_studentProfileSetupFragment);
                             }
                         } else {
-                            // Profile not completed - go to profile setup
-                            Toast.makeText(getContext(), "Welcome back! Please complete your profile.", Toast.LENGTH_SHORT).show();
-                            NavHostFragment.findNavController(SignInFragment.this)
-                                .navigate(R.id.action_signInFragment_to_studentProfileSetupFragment);
+                            // User not found - this phone number is not registered
+                            Log.w(TAG, "User profile not found for UID: " + uid);
+                            Toast.makeText(getContext(),
+                                "This phone number is not registered. Please register first.",
+                                Toast.LENGTH_LONG).show();
+
+                            // Sign out the user since they're not properly registered
+                            mAuth.signOut();
+
+                            // Reset UI
+                            editTextPhoneNumber.setEnabled(true);
+                            buttonSendOtp.setEnabled(true);
+                            editTextOtp.setText("");
+                            textInputLayoutOtp.setVisibility(View.GONE);
+                            buttonVerifyOtp.setVisibility(View.GONE);
                         }
-                    } else {
-                        // User not found - this phone number is not registered
-                        Log.w(TAG, "User profile not found for UID: " + uid);
-                        Toast.makeText(getContext(), 
-                            "This phone number is not registered. Please register first.", 
-                            Toast.LENGTH_LONG).show();
-                        
-                        // Sign out the user since they're not properly registered
-                        mAuth.signOut();
-                        
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        Log.e(TAG, "Error checking user profile", e);
+                        Toast.makeText(getContext(), "Error checking profile. Please try again.", Toast.LENGTH_LONG).show();
+
                         // Reset UI
                         editTextPhoneNumber.setEnabled(true);
                         buttonSendOtp.setEnabled(true);
-                        editTextOtp.setText("");
-                        textInputLayoutOtp.setVisibility(View.GONE);
-                        buttonVerifyOtp.setVisibility(View.GONE);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error checking user profile", e);
-                    Toast.makeText(getContext(), "Error checking profile. Please try again.", Toast.LENGTH_LONG).show();
-                    
-                    // Reset UI
-                    editTextPhoneNumber.setEnabled(true);
-                    buttonSendOtp.setEnabled(true);
                 });
     }
 
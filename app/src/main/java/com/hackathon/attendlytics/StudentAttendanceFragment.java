@@ -0,0 +1,121 @@
+package com.hackathon.attendlytics;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.hackathon.attendlytics.core.AttendanceHistory;
+import com.hackathon.attendlytics.core.SectionReport;
+
+import java.util.Locale;
+
+/**
+ * The signed-in student's attendance for the current semester: per-subject percentages and a
+ * day-by-day calendar, read from their single {@link AttendanceSummary} document.
+ */
+public class StudentAttendanceFragment extends Fragment {
+
+    private static final String TAG = "StudentAttendance";
+
+    private FirebaseAuth mAuth;
+    private FirebaseFirestore db;
+
+    private TextView textViewOverall, textViewSubjects, textViewCalendar;
+    private ProgressBar progressBar;
+
+    public StudentAttendanceFragment() {
+        // Required empty public constructor
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mAuth = FirebaseAuth.getInstance();
+        db = FirebaseFirestore.getInstance();
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_student_attendance, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        textViewOverall = view.findViewById(R.id.textViewAttendanceOverall);
+        textViewSubjects = view.findViewById(R.id.textViewAttendanceSubjects);
+        textViewCalendar = view.findViewById(R.id.textViewAttendanceCalendar);
+        progressBar = view.findViewById(R.id.progressBarAttendance);
+        loadHistory();
+    }
+
+    private void loadHistory() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) {
+            progressBar.setVisibility(View.GONE);
+            textViewOverall.setText("Please sign in again to view attendance");
+            return;
+        }
+        long start = SystemClock.elapsedRealtime();
+        // One document holds the whole semester; Firestore serves it from cache when offline
+        db.collection(AttendanceSummary.COLLECTION).document(user.getUid())
+                .get()
+                .addOnSuccessListener(document -> {
+                    if (!isAdded() || getView() == null) return;
+                    long now = System.currentTimeMillis();
+                    showHistory(AttendanceSummary.toHistory(document, SectionReport.semesterStart(now)), now);
+                    Log.d(TAG, "Attendance history shown in " + (SystemClock.elapsedRealtime() - start) + " ms");
+                })
+                .addOnFailureListener(e -> {
+                    if (!isAdded() || getView() == null) return;
+                    Log.e(TAG, "Failed to load attendance summary", e);
+                    progressBar.setVisibility(View.GONE);
+                    textViewOverall.setText("Could not load attendance");
+                    Toast.makeText(getContext(), "Error loading attendance", Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    private void showHistory(AttendanceHistory history, long now) {
+        progressBar.setVisibility(View.GONE);
+        if (history.getSubjects().isEmpty()) {
+            textViewOverall.setText("No classes recorded this semester yet");
+            return;
+        }
+        textViewOverall.setText(String.format(Locale.US, "This semester: %.1f%% (%d of %d classes)",
+                history.getPercent(), history.getAttended(), history.getHeld()));
+
+        StringBuilder subjects = new StringBuilder();
+        for (AttendanceHistory.SubjectLine line : history.getSubjects()) {
+            if (subjects.length() > 0) subjects.append('\n');
+            subjects.append(String.format(Locale.US, "%s: %.1f%% (%d/%d)%s", line.subject,
+                    line.getPercent(), line.attended, line.held,
+                    line.getPercent() < SectionReport.DEFAULTER_PERCENT ? "  - below minimum" : ""));
+        }
+        textViewSubjects.setText(subjects.toString());
+        textViewCalendar.setText(TextUtils.join("\n", history.monthGrid(now)));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        textViewOverall = null;
+        textViewSubjects = null;
+        textViewCalendar = null;
+        progressBar = null;
+    }
+}
@@ -0,0 +1,558 @@
+package com.hackathon.attendlytics;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.BitmapDrawable;
+import android.media.Image;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.navigation.fragment.NavHostFragment;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceDetection;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+import com.google.zxing.WriterException;
+import com.hackathon.attendlytics.core.AttendanceEvent;
+import com.hackathon.attendlytics.core.AttendancePass;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.FaceMatcher;
+
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Student check-in: scans the teacher's rotating session code on the CameraX analysis path,
+ * or shows a pass signed with the student's own {@link StudentPassKey} for a teacher device in
+ * kiosk mode.
+ *
+ * Frames are decoded from the Y plane by {@link QrFrameDecoder} on the analyzer thread; the
+ * token is verified on the main thread against session public keys prefetched by
+ * {@link SessionTokenVerifier}, so a check-in needs no round-trip once the code is in view.
+ *
+ * In face mode the front camera's frames feed face verification against the student's own
+ * enrolled template and QR decoding at the same time. Both read the same {@link SharedFrame},
+ * which is closed once both are done, so one selfie with the teacher's screen in the
+ * background checks the student in with {@link AttendanceEvent#METHOD_FACE_QR}.
+ */
+public class StudentCheckInFragment extends Fragment {
+
+    private static final String TAG = "StudentCheckIn";
+    // QR codes need more pixels than faces; 720p keeps a code readable from arm's length
+    private static final int ANALYSIS_WIDTH = 1280;
+    private static final int ANALYSIS_HEIGHT = 720;
+    // The same unreadable or rejected code is not re-posted more often than this
+    private static final long REPEAT_PAYLOAD_MS = 1000;
+    // Consecutive matching frames before the student's face counts as verified
+    private static final int FACE_CONFIRM_FRAMES = 2;
+    // The face and the code must be seen within this long of each other
+    private static final long FACE_CODE_WINDOW_MS = 5000;
+
+    private PreviewView previewView;
+    private ImageView imageViewPass;
+    private TextView textViewStatus;
+    private Button buttonShowPass, buttonCheckInMode;
+    private ProgressBar progressBar;
+
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    private ExecutorService cameraExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+    private final QrFrameDecoder qrDecoder = new QrFrameDecoder();
+    // Analyzer-thread state
+    private String lastPayload;
+    private long lastPayloadAt;
+    private long firstFrameAt;
+    // Written on the main thread, read by the analyzer
+    private volatile boolean scanning = true;
+    private volatile boolean faceMode;
+    private int lensFacing = CameraSelector.LENS_FACING_BACK;
+
+    private FaceDetector faceDetector;
+    // Set once the profile loads; null until then or if the student has not enrolled
+    private volatile float[] ownTemplate;
+    // Face-callback state. Only one frame is open at a time, so callbacks never overlap
+    private final FaceEmbedding probe = new FaceEmbedding();
+    private int faceHits;
+    // Main thread: latest face verification and a valid code still waiting for one
+    private long faceVerifiedAt;
+    private String pendingPayload;
+    private long pendingScannedAt;
+
+    private final SessionTokenVerifier sessionVerifier = new SessionTokenVerifier();
+    private String department, year, section;
+    private boolean checkInPending;
+    private QrCodeRenderer passRenderer;
+    private final AttendancePass passSigner = new AttendancePass();
+    // Set once loaded from the Keystore; null until then
+    private KeyPair passKeys;
+    private SessionTokenVerifier.OpenSession passSession;
+    private final Runnable passRotator = new Runnable() {
+        @Override
+        public void run() {
+            FirebaseUser user = mAuth.getCurrentUser();
+            if (passSession == null || user == null || imageViewPass == null) return;
+            long now = System.currentTimeMillis();
+            try {
+                passRenderer.render(passSigner.issue(passKeys.getPrivate(), passSession.sessionId, user.getUid(), now));
+                imageViewPass.invalidate();
+            } catch (WriterException e) {
+                Log.e(TAG, "Failed to encode attendance pass", e);
+            }
+            mainHandler.postDelayed(this, AttendanceToken.millisUntilNextSlot(now));
+        }
+    };
+
+    private FirebaseAuth mAuth;
+    private FirebaseFirestore db;
+
+    private final ActivityResultLauncher<String> requestPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (isGranted) {
+                    startCamera();
+                } else if (isAdded() && getContext() != null) {
+                    Toast.makeText(getContext(), "Camera permission is required to scan the attendance code.", Toast.LENGTH_LONG).show();
+                }
+            });
+
+    public StudentCheckInFragment() {
+        // Required empty public constructor
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mAuth = FirebaseAuth.getInstance();
+        db = FirebaseFirestore.getInstance();
+
+        // Selfie distance: one large face, landmarks needed for the embedding
+        FaceDetectorOptions options =
+                new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_NONE)
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .setMinFaceSize(0.2f)
+                        .build();
+        faceDetector = FaceDetection.getClient(options);
+        loadProfileAndSessions();
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_student_check_in, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        previewView = view.findViewById(R.id.previewViewCheckIn);
+        imageViewPass = view.findViewById(R.id.imageViewStudentPass);
+        textViewStatus = view.findViewById(R.id.textViewCheckInStatus);
+        buttonShowPass = view.findViewById(R.id.buttonShowPass);
+        buttonCheckInMode = view.findViewById(R.id.buttonCheckInMode);
+        progressBar = view.findViewById(R.id.progressBarCheckIn);
+
+        if (cameraExecutor == null || cameraExecutor.isShutdown()) {
+            cameraExecutor = Executors.newSingleThreadExecutor();
+        }
+        buttonShowPass.setOnClickListener(v -> togglePass());
+        buttonCheckInMode.setOnClickListener(v -> toggleFaceMode());
+        buttonCheckInMode.setText(faceMode ? "Scan Code Only" : "Verify With Face");
+        scanning = true;
+
+        if (allPermissionsGranted()) {
+            startCamera();
+        } else {
+            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    private void loadProfileAndSessions() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) return;
+        db.collection("users").document(user.getUid())
+                .get()
+                .addOnSuccessListener(documentSnapshot -> {
+                    department = documentSnapshot.getString("department");
+                    year = documentSnapshot.getString("year");
+                    section = documentSnapshot.getString("section");
+                    FaceEmbedding template = SectionTemplateLoader.readTemplate(documentSnapshot);
+                    ownTemplate = template != null ? template.values() : null;
+                    // Published ahead of any kiosk scan so the teacher's device can verify passes
+                    StudentPassKey.load(user.getUid())
+                            .addOnSuccessListener(keys -> {
+                                passKeys = keys;
+                                StudentPassKey.publish(db, documentSnapshot, user.getUid(), keys);
+                            })
+                            .addOnFailureListener(e -> Log.e(TAG, "Could not load pass key", e));
+                    if (department == null || year == null || section == null) {
+                        Log.w(TAG, "Profile incomplete, cannot prefetch sessions");
+                        return;
+                    }
+                    sessionVerifier.prefetch(db, department, year, section)
+                            .addOnFailureListener(e -> Log.w(TAG, "Could not prefetch open sessions", e));
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Could not load student profile", e));
+    }
+
+    private boolean allPermissionsGranted() {
+        if (getContext() == null) return false;
+        return ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private void startCamera() {
+        if (getContext() == null) return;
+        cameraProviderFuture = ProcessCameraProvider.getInstance(requireContext());
+        cameraProviderFuture.addListener(() -> {
+            try {
+                if (!isAdded() || getView() == null || previewView == null
+                        || !getViewLifecycleOwner().getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+                    return;
+                }
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+                ResolutionSelector analysisResolution = new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_16_9_FALLBACK_AUTO_STRATEGY)
+                        .setResolutionStrategy(new ResolutionStrategy(
+                                new Size(ANALYSIS_WIDTH, ANALYSIS_HEIGHT),
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                        .build();
+
+                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(analysisResolution)
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .build();
+                imageAnalysis.setAnalyzer(cameraExecutor, this::analyzeImage);
+
+                CameraSelector cameraSelector = new CameraSelector.Builder()
+                        .requireLensFacing(lensFacing)
+                        .build();
+
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(getViewLifecycleOwner(), cameraSelector, preview, imageAnalysis);
+            } catch (Exception e) {
+                Log.e(TAG, "Use case binding failed", e);
+                if (isAdded() && getContext() != null) {
+                    Toast.makeText(getContext(), "Failed to start camera: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    private void analyzeImage(@NonNull ImageProxy imageProxy) {
+        if (!scanning) {
+            imageProxy.close();
+            return;
+        }
+        if (faceMode) {
+            analyzeFaceAndCode(imageProxy);
+            return;
+        }
+        try {
+            decodeCode(imageProxy);
+        } finally {
+            imageProxy.close();
+        }
+    }
+
+    // Face detection runs on ML Kit's thread while this thread decodes the code from the same frame
+    private void analyzeFaceAndCode(@NonNull ImageProxy imageProxy) {
+        SharedFrame frame = new SharedFrame(imageProxy, 2);
+        verifyFace(frame);
+        try {
+            decodeCode(imageProxy);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private void verifyFace(SharedFrame frame) {
+        ImageProxy imageProxy = frame.get();
+        @androidx.camera.core.ExperimentalGetImage
+        Image mediaImage = imageProxy.getImage();
+        FaceDetector detector = faceDetector;
+        if (mediaImage == null || detector == null || ownTemplate == null) {
+            frame.release();
+            return;
+        }
+        InputImage image = InputImage.fromMediaImage(mediaImage, imageProxy.getImageInfo().getRotationDegrees());
+        long detectStart = SystemClock.elapsedRealtimeNanos();
+        detector.process(image)
+                .addOnCompleteListener(Runnable::run, task -> {
+                    try {
+                        metrics.detector.recordNanos(SystemClock.elapsedRealtimeNanos() - detectStart);
+                        if (task.isSuccessful()) {
+                            onFaces(task.getResult(), image.getWidth(), image.getHeight());
+                        } else {
+                            Log.e(TAG, "Face detection failed", task.getException());
+                        }
+                    } finally {
+                        frame.release();
+                    }
+                });
+    }
+
+    private void onFaces(List<Face> faces, int imageWidth, int imageHeight) {
+        float[] template = ownTemplate;
+        // Anyone else in the selfie makes it ambiguous whose face was verified
+        if (template == null || faces.size() != 1) {
+            faceHits = 0;
+            return;
+        }
+        Face face = faces.get(0);
+        if (FaceQuality.score(face, imageWidth, imageHeight) < FaceQuality.CAPTURE_THRESHOLD
+                || !probe.populate(face)) {
+            return;
+        }
+        float score = FaceMatcher.cosineSimilarity(probe.values(), template);
+        faceHits = score >= FaceMatcher.DEFAULT_THRESHOLD ? faceHits + 1 : 0;
+        // Refreshed on every matching frame, so a code scanned later still finds a recent face
+        if (faceHits >= FACE_CONFIRM_FRAMES) {
+            long verifiedAt = System.currentTimeMillis();
+            if (faceHits == FACE_CONFIRM_FRAMES) Log.d(TAG, "Face verified (score " + score + ")");
+            mainHandler.post(() -> onFaceVerified(verifiedAt));
+        }
+    }
+
+    // Analyzer thread
+    private void decodeCode(@NonNull ImageProxy imageProxy) {
+        long start = SystemClock.elapsedRealtime();
+        if (firstFrameAt == 0) firstFrameAt = start;
+
+        ImageProxy.PlaneProxy yPlane = imageProxy.getPlanes()[0];
+        long decodeStart = SystemClock.elapsedRealtimeNanos();
+        String payload = qrDecoder.decode(yPlane.getBuffer(), yPlane.getRowStride(), yPlane.getPixelStride(),
+                imageProxy.getWidth(), imageProxy.getHeight());
+        metrics.qrDecode.recordNanos(SystemClock.elapsedRealtimeNanos() - decodeStart);
+        if (payload == null) return;
+
+        if (payload.equals(lastPayload) && start - lastPayloadAt < REPEAT_PAYLOAD_MS) return;
+        lastPayload = payload;
+        lastPayloadAt = start;
+        Log.d(TAG, "Decoded session code " + (start - firstFrameAt) + " ms after the first frame");
+        // Verification uses the time the code was seen, not when the main thread gets to it
+        long scannedAt = System.currentTimeMillis();
+        mainHandler.post(() -> onSessionCodeScanned(payload, scannedAt));
+    }
+
+    private void onFaceVerified(long verifiedAt) {
+        if (!isAdded() || !faceMode || !scanning) return;
+        boolean alreadyVerified = verifiedAt - faceVerifiedAt <= FACE_CODE_WINDOW_MS;
+        faceVerifiedAt = verifiedAt;
+        if (pendingPayload != null) {
+            String payload = pendingPayload;
+            pendingPayload = null;
+            checkIn(payload, pendingScannedAt);
+        } else if (!alreadyVerified) {
+            setStatus("Face verified. Keep the teacher's code in view behind you.");
+        }
+    }
+
+    private void onSessionCodeScanned(String payload, long scannedAt) {
+        if (!isAdded() || !scanning || checkInPending) return;
+        String sessionId = AttendanceToken.sessionIdOf(payload);
+        if (sessionId == null) {
+            setStatus("Not an attendance code");
+            return;
+        }
+        if (sessionVerifier.get(sessionId) != null) {
+            checkIn(payload, scannedAt);
+            return;
+        }
+        // Session opened after the prefetch: one lookup, then verify against the scan time
+        checkInPending = true;
+        progressBar.setVisibility(View.VISIBLE);
+        sessionVerifier.fetch(db, sessionId)
+                .addOnCompleteListener(task -> {
+                    checkInPending = false;
+                    if (!isAdded() || progressBar == null) return;
+                    progressBar.setVisibility(View.GONE);
+                    if (task.isSuccessful()) {
+                        checkIn(payload, scannedAt);
+                    } else {
+                        Log.w(TAG, "Could not load session " + sessionId, task.getException());
+                        setStatus("Could not load session. Check your connection.");
+                    }
+                });
+    }
+
+    private void checkIn(String payload, long scannedAt) {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) {
+            Toast.makeText(getContext(), "User not authenticated. Please login again.", Toast.LENGTH_LONG).show();
+            return;
+        }
+        int status = sessionVerifier.verify(payload, scannedAt);
+        if (status != AttendanceToken.VALID) {
+            setStatus(describeTokenStatus(status));
+            return;
+        }
+        SessionTokenVerifier.OpenSession session = sessionVerifier.get(AttendanceToken.sessionIdOf(payload));
+        if (!session.admits(department, year, section)) {
+            setStatus("This session is for another section");
+            return;
+        }
+        if (faceMode && Math.abs(scannedAt - faceVerifiedAt) > FACE_CODE_WINDOW_MS) {
+            // The code is good; hold on to it until the face catches up
+            pendingPayload = payload;
+            pendingScannedAt = scannedAt;
+            setStatus("Code accepted. Keep your face in view.");
+            return;
+        }
+        scanning = false;
+        String method = faceMode ? AttendanceEvent.METHOD_FACE_QR : AttendanceEvent.METHOD_QR;
+        AttendanceWriteQueue.getInstance(requireContext())
+                .enqueue(session.newEvent(user.getUid(), method, scannedAt, payload));
+        Toast.makeText(getContext(), "Attendance marked for " + session.subject, Toast.LENGTH_LONG).show();
+        NavHostFragment.findNavController(StudentCheckInFragment.this).popBackStack();
+    }
+
+    private void toggleFaceMode() {
+        if (!faceMode && ownTemplate == null) {
+            Toast.makeText(getContext(), "Enroll your face from the dashboard first", Toast.LENGTH_LONG).show();
+            return;
+        }
+        faceMode = !faceMode;
+        faceVerifiedAt = 0;
+        pendingPayload = null;
+        buttonCheckInMode.setText(faceMode ? "Scan Code Only" : "Verify With Face");
+        setStatus(faceMode
+                ? "Take a selfie with the teacher's QR code visible behind you"
+                : "Point the camera at the QR code on your teacher's screen");
+        lensFacing = faceMode ? CameraSelector.LENS_FACING_FRONT : CameraSelector.LENS_FACING_BACK;
+        startCamera();
+    }
+
+    private void togglePass() {
+        if (passSession != null) {
+            // Back to scanning
+            passSession = null;
+            mainHandler.removeCallbacks(passRotator);
+            imageViewPass.setVisibility(View.GONE);
+            buttonShowPass.setText("Show My Pass");
+            setStatus("Point the camera at the QR code on your teacher's screen");
+            scanning = true;
+            return;
+        }
+        SessionTokenVerifier.OpenSession session = sessionVerifier.latest();
+        if (session == null) {
+            Toast.makeText(getContext(), "No open session for your section yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (passKeys == null) {
+            Toast.makeText(getContext(), "Your pass is not ready yet. Try again in a moment.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (passRenderer == null) {
+            passRenderer = new QrCodeRenderer();
+        }
+        passSession = session;
+        scanning = false;
+        BitmapDrawable drawable = new BitmapDrawable(getResources(), passRenderer.getBitmap());
+        drawable.setFilterBitmap(false);
+        imageViewPass.setImageDrawable(drawable);
+        imageViewPass.setVisibility(View.VISIBLE);
+        buttonShowPass.setText("Scan Code Instead");
+        setStatus("Show this pass to the teacher's device (" + session.subject + ")");
+        mainHandler.post(passRotator);
+    }
+
+    private void setStatus(String message) {
+        if (textViewStatus != null) textViewStatus.setText(message);
+    }
+
+    static String describeTokenStatus(int status) {
+        switch (status) {
+            case AttendanceToken.EXPIRED:
+                return "This code has expired. Scan the current one.";
+            case AttendanceToken.BAD_SIGNATURE:
+            case AttendanceToken.MALFORMED:
+                return "Invalid attendance code";
+            case AttendanceToken.WRONG_SESSION:
+                return "This code is for another session";
+            case SessionTokenVerifier.UNKNOWN_SESSION:
+                return "This session is not open";
+            default:
+                return "Could not verify attendance code";
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        try {
+            if (cameraProviderFuture != null && cameraProviderFuture.isDone()) {
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+                if (cameraProvider != null) {
+                    cameraProvider.unbindAll();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error unbinding camera provider in onDestroyView", e);
+        }
+        if (cameraExecutor != null) {
+            cameraExecutor.shutdown();
+            cameraExecutor = null;
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        passSession = null;
+
+        previewView = null;
+        imageViewPass = null;
+        textViewStatus = null;
+        buttonShowPass = null;
+        buttonCheckInMode = null;
+        progressBar = null;
+        cameraProviderFuture = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (faceDetector != null) {
+            faceDetector.close();
+            faceDetector = null;
+        }
+    }
+}
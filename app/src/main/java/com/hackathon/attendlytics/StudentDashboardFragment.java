@@ -15,8 +15,7 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 public class StudentDashboardFragment extends Fragment {
 
@@ -24,7 +23,8 @@ public class StudentDashboardFragment extends Fragment {
     private Button buttonSignOut, buttonViewAttendance, buttonMarkAttendance;
     
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private ProfileRepository profiles;
+    private ListenerRegistration profileRegistration;
 
     public StudentDashboardFragment() {
         // Required empty public constructor
@@ -34,7 +34,7 @@ public class StudentDashboardFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        profiles = ProfileRepository.getInstance(requireContext());
     }
 
     @Override
@@ -66,45 +66,75 @@ public class StudentDashboardFragment extends Fragment {
     private void loadUserData() {
         FirebaseUser user = mAuth.getCurrentUser();
         if (user != null) {
-            db.collection("users").document(user.getUid())
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            String studentName = documentSnapshot.getString("studentName");
-                            String studentId = documentSnapshot.getString("studentId");
-                            String department = documentSnapshot.getString("department");
-                            String year = documentSnapshot.getString("year");
-                            String section = documentSnapshot.getString("section");
-
-                            textViewWelcome.setText("Welcome, " + (studentName != null ? studentName : "Student") + "!");
+            // Next cold start opens this dashboard directly
+            RoleCache.put(requireContext(), user.getUid(), RoleCache.ROLE_STUDENT);
+            // Renders from the cached profile first, then again only if Firestore has something newer
+            profileRegistration = profiles.observe(ProfileRepository.STUDENTS, user.getUid(),
+                    new ProfileRepository.Callback() {
+                        @Override
+                        public void onProfile(@NonNull ProfileRepository.Profile profile) {
+                            if (!isAdded() || textViewWelcome == null) return;
+                            // Startup is over once real profile data is on screen
+                            requireActivity().reportFullyDrawn();
+                            if (profile.exists()) {
+                                String studentName = profile.getString("studentName");
+                                String studentId = profile.getString("studentId");
+                                String department = profile.getString("department");
+                                String year = profile.getString("year");
+                                String section = profile.getString("section");
+
+                                textViewWelcome.setText("Welcome, " + (studentName != null ? studentName : "Student") + "!");
                             
-                            StringBuilder info = new StringBuilder();
-                            if (studentId != null) info.append("ID: ").append(studentId).append("\n");
-                            if (department != null) info.append("Department: ").append(department).append("\n");
-                            if (year != null) info.append("Year: ").append(year).append("\n");
-                            if (section != null) info.append("Section: ").append(section);
+                                StringBuilder info = new StringBuilder();
+                                if (studentId != null) info.append("ID: ").append(studentId).append("\n");
+                                if (department != null) info.append("Department: ").append(department).append("\n");
+                                if (year != null) info.append("Year: ").append(year).append("\n");
+                                if (section != null) info.append("Section: ").append(section);
                             
-                            textViewStudentInfo.setText(info.toString());
+                                textViewStudentInfo.setText(info.toString());
+                            }
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            if (!isAdded()) return;
+                            Toast.makeText(getContext(), "Error loading profile", Toast.LENGTH_SHORT).show();
                         }
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(getContext(), "Error loading profile", Toast.LENGTH_SHORT).show();
                     });
+        } else {
+            // Opened from the role cache after the session expired or was revoked
+            RoleCache.clear(requireContext());
+            NavHostFragment.findNavController(this)
+                    .navigate(R.id.action_studentDashboardFragment_to_roleSelectionFragment);
         }
     }
 
     private void signOut() {
         mAuth.signOut();
+        profiles.clear();
+        RoleCache.clear(requireContext());
         Toast.makeText(getContext(), "Signed out successfully", Toast.LENGTH_SHORT).show();
         NavHostFragment.findNavController(StudentDashboardFragment.this)
                 .navigate(R.id.action_studentDashboardFragment_to_roleSelectionFragment);
     }
 
     private void viewAttendance() {
-        Toast.makeText(getContext(), "View Attendance feature coming soon!", Toast.LENGTH_SHORT).show();
+        NavHostFragment.findNavController(StudentDashboardFragment.this)
+                .navigate(R.id.action_studentDashboardFragment_to_studentAttendanceFragment);
     }
 
     private void markAttendance() {
-        Toast.makeText(getContext(), "Mark Attendance feature coming soon!", Toast.LENGTH_SHORT).show();
+        NavHostFragment.findNavController(StudentDashboardFragment.this)
+                .navigate(R.id.action_studentDashboardFragment_to_studentCheckInFragment);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (profileRegistration != null) {
+            profileRegistration.remove();
+            profileRegistration = null;
+        }
+        textViewWelcome = null;
     }
 }
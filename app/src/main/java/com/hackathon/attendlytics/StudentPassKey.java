@@ -0,0 +1,75 @@
+package com.hackathon.attendlytics;
+
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.hackathon.attendlytics.core.AttendancePass;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The signed-in student's {@link AttendancePass} key, kept in the Android Keystore.
+ *
+ * The private key is generated inside the Keystore and cannot be exported, so a student's
+ * passes can only come from their own phone. The public half is published as
+ * {@link #PROFILE_FIELD} on the student's profile, where a teacher's kiosk reads it.
+ */
+final class StudentPassKey {
+
+    private static final String TAG = "StudentPassKey";
+    private static final String KEYSTORE = "AndroidKeyStore";
+    private static final String ALIAS_PREFIX = "attendance_pass_";
+    static final String PROFILE_FIELD = "passKey";
+
+    // Keystore calls can take a while on hardware-backed keys; keep them off the main thread
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> new Thread(r, TAG));
+
+    private StudentPassKey() {
+    }
+
+    /** Loads the key pair of {@code uid}, creating it on first use. */
+    @NonNull
+    static Task<KeyPair> load(@NonNull String uid) {
+        return Tasks.call(EXECUTOR, () -> {
+            KeyStore keyStore = KeyStore.getInstance(KEYSTORE);
+            keyStore.load(null);
+            String alias = ALIAS_PREFIX + uid;
+            KeyStore.Entry entry = keyStore.getEntry(alias, null);
+            if (entry instanceof KeyStore.PrivateKeyEntry) {
+                KeyStore.PrivateKeyEntry key = (KeyStore.PrivateKeyEntry) entry;
+                return new KeyPair(key.getCertificate().getPublicKey(), key.getPrivateKey());
+            }
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, KEYSTORE);
+            generator.initialize(new KeyGenParameterSpec.Builder(alias, KeyProperties.PURPOSE_SIGN)
+                    .setAlgorithmParameterSpec(new ECGenParameterSpec(SigningKeys.CURVE))
+                    .setDigests(KeyProperties.DIGEST_SHA256)
+                    .build());
+            Log.d(TAG, "Created pass key for " + uid);
+            return generator.generateKeyPair();
+        });
+    }
+
+    /** Writes the public key to the student's own profile unless {@code profile} already has it. */
+    static void publish(@NonNull FirebaseFirestore db, @Nullable DocumentSnapshot profile, @NonNull String uid,
+                        @NonNull KeyPair keys) {
+        String encoded = SigningKeys.encode(keys.getPublic());
+        if (profile != null && encoded.equals(profile.getString(PROFILE_FIELD))) return;
+        db.collection(ProfileRepository.STUDENTS).document(uid)
+                .update(PROFILE_FIELD, encoded)
+                .addOnFailureListener(e -> Log.w(TAG, "Could not publish pass key", e));
+    }
+}
@@ -30,6 +30,26 @@ public class StudentProfileSetupFragment extends Fragment {
 
     private static final String TAG = "StudentProfileSetup";
 
+    // Shared with screens that select a class the same way students describe themselves
+    static final String[] DEPARTMENTS = {
+        "Select Department",
+        "Computer Science and Engineering (CSE)",
+        "Electronics and Communication Engineering (ECE)",
+        "Electrical and Electronics Engineering (EEE)",
+        "Mechanical Engineering (MECH)",
+        "Civil Engineering (CIVIL)",
+        "Chemical Engineering (CHEM)",
+        "Information Technology (IT)"
+    };
+
+    static final String[] YEARS = {
+        "Select Year",
+        "1st Year",
+        "2nd Year",
+        "3rd Year",
+        "4th Year"
+    };
+
     private EditText editTextStudentName, editTextStudentId, editTextSection;
     private Spinner spinnerDepartment, spinnerYear;
     private Button buttonSaveProfile;
@@ -75,38 +95,19 @@ public class StudentProfileSetupFragment extends Fragment {
 
     private void setupSpinners() {
         // Department spinner
-        String[] departments = {
-            "Select Department",
-            "Computer Science and Engineering (CSE)",
-            "Electronics and Communication Engineering (ECE)", 
-            "Electrical and Electronics Engineering (EEE)",
-            "Mechanical Engineering (MECH)",
-            "Civil Engineering (CIVIL)",
-            "Chemical Engineering (CHEM)",
-            "Information Technology (IT)"
-        };
-        
         ArrayAdapter<String> departmentAdapter = new ArrayAdapter<>(
             requireContext(), 
             android.R.layout.simple_spinner_item, 
-            departments
+            DEPARTMENTS
         );
         departmentAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerDepartment.setAdapter(departmentAdapter);
 
         // Year spinner
-        String[] years = {
-            "Select Year",
-            "1st Year",
-            "2nd Year", 
-            "3rd Year",
-            "4th Year"
-        };
-        
         ArrayAdapter<String> yearAdapter = new ArrayAdapter<>(
             requireContext(),
             android.R.layout.simple_spinner_item,
-            years
+            YEARS
         );
         yearAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerYear.setAdapter(yearAdapter);
@@ -175,9 +176,11 @@ public class StudentProfileSetupFragment extends Fragment {
         String uid = currentUser.getUid();
         Log.d(TAG, "Saving student profile for UID: " + uid);
         
+        ProfileRepository.getInstance(requireContext()).invalidate(ProfileRepository.STUDENTS, uid);
         db.collection("users").document(uid)
                 .set(profileData, SetOptions.merge())
                 .addOnSuccessListener(aVoid -> {
+                    claimPlaceholder(studentId, uid);
                     progressBarProfile.setVisibility(View.GONE);
                     Log.d(TAG, "Student profile saved successfully");
                     Toast.makeText(getContext(), "Profile saved! Proceeding to face enrollment.", Toast.LENGTH_SHORT).show();
@@ -194,7 +197,20 @@ public class StudentProfileSetupFragment extends Fragment {
                 });
     }
 
-    private String extractDepartmentCode(String fullDepartment) {
+    // The student now has a real profile; mark the placeholder a roster import created for this id
+    // as theirs. Only these two fields change, and most students have no placeholder at all.
+    private void claimPlaceholder(String studentId, String uid) {
+        if (!studentId.matches("[A-Z0-9]+")) return;
+        Map<String, Object> claim = new HashMap<>();
+        claim.put("claimedBy", uid);
+        // Lets sections that already synced the placeholder drop it on their next delta
+        claim.put("profileCompletionTimestamp", System.currentTimeMillis());
+        db.collection("users").document(RosterImporter.provisionedId(studentId))
+                .update(claim)
+                .addOnFailureListener(e -> Log.d(TAG, "No placeholder claimed for " + studentId, e));
+    }
+
+    static String extractDepartmentCode(String fullDepartment) {
         if (fullDepartment.contains("CSE")) return "CSE";
         if (fullDepartment.contains("ECE")) return "ECE";
         if (fullDepartment.contains("EEE")) return "EEE";
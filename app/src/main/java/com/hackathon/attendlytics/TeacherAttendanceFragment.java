@@ -0,0 +1,697 @@
+package com.hackathon.attendlytics;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.BitmapDrawable;
+import android.media.Image;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.Size;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.EditText;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.Spinner;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.navigation.fragment.NavHostFragment;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.face.Face;
+import com.google.mlkit.vision.face.FaceDetection;
+import com.google.mlkit.vision.face.FaceDetector;
+import com.google.mlkit.vision.face.FaceDetectorOptions;
+import com.google.zxing.WriterException;
+import com.hackathon.attendlytics.core.AnalysisPolicy;
+import com.hackathon.attendlytics.core.AttendanceEvent;
+import com.hackathon.attendlytics.core.AttendancePass;
+import com.hackathon.attendlytics.core.AttendanceSession;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.FaceMatcher;
+import com.hackathon.attendlytics.core.HnswIndex;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Live attendance session for a teacher.
+ *
+ * The teacher picks a subject and section; the section roster and face templates are
+ * prefetched into an {@link AttendanceSession}, after which every recognized face is marked
+ * present in memory and handed to the {@link AttendanceWriteQueue}. Nothing on the
+ * recognition path touches Firestore or the main thread.
+ *
+ * The screen also shows a QR code carrying an {@link AttendanceToken} that is re-signed every
+ * {@link AttendanceToken#SLOT_MILLIS}, so students can check in from their own phones.
+ *
+ * In kiosk mode the device is turned around and scans the passes students show on their
+ * phones instead of looking for faces, decoding the Y plane with {@link QrFrameDecoder} on
+ * every frame. Each pass is checked against the {@link StudentPassKey} published on that
+ * student's profile.
+ *
+ * An exam hall session covers every enrolled student of the department; faces are identified
+ * through the {@link DepartmentIndex} instead of an exhaustive search of one section.
+ *
+ * While a session is live this device also watches its {@code attendance} records and rolls
+ * the students present into the section's {@link SectionStats}, which nobody else writes.
+ * Check-ins from students' phones count once their stored token verifies against the
+ * session's key. The session, its key and that listener live in a
+ * {@link TeacherSessionViewModel}, so rotating the device does not end the session.
+ */
+public class TeacherAttendanceFragment extends Fragment {
+
+    private static final String TAG = "TeacherAttendance";
+    static final String SESSIONS_COLLECTION = "attendanceSessions";
+    // Public half of the session's token key; the private half stays on this device
+    static final String TOKEN_KEY_FIELD = "tokenKey";
+    // A tracked face must match the same student on this many frames before it is marked
+    private static final int CONFIRM_FRAMES = 2;
+    // Tracking ids are only remembered while they are plausibly still in view
+    private static final int MAX_TRACKED_FACES = 64;
+    // A pass key not in the local cache is fetched while the student waits at the kiosk
+    private static final long PASS_KEY_TIMEOUT_SECONDS = 5;
+    // Exam hall sessions span the department, so they carry no single year or section
+    static final String EXAM_HALL_YEAR = "ALL";
+    static final String EXAM_HALL_SECTION = "EXAM";
+
+    private View setupPanel;
+    private EditText editTextSubject, editTextSection;
+    private Spinner spinnerDepartment, spinnerYear;
+    private CheckBox checkBoxExamHall;
+    private Button buttonStartSession, buttonEndSession, buttonSwitchCamera, buttonKioskMode;
+    private PreviewView previewView;
+    private TextView textViewPresentCount, textViewLastMarked;
+    private ImageView imageViewSessionQr;
+    private ProgressBar progressBar;
+
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    private ExecutorService cameraExecutor;
+    private FaceDetector faceDetector;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AnalysisPolicy analysisPolicy = new AnalysisPolicy();
+    private final PipelineMetrics metrics = PipelineMetrics.get();
+    private int lensFacing = CameraSelector.LENS_FACING_BACK;
+
+    // Session, token key and mark listener; they outlive this fragment across rotation
+    private TeacherSessionViewModel live;
+    private volatile boolean kioskMode;
+    private AttendanceWriteQueue writeQueue;
+    // Main-thread only: the reusable QR bitmap
+    private QrCodeRenderer qrRenderer;
+    private final Runnable qrRotator = new Runnable() {
+        @Override
+        public void run() {
+            AttendanceSession current = live.getSession();
+            AttendanceToken tokenIssuer = live.getTokenIssuer();
+            if (current == null || tokenIssuer == null || imageViewSessionQr == null) return;
+            long now = System.currentTimeMillis();
+            try {
+                qrRenderer.render(tokenIssuer.issue(current.getSessionId(), now));
+                // Same bitmap every time; just tell the view its pixels changed
+                imageViewSessionQr.invalidate();
+            } catch (WriterException e) {
+                Log.e(TAG, "Failed to encode session QR code", e);
+            }
+            // Rotate on slot boundaries so a code is never shown after its slot ends
+            mainHandler.postDelayed(this, AttendanceToken.millisUntilNextSlot(now));
+        }
+    };
+    // Analyzer-thread scratch; reused for every face, and the track tables keep their capacity
+    // when cleared, so recognition does not allocate once they have grown
+    private final FaceEmbedding probe = new FaceEmbedding();
+    private final int[] matchRow = new int[1];
+    private final float[] matchScore = new float[1];
+    private final SparseIntArray candidateByTrack = new SparseIntArray();
+    private final SparseIntArray hitsByTrack = new SparseIntArray();
+    private final SparseBooleanArray resolvedTracks = new SparseBooleanArray();
+    private final QrFrameDecoder qrDecoder = new QrFrameDecoder();
+    private final AttendancePass passVerifier = new AttendancePass();
+    private final HashMap<String, PublicKey> passKeys = new HashMap<>();
+    private String lastPass;
+
+    private FirebaseAuth mAuth;
+    private FirebaseFirestore db;
+
+    private final ActivityResultLauncher<String> requestPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
+                if (isGranted) {
+                    startCamera();
+                } else if (isAdded() && getContext() != null) {
+                    Toast.makeText(getContext(), "Camera permission is required to mark attendance.", Toast.LENGTH_LONG).show();
+                }
+            });
+
+    public TeacherAttendanceFragment() {
+        // Required empty public constructor
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mAuth = FirebaseAuth.getInstance();
+        db = FirebaseFirestore.getInstance();
+        writeQueue = AttendanceWriteQueue.getInstance(requireContext());
+        live = new ViewModelProvider(this).get(TeacherSessionViewModel.class);
+
+        // Classroom distance: faces are small, and every frame needs landmarks for matching
+        FaceDetectorOptions options =
+                new FaceDetectorOptions.Builder()
+                        .setPerformanceMode(FaceDetectorOptions.PERFORMANCE_MODE_FAST)
+                        .setLandmarkMode(FaceDetectorOptions.LANDMARK_MODE_ALL)
+                        .setClassificationMode(FaceDetectorOptions.CLASSIFICATION_MODE_ALL)
+                        .setContourMode(FaceDetectorOptions.CONTOUR_MODE_NONE)
+                        .setMinFaceSize(0.1f)
+                        .enableTracking()
+                        .build();
+        faceDetector = FaceDetection.getClient(options);
+    }
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_teacher_attendance, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        setupPanel = view.findViewById(R.id.scrollViewSessionSetup);
+        editTextSubject = view.findViewById(R.id.editTextSessionSubject);
+        editTextSection = view.findViewById(R.id.editTextSessionSection);
+        spinnerDepartment = view.findViewById(R.id.spinnerSessionDepartment);
+        spinnerYear = view.findViewById(R.id.spinnerSessionYear);
+        checkBoxExamHall = view.findViewById(R.id.checkBoxExamHall);
+        buttonStartSession = view.findViewById(R.id.buttonStartSession);
+        buttonEndSession = view.findViewById(R.id.buttonEndSession);
+        buttonSwitchCamera = view.findViewById(R.id.buttonSwitchCamera);
+        buttonKioskMode = view.findViewById(R.id.buttonKioskMode);
+        previewView = view.findViewById(R.id.previewViewAttendance);
+        textViewPresentCount = view.findViewById(R.id.textViewPresentCount);
+        textViewLastMarked = view.findViewById(R.id.textViewLastMarked);
+        imageViewSessionQr = view.findViewById(R.id.imageViewSessionQr);
+        progressBar = view.findViewById(R.id.progressBarAttendance);
+
+        if (cameraExecutor == null || cameraExecutor.isShutdown()) {
+            cameraExecutor = Executors.newSingleThreadExecutor();
+        }
+
+        setupSpinners();
+        buttonStartSession.setOnClickListener(v -> startSession());
+        buttonEndSession.setOnClickListener(v -> endSession());
+        buttonSwitchCamera.setOnClickListener(v -> {
+            lensFacing = lensFacing == CameraSelector.LENS_FACING_BACK
+                    ? CameraSelector.LENS_FACING_FRONT : CameraSelector.LENS_FACING_BACK;
+            startCamera();
+        });
+        buttonKioskMode.setOnClickListener(v -> toggleKioskMode());
+        checkBoxExamHall.setOnCheckedChangeListener((button, checked) -> {
+            spinnerYear.setEnabled(!checked);
+            editTextSection.setEnabled(!checked);
+        });
+
+        live.getCheckIns().observe(getViewLifecycleOwner(), count -> updatePresentCount());
+        if (live.getSession() != null) {
+            // View or fragment recreated while a session is running
+            showLiveSession();
+        } else {
+            prefillSubject();
+        }
+    }
+
+    private void setupSpinners() {
+        ArrayAdapter<String> departmentAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, StudentProfileSetupFragment.DEPARTMENTS);
+        departmentAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerDepartment.setAdapter(departmentAdapter);
+
+        ArrayAdapter<String> yearAdapter = new ArrayAdapter<>(
+                requireContext(), android.R.layout.simple_spinner_item, StudentProfileSetupFragment.YEARS);
+        yearAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerYear.setAdapter(yearAdapter);
+    }
+
+    private void prefillSubject() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) return;
+        // The dashboard has just loaded this profile, so it is normally served from memory
+        ProfileRepository.getInstance(requireContext()).fetch(ProfileRepository.TEACHERS, user.getUid(),
+                ProfileRepository.FRESH_MILLIS, new ProfileRepository.Callback() {
+                    @Override
+                    public void onProfile(@NonNull ProfileRepository.Profile profile) {
+                        String subjectCode = profile.getString("subjectCode");
+                        if (subjectCode == null || editTextSubject == null
+                                || !TextUtils.isEmpty(editTextSubject.getText())) {
+                            return;
+                        }
+                        // Stored as "CS101 - Programming Fundamentals"; the session only needs the code
+                        int separator = subjectCode.indexOf(" - ");
+                        editTextSubject.setText(separator > 0 ? subjectCode.substring(0, separator) : subjectCode);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        Log.w(TAG, "Could not load teacher profile", e);
+                    }
+                });
+    }
+
+    private void startSession() {
+        FirebaseUser user = mAuth.getCurrentUser();
+        if (user == null) {
+            Toast.makeText(getContext(), "User not authenticated. Please login again.", Toast.LENGTH_LONG).show();
+            return;
+        }
+        String subject = editTextSubject.getText().toString().trim().toUpperCase();
+        String section = editTextSection.getText().toString().trim().toUpperCase();
+        String department = spinnerDepartment.getSelectedItem().toString();
+        String year = spinnerYear.getSelectedItem().toString();
+        boolean examHall = checkBoxExamHall.isChecked();
+
+        if (TextUtils.isEmpty(subject)) {
+            editTextSubject.setError("Enter subject code");
+            return;
+        }
+        if (!examHall && TextUtils.isEmpty(section)) {
+            editTextSection.setError("Enter section (e.g., A, B, C)");
+            return;
+        }
+        if (department.equals(StudentProfileSetupFragment.DEPARTMENTS[0])) {
+            Toast.makeText(getContext(), "Please select a department", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (!examHall && year.equals(StudentProfileSetupFragment.YEARS[0])) {
+            Toast.makeText(getContext(), "Please select a year", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String teacherUid = user.getUid();
+        String departmentCode = StudentProfileSetupFragment.extractDepartmentCode(department);
+        long startedAt = System.currentTimeMillis();
+        String sessionId = AttendanceSession.newSessionId(teacherUid, startedAt);
+        KeyPair keys = SigningKeys.newKeyPair();
+
+        progressBar.setVisibility(View.VISIBLE);
+        buttonStartSession.setEnabled(false);
+
+        if (examHall) {
+            // The index is synced and searched on the camera executor; only new enrollments are fetched
+            DepartmentIndex.load(requireContext(), db, cameraExecutor, departmentCode)
+                    .addOnSuccessListener(hall -> {
+                        AttendanceSession loaded = new AttendanceSession(sessionId, teacherUid, subject,
+                                departmentCode, EXAM_HALL_YEAR, EXAM_HALL_SECTION, startedAt, hall.getNames().size());
+                        for (Map.Entry<String, String> student : hall.getNames().entrySet()) {
+                            loaded.addStudent(student.getKey(), student.getValue(), null);
+                        }
+                        onSessionLoaded(loaded, keys, hall.getIndex(),
+                                "No enrolled students found in " + departmentCode);
+                    })
+                    .addOnFailureListener(this::onSessionLoadFailed);
+            return;
+        }
+        // Roster and templates are decoded on the camera executor, off the main thread
+        SectionTemplateLoader.loadSession(requireContext(), db, cameraExecutor, sessionId, teacherUid, subject,
+                        departmentCode, year, section, startedAt)
+                .addOnSuccessListener(loaded -> onSessionLoaded(loaded, keys, null,
+                        "No students found for " + departmentCode + " " + year + " section " + section))
+                .addOnFailureListener(this::onSessionLoadFailed);
+    }
+
+    private void onSessionLoaded(AttendanceSession loaded, KeyPair keys, @Nullable HnswIndex index,
+                                 String emptyMessage) {
+        if (!isAdded() || getView() == null) return;
+        progressBar.setVisibility(View.GONE);
+        buttonStartSession.setEnabled(true);
+        if (loaded.getRosterSize() == 0) {
+            Toast.makeText(getContext(), emptyMessage, Toast.LENGTH_LONG).show();
+            return;
+        }
+        live.start(loaded, keys, index);
+        showLiveSession();
+    }
+
+    private void onSessionLoadFailed(Exception e) {
+        if (!isAdded() || getView() == null) return;
+        progressBar.setVisibility(View.GONE);
+        buttonStartSession.setEnabled(true);
+        Log.e(TAG, "Failed to load section roster", e);
+        Toast.makeText(getContext(), "Failed to load class: " + e.getMessage(), Toast.LENGTH_LONG).show();
+    }
+
+    private void showLiveSession() {
+        setupPanel.setVisibility(View.GONE);
+        previewView.setVisibility(View.VISIBLE);
+        textViewPresentCount.setVisibility(View.VISIBLE);
+        textViewLastMarked.setVisibility(View.VISIBLE);
+        buttonEndSession.setVisibility(View.VISIBLE);
+        buttonSwitchCamera.setVisibility(View.VISIBLE);
+        buttonKioskMode.setVisibility(View.VISIBLE);
+        buttonKioskMode.setText(kioskMode ? "Faces" : "Kiosk");
+        updatePresentCount();
+        showSessionQr();
+
+        if (allPermissionsGranted()) {
+            startCamera();
+        } else {
+            requestPermissionLauncher.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    private void showSessionQr() {
+        if (live.getTokenIssuer() == null) return;
+        if (qrRenderer == null) {
+            qrRenderer = new QrCodeRenderer();
+        }
+        // One pixel per module; scale up without smoothing so the modules stay sharp
+        BitmapDrawable drawable = new BitmapDrawable(getResources(), qrRenderer.getBitmap());
+        drawable.setFilterBitmap(false);
+        imageViewSessionQr.setImageDrawable(drawable);
+        imageViewSessionQr.setVisibility(View.VISIBLE);
+        mainHandler.removeCallbacks(qrRotator);
+        mainHandler.post(qrRotator);
+    }
+
+    private void toggleKioskMode() {
+        kioskMode = !kioskMode;
+        buttonKioskMode.setText(kioskMode ? "Faces" : "Kiosk");
+        textViewLastMarked.setText(kioskMode ? "Show your pass to the camera" : "");
+        // Students hold their phones up to the screen side of the device
+        lensFacing = kioskMode ? CameraSelector.LENS_FACING_FRONT : CameraSelector.LENS_FACING_BACK;
+        startCamera();
+    }
+
+    private void updatePresentCount() {
+        AttendanceSession current = live.getSession();
+        if (current == null || textViewPresentCount == null) return;
+        textViewPresentCount.setText(current.getPresentCount() + " / " + current.getRosterSize() + " present");
+    }
+
+    private void endSession() {
+        AttendanceSession current = live.close();
+        if (current == null) return;
+        mainHandler.removeCallbacks(qrRotator);
+
+        Toast.makeText(getContext(), "Session ended: " + current.getPresentCount() + " of "
+                + current.getRosterSize() + " present", Toast.LENGTH_LONG).show();
+        NavHostFragment.findNavController(TeacherAttendanceFragment.this).popBackStack();
+    }
+
+    private boolean allPermissionsGranted() {
+        if (getContext() == null) return false;
+        return ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private void startCamera() {
+        if (getContext() == null) return;
+        cameraProviderFuture = ProcessCameraProvider.getInstance(requireContext());
+        cameraProviderFuture.addListener(() -> {
+            try {
+                if (!isAdded() || getView() == null || previewView == null
+                        || !getViewLifecycleOwner().getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+                    return;
+                }
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+                CameraSelector cameraSelector = new CameraSelector.Builder()
+                        .requireLensFacing(lensFacing)
+                        .build();
+
+                ResolutionSelector analysisResolution = new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                        .setResolutionStrategy(new ResolutionStrategy(
+                                new Size(analysisPolicy.getTargetWidth(), analysisPolicy.getTargetHeight()),
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                        .build();
+
+                ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                        .setResolutionSelector(analysisResolution)
+                        .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .build();
+                imageAnalysis.setAnalyzer(cameraExecutor, this::analyzeImage);
+
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(getViewLifecycleOwner(), cameraSelector, preview, imageAnalysis);
+            } catch (Exception e) {
+                Log.e(TAG, "Use case binding failed", e);
+                if (isAdded() && getContext() != null) {
+                    Toast.makeText(getContext(), "Failed to start camera: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            }
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    private void analyzeImage(@NonNull ImageProxy imageProxy) {
+        try {
+            AttendanceSession current = live.getSession();
+            if (current == null) return;
+            if (kioskMode) {
+                scanPass(current, imageProxy);
+                return;
+            }
+            if (faceDetector == null) return;
+            long frameStart = SystemClock.elapsedRealtimeNanos();
+            if (!analysisPolicy.shouldAnalyze(frameStart)) return;
+
+            @androidx.camera.core.ExperimentalGetImage
+            Image mediaImage = imageProxy.getImage();
+            if (mediaImage == null) return;
+            InputImage image = InputImage.fromMediaImage(mediaImage, imageProxy.getImageInfo().getRotationDegrees());
+
+            List<Face> faces = Tasks.await(faceDetector.process(image));
+            long detectNanos = SystemClock.elapsedRealtimeNanos() - frameStart;
+            analysisPolicy.recordDetectorLatency(detectNanos);
+            metrics.detector.recordNanos(detectNanos);
+
+            for (Face face : faces) {
+                recognize(current, face, image.getWidth(), image.getHeight());
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Face detection failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            imageProxy.close();
+        }
+    }
+
+    // Analyzer thread: face -> roster index -> bit, all in memory
+    private void recognize(AttendanceSession current, Face face, int imageWidth, int imageHeight) {
+        Integer trackingId = face.getTrackingId();
+        if (trackingId != null && resolvedTracks.get(trackingId)) return;
+        if (FaceQuality.score(face, imageWidth, imageHeight) < FaceQuality.CAPTURE_THRESHOLD) return;
+
+        long embedStart = SystemClock.elapsedRealtimeNanos();
+        if (!probe.populate(face)) return;
+        HnswIndex index = live.getDepartmentIndex();
+        int found = index != null
+                ? index.search(probe.values(), 1, matchRow, matchScore)
+                : current.getMatcher().search(probe.values(), 1, matchRow, matchScore);
+        metrics.embedding.recordNanos(SystemClock.elapsedRealtimeNanos() - embedStart);
+        if (found == 0 || matchScore[0] < FaceMatcher.DEFAULT_THRESHOLD) return;
+
+        int rosterIndex = index != null
+                ? current.indexOf(index.idAt(matchRow[0]))
+                : current.rosterIndexOfMatch(matchRow[0]);
+        if (rosterIndex == AttendanceSession.NOT_ON_ROSTER || !confirm(trackingId, rosterIndex)) return;
+
+        if (current.markPresent(rosterIndex)) {
+            writeQueue.enqueue(current.newEvent(rosterIndex, AttendanceEvent.METHOD_FACE, System.currentTimeMillis()));
+            String name = current.nameAt(rosterIndex);
+            Log.d(TAG, "Marked " + current.uidAt(rosterIndex) + " (score " + matchScore[0] + ")");
+            mainHandler.post(() -> {
+                if (!isAdded() || textViewLastMarked == null) return;
+                textViewLastMarked.setText("Marked: " + name);
+                updatePresentCount();
+            });
+        }
+    }
+
+    // Analyzer thread: every frame is decoded, since a pass is only in view for a moment
+    private void scanPass(AttendanceSession current, ImageProxy imageProxy) {
+        ImageProxy.PlaneProxy yPlane = imageProxy.getPlanes()[0];
+        long decodeStart = SystemClock.elapsedRealtimeNanos();
+        String payload = qrDecoder.decode(yPlane.getBuffer(), yPlane.getRowStride(), yPlane.getPixelStride(),
+                imageProxy.getWidth(), imageProxy.getHeight());
+        metrics.qrDecode.recordNanos(SystemClock.elapsedRealtimeNanos() - decodeStart);
+        // The same pass stays in view for several frames; only the first one counts
+        if (payload == null || payload.equals(lastPass)) return;
+        lastPass = payload;
+
+        String studentUid = AttendancePass.studentUidOf(payload);
+        if (studentUid == null) {
+            showKioskMessage(StudentCheckInFragment.describeTokenStatus(AttendanceToken.MALFORMED));
+            return;
+        }
+        int rosterIndex = current.indexOf(studentUid);
+        if (rosterIndex == AttendanceSession.NOT_ON_ROSTER) {
+            showKioskMessage("Not on this class roster");
+            return;
+        }
+        PublicKey key;
+        try {
+            key = passKeyOf(studentUid);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Could not load pass key of " + studentUid, e);
+            // Not a verdict on the pass; let the next frame of it try again
+            lastPass = null;
+            showKioskMessage("Could not check this pass. Try again.");
+            return;
+        } catch (InterruptedException e) {
+            lastPass = null;
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (key == null) {
+            showKioskMessage("No pass key on file for " + current.nameAt(rosterIndex));
+            return;
+        }
+        int status = passVerifier.verify(payload, current.getSessionId(), key, System.currentTimeMillis());
+        if (status != AttendanceToken.VALID) {
+            // The student may have moved to a new phone; look the key up again next time
+            if (status == AttendanceToken.BAD_SIGNATURE) passKeys.remove(studentUid);
+            showKioskMessage(StudentCheckInFragment.describeTokenStatus(status));
+            return;
+        }
+        boolean marked = current.markPresent(rosterIndex);
+        if (marked) {
+            writeQueue.enqueue(current.newEvent(rosterIndex, AttendanceEvent.METHOD_QR, System.currentTimeMillis(),
+                    payload));
+        }
+        String name = current.nameAt(rosterIndex);
+        mainHandler.post(() -> {
+            if (!isAdded() || textViewLastMarked == null) return;
+            textViewLastMarked.setText(marked ? "Marked: " + name : "Already marked: " + name);
+            updatePresentCount();
+        });
+    }
+
+    // Analyzer thread: one profile read per student, served from the local cache when offline
+    @Nullable
+    private PublicKey passKeyOf(String studentUid)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        PublicKey key = passKeys.get(studentUid);
+        if (key != null) return key;
+        DocumentSnapshot profile = Tasks.await(db.collection(ProfileRepository.STUDENTS).document(studentUid).get(),
+                PASS_KEY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        key = SigningKeys.decode(profile.getString(StudentPassKey.PROFILE_FIELD));
+        if (key != null) passKeys.put(studentUid, key);
+        return key;
+    }
+
+    private void showKioskMessage(String message) {
+        mainHandler.post(() -> {
+            if (!isAdded() || textViewLastMarked == null) return;
+            textViewLastMarked.setText(message);
+        });
+    }
+
+    // Requires the same match on consecutive frames of one tracked face before marking
+    private boolean confirm(@Nullable Integer trackingId, int rosterIndex) {
+        if (trackingId == null) return true;
+        if (candidateByTrack.size() > MAX_TRACKED_FACES) {
+            candidateByTrack.clear();
+            hitsByTrack.clear();
+            resolvedTracks.clear();
+        }
+        int track = trackingId;
+        int hits = candidateByTrack.get(track, AttendanceSession.NOT_ON_ROSTER) == rosterIndex
+                ? hitsByTrack.get(track) + 1 : 1;
+        candidateByTrack.put(track, rosterIndex);
+        hitsByTrack.put(track, hits);
+        if (hits < CONFIRM_FRAMES) return false;
+        resolvedTracks.put(track, true);
+        return true;
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        try {
+            if (cameraProviderFuture != null && cameraProviderFuture.isDone()) {
+                ProcessCameraProvider cameraProvider = cameraProviderFuture.get();
+                if (cameraProvider != null) {
+                    cameraProvider.unbindAll();
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error unbinding camera provider in onDestroyView", e);
+        }
+        if (cameraExecutor != null) {
+            cameraExecutor.shutdown();
+            cameraExecutor = null;
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+
+        setupPanel = null;
+        editTextSubject = null;
+        editTextSection = null;
+        spinnerDepartment = null;
+        spinnerYear = null;
+        checkBoxExamHall = null;
+        buttonStartSession = null;
+        buttonEndSession = null;
+        buttonSwitchCamera = null;
+        buttonKioskMode = null;
+        previewView = null;
+        textViewPresentCount = null;
+        textViewLastMarked = null;
+        imageViewSessionQr = null;
+        progressBar = null;
+        cameraProviderFuture = null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (faceDetector != null) {
+            faceDetector.close();
+            faceDetector = null;
+        }
+    }
+}
@@ -15,8 +15,7 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 public class TeacherDashboardFragment extends Fragment {
 
@@ -24,7 +23,8 @@ public class TeacherDashboardFragment extends Fragment {
     private Button buttonSignOut, buttonManageClasses, buttonViewReports, buttonMarkAttendance;
     
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private ProfileRepository profiles;
+    private ListenerRegistration profileRegistration;
 
     public TeacherDashboardFragment() {
         // Required empty public constructor
@@ -34,7 +34,7 @@ public class TeacherDashboardFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        profiles = ProfileRepository.getInstance(requireContext());
     }
 
     @Override
@@ -68,49 +68,80 @@ public class TeacherDashboardFragment extends Fragment {
     private void loadTeacherData() {
         FirebaseUser user = mAuth.getCurrentUser();
         if (user != null) {
-            db.collection("teachers").document(user.getUid())
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            String teacherName = documentSnapshot.getString("teacherName");
-                            String employeeId = documentSnapshot.getString("employeeId");
-                            String department = documentSnapshot.getString("department");
-                            String subject = documentSnapshot.getString("subject");
-                            String phoneNumber = documentSnapshot.getString("phoneNumber");
-
-                            textViewWelcome.setText("Welcome, " + (teacherName != null ? teacherName : "Teacher") + "!");
+            // Next cold start opens this dashboard directly
+            RoleCache.put(requireContext(), user.getUid(), RoleCache.ROLE_TEACHER);
+            // Renders from the cached profile first, then again only if Firestore has something newer
+            profileRegistration = profiles.observe(ProfileRepository.TEACHERS, user.getUid(),
+                    new ProfileRepository.Callback() {
+                        @Override
+                        public void onProfile(@NonNull ProfileRepository.Profile profile) {
+                            if (!isAdded() || textViewWelcome == null) return;
+                            // Startup is over once real profile data is on screen
+                            requireActivity().reportFullyDrawn();
+                            if (profile.exists()) {
+                                String teacherName = profile.getString("teacherName");
+                                String employeeId = profile.getString("employeeId");
+                                String department = profile.getString("department");
+                                String subject = profile.getString("subject");
+                                String phoneNumber = profile.getString("phoneNumber");
+
+                                textViewWelcome.setText("Welcome, " + (teacherName != null ? teacherName : "Teacher") + "!");
                             
-                            StringBuilder info = new StringBuilder();
-                            if (employeeId != null) info.append("Employee ID: ").append(employeeId).append("\n");
-                            if (department != null) info.append("Department: ").append(department).append("\n");
-                            if (subject != null) info.append("Subject: ").append(subject).append("\n");
-                            if (phoneNumber != null) info.append("Phone: ").append(phoneNumber);
+                                StringBuilder info = new StringBuilder();
+                                if (employeeId != null) info.append("Employee ID: ").append(employeeId).append("\n");
+                                if (department != null) info.append("Department: ").append(department).append("\n");
+                                if (subject != null) info.append("Subject: ").append(subject).append("\n");
+                                if (phoneNumber != null) info.append("Phone: ").append(phoneNumber);
                             
-                            textViewTeacherInfo.setText(info.toString());
+                                textViewTeacherInfo.setText(info.toString());
+                            }
+                        }
+
+                        @Override
+                        public void onError(@NonNull Exception e) {
+                            if (!isAdded()) return;
+                            Toast.makeText(getContext(), "Error loading profile", Toast.LENGTH_SHORT).show();
                         }
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(getContext(), "Error loading profile", Toast.LENGTH_SHORT).show();
                     });
+        } else {
+            // Opened from the role cache after the session expired or was revoked
+            RoleCache.clear(requireContext());
+            NavHostFragment.findNavController(this)
+                    .navigate(R.id.action_teacherDashboardFragment_to_roleSelectionFragment);
         }
     }
 
     private void signOut() {
         mAuth.signOut();
+        profiles.clear();
+        RoleCache.clear(requireContext());
         Toast.makeText(getContext(), "Signed out successfully", Toast.LENGTH_SHORT).show();
         NavHostFragment.findNavController(TeacherDashboardFragment.this)
                 .navigate(R.id.action_teacherDashboardFragment_to_roleSelectionFragment);
     }
 
     private void manageClasses() {
-        Toast.makeText(getContext(), "Manage Classes feature coming soon!", Toast.LENGTH_SHORT).show();
+        NavHostFragment.findNavController(TeacherDashboardFragment.this)
+                .navigate(R.id.action_teacherDashboardFragment_to_rosterFragment);
     }
 
     private void viewReports() {
-        Toast.makeText(getContext(), "View Reports feature coming soon!", Toast.LENGTH_SHORT).show();
+        NavHostFragment.findNavController(TeacherDashboardFragment.this)
+                .navigate(R.id.action_teacherDashboardFragment_to_reportsFragment);
     }
 
     private void markAttendance() {
-        Toast.makeText(getContext(), "Mark Attendance feature coming soon!", Toast.LENGTH_SHORT).show();
+        NavHostFragment.findNavController(TeacherDashboardFragment.this)
+                .navigate(R.id.action_teacherDashboardFragment_to_teacherAttendanceFragment);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (profileRegistration != null) {
+            profileRegistration.remove();
+            profileRegistration = null;
+        }
+        textViewWelcome = null;
     }
-}
\ No newline at end of file
+}
@@ -205,6 +205,7 @@ public class TeacherProfileSetupFragment extends Fragment {
         teacherData.put("profileCompleted", true);
         teacherData.put("createdAt", System.currentTimeMillis());
 
+        ProfileRepository.getInstance(requireContext()).invalidate(ProfileRepository.TEACHERS, userId);
         firestore.collection("teachers").document(userId)
                 .set(teacherData, SetOptions.merge())
                 .addOnSuccessListener(aVoid -> {
@@ -292,6 +292,7 @@ public class TeacherRegistrationFragment extends Fragment {
         teacherData.put("createdAt", System.currentTimeMillis());
 
         // Save to Firestore teachers collection
+        ProfileRepository.getInstance(requireContext()).invalidate(ProfileRepository.TEACHERS, userId);
         db.collection("teachers").document(userId)
                 .set(teacherData, SetOptions.merge())
                 .addOnSuccessListener(aVoid -> {
@@ -0,0 +1,207 @@
+package com.hackathon.attendlytics;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.hackathon.attendlytics.core.AttendanceSession;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.HnswIndex;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The live session of a {@link TeacherAttendanceFragment}, kept across configuration changes.
+ *
+ * Holds the {@link AttendanceSession}, its token key and the listener that rolls the students
+ * present into the section's {@link SectionStats}. The session is closed by {@link #close} when
+ * the teacher ends it, or in {@link #onCleared} when the screen is left for good; rotating the
+ * device keeps it running.
+ */
+public class TeacherSessionViewModel extends AndroidViewModel {
+
+    private static final String TAG = "TeacherSession";
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final AttendanceWriteQueue writeQueue;
+    // Set on the main thread once the roster is loaded, read by the analyzer thread
+    private volatile AttendanceSession session;
+    // Exam hall sessions only; searched on the camera executor
+    private volatile HnswIndex departmentIndex;
+    // Main-thread only from here on
+    private KeyPair tokenKeys;
+    private AttendanceToken tokenIssuer;
+    // Students whose roll-up into the section's stats document has committed
+    private final HashSet<String> rolledUp = new HashSet<>();
+    private ListenerRegistration attendanceListener;
+    // Present count as check-ins arrive; observed to refresh the screen
+    private final MutableLiveData<Integer> checkIns = new MutableLiveData<>(0);
+
+    public TeacherSessionViewModel(@NonNull Application application) {
+        super(application);
+        writeQueue = AttendanceWriteQueue.getInstance(application);
+    }
+
+    @Nullable
+    AttendanceSession getSession() {
+        return session;
+    }
+
+    @Nullable
+    HnswIndex getDepartmentIndex() {
+        return departmentIndex;
+    }
+
+    @Nullable
+    AttendanceToken getTokenIssuer() {
+        return tokenIssuer;
+    }
+
+    @NonNull
+    LiveData<Integer> getCheckIns() {
+        return checkIns;
+    }
+
+    /** Publishes {@code loaded} and starts watching its check-ins. */
+    void start(@NonNull AttendanceSession loaded, @NonNull KeyPair keys, @Nullable HnswIndex index) {
+        tokenKeys = keys;
+        tokenIssuer = new AttendanceToken(keys.getPrivate(), keys.getPublic());
+        departmentIndex = index;
+        session = loaded;
+        writeSessionDocument(loaded);
+        listenForMarks(loaded);
+    }
+
+    private void writeSessionDocument(AttendanceSession session) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("sessionId", session.getSessionId());
+        data.put("teacherUid", session.getTeacherUid());
+        data.put("subject", session.getSubject());
+        data.put("department", session.getDepartment());
+        data.put("year", session.getYear());
+        data.put("section", session.getSection());
+        // Students of any year and section of the department may check in to an exam hall
+        data.put("examHall", TeacherAttendanceFragment.EXAM_HALL_YEAR.equals(session.getYear())
+                && TeacherAttendanceFragment.EXAM_HALL_SECTION.equals(session.getSection()));
+        data.put("startedAt", session.getStartedAt());
+        data.put("rosterSize", session.getRosterSize());
+        data.put("status", "open");
+        // Students of the section read this once to verify the rotating QR code on-device
+        data.put(TeacherAttendanceFragment.TOKEN_KEY_FIELD, SigningKeys.encode(tokenKeys.getPublic()));
+        WriteBatch batch = db.batch();
+        batch.set(db.collection(TeacherAttendanceFragment.SESSIONS_COLLECTION).document(session.getSessionId()),
+                data);
+        // Counted as held for reports even if nobody is marked present
+        SectionStats.addHeld(db, batch, session);
+        // Firestore queues this locally when offline; the session itself does not wait on it
+        batch.commit()
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to write session " + session.getSessionId(), e));
+        AttendanceSummary.writeHeld(db, session);
+    }
+
+    private void listenForMarks(AttendanceSession current) {
+        rolledUp.clear();
+        checkIns.setValue(0);
+        attendanceListener = db.collection(AttendanceWriteQueue.COLLECTION)
+                .whereEqualTo("sessionId", current.getSessionId())
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "Stopped watching marks of " + current.getSessionId(), e);
+                        return;
+                    }
+                    if (snapshot == null || session != current) return;
+                    List<String> present = new ArrayList<>();
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        if (change.getType() == DocumentChange.Type.REMOVED) continue;
+                        DocumentSnapshot document = change.getDocument();
+                        String uid = document.getString("studentUid");
+                        if (uid == null || rolledUp.contains(uid)) continue;
+                        int rosterIndex = current.indexOf(uid);
+                        // Marks made here are already in the session; a student's own needs its token
+                        if (!current.isPresent(rosterIndex)) {
+                            if (!hasValidToken(current, document)) {
+                                Log.w(TAG, "Ignoring check-in of " + uid + " without a valid token");
+                                continue;
+                            }
+                            if (rosterIndex != AttendanceSession.NOT_ON_ROSTER) current.markPresent(rosterIndex);
+                        }
+                        present.add(uid);
+                    }
+                    rollUp(current, present);
+                    checkIns.setValue(current.getPresentCount());
+                });
+    }
+
+    private boolean hasValidToken(AttendanceSession current, DocumentSnapshot document) {
+        String token = document.getString("token");
+        Long markedAt = document.getLong("timestamp");
+        return token != null && markedAt != null
+                && tokenIssuer.verify(token, current.getSessionId(), markedAt) == AttendanceToken.VALID;
+    }
+
+    private void rollUp(AttendanceSession current, Collection<String> present) {
+        if (present.isEmpty()) return;
+        WriteBatch batch = db.batch();
+        SectionStats.addPresent(db, batch, current, present);
+        // Until it lands they are sent again on close; a repeated arrayUnion changes nothing
+        batch.commit()
+                .addOnSuccessListener(done -> rolledUp.addAll(present))
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to count marks of " + current.getSessionId(), e));
+    }
+
+    /** Ends the live session, if any, and returns it. */
+    @Nullable
+    AttendanceSession close() {
+        AttendanceSession current = session;
+        if (current == null) return null;
+        session = null;
+        departmentIndex = null;
+        if (attendanceListener != null) {
+            attendanceListener.remove();
+            attendanceListener = null;
+        }
+        // Marks made here that the listener has not seen yet, e.g. still waiting in the queue
+        BitSet marked = current.snapshotPresent();
+        List<String> present = new ArrayList<>();
+        for (int i = marked.nextSetBit(0); i >= 0; i = marked.nextSetBit(i + 1)) {
+            if (!rolledUp.contains(current.uidAt(i))) present.add(current.uidAt(i));
+        }
+        rollUp(current, present);
+        Map<String, Object> update = new HashMap<>();
+        update.put("status", "closed");
+        update.put("endedAt", System.currentTimeMillis());
+        update.put("presentCount", current.getPresentCount());
+        update.put(SectionStats.LATE_MARKS_RECONCILED, false);
+        db.collection(TeacherAttendanceFragment.SESSIONS_COLLECTION).document(current.getSessionId())
+                .set(update, SetOptions.merge())
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to close session " + current.getSessionId(), e));
+        // Marks are already durable in the queue; just stop waiting for the coalescing delay
+        writeQueue.flushNow();
+        return current;
+    }
+
+    @Override
+    protected void onCleared() {
+        // Leaving the screen without "End Session" still closes the session
+        close();
+    }
+}
@@ -23,8 +23,6 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.PhoneAuthCredential;
 import com.google.firebase.auth.PhoneAuthOptions;
 import com.google.firebase.auth.PhoneAuthProvider;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +37,6 @@ public class TeacherSignInFragment extends Fragment {
     private com.google.android.material.textfield.TextInputLayout textInputLayoutOtp;
 
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private PhoneAuthProvider.ForceResendingToken mResendToken;
     private String mVerificationId;
     private String validatedPhoneNumber;
@@ -52,7 +49,6 @@ public class TeacherSignInFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
     }
 
     @Override
@@ -207,55 +203,60 @@ public class TeacherSignInFragment extends Fragment {
     private void checkTeacherProfileAndNavigate(String uid) {
         Log.d(TAG, "Checking teacher profile for UID: " + uid);
         
-        db.collection("teachers").document(uid)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Log.d(TAG, "Teacher profile found, checking completion status");
-                        
-                        // Check if profile is completed
-                        Boolean profileCompleted = documentSnapshot.getBoolean("profileCompleted");
-                        
-                        String teacherName = documentSnapshot.getString("teacherName");
-                        String employeeId = documentSnapshot.getString("employeeId");
-                        
-                        if (profileCompleted != null && profileCompleted) {
-                            // Fully registered teacher - go to teacher dashboard
-                            Toast.makeText(getContext(), "Welcome back, " + 
-                                (teacherName != null ? teacherName : "Teacher") + "!", Toast.LENGTH_SHORT).show();
-                            NavHostFragment.findNavController(TeacherSignInFragment.this)
-                                .navigate(R.id.action_teacherSignInFragment_to_teacherDashboardFragment);
+        // A profile confirmed in the last minute is trusted as-is; the dashboard revalidates it
+        ProfileRepository.getInstance(requireContext()).fetch(ProfileRepository.TEACHERS, uid,
+                ProfileRepository.FRESH_MILLIS, new ProfileRepository.Callback() {
+                    @Override
+                    public void onProfile(@NonNull ProfileRepository.Profile profile) {
+                        if (profile.exists()) {
+                            Log.d(TAG, "Teacher profile found, checking completion status");
+
+                            // Check if profile is completed
+                            Boolean profileCompleted = profile.getBoolean("profileCompleted");
+
+                            String teacherName = profile.getString("teacherName");
+                            String employeeId = profile.getString("employeeId");
+
+                            if (profileCompleted != null && profileCompleted) {
+                                // Fully registered teacher - go to teacher dashboard
+                                Toast.makeText(getContext(), "Welcome back, " +
+                                    (teacherName != null ? teacherName : "Teacher") + "!", Toast.LENGTH_SHORT).show();
+                                NavHostFragment.findNavController(TeacherSignInFragment.this)
+                                    .navigate(R.id.action_teacherSignInFragment_to_teacherDashboardFragment);
+                            } else {
+                                // Profile not completed - go to teacher profile setup
+                                Toast.makeText(getContext(), "Welcome back! Please complete your teacher profile.", Toast.LENGTH_SHORT).show();
+                                NavHostFragment.findNavController(TeacherSignInFragment.this)
+                                    .navigate(R.id.action_teacherSignInFragment_to_teacherProfileSetupFragment);
+                            }
                         } else {
-                            // Profile not completed - go to teacher profile setup
-                            Toast.makeText(getContext(), "Welcome back! Please complete your teacher profile.", Toast.LENGTH_SHORT).show();
-                            NavHostFragment.findNavController(TeacherSignInFragment.this)
-                                .navigate(R.id.action_teacherSignInFragment_to_teacherProfileSetupFragment);
+                            // Teacher not found - this phone number is not registered as teacher
+                            Log.w(TAG, "Teacher profile not found for UID: " + uid);
+                            Toast.makeText(getContext(),
+                                "This phone number is not registered as a teacher. Please register first.",
+                                Toast.LENGTH_LONG).show();
+
+                            // Sign out the user since they're not properly registered
+                            mAuth.signOut();
+
+                            // Reset UI
+                            editTextPhoneNumber.setEnabled(true);
+                            buttonSendOtp.setEnabled(true);
+                            editTextOtp.setText("");
+                            textInputLayoutOtp.setVisibility(View.GONE);
+                            buttonVerifyOtp.setVisibility(View.GONE);
                         }
-                    } else {
-                        // Teacher not found - this phone number is not registered as teacher
-                        Log.w(TAG, "Teacher profile not found for UID: " + uid);
-                        Toast.makeText(getContext(), 
-                            "This phone number is not registered as a teacher. Please register first.", 
-                            Toast.LENGTH_LONG).show();
-                        
-                        // Sign out the user since they're not properly registered
-                        mAuth.signOut();
-                        
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        Log.e(TAG, "Error checking teacher profile", e);
+                        Toast.makeText(getContext(), "Error checking profile. Please try again.", Toast.LENGTH_LONG).show();
+
                         // Reset UI
                         editTextPhoneNumber.setEnabled(true);
                         buttonSendOtp.setEnabled(true);
-                        editTextOtp.setText("");
-                        textInputLayoutOtp.setVisibility(View.GONE);
-                        buttonVerifyOtp.setVisibility(View.GONE);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error checking teacher profile", e);
-                    Toast.makeText(getContext(), "Error checking profile. Please try again.", Toast.LENGTH_LONG).show();
-                    
-                    // Reset UI
-                    editTextPhoneNumber.setEnabled(true);
-                    buttonSendOtp.setEnabled(true);
                 });
     }
 
@@ -0,0 +1,44 @@
+plugins {
+    id("com.android.test")
+}
+
+android {
+    namespace = "com.hackathon.attendlytics.benchmark"
+    compileSdk = 36
+
+    defaultConfig {
+        minSdk = 26
+        targetSdk = 36
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+        // JSON results land in build/outputs/connected_android_test_additional_output
+        testInstrumentationRunnerArguments["androidx.benchmark.output.enable"] = "true"
+    }
+
+    buildTypes {
+        // Runs inside the app's non-debuggable "benchmark" build, so timings reflect release code
+        create("benchmark") {
+            isDebuggable = false
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    // Instrumented into the app's own process, so the app's classes are on the classpath
+    targetProjectPath = ":app"
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.3.0")
+    implementation("androidx.benchmark:benchmark-junit4:1.4.1")
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,72 @@
+package com.hackathon.attendlytics.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.hackathon.attendlytics.core.AttendanceEvent;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.security.KeyPair;
+
+/**
+ * Token signing and verification, and serializing a mark for Firestore and the queue log.
+ * Measured on the device rather than under JMH because ECDSA runs on Android's own
+ * security provider there.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AttendanceTokenBenchmark {
+
+    private static final String SESSION_ID = "1735700000000_teacherUid0123456789";
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final KeyPair keys = SigningKeys.newKeyPair();
+    private final AttendanceToken token = new AttendanceToken(keys.getPrivate(), keys.getPublic());
+
+    @Test
+    public void issue() {
+        long now = System.currentTimeMillis();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            token.issue(SESSION_ID, now);
+        }
+    }
+
+    @Test
+    public void verify() {
+        long now = System.currentTimeMillis();
+        String payload = token.issue(SESSION_ID, now);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            token.verify(payload, SESSION_ID, now);
+        }
+    }
+
+    @Test
+    public void eventLineRoundTrip() {
+        AttendanceEvent event = new AttendanceEvent(SESSION_ID, "studentUid0123456789", "CS101",
+                "CSE", "2nd Year", "A", AttendanceEvent.METHOD_FACE_QR, System.currentTimeMillis(),
+                token.issue(SESSION_ID, System.currentTimeMillis()));
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            AttendanceEvent.fromLine(event.toLine());
+        }
+    }
+
+    @Test
+    public void eventToFirestore() {
+        AttendanceEvent event = new AttendanceEvent(SESSION_ID, "studentUid0123456789", "CS101",
+                "CSE", "2nd Year", "A", AttendanceEvent.METHOD_QR, System.currentTimeMillis());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            event.toFirestore();
+        }
+    }
+}
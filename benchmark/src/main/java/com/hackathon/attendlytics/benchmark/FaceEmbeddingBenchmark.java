@@ -0,0 +1,72 @@
+package com.hackathon.attendlytics.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.hackathon.attendlytics.FaceEmbedding;
+import com.hackathon.attendlytics.core.LandmarkNormalizer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Embedding generation and template serialization.
+ *
+ * FaceEmbedding.populate needs an ML Kit Face, which cannot be constructed outside the
+ * detector, so generation is measured on its numeric core: landmark normalization.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FaceEmbeddingBenchmark {
+
+    // Landmarks used by the current schema: eyes, nose, cheeks, ears and mouth
+    private static final int LANDMARKS = 10;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void normalizeLandmarks() {
+        Random random = new Random(7);
+        float[] points = new float[LANDMARKS * 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = 200f + random.nextFloat() * 120f;
+        }
+        // Eyes a plausible distance apart at the front of the array
+        points[0] = 220f;
+        points[1] = 240f;
+        points[2] = 290f;
+        points[3] = 242f;
+        float[] out = new float[FaceEmbedding.CURRENT_DIMENSION];
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            LandmarkNormalizer.normalize(points, LANDMARKS, out, 0);
+        }
+    }
+
+    @Test
+    public void toBytes() {
+        FaceEmbedding embedding = FaceEmbedding.wrap(FaceEmbedding.CURRENT_VERSION,
+                FaceMatcherBenchmark.randomVector(new Random(3), FaceEmbedding.CURRENT_DIMENSION));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            embedding.toBytes();
+        }
+    }
+
+    @Test
+    public void fromBytes() {
+        byte[] bytes = FaceEmbedding.wrap(FaceEmbedding.CURRENT_VERSION,
+                FaceMatcherBenchmark.randomVector(new Random(3), FaceEmbedding.CURRENT_DIMENSION)).toBytes();
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            FaceEmbedding.fromBytes(bytes);
+        }
+    }
+}
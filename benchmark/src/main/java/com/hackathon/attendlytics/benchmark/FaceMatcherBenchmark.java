@@ -0,0 +1,57 @@
+package com.hackathon.attendlytics.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.hackathon.attendlytics.FaceEmbedding;
+import com.hackathon.attendlytics.core.FaceMatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/** Nearest-template search, per recognized face, for a section and for a whole department. */
+@RunWith(AndroidJUnit4.class)
+public class FaceMatcherBenchmark {
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void searchSection60() {
+        search(60);
+    }
+
+    @Test
+    public void searchDepartment2000() {
+        search(2000);
+    }
+
+    private void search(int templates) {
+        Random random = new Random(42);
+        int dimension = FaceEmbedding.CURRENT_DIMENSION;
+        FaceMatcher matcher = new FaceMatcher(dimension, templates);
+        for (int i = 0; i < templates; i++) {
+            matcher.add("student" + i, randomVector(random, dimension));
+        }
+        float[] probe = randomVector(random, dimension);
+        int[] rows = new int[1];
+        float[] scores = new float[1];
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            matcher.search(probe, 1, rows, scores);
+        }
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
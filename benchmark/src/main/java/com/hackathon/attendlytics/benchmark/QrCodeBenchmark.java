@@ -0,0 +1,98 @@
+package com.hackathon.attendlytics.benchmark;
+
+import android.graphics.Bitmap;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.hackathon.attendlytics.QrCodeRenderer;
+import com.hackathon.attendlytics.QrFrameDecoder;
+import com.hackathon.attendlytics.core.AttendanceToken;
+import com.hackathon.attendlytics.core.SigningKeys;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/** Session code encoding on the teacher's device and Y-plane decoding on the student's. */
+@RunWith(AndroidJUnit4.class)
+public class QrCodeBenchmark {
+
+    // A 720p analysis frame with the code filling about half its height
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+    private static final int PIXELS_PER_MODULE = 6;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private String payload;
+    private QrCodeRenderer renderer;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPair keys = SigningKeys.newKeyPair();
+        payload = new AttendanceToken(keys.getPrivate(), keys.getPublic())
+                .issue("1735700000000_teacherUid0123456789", System.currentTimeMillis());
+        renderer = new QrCodeRenderer();
+    }
+
+    @Test
+    public void encode() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            renderer.render(payload);
+        }
+    }
+
+    @Test
+    public void decodeFrame() throws Exception {
+        ByteBuffer yPlane = frameWithCode(renderer.render(payload));
+        QrFrameDecoder decoder = new QrFrameDecoder();
+        assertEquals(payload, decoder.decode(yPlane, FRAME_WIDTH, 1, FRAME_WIDTH, FRAME_HEIGHT));
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            decoder.decode(yPlane, FRAME_WIDTH, 1, FRAME_WIDTH, FRAME_HEIGHT);
+        }
+    }
+
+    @Test
+    public void decodeEmptyFrame() {
+        // Most frames have no code in view; this is the cost of looking
+        ByteBuffer yPlane = ByteBuffer.allocateDirect(FRAME_WIDTH * FRAME_HEIGHT);
+        QrFrameDecoder decoder = new QrFrameDecoder();
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            decoder.decode(yPlane, FRAME_WIDTH, 1, FRAME_WIDTH, FRAME_HEIGHT);
+        }
+    }
+
+    // Luminance-only frame, mid grey, with the code scaled up in the centre
+    private static ByteBuffer frameWithCode(Bitmap code) {
+        byte[] frame = new byte[FRAME_WIDTH * FRAME_HEIGHT];
+        Arrays.fill(frame, (byte) 128);
+        int side = code.getWidth() * PIXELS_PER_MODULE;
+        int left = (FRAME_WIDTH - side) / 2;
+        int top = (FRAME_HEIGHT - side) / 2;
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                int pixel = code.getPixel(x / PIXELS_PER_MODULE, y / PIXELS_PER_MODULE);
+                frame[(top + y) * FRAME_WIDTH + left + x] = (byte) ((pixel & 0xff) > 127 ? 235 : 16);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(frame.length);
+        buffer.put(frame);
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -1,5 +1,20 @@
 // Top-level build file where you can add configuration options common to all sub-projects/modules.
 plugins {
     alias(libs.plugins.android.application) apply false
+    id("com.android.test") version "8.13.0" apply false
     id("com.google.gms.google-services") version "4.4.3" apply false
-}
\ No newline at end of file
+}
+
+// Gathers the JSON written by :benchmark and :macrobenchmark runs into benchmark-results/<label>,
+// so results can be diffed release over release. Label a run with -PbenchmarkLabel=<versionName>.
+tasks.register<Copy>("collectBenchmarkResults") {
+    val label = providers.gradleProperty("benchmarkLabel").orElse("local")
+    listOf("benchmark", "macrobenchmark").forEach { module ->
+        from(fileTree("$module/build/outputs/connected_android_test_additional_output")) {
+            include("**/*.json")
+            into(module)
+        }
+    }
+    into(label.map { layout.projectDirectory.dir("benchmark-results/$it") })
+    includeEmptyDirs = false
+}
@@ -0,0 +1,26 @@
+// Plain-Java face math and attendance logic shared with :app. Builds and tests on any JVM:
+//   ./gradlew :core:test   property tests
+//   ./gradlew :core:jmh    JMH benchmarks, JSON results in core/build/results/jmh
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // Annotations only; the module has no Android runtime dependency
+    api("androidx.annotation:annotation:1.9.1")
+
+    testImplementation("junit:junit:4.13.2")
+}
+
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+}
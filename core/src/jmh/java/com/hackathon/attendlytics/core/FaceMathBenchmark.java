@@ -0,0 +1,70 @@
+package com.hackathon.attendlytics.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Per-frame face math: landmark normalization and a top-k search over one section. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FaceMathBenchmark {
+
+    // Section sizes from a single class up to a whole year
+    @Param({"60", "500", "5000"})
+    public int sectionSize;
+
+    @Param({"18", "128"})
+    public int dimension;
+
+    private FaceMatcher matcher;
+    private float[] probe;
+    private final int[] indices = new int[5];
+    private final float[] scores = new float[5];
+    private final float[] landmarks = new float[GeometricEmbedding.LANDMARK_COUNT * 2];
+    private final float[] embedding = new float[EmbeddingCodec.DIMENSION_V2];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        matcher = new FaceMatcher(dimension, sectionSize);
+        for (int i = 0; i < sectionSize; i++) {
+            matcher.add("student-" + i, randomVector(random, dimension));
+        }
+        probe = randomVector(random, dimension);
+        for (int i = 0; i < landmarks.length; i++) {
+            landmarks[i] = 200f + random.nextFloat() * 100f;
+        }
+        // Keep the eyes level and well apart so normalization takes the full path
+        landmarks[0] = 180f;
+        landmarks[1] = 200f;
+        landmarks[2] = 260f;
+        landmarks[3] = 204f;
+    }
+
+    @Benchmark
+    public int searchTop5() {
+        return matcher.search(probe, indices.length, indices, scores);
+    }
+
+    @Benchmark
+    public boolean geometricEmbedding() {
+        return GeometricEmbedding.compute(landmarks, 140f, 170f, embedding);
+    }
+
+    private static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,103 @@
+package com.hackathon.attendlytics.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Department-wide top-5 identification: {@link HnswIndex} against exhaustive
+ * {@link FaceMatcher} search over the same templates. Recall@5 of the index is measured once
+ * per trial and printed with the results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HnswIndexBenchmark {
+
+    private static final int K = 5;
+    private static final int PROBES = 1024;
+
+    @Param({"10000"})
+    public int templates;
+
+    @Param({"18", "128"})
+    public int dimension;
+
+    @Param({"64"})
+    public int efSearch;
+
+    private HnswIndex index;
+    private FaceMatcher exact;
+    private float[][] probes;
+    private int next;
+    private final int[] rows = new int[K];
+    private final float[] scores = new float[K];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        // Real templates cluster around shared face shapes; uniform noise would be a worst case
+        float[][] centres = new float[templates / 50][];
+        for (int i = 0; i < centres.length; i++) {
+            centres[i] = gaussian(random, null, 1f);
+        }
+        index = new HnswIndex(dimension, templates);
+        index.setEfSearch(efSearch);
+        exact = new FaceMatcher(dimension, templates);
+        for (int i = 0; i < templates; i++) {
+            float[] template = gaussian(random, centres[i % centres.length], 0.6f);
+            index.add("student-" + i, template);
+            exact.add("student-" + i, template);
+        }
+        probes = new float[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = gaussian(random, centres[random.nextInt(centres.length)], 0.6f);
+        }
+        System.out.println("recall@" + K + " = " + recall());
+    }
+
+    @Benchmark
+    public int hnswTop5() {
+        return index.search(probes[next++ & (PROBES - 1)], K, rows, scores);
+    }
+
+    @Benchmark
+    public int exhaustiveTop5() {
+        return exact.search(probes[next++ & (PROBES - 1)], K, rows, scores);
+    }
+
+    private double recall() {
+        int[] expected = new int[K];
+        float[] expectedScores = new float[K];
+        int hits = 0;
+        for (float[] probe : probes) {
+            exact.search(probe, K, expected, expectedScores);
+            int found = index.search(probe, K, rows, scores);
+            for (int i = 0; i < K; i++) {
+                for (int j = 0; j < found; j++) {
+                    if (exact.idAt(expected[i]).equals(index.idAt(rows[j]))) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+        }
+        return (double) hits / (PROBES * K);
+    }
+
+    private float[] gaussian(Random random, float[] centre, float spread) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (centre != null ? centre[i] : 0f) + spread * (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
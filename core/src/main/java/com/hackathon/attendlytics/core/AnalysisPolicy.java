@@ -0,0 +1,112 @@
+package com.hackathon.attendlytics.core;
+
+/**
+ * Decides how much work the face analyzer is allowed to do.
+ *
+ * Three knobs: the analysis resolution requested from CameraX, a minimum interval between
+ * analyzed frames derived from the measured detector latency, and a thermal level that
+ * lowers both when the device starts throttling. The analyzer calls {@link #shouldAnalyze}
+ * for every frame and {@link #recordDetectorLatency} after each detection; both are cheap
+ * and only ever called from the analyzer thread. {@link #onThermalStatus} may be called
+ * from any thread.
+ */
+public final class AnalysisPolicy {
+
+    // Mirrors android.os.PowerManager.THERMAL_STATUS_* so this class stays platform-free
+    public static final int THERMAL_NONE = 0;
+    public static final int THERMAL_LIGHT = 1;
+    public static final int THERMAL_MODERATE = 2;
+    public static final int THERMAL_SEVERE = 3;
+
+    public static final int DEFAULT_WIDTH = 640;
+    public static final int DEFAULT_HEIGHT = 480;
+    public static final int DEFAULT_TARGET_FPS = 15;
+
+    // Analysis rate cap per thermal level, as a divisor of the configured target rate
+    private static final int MODERATE_FPS_DIVISOR = 2;
+    private static final int SEVERE_FPS_DIVISOR = 4;
+    // Never let the detector occupy more than this share of wall-clock time
+    private static final float MAX_DETECTOR_DUTY = 0.6f;
+    // Smoothing factor for the detector latency moving average
+    private static final float LATENCY_ALPHA = 0.2f;
+
+    private final int width;
+    private final int height;
+    private final long baseIntervalNanos;
+
+    private volatile int thermalLevel = THERMAL_NONE;
+    private long averageLatencyNanos;
+    private long lastAnalyzedNanos;
+    private long skippedFrames;
+
+    public AnalysisPolicy() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, DEFAULT_TARGET_FPS);
+    }
+
+    public AnalysisPolicy(int width, int height, int targetFps) {
+        if (width <= 0 || height <= 0 || targetFps <= 0) {
+            throw new IllegalArgumentException("Resolution and fps must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.baseIntervalNanos = 1_000_000_000L / targetFps;
+    }
+
+    /** Analysis width to request from CameraX at the current thermal level. */
+    public int getTargetWidth() {
+        return thermalLevel >= THERMAL_SEVERE ? width / 2 : width;
+    }
+
+    public int getTargetHeight() {
+        return thermalLevel >= THERMAL_SEVERE ? height / 2 : height;
+    }
+
+    /** Returns true if the frame arriving at {@code nowNanos} should be analyzed. */
+    public boolean shouldAnalyze(long nowNanos) {
+        if (lastAnalyzedNanos != 0 && nowNanos - lastAnalyzedNanos < minIntervalNanos()) {
+            skippedFrames++;
+            return false;
+        }
+        lastAnalyzedNanos = nowNanos;
+        return true;
+    }
+
+    public void recordDetectorLatency(long latencyNanos) {
+        if (latencyNanos <= 0) return;
+        averageLatencyNanos = averageLatencyNanos == 0
+                ? latencyNanos
+                : (long) (averageLatencyNanos + LATENCY_ALPHA * (latencyNanos - averageLatencyNanos));
+    }
+
+    /**
+     * Updates the thermal level. Returns true if the analysis resolution changed, in which
+     * case the camera use cases have to be rebound.
+     */
+    public boolean onThermalStatus(int status) {
+        int level = Math.min(status, THERMAL_SEVERE);
+        int previous = thermalLevel;
+        thermalLevel = level;
+        return (previous >= THERMAL_SEVERE) != (level >= THERMAL_SEVERE);
+    }
+
+    public int getThermalLevel() {
+        return thermalLevel;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    long minIntervalNanos() {
+        long interval = baseIntervalNanos;
+        int level = thermalLevel;
+        if (level >= THERMAL_SEVERE) {
+            interval *= SEVERE_FPS_DIVISOR;
+        } else if (level >= THERMAL_MODERATE) {
+            interval *= MODERATE_FPS_DIVISOR;
+        }
+        // Slow detector: space frames out so it does not run back to back
+        long latencyBound = (long) (averageLatencyNanos / MAX_DETECTOR_DUTY);
+        return Math.max(interval, latencyBound);
+    }
+}
@@ -0,0 +1,156 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One "student was present in session" fact, as queued by the app's {@code AttendanceWriteQueue}.
+ *
+ * The event id is derived from the session and the student, so marking the same student
+ * twice in a session (face and QR, or a retried write) always targets the same
+ * {@code attendance/{eventId}} document and can never double count.
+ */
+public final class AttendanceEvent {
+
+    public static final String METHOD_FACE = "face";
+    public static final String METHOD_QR = "qr";
+    public static final String METHOD_FACE_QR = "face_qr";
+    public static final String METHOD_MANUAL = "manual";
+
+    private static final int FIELD_COUNT = 10;
+    // Lines queued before events carried a token
+    private static final int LEGACY_FIELD_COUNT = 9;
+
+    public final String eventId;
+    public final String sessionId;
+    public final String studentUid;
+    public final String subject;
+    public final String department;
+    public final String year;
+    public final String section;
+    public final String method;
+    public final long timestampMillis;
+    /**
+     * The signed code the mark was made with, kept so it can be verified again later: the
+     * session token a student scanned, or the pass a kiosk scanned. Null for face and manual marks.
+     */
+    @Nullable
+    public final String token;
+
+    public AttendanceEvent(@NonNull String sessionId, @NonNull String studentUid, @NonNull String subject,
+                           @NonNull String department, @NonNull String year, @NonNull String section,
+                           @NonNull String method, long timestampMillis) {
+        this(sessionId, studentUid, subject, department, year, section, method, timestampMillis, null);
+    }
+
+    public AttendanceEvent(@NonNull String sessionId, @NonNull String studentUid, @NonNull String subject,
+                           @NonNull String department, @NonNull String year, @NonNull String section,
+                           @NonNull String method, long timestampMillis, @Nullable String token) {
+        this.eventId = eventIdFor(sessionId, studentUid);
+        this.sessionId = sessionId;
+        this.studentUid = studentUid;
+        this.subject = subject;
+        this.department = department;
+        this.year = year;
+        this.section = section;
+        this.method = method;
+        this.timestampMillis = timestampMillis;
+        this.token = token;
+    }
+
+    @NonNull
+    public static String eventIdFor(@NonNull String sessionId, @NonNull String studentUid) {
+        return sessionId + "_" + studentUid;
+    }
+
+    /** Calendar day of the event in the device time zone, e.g. 2025-09-18. */
+    @NonNull
+    public String getDate() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(timestampMillis));
+    }
+
+    @NonNull
+    public Map<String, Object> toFirestore() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        data.put("sessionId", sessionId);
+        data.put("studentUid", studentUid);
+        data.put("subject", subject);
+        data.put("department", department);
+        data.put("year", year);
+        data.put("section", section);
+        data.put("method", method);
+        data.put("timestamp", timestampMillis);
+        data.put("date", getDate());
+        if (token != null) data.put("token", token);
+        return data;
+    }
+
+    /** Single-line, tab-separated form used by the on-disk queue log. */
+    @NonNull
+    public String toLine() {
+        StringBuilder line = new StringBuilder(128);
+        appendField(line, sessionId);
+        appendField(line, studentUid);
+        appendField(line, subject);
+        appendField(line, department);
+        appendField(line, year);
+        appendField(line, section);
+        appendField(line, method);
+        appendField(line, Long.toString(timestampMillis));
+        appendField(line, token != null ? token : "");
+        line.append(FIELD_COUNT);
+        return line.toString();
+    }
+
+    /** Parses {@link #toLine()} output; returns null for a torn or corrupt line. */
+    @Nullable
+    public static AttendanceEvent fromLine(@NonNull String line) {
+        String[] fields = new String[FIELD_COUNT];
+        int count = 0;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                current.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else if (c == '\t') {
+                if (count == FIELD_COUNT) return null;
+                fields[count++] = current.toString();
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        // The trailing field count doubles as an end-of-record marker
+        int fieldCount = count + 1;
+        if ((fieldCount != FIELD_COUNT && fieldCount != LEGACY_FIELD_COUNT)
+                || !String.valueOf(fieldCount).equals(current.toString())) {
+            return null;
+        }
+        String token = fieldCount == FIELD_COUNT && !fields[8].isEmpty() ? fields[8] : null;
+        try {
+            return new AttendanceEvent(fields[0], fields[1], fields[2], fields[3], fields[4],
+                    fields[5], fields[6], Long.parseLong(fields[7]), token);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void appendField(StringBuilder line, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') line.append("\\\\");
+            else if (c == '\t') line.append("\\t");
+            else if (c == '\n') line.append("\\n");
+            else line.append(c);
+        }
+        line.append('\t');
+    }
+}
@@ -0,0 +1,165 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One student's attendance over a semester, read from their summary document.
+ *
+ * The summary keeps, per subject, the keys of the sessions held for the student's section and
+ * of those the student attended, plus the days of the semester on which the student was
+ * present at all. Days are numbered from the first day of the semester, as given by
+ * {@link SectionReport#semesterStart}, and packed into a {@link BitSet} here for the calendar.
+ */
+public final class AttendanceHistory {
+
+    /** One subject's line in the history. */
+    public static final class SubjectLine {
+        public final String subject;
+        public final int attended;
+        public final int held;
+
+        SubjectLine(String subject, int attended, int held) {
+            this.subject = subject;
+            this.attended = attended;
+            this.held = held;
+        }
+
+        public double getPercent() {
+            return held == 0 ? 100.0 : attended * 100.0 / held;
+        }
+    }
+
+    private final String semester;
+    private final List<SubjectLine> subjects;
+    private final BitSet days;
+
+    private AttendanceHistory(String semester, List<SubjectLine> subjects, BitSet days) {
+        this.semester = semester;
+        this.subjects = subjects;
+        this.days = days;
+    }
+
+    /** Day of the semester containing {@code timeMillis}, counted from 0, in the device time zone. */
+    public static int dayOfSemester(long timeMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMillis);
+        int dayOfYear = calendar.get(Calendar.DAY_OF_YEAR);
+        if (calendar.get(Calendar.MONTH) < Calendar.JULY) return dayOfYear - 1;
+        calendar.set(Calendar.MONTH, Calendar.JULY);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        return dayOfYear - calendar.get(Calendar.DAY_OF_YEAR);
+    }
+
+    /**
+     * @param held     subject to the keys of the sessions held for the student's section
+     * @param attended subject to the keys of the sessions the student attended
+     * @param days     days of the semester the student was present
+     */
+    @NonNull
+    public static AttendanceHistory build(@NonNull String semester,
+                                          @NonNull Map<String, ? extends Collection<String>> held,
+                                          @NonNull Map<String, ? extends Collection<String>> attended,
+                                          @NonNull Collection<? extends Number> days) {
+        HashSet<String> names = new HashSet<>(held.keySet());
+        names.addAll(attended.keySet());
+        ArrayList<SubjectLine> subjects = new ArrayList<>(names.size());
+        HashSet<String> sessions = new HashSet<>();
+        for (String subject : names) {
+            sessions.clear();
+            Collection<String> present = attended.get(subject);
+            Collection<String> total = held.get(subject);
+            if (present != null) sessions.addAll(present);
+            int attendedCount = sessions.size();
+            // A session the student attended was held, even if they joined the roster later
+            if (total != null) sessions.addAll(total);
+            subjects.add(new SubjectLine(subject, attendedCount, sessions.size()));
+        }
+        Collections.sort(subjects, (a, b) -> a.subject.compareToIgnoreCase(b.subject));
+
+        BitSet bits = new BitSet();
+        for (Number day : days) {
+            if (day.intValue() >= 0) bits.set(day.intValue());
+        }
+        return new AttendanceHistory(semester, subjects, bits);
+    }
+
+    /** First month of the semester, e.g. {@code 202507}. */
+    @NonNull
+    public String getSemester() {
+        return semester;
+    }
+
+    /** Subjects in alphabetical order. */
+    @NonNull
+    public List<SubjectLine> getSubjects() {
+        return subjects;
+    }
+
+    public int getAttended() {
+        int sum = 0;
+        for (SubjectLine line : subjects) {
+            sum += line.attended;
+        }
+        return sum;
+    }
+
+    public int getHeld() {
+        int sum = 0;
+        for (SubjectLine line : subjects) {
+            sum += line.held;
+        }
+        return sum;
+    }
+
+    public double getPercent() {
+        int held = getHeld();
+        return held == 0 ? 100.0 : getAttended() * 100.0 / held;
+    }
+
+    /** Days of the semester with at least one attended session. */
+    @NonNull
+    public BitSet getDaysPresent() {
+        return (BitSet) days.clone();
+    }
+
+    /**
+     * One line per month of the semester, up to and including the month of {@code nowMillis}:
+     * the month, then one character per day, {@code #} where the student was present.
+     */
+    @NonNull
+    public List<String> monthGrid(long nowMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(Integer.parseInt(semester.substring(0, 4)), Integer.parseInt(semester.substring(4)) - 1, 1);
+        Calendar now = Calendar.getInstance();
+        now.setTimeInMillis(nowMillis);
+        ArrayList<String> lines = new ArrayList<>();
+        int day = 0;
+        for (int m = 0; m < 6; m++) {
+            if (calendar.get(Calendar.YEAR) > now.get(Calendar.YEAR)
+                    || (calendar.get(Calendar.YEAR) == now.get(Calendar.YEAR)
+                    && calendar.get(Calendar.MONTH) > now.get(Calendar.MONTH))) {
+                break;
+            }
+            int length = calendar.getActualMaximum(Calendar.DAY_OF_MONTH);
+            StringBuilder line = new StringBuilder(String.format(Locale.US, "%tb ", calendar));
+            for (int d = 0; d < length; d++) {
+                line.append(days.get(day + d) ? '#' : '.');
+            }
+            lines.add(line.toString());
+            day += length;
+            calendar.add(Calendar.MONTH, 1);
+        }
+        return lines;
+    }
+}
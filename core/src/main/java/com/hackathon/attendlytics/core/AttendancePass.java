@@ -0,0 +1,112 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Student passes, shown on a student's phone and scanned by the teacher's device in kiosk mode.
+ *
+ * Payload: {@code ATP2|<sessionId>|<studentUid>|<slot>|<signature>}, where {@code slot} is the
+ * {@link AttendanceToken#SLOT_MILLIS} time slot and {@code signature} is ECDSA P-256 over
+ * everything before it, base64url. Each student signs with their own private key, which never
+ * leaves their phone; the kiosk verifies with the public key from the student's profile. A
+ * student can therefore only ever produce passes for themselves, and the shared session data
+ * is no help in forging one. Passes verify for {@link AttendanceToken#TOLERANCE_SLOTS} slots
+ * either side of the verifier's clock.
+ *
+ * Statuses are the {@link AttendanceToken} ones. Not thread-safe: the {@link Signature} is
+ * reused across calls.
+ */
+public final class AttendancePass {
+
+    public static final String PREFIX = "ATP2";
+
+    private static final char SEPARATOR = '|';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Signature signature;
+
+    public AttendancePass() {
+        try {
+            signature = Signature.getInstance(SigningKeys.SIGNATURE_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(SigningKeys.SIGNATURE_ALGORITHM + " unavailable", e);
+        }
+    }
+
+    /** Issues a pass for {@code studentUid}, signed with that student's key, for the slot of {@code nowMillis}. */
+    @NonNull
+    public String issue(@NonNull PrivateKey studentKey, @NonNull String sessionId, @NonNull String studentUid,
+                        long nowMillis) {
+        if (sessionId.indexOf(SEPARATOR) >= 0 || studentUid.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Ids must not contain '" + SEPARATOR + "'");
+        }
+        String body = PREFIX + SEPARATOR + sessionId + SEPARATOR + studentUid
+                + SEPARATOR + AttendanceToken.slotOf(nowMillis);
+        try {
+            signature.initSign(studentKey);
+            signature.update(body.getBytes(StandardCharsets.UTF_8));
+            return body + SEPARATOR + ENCODER.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign pass", e);
+        }
+    }
+
+    /**
+     * Checks a pass for {@code sessionId} against the public key of the student it names
+     * ({@link #studentUidOf}). Returns {@link AttendanceToken#VALID},
+     * {@link AttendanceToken#MALFORMED}, {@link AttendanceToken#BAD_SIGNATURE},
+     * {@link AttendanceToken#EXPIRED} or {@link AttendanceToken#WRONG_SESSION}.
+     */
+    public int verify(@NonNull String payload, @NonNull String sessionId, @NonNull PublicKey studentKey,
+                      long nowMillis) {
+        String[] fields = split(payload);
+        if (fields == null) return AttendanceToken.MALFORMED;
+        if (!sessionId.equals(fields[1])) return AttendanceToken.WRONG_SESSION;
+        byte[] presented;
+        long slot;
+        try {
+            presented = DECODER.decode(fields[4]);
+            slot = Long.parseLong(fields[3]);
+        } catch (IllegalArgumentException e) {
+            return AttendanceToken.MALFORMED;
+        }
+        String body = payload.substring(0, payload.lastIndexOf(SEPARATOR));
+        try {
+            signature.initVerify(studentKey);
+            signature.update(body.getBytes(StandardCharsets.UTF_8));
+            if (!signature.verify(presented)) return AttendanceToken.BAD_SIGNATURE;
+        } catch (GeneralSecurityException e) {
+            // Garbled DER, or a key of the wrong type
+            return AttendanceToken.BAD_SIGNATURE;
+        }
+        long drift = Math.abs(AttendanceToken.slotOf(nowMillis) - slot);
+        return drift <= AttendanceToken.TOLERANCE_SLOTS ? AttendanceToken.VALID : AttendanceToken.EXPIRED;
+    }
+
+    /** Student uid of a well-formed pass, without checking the signature; null otherwise. */
+    @Nullable
+    public static String studentUidOf(@NonNull String payload) {
+        String[] fields = split(payload);
+        return fields != null ? fields[2] : null;
+    }
+
+    @Nullable
+    private static String[] split(String payload) {
+        if (!payload.startsWith(PREFIX + SEPARATOR)) return null;
+        String[] fields = payload.split("\\|", -1);
+        if (fields.length != 5) return null;
+        for (String field : fields) {
+            if (field.isEmpty()) return null;
+        }
+        return fields;
+    }
+}
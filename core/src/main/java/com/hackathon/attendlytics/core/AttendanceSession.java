@@ -0,0 +1,211 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * In-memory state of one live attendance session: the section roster, its face templates and
+ * who has been marked present so far.
+ *
+ * The roster is fixed once the session starts. Students are addressed by their roster
+ * position; presence is one bit per position in a {@link BitSet}, and the
+ * {@link FaceMatcher} row of every enrolled student maps straight to that position through
+ * an {@code int[]}. Recognition to mark is therefore two array reads and a bit set, with no
+ * allocation. Marks may come from the analyzer thread while the UI reads counts, so the
+ * presence methods are synchronized; they are uncontended in practice.
+ */
+public final class AttendanceSession {
+
+    /** Returned by lookups that do not resolve to anyone on the roster. */
+    public static final int NOT_ON_ROSTER = -1;
+
+    private final String sessionId;
+    private final String teacherUid;
+    private final String subject;
+    private final String department;
+    private final String year;
+    private final String section;
+    private final long startedAt;
+
+    private String[] uids;
+    private String[] names;
+    private int rosterSize;
+    private final HashMap<String, Integer> indexByUid;
+    private final FaceMatcher matcher;
+    private int[] rosterIndexByMatcherRow;
+
+    private final BitSet present;
+    private int presentCount;
+
+    public AttendanceSession(@NonNull String sessionId, @NonNull String teacherUid, @NonNull String subject,
+                             @NonNull String department, @NonNull String year, @NonNull String section,
+                             long startedAt, int expectedRosterSize) {
+        this.sessionId = sessionId;
+        this.teacherUid = teacherUid;
+        this.subject = subject;
+        this.department = department;
+        this.year = year;
+        this.section = section;
+        this.startedAt = startedAt;
+        int capacity = Math.max(1, expectedRosterSize);
+        this.uids = new String[capacity];
+        this.names = new String[capacity];
+        this.indexByUid = new HashMap<>(capacity * 2);
+        this.matcher = new FaceMatcher(EmbeddingCodec.CURRENT_DIMENSION, capacity);
+        this.rosterIndexByMatcherRow = new int[capacity];
+        this.present = new BitSet(capacity);
+    }
+
+    /** Session ids sort by start time and are unique per teacher. */
+    @NonNull
+    public static String newSessionId(@NonNull String teacherUid, long startedAt) {
+        return startedAt + "_" + teacherUid;
+    }
+
+    /**
+     * Adds a student while the session is being built and returns their roster index.
+     * {@code template} may be null for students who have not enrolled a face; they can still
+     * be marked by other methods. A uid that is already on the roster is not added twice.
+     */
+    public int addStudent(@NonNull String uid, @Nullable String name, @Nullable float[] template) {
+        Integer existing = indexByUid.get(uid);
+        if (existing != null) return existing;
+        if (rosterSize == uids.length) {
+            uids = Arrays.copyOf(uids, rosterSize * 2);
+            names = Arrays.copyOf(names, rosterSize * 2);
+        }
+        int index = rosterSize++;
+        uids[index] = uid;
+        names[index] = name != null ? name : uid;
+        indexByUid.put(uid, index);
+
+        if (template != null && template.length == matcher.getDimension()) {
+            int row = matcher.add(uid, template);
+            if (row >= 0) {
+                if (row == rosterIndexByMatcherRow.length) {
+                    rosterIndexByMatcherRow = Arrays.copyOf(rosterIndexByMatcherRow, row * 2);
+                }
+                rosterIndexByMatcherRow[row] = index;
+            }
+        }
+        return index;
+    }
+
+    @NonNull
+    public FaceMatcher getMatcher() {
+        return matcher;
+    }
+
+    /** Roster index of the student behind a {@link FaceMatcher} result row. */
+    public int rosterIndexOfMatch(int matcherRow) {
+        if (matcherRow < 0 || matcherRow >= matcher.size()) return NOT_ON_ROSTER;
+        return rosterIndexByMatcherRow[matcherRow];
+    }
+
+    public int indexOf(@NonNull String uid) {
+        Integer index = indexByUid.get(uid);
+        return index != null ? index : NOT_ON_ROSTER;
+    }
+
+    /** Marks the student at {@code rosterIndex} present. Returns true only the first time. */
+    public synchronized boolean markPresent(int rosterIndex) {
+        if (rosterIndex < 0 || rosterIndex >= rosterSize || present.get(rosterIndex)) {
+            return false;
+        }
+        present.set(rosterIndex);
+        presentCount++;
+        return true;
+    }
+
+    /** Builds the queue event for a student who was just marked present. */
+    @NonNull
+    public AttendanceEvent newEvent(int rosterIndex, @NonNull String method, long timestampMillis) {
+        return newEvent(rosterIndex, method, timestampMillis, null);
+    }
+
+    /** As {@link #newEvent(int, String, long)}, keeping the signed pass the mark was made with. */
+    @NonNull
+    public AttendanceEvent newEvent(int rosterIndex, @NonNull String method, long timestampMillis,
+                                    @Nullable String token) {
+        return new AttendanceEvent(sessionId, uidAt(rosterIndex), subject, department, year, section,
+                method, timestampMillis, token);
+    }
+
+    public synchronized boolean isPresent(int rosterIndex) {
+        return rosterIndex >= 0 && rosterIndex < rosterSize && present.get(rosterIndex);
+    }
+
+    public synchronized int getPresentCount() {
+        return presentCount;
+    }
+
+    /** Copy of the presence bits, indexed by roster position. */
+    @NonNull
+    public synchronized BitSet snapshotPresent() {
+        return (BitSet) present.clone();
+    }
+
+    public int getRosterSize() {
+        return rosterSize;
+    }
+
+    public int getEnrolledCount() {
+        return matcher.size();
+    }
+
+    @NonNull
+    public String uidAt(int rosterIndex) {
+        checkIndex(rosterIndex);
+        return uids[rosterIndex];
+    }
+
+    @NonNull
+    public String nameAt(int rosterIndex) {
+        checkIndex(rosterIndex);
+        return names[rosterIndex];
+    }
+
+    @NonNull
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    @NonNull
+    public String getTeacherUid() {
+        return teacherUid;
+    }
+
+    @NonNull
+    public String getSubject() {
+        return subject;
+    }
+
+    @NonNull
+    public String getDepartment() {
+        return department;
+    }
+
+    @NonNull
+    public String getYear() {
+        return year;
+    }
+
+    @NonNull
+    public String getSection() {
+        return section;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    private void checkIndex(int rosterIndex) {
+        if (rosterIndex < 0 || rosterIndex >= rosterSize) {
+            throw new IndexOutOfBoundsException("roster index " + rosterIndex);
+        }
+    }
+}
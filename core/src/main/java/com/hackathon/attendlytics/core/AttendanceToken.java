@@ -0,0 +1,149 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Short-lived, ECDSA signed attendance tokens carried by the teacher's rotating QR code.
+ *
+ * Payload: {@code ATQ2|<sessionId>|<slot>|<signature>}, where {@code slot} is the
+ * {@link #SLOT_MILLIS} time slot the code was issued in and {@code signature} is ECDSA P-256
+ * over everything before it, base64url. ECDSA signatures are randomized, so consecutive codes
+ * of the same slot still differ. A token verifies for {@link #TOLERANCE_SLOTS} slots either
+ * side of the verifier's clock, which covers scan latency and modest clock skew between phones.
+ *
+ * Each session has its own key pair. The private key never leaves the teacher's device; only
+ * the public key is published on the session document, so students can verify a code on their
+ * own phones without being able to mint one. Check-ins keep the scanned token, which lets the
+ * signature be checked again later against the same public key.
+ *
+ * The reverse direction, student passes scanned in kiosk mode, is {@link AttendancePass}.
+ *
+ * Not thread-safe: the {@link Signature} is reused across calls.
+ */
+public final class AttendanceToken {
+
+    public static final String PREFIX = "ATQ2";
+    public static final long SLOT_MILLIS = 5_000;
+    public static final int TOLERANCE_SLOTS = 1;
+
+    public static final int VALID = 0;
+    public static final int MALFORMED = 1;
+    public static final int BAD_SIGNATURE = 2;
+    public static final int EXPIRED = 3;
+    public static final int WRONG_SESSION = 4;
+
+    private static final char SEPARATOR = '|';
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Nullable
+    private final PrivateKey signingKey;
+    private final PublicKey verifyKey;
+    private final Signature signature;
+
+    /**
+     * @param signingKey null for a verify-only instance, as on students' phones
+     * @param verifyKey  the session's public key
+     */
+    public AttendanceToken(@Nullable PrivateKey signingKey, @NonNull PublicKey verifyKey) {
+        this.signingKey = signingKey;
+        this.verifyKey = verifyKey;
+        try {
+            signature = Signature.getInstance(SigningKeys.SIGNATURE_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(SigningKeys.SIGNATURE_ALGORITHM + " unavailable", e);
+        }
+    }
+
+    public static long slotOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, SLOT_MILLIS);
+    }
+
+    /** Milliseconds until the slot containing {@code timeMillis} ends. */
+    public static long millisUntilNextSlot(long timeMillis) {
+        return SLOT_MILLIS - Math.floorMod(timeMillis, SLOT_MILLIS);
+    }
+
+    /** Issues a token for the slot containing {@code nowMillis}. */
+    @NonNull
+    public String issue(@NonNull String sessionId, long nowMillis) {
+        if (signingKey == null) throw new IllegalStateException("Verify-only token");
+        if (sessionId.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Session id must not contain '" + SEPARATOR + "'");
+        }
+        String body = PREFIX + SEPARATOR + sessionId + SEPARATOR + slotOf(nowMillis);
+        try {
+            signature.initSign(signingKey);
+            signature.update(body.getBytes(StandardCharsets.UTF_8));
+            return body + SEPARATOR + ENCODER.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign token", e);
+        }
+    }
+
+    /**
+     * Checks {@code payload} against the session's public key and the verifier's clock. If
+     * {@code expectedSessionId} is non-null the token must also belong to that session.
+     * Returns one of {@link #VALID}, {@link #MALFORMED}, {@link #BAD_SIGNATURE},
+     * {@link #EXPIRED} or {@link #WRONG_SESSION}.
+     */
+    public int verify(@NonNull String payload, @Nullable String expectedSessionId, long nowMillis) {
+        int signatureStart = payload.lastIndexOf(SEPARATOR);
+        String sessionId = sessionIdOf(payload);
+        if (sessionId == null || signatureStart < 0) return MALFORMED;
+        if (expectedSessionId != null && !expectedSessionId.equals(sessionId)) return WRONG_SESSION;
+
+        byte[] presented;
+        try {
+            presented = DECODER.decode(payload.substring(signatureStart + 1));
+        } catch (IllegalArgumentException e) {
+            return MALFORMED;
+        }
+        try {
+            signature.initVerify(verifyKey);
+            signature.update(payload.substring(0, signatureStart).getBytes(StandardCharsets.UTF_8));
+            if (!signature.verify(presented)) return BAD_SIGNATURE;
+        } catch (GeneralSecurityException e) {
+            // Garbled DER
+            return BAD_SIGNATURE;
+        }
+
+        long slot = parseSlot(payload);
+        if (slot == Long.MIN_VALUE) return MALFORMED;
+        return Math.abs(slotOf(nowMillis) - slot) <= TOLERANCE_SLOTS ? VALID : EXPIRED;
+    }
+
+    /** Session id of a well-formed payload, without checking the signature; null otherwise. */
+    @Nullable
+    public static String sessionIdOf(@NonNull String payload) {
+        if (!payload.startsWith(PREFIX + SEPARATOR)) return null;
+        int start = PREFIX.length() + 1;
+        int end = payload.indexOf(SEPARATOR, start);
+        if (end <= start) return null;
+        // Exactly three separators: prefix|session|slot|signature
+        int separators = 0;
+        for (int i = 0; i < payload.length(); i++) {
+            if (payload.charAt(i) == SEPARATOR) separators++;
+        }
+        return separators == 3 ? payload.substring(start, end) : null;
+    }
+
+    private static long parseSlot(String payload) {
+        int sessionEnd = payload.indexOf(SEPARATOR, PREFIX.length() + 1);
+        int slotEnd = payload.indexOf(SEPARATOR, sessionEnd + 1);
+        try {
+            return Long.parseLong(payload.substring(sessionEnd + 1, slotEnd));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
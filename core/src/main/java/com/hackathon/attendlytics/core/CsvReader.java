@@ -0,0 +1,113 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Streaming reader of comma-separated values, one record at a time.
+ *
+ * Follows RFC 4180: fields may be quoted, quoted fields may hold commas, line breaks and
+ * doubled quotes, and records end with LF or CRLF. Only the current record is held in memory,
+ * so a file of any length is read in constant space. A leading byte order mark is skipped.
+ */
+public final class CsvReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(@NonNull Reader in) {
+        this.in = in;
+    }
+
+    /** The next record, or null at the end of input. Blank lines are skipped. */
+    @Nullable
+    public String[] next() throws IOException {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int c;
+        do {
+            recordLine = line;
+            c = read();
+            if (c < 0) return null;
+        } while (c == '\n' || c == '\r' && skipLf());
+
+        while (true) {
+            if (c == '"' && field.length() == 0) {
+                // Quoted field: runs to the next quote not followed by another quote
+                while (true) {
+                    c = read();
+                    if (c < 0) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') break;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                c = read();
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') skipLf();
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+                c = read();
+            }
+        }
+    }
+
+    /** Line of the input on which the last record returned by {@link #next} started, from 1. */
+    public long getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Consumes the LF of a CRLF pair; always true so it can sit in a loop condition
+    private boolean skipLf() throws IOException {
+        if (peek() == '\n') {
+            read();
+        } else {
+            line++;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (!fill()) return -1;
+        char c = buffer[position++];
+        if (c == '\n') line++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer[position] : -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) return true;
+        limit = in.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit > 0 && !started) {
+            started = true;
+            if (buffer[0] == '\uFEFF') position = 1;
+            if (position == limit) return fill();
+        }
+        return limit > 0;
+    }
+}
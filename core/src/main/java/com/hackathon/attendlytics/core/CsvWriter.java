@@ -0,0 +1,65 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link SheetWriter} for comma-separated values as read by {@link CsvReader}: fields holding
+ * a comma, quote or line break are quoted, quotes doubled, and records end with CRLF.
+ *
+ * Text that a spreadsheet would take for a formula (starting with {@code =}, {@code +},
+ * {@code -}, {@code @}, tab or carriage return) is prefixed with {@code '}, so a name typed by
+ * a student cannot run as a formula on the teacher's machine. Numbers are written as is.
+ */
+public final class CsvWriter implements SheetWriter {
+
+    private final Writer out;
+
+    /** @param out should be buffered; every field is written to it separately */
+    public CsvWriter(@NonNull Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void writeRow(@NonNull Object... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) out.write(',');
+            if (cells[i] instanceof Number) {
+                out.write(cells[i].toString());
+            } else if (cells[i] != null) {
+                writeField(defuse(String.valueOf(cells[i])));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static String defuse(String value) {
+        if (value.isEmpty()) return value;
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@'
+                || first == '\t' || first == '\r';
+        return formula ? "'" + value : value;
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
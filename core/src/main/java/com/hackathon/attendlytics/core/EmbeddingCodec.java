@@ -0,0 +1,78 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Byte encoding and schema versions of stored face templates.
+ *
+ * A template is little-endian: a 2-byte schema version, a 2-byte dimension and then the
+ * float values. The app wraps these bytes in a Firestore blob; everything here is plain Java
+ * so it can be tested and benchmarked off-device.
+ */
+public final class EmbeddingCodec {
+
+    // Schema 1: raw bounding box, head angles, 8 landmark pixel positions, face size,
+    // tracking id and classification probabilities. Only read back, no longer written.
+    public static final int VERSION_LANDMARKS_V1 = 1;
+    public static final int DIMENSION_V1 = 30;
+
+    // Schema 2: 8 landmarks relative to the eye midpoint, de-rotated and divided by the
+    // inter-ocular distance, followed by face width and height in inter-ocular units.
+    public static final int VERSION_GEOMETRIC_V2 = 2;
+    public static final int DIMENSION_V2 = 18;
+
+    // Learned embedding from the bundled face model; the dimension depends on the model
+    // and is stored in the header.
+    public static final int VERSION_MOBILEFACENET = 3;
+
+    // Schema written by this app version; templates of other schemas are not comparable
+    public static final int CURRENT_VERSION = VERSION_GEOMETRIC_V2;
+    public static final int CURRENT_DIMENSION = DIMENSION_V2;
+
+    public static final int HEADER_BYTES = 4;
+
+    private EmbeddingCodec() {
+    }
+
+    @NonNull
+    public static byte[] encode(int version, @NonNull float[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + values.length * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) version);
+        buffer.putShort((short) values.length);
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+
+    /** Schema version of an encoded template. Throws if the bytes are not a valid template. */
+    public static int version(@NonNull byte[] bytes) {
+        return header(bytes).getShort(0) & 0xFFFF;
+    }
+
+    /** Values of an encoded template. Throws if the bytes are not a valid template. */
+    @NonNull
+    public static float[] decode(@NonNull byte[] bytes) {
+        ByteBuffer buffer = header(bytes);
+        float[] values = new float[buffer.getShort(2) & 0xFFFF];
+        buffer.position(HEADER_BYTES);
+        buffer.asFloatBuffer().get(values);
+        return values;
+    }
+
+    private static ByteBuffer header(byte[] bytes) {
+        if (bytes.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Face embedding blob is too short: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int dimension = buffer.getShort(2) & 0xFFFF;
+        int payload = bytes.length - HEADER_BYTES;
+        if (payload != dimension * Float.BYTES) {
+            throw new IllegalArgumentException("Face embedding blob has " + payload
+                    + " payload bytes, expected " + dimension * Float.BYTES);
+        }
+        return buffer;
+    }
+}
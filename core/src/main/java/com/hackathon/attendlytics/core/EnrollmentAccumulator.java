@@ -0,0 +1,131 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Collects per-frame embeddings during enrollment and reduces them to a mean template
+ * plus per-dimension variance.
+ *
+ * Frames are rejected before they touch the running statistics if the head is turned too
+ * far, the eyes are closed, or the pose drifts away from the pose of the frames already
+ * accepted. Statistics use Welford's online update, so nothing is stored per frame.
+ */
+public final class EnrollmentAccumulator {
+
+    public static final int DEFAULT_TARGET_FRAMES = 10;
+    // Enough frames for the mean to be worth more than a single capture
+    public static final int MIN_FRAMES = 3;
+
+    // Absolute pose limits (degrees) for an enrollment frame
+    private static final float MAX_YAW = 20f;
+    private static final float MAX_PITCH = 15f;
+    private static final float MAX_ROLL = 15f;
+    // Allowed deviation from the mean pose of already accepted frames
+    private static final float MAX_POSE_DRIFT = 8f;
+    private static final float MIN_EYE_OPEN = 0.5f;
+
+    private final int dimension;
+    private final int targetFrames;
+    private final double[] mean;
+    private final double[] m2;
+    private int count;
+    private int rejected;
+    private double meanYaw, meanPitch, meanRoll;
+
+    public EnrollmentAccumulator(int dimension, int targetFrames) {
+        if (dimension <= 0) throw new IllegalArgumentException("dimension must be positive");
+        if (targetFrames < 1) throw new IllegalArgumentException("targetFrames must be at least 1");
+        this.dimension = dimension;
+        this.targetFrames = targetFrames;
+        this.mean = new double[dimension];
+        this.m2 = new double[dimension];
+    }
+
+    /**
+     * Offers one frame. Returns true if it was accepted into the template.
+     */
+    public boolean offer(float[] values, float yaw, float pitch, float roll,
+                         @Nullable Float leftEyeOpen, @Nullable Float rightEyeOpen) {
+        if (values.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + values.length);
+        }
+        if (isFull() || isOutlier(yaw, pitch, roll, leftEyeOpen, rightEyeOpen)) {
+            rejected++;
+            return false;
+        }
+
+        count++;
+        for (int i = 0; i < dimension; i++) {
+            double delta = values[i] - mean[i];
+            mean[i] += delta / count;
+            m2[i] += delta * (values[i] - mean[i]);
+        }
+        meanYaw += (yaw - meanYaw) / count;
+        meanPitch += (pitch - meanPitch) / count;
+        meanRoll += (roll - meanRoll) / count;
+        return true;
+    }
+
+    private boolean isOutlier(float yaw, float pitch, float roll,
+                              @Nullable Float leftEyeOpen, @Nullable Float rightEyeOpen) {
+        if (Math.abs(yaw) > MAX_YAW || Math.abs(pitch) > MAX_PITCH || Math.abs(roll) > MAX_ROLL) {
+            return true;
+        }
+        if ((leftEyeOpen != null && leftEyeOpen < MIN_EYE_OPEN)
+                || (rightEyeOpen != null && rightEyeOpen < MIN_EYE_OPEN)) {
+            return true;
+        }
+        // Once a few frames agree on a pose, reject frames that wander away from it
+        return count >= MIN_FRAMES
+                && (Math.abs(yaw - meanYaw) > MAX_POSE_DRIFT
+                || Math.abs(pitch - meanPitch) > MAX_POSE_DRIFT
+                || Math.abs(roll - meanRoll) > MAX_POSE_DRIFT);
+    }
+
+    public boolean isFull() {
+        return count >= targetFrames;
+    }
+
+    public boolean hasMinimumFrames() {
+        return count >= Math.min(MIN_FRAMES, targetFrames);
+    }
+
+    public int getAcceptedCount() {
+        return count;
+    }
+
+    public int getRejectedCount() {
+        return rejected;
+    }
+
+    public int getTargetFrames() {
+        return targetFrames;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public void meanInto(float[] out) {
+        for (int i = 0; i < dimension; i++) {
+            out[i] = (float) mean[i];
+        }
+    }
+
+    /** Population variance per dimension; all zeros until two frames were accepted. */
+    public void varianceInto(float[] out) {
+        for (int i = 0; i < dimension; i++) {
+            out[i] = count > 1 ? (float) (m2[i] / count) : 0f;
+        }
+    }
+
+    public void reset() {
+        count = 0;
+        rejected = 0;
+        meanYaw = meanPitch = meanRoll = 0;
+        for (int i = 0; i < dimension; i++) {
+            mean[i] = 0;
+            m2[i] = 0;
+        }
+    }
+}
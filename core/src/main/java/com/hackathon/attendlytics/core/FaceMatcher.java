@@ -0,0 +1,165 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Exhaustive nearest-neighbour search over a packed template store.
+ *
+ * All templates live in one row-major {@code float[]} and are L2-normalized on insert, so
+ * cosine similarity is a plain dot product and squared L2 distance is {@code 2 - 2 * dot}.
+ * Both metrics therefore rank identically and only the dot product is computed.
+ *
+ * Instances are filled once (for example by the app's {@code SectionTemplateLoader}) and then
+ * searched from a single analyzer thread; {@link #search} reuses an internal probe buffer
+ * and is not safe to call concurrently.
+ */
+public final class FaceMatcher {
+
+    // Cosine similarity above which a probe is considered the same person. Normalized
+    // geometric embeddings all share the average face shape, so different people still
+    // score well above 0.9 and the cut-off has to sit close to 1.
+    public static final float DEFAULT_THRESHOLD = 0.985f;
+
+    private final int dimension;
+    private float[] templates;
+    private String[] ids;
+    private int count;
+    private final float[] probeScratch;
+
+    public FaceMatcher(int dimension, int initialCapacity) {
+        if (dimension <= 0) throw new IllegalArgumentException("dimension must be positive");
+        this.dimension = dimension;
+        int capacity = Math.max(1, initialCapacity);
+        this.templates = new float[capacity * dimension];
+        this.ids = new String[capacity];
+        this.probeScratch = new float[dimension];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @NonNull
+    public String idAt(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("index " + index);
+        return ids[index];
+    }
+
+    /**
+     * Appends a template and returns its row index. Returns -1 for a zero vector, which
+     * cannot be normalized.
+     */
+    public int add(@NonNull String id, @NonNull float[] embedding) {
+        if (embedding.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + embedding.length);
+        }
+        if (count == ids.length) {
+            int capacity = ids.length * 2;
+            templates = Arrays.copyOf(templates, capacity * dimension);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        int base = count * dimension;
+        if (!normalizeInto(embedding, templates, base, dimension)) {
+            return -1;
+        }
+        ids[count] = id;
+        return count++;
+    }
+
+    /**
+     * Scores {@code probe} against every template and writes the best {@code k} matches,
+     * highest cosine similarity first, into {@code outIndices}/{@code outScores}.
+     * Returns the number of matches written (at most {@code min(k, size())}).
+     */
+    public int search(@NonNull float[] probe, int k, @NonNull int[] outIndices, @NonNull float[] outScores) {
+        if (probe.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + probe.length);
+        }
+        int limit = Math.min(k, Math.min(outIndices.length, outScores.length));
+        if (limit <= 0 || count == 0) return 0;
+        final float[] q = probeScratch;
+        if (!normalizeInto(probe, q, 0, dimension)) return 0;
+
+        final float[] t = templates;
+        final int dim = dimension;
+        final int rows = count;
+        int found = 0;
+        for (int row = 0, base = 0; row < rows; row++, base += dim) {
+            // Four independent accumulators keep the loop free of a serial dependency chain
+            float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+            int j = 0;
+            for (; j + 3 < dim; j += 4) {
+                s0 += t[base + j] * q[j];
+                s1 += t[base + j + 1] * q[j + 1];
+                s2 += t[base + j + 2] * q[j + 2];
+                s3 += t[base + j + 3] * q[j + 3];
+            }
+            for (; j < dim; j++) {
+                s0 += t[base + j] * q[j];
+            }
+            float score = (s0 + s1) + (s2 + s3);
+
+            // Top-k by insertion into the (short) sorted output arrays
+            if (found < limit) {
+                found++;
+            } else if (score <= outScores[limit - 1]) {
+                continue;
+            }
+            int pos = found - 1;
+            while (pos > 0 && outScores[pos - 1] < score) {
+                outScores[pos] = outScores[pos - 1];
+                outIndices[pos] = outIndices[pos - 1];
+                pos--;
+            }
+            outScores[pos] = score;
+            outIndices[pos] = row;
+        }
+        return found;
+    }
+
+    /** Convenience for the common single-best lookup; returns -1 if nothing clears {@code threshold}. */
+    public int bestMatch(@NonNull float[] probe, float threshold, @NonNull float[] outScore) {
+        int[] index = new int[1];
+        if (search(probe, 1, index, outScore) == 0 || outScore[0] < threshold) {
+            return -1;
+        }
+        return index[0];
+    }
+
+    /** Cosine similarity of two raw (not necessarily normalized) vectors. */
+    public static float cosineSimilarity(@NonNull float[] a, @NonNull float[] b) {
+        if (a.length != b.length) throw new IllegalArgumentException("Dimension mismatch");
+        float dot = 0f, normA = 0f, normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        if (normA == 0f || normB == 0f) return 0f;
+        return (float) (dot / Math.sqrt((double) normA * normB));
+    }
+
+    /** Squared L2 distance between two unit vectors, from their cosine similarity. */
+    public static float l2SquaredFromCosine(float cosine) {
+        return 2f - 2f * cosine;
+    }
+
+    static boolean normalizeInto(float[] src, float[] dst, int offset, int dimension) {
+        float norm = 0f;
+        for (int i = 0; i < dimension; i++) {
+            norm += src[i] * src[i];
+        }
+        if (norm == 0f) return false;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            dst[offset + i] = src[i] * inv;
+        }
+        return true;
+    }
+}
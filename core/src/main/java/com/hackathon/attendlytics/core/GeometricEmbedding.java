@@ -0,0 +1,44 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Schema 2 face geometry from raw landmark positions.
+ *
+ * Input points are in the order eyes, nose base, mouth left, right and bottom, cheeks, ears;
+ * the eyes come first because they define the normalized frame of reference. A missing
+ * landmark is passed as {@code NaN}.
+ */
+public final class GeometricEmbedding {
+
+    public static final int LANDMARK_COUNT = 10;
+
+    private GeometricEmbedding() {
+    }
+
+    /**
+     * Writes the {@link EmbeddingCodec#DIMENSION_V2} values for one face into {@code out}.
+     * Returns false if the eyes, nose base or mouth bottom are missing or the eyes are too
+     * close together; {@code out} is then left in an unspecified state.
+     */
+    public static boolean compute(@NonNull float[] points, float boxWidth, float boxHeight,
+                                  @NonNull float[] out) {
+        if (points.length < LANDMARK_COUNT * 2 || out.length < EmbeddingCodec.DIMENSION_V2) {
+            throw new IllegalArgumentException("Expected " + LANDMARK_COUNT + " points and "
+                    + EmbeddingCodec.DIMENSION_V2 + " outputs");
+        }
+        // Nose base and mouth bottom carry most of the vertical proportions; without them
+        // the vector would mostly be zeros.
+        if (Float.isNaN(points[4]) || Float.isNaN(points[10])) {
+            return false;
+        }
+        float interOcular = LandmarkNormalizer.normalize(points, LANDMARK_COUNT, out, 0);
+        if (interOcular <= 0f) {
+            return false;
+        }
+        int i = (LANDMARK_COUNT - 2) * 2;
+        out[i++] = boxWidth / interOcular;
+        out[i] = boxHeight / interOcular;
+        return true;
+    }
+}
@@ -0,0 +1,577 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Approximate nearest-neighbour index over face templates (HNSW, cosine similarity).
+ *
+ * Where {@link FaceMatcher} scores every template, this walks a layered proximity graph and
+ * touches only a few hundred templates per query, which keeps a department-wide lookup well
+ * under a millisecond. Results use the same conventions as {@link FaceMatcher#search}: rows,
+ * highest cosine similarity first.
+ *
+ * Templates can be added at any time; adding an id that is already present replaces its
+ * template, and removing an id withdraws it. Either way the old node stays in the graph only as
+ * a waypoint. The index is saved to and
+ * loaded from a single memory-mapped file together with a caller-defined watermark, e.g. the
+ * newest enrollment time it contains, so a reload only needs the templates added since.
+ *
+ * Not thread-safe: build and search from one thread, or guard externally.
+ */
+public final class HnswIndex {
+
+    private static final int MAGIC = 0x57534E48; // "HNSW", little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    // Cap on level draws; with m >= 8 even a million nodes rarely pass level 6
+    private static final int MAX_LEVEL = 16;
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    private final int dimension;
+    // Links per node on upper layers, and twice that on layer 0
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random levelRandom = new Random(42);
+    private int efSearch = DEFAULT_EF_SEARCH;
+
+    private int count;
+    private float[] vectors;
+    private String[] ids;
+    private int[] levels;
+    // Layer 0: [count, link, link, ...] per node, m0 + 1 ints each
+    private int[] links0;
+    // Layers 1..level of each node, m + 1 ints per layer; null for level-0 nodes
+    private int[][][] upperLinks;
+    private final BitSet replaced = new BitSet();
+    private final HashMap<String, Integer> nodeById = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long watermark;
+
+    // Search scratch, reused across queries
+    private final float[] query;
+    private int[] visited;
+    private int visitEpoch;
+    private final Heap candidates = new Heap();
+    private final Heap results = new Heap();
+    private int[] resultNodes = new int[0];
+    private float[] resultScores = new float[0];
+
+    public HnswIndex(int dimension, int initialCapacity) {
+        this(dimension, initialCapacity, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    public HnswIndex(int dimension, int initialCapacity, int m, int efConstruction) {
+        if (dimension <= 0) throw new IllegalArgumentException("dimension must be positive");
+        if (m < 2) throw new IllegalArgumentException("m must be at least 2");
+        this.dimension = dimension;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1.0 / Math.log(m);
+        int capacity = Math.max(1, initialCapacity);
+        this.vectors = new float[capacity * dimension];
+        this.ids = new String[capacity];
+        this.levels = new int[capacity];
+        this.links0 = new int[capacity * (m0 + 1)];
+        this.upperLinks = new int[capacity][][];
+        this.visited = new int[capacity];
+        this.query = new float[dimension];
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /** Number of nodes, including templates that have since been replaced. */
+    public int size() {
+        return count;
+    }
+
+    /** Number of distinct ids that can be returned by {@link #search}. */
+    public int liveSize() {
+        return nodeById.size();
+    }
+
+    @NonNull
+    public String idAt(int row) {
+        if (row < 0 || row >= count) throw new IndexOutOfBoundsException("row " + row);
+        return ids[row];
+    }
+
+    public boolean contains(@NonNull String id) {
+        return nodeById.containsKey(id);
+    }
+
+    /** Candidate list size for queries; larger trades speed for recall. At least k is always used. */
+    public void setEfSearch(int efSearch) {
+        this.efSearch = Math.max(1, efSearch);
+    }
+
+    /** Caller-defined value saved with the index, e.g. the newest template time it contains. */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    /**
+     * Inserts or replaces the template of {@code id} and returns its row. Returns -1 for a
+     * zero vector, which cannot be normalized.
+     */
+    public int add(@NonNull String id, @NonNull float[] embedding) {
+        if (embedding.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + embedding.length);
+        }
+        if (count == ids.length) grow(count * 2);
+        int node = count;
+        if (!FaceMatcher.normalizeInto(embedding, vectors, node * dimension, dimension)) {
+            return -1;
+        }
+        Integer previous = nodeById.put(id, node);
+        if (previous != null) replaced.set(previous);
+        count++;
+        ids[node] = id;
+        int level = randomLevel();
+        levels[node] = level;
+        links0[node * (m0 + 1)] = 0;
+        upperLinks[node] = level > 0 ? new int[level][m + 1] : null;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+        System.arraycopy(vectors, node * dimension, query, 0, dimension);
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            searchLayer(ep, efConstruction, l);
+            ep = results.bestValue();
+            int limit = l == 0 ? m0 : m;
+            int[] selected = selectNeighbors(results, limit);
+            int[] links = linksOf(node, l);
+            int offset = linksOffset(node, l);
+            links[offset] = selected.length;
+            System.arraycopy(selected, 0, links, offset + 1, selected.length);
+            for (int neighbour : selected) {
+                connect(neighbour, node, l);
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Withdraws the template of {@code id}, so {@link #search} no longer returns it. Returns
+     * false if the index does not hold {@code id}.
+     */
+    public boolean remove(@NonNull String id) {
+        Integer node = nodeById.remove(id);
+        if (node == null) return false;
+        replaced.set(node);
+        return true;
+    }
+
+    /**
+     * Writes the best {@code k} matches for {@code probe}, highest cosine similarity first,
+     * into {@code outIndices}/{@code outScores} and returns how many were written.
+     */
+    public int search(@NonNull float[] probe, int k, @NonNull int[] outIndices, @NonNull float[] outScores) {
+        if (probe.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + probe.length);
+        }
+        int limit = Math.min(k, Math.min(outIndices.length, outScores.length));
+        if (limit <= 0 || entryPoint < 0) return 0;
+        if (!FaceMatcher.normalizeInto(probe, query, 0, dimension)) return 0;
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(ep, l);
+        }
+        searchLayer(ep, Math.max(efSearch, limit), 0);
+
+        // The result heap pops worst first; drain it into best-first order
+        int n = results.size;
+        if (resultNodes.length < n) {
+            resultNodes = new int[n];
+            resultScores = new float[n];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            resultScores[i] = -results.peekKey();
+            resultNodes[i] = results.pop();
+        }
+        int found = 0;
+        for (int i = 0; i < n && found < limit; i++) {
+            if (replaced.get(resultNodes[i])) continue;
+            outIndices[found] = resultNodes[i];
+            outScores[found] = resultScores[i];
+            found++;
+        }
+        return found;
+    }
+
+    /** Convenience for a single best match, as {@link FaceMatcher#bestMatch}. */
+    public int bestMatch(@NonNull float[] probe, float threshold, @NonNull float[] outScore) {
+        int[] index = new int[1];
+        if (search(probe, 1, index, outScore) == 0 || outScore[0] < threshold) {
+            return -1;
+        }
+        return index[0];
+    }
+
+    /** Saves the index to {@code file}, replacing it atomically. */
+    public void save(@NonNull File file) throws IOException {
+        int upperInts = 0;
+        for (int node = 0; node < count; node++) {
+            upperInts += levels[node] * (m + 1);
+        }
+        byte[][] idBytes = new byte[count][];
+        long idsSize = 0;
+        for (int node = 0; node < count; node++) {
+            idBytes[node] = ids[node].getBytes(StandardCharsets.UTF_8);
+            idsSize += 2 + idBytes[node].length;
+        }
+        long words = (count + 63) / 64;
+        long size = HEADER_BYTES
+                + (long) count * dimension * Float.BYTES
+                + (long) count * Integer.BYTES
+                + (long) count * (m0 + 1) * Integer.BYTES
+                + (long) upperInts * Integer.BYTES
+                + words * Long.BYTES
+                + idsSize;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(size);
+            MappedByteBuffer buffer = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dimension).putInt(m)
+                    .putInt(efConstruction).putInt(count).putInt(entryPoint).putInt(maxLevel)
+                    .putLong(watermark).putInt(0).putInt(0);
+            buffer.asFloatBuffer().put(vectors, 0, count * dimension);
+            buffer.position(buffer.position() + count * dimension * Float.BYTES);
+            buffer.asIntBuffer().put(levels, 0, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            buffer.asIntBuffer().put(links0, 0, count * (m0 + 1));
+            buffer.position(buffer.position() + count * (m0 + 1) * Integer.BYTES);
+            for (int node = 0; node < count; node++) {
+                for (int l = 0; l < levels[node]; l++) {
+                    buffer.asIntBuffer().put(upperLinks[node][l]);
+                    buffer.position(buffer.position() + (m + 1) * Integer.BYTES);
+                }
+            }
+            long[] replacedWords = Arrays.copyOf(replaced.toLongArray(), (int) words);
+            buffer.asLongBuffer().put(replacedWords);
+            buffer.position(buffer.position() + (int) words * Long.BYTES);
+            for (byte[] id : idBytes) {
+                buffer.putShort((short) id.length).put(id);
+            }
+            buffer.force();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /** Loads an index written by {@link #save}. Throws if the file is not a readable index. */
+    @NonNull
+    public static HnswIndex load(@NonNull File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a face index");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported face index format " + version);
+            }
+            int dimension = buffer.getInt();
+            int m = buffer.getInt();
+            int efConstruction = buffer.getInt();
+            int count = buffer.getInt();
+            HnswIndex index = new HnswIndex(dimension, count, m, efConstruction);
+            index.count = count;
+            index.entryPoint = buffer.getInt();
+            index.maxLevel = buffer.getInt();
+            index.watermark = buffer.getLong();
+            buffer.position(HEADER_BYTES);
+
+            // Bulk copies out of the mapping; the page cache does the actual reading
+            buffer.asFloatBuffer().get(index.vectors, 0, count * dimension);
+            buffer.position(buffer.position() + count * dimension * Float.BYTES);
+            buffer.asIntBuffer().get(index.levels, 0, count);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            buffer.asIntBuffer().get(index.links0, 0, count * (index.m0 + 1));
+            buffer.position(buffer.position() + count * (index.m0 + 1) * Integer.BYTES);
+            for (int node = 0; node < count; node++) {
+                int level = index.levels[node];
+                if (level == 0) continue;
+                index.upperLinks[node] = new int[level][m + 1];
+                for (int l = 0; l < level; l++) {
+                    buffer.asIntBuffer().get(index.upperLinks[node][l]);
+                    buffer.position(buffer.position() + (m + 1) * Integer.BYTES);
+                }
+            }
+            long[] replacedWords = new long[(count + 63) / 64];
+            buffer.asLongBuffer().get(replacedWords);
+            buffer.position(buffer.position() + replacedWords.length * Long.BYTES);
+            index.replaced.or(BitSet.valueOf(replacedWords));
+            for (int node = 0; node < count; node++) {
+                byte[] id = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(id);
+                index.ids[node] = new String(id, StandardCharsets.UTF_8);
+                if (!index.replaced.get(node)) index.nodeById.put(index.ids[node], node);
+            }
+            return index;
+        } catch (RuntimeException e) {
+            // Truncated or corrupt mapping; the caller rebuilds from scratch
+            throw new IOException("Corrupt face index " + file, e);
+        }
+    }
+
+    private int randomLevel() {
+        double level = -Math.log(1.0 - levelRandom.nextDouble()) * levelMultiplier;
+        return (int) Math.min(level, MAX_LEVEL);
+    }
+
+    // Cosine similarity of a node to the normalized query
+    private float queryScore(int node) {
+        int base = node * dimension;
+        float s0 = 0f, s1 = 0f;
+        int j = 0;
+        for (; j + 1 < dimension; j += 2) {
+            s0 += vectors[base + j] * query[j];
+            s1 += vectors[base + j + 1] * query[j + 1];
+        }
+        if (j < dimension) s0 += vectors[base + j] * query[j];
+        return s0 + s1;
+    }
+
+    private float similarity(int a, int b) {
+        int baseA = a * dimension;
+        int baseB = b * dimension;
+        float sum = 0f;
+        for (int j = 0; j < dimension; j++) {
+            sum += vectors[baseA + j] * vectors[baseB + j];
+        }
+        return sum;
+    }
+
+    private int[] linksOf(int node, int level) {
+        return level == 0 ? links0 : upperLinks[node][level - 1];
+    }
+
+    private int linksOffset(int node, int level) {
+        return level == 0 ? node * (m0 + 1) : 0;
+    }
+
+    // Upper layers: follow any better neighbour until none is left
+    private int greedyClosest(int ep, int level) {
+        int current = ep;
+        float best = queryScore(current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] links = linksOf(current, level);
+            int offset = linksOffset(current, level);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbour = links[offset + i];
+                float score = queryScore(neighbour);
+                if (score > best) {
+                    best = score;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Best-first search of one layer; leaves the best ef nodes in results, keyed by -similarity
+    private void searchLayer(int ep, int ef, int level) {
+        if (++visitEpoch == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            visitEpoch = 1;
+        }
+        candidates.clear();
+        results.clear();
+        float epScore = queryScore(ep);
+        visited[ep] = visitEpoch;
+        candidates.push(epScore, ep);
+        results.push(-epScore, ep);
+        while (candidates.size > 0) {
+            float score = candidates.peekKey();
+            int current = candidates.pop();
+            if (results.size >= ef && score < -results.peekKey()) break;
+            int[] links = linksOf(current, level);
+            int offset = linksOffset(current, level);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbour = links[offset + i];
+                if (visited[neighbour] == visitEpoch) continue;
+                visited[neighbour] = visitEpoch;
+                float neighbourScore = queryScore(neighbour);
+                if (results.size < ef || neighbourScore > -results.peekKey()) {
+                    candidates.push(neighbourScore, neighbour);
+                    results.push(-neighbourScore, neighbour);
+                    if (results.size > ef) results.pop();
+                }
+            }
+        }
+    }
+
+    /*
+     * Neighbour heuristic from the HNSW paper: a candidate is kept only if it is closer to the
+     * new node than to every neighbour kept so far, which spreads links across clusters. Any
+     * room left is filled with the nearest pruned candidates so layer 0 stays well connected.
+     */
+    private int[] selectNeighbors(Heap found, int limit) {
+        // found is keyed by -similarity; drain into best-first order
+        int n = found.size;
+        int[] order = new int[n];
+        float[] scores = new float[n];
+        for (int i = n - 1; i >= 0; i--) {
+            scores[i] = -found.peekKey();
+            order[i] = found.pop();
+        }
+        int[] kept = new int[Math.min(limit, n)];
+        int keptCount = 0;
+        boolean[] used = new boolean[n];
+        for (int i = 0; i < n && keptCount < kept.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < keptCount; j++) {
+                if (similarity(order[i], kept[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                kept[keptCount++] = order[i];
+                used[i] = true;
+            }
+        }
+        for (int i = 0; i < n && keptCount < kept.length; i++) {
+            if (!used[i]) kept[keptCount++] = order[i];
+        }
+        return keptCount == kept.length ? kept : Arrays.copyOf(kept, keptCount);
+    }
+
+    private void connect(int node, int neighbour, int level) {
+        int[] links = linksOf(node, level);
+        int offset = linksOffset(node, level);
+        int limit = level == 0 ? m0 : m;
+        int size = links[offset];
+        if (size < limit) {
+            links[offset + 1 + size] = neighbour;
+            links[offset] = size + 1;
+            return;
+        }
+        // Full: the new link replaces the weakest one if it is closer. Re-running the
+        // diversity heuristic here would cost limit^2 dot products per insert and neighbour.
+        int weakest = -1;
+        float weakestScore = similarity(node, neighbour);
+        for (int i = 1; i <= size; i++) {
+            float score = similarity(node, links[offset + i]);
+            if (score < weakestScore) {
+                weakestScore = score;
+                weakest = i;
+            }
+        }
+        if (weakest > 0) links[offset + weakest] = neighbour;
+    }
+
+    private void grow(int capacity) {
+        vectors = Arrays.copyOf(vectors, capacity * dimension);
+        ids = Arrays.copyOf(ids, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        links0 = Arrays.copyOf(links0, capacity * (m0 + 1));
+        upperLinks = Arrays.copyOf(upperLinks, capacity);
+        visited = Arrays.copyOf(visited, capacity);
+    }
+
+    /** Binary max-heap of (float key, int value) pairs on primitive arrays. */
+    private static final class Heap {
+        float[] keys = new float[64];
+        int[] values = new int[64];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        float peekKey() {
+            return keys[0];
+        }
+
+        // Value with the smallest key: the most similar node when keyed by -similarity
+        int bestValue() {
+            int best = 0;
+            for (int i = 1; i < size; i++) {
+                if (keys[i] < keys[best]) best = i;
+            }
+            return values[best];
+        }
+
+        void push(float key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] >= key) break;
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int pop() {
+            int top = values[0];
+            float key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                if (key >= keys[child]) break;
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.hackathon.attendlytics.core;
+
+/**
+ * Pose- and scale-normalizes face landmark coordinates.
+ *
+ * Points are given as interleaved x/y pairs in image pixels, with the two eyes first. Each
+ * remaining point is expressed relative to the eye midpoint, rotated so the eye line is
+ * horizontal and divided by the inter-ocular distance. The result no longer depends on how
+ * far the face is from the camera, where it sits in the frame, or the in-plane head roll.
+ * Missing points are passed as NaN and come out as 0.
+ */
+public final class LandmarkNormalizer {
+
+    // Below this inter-ocular distance (pixels) landmark noise dominates the geometry
+    static final float MIN_INTER_OCULAR_PX = 8f;
+
+    private LandmarkNormalizer() {
+    }
+
+    /**
+     * Normalizes {@code pointCount} points from {@code points} (index 0 = left eye, 1 = right
+     * eye) and writes {@code 2 * (pointCount - 2)} values to {@code out} starting at
+     * {@code outOffset}. Returns the inter-ocular distance in pixels, or 0 if the eyes are
+     * missing or too close together for a stable frame of reference.
+     */
+    public static float normalize(float[] points, int pointCount, float[] out, int outOffset) {
+        float lx = points[0], ly = points[1];
+        float rx = points[2], ry = points[3];
+        if (Float.isNaN(lx) || Float.isNaN(ly) || Float.isNaN(rx) || Float.isNaN(ry)) {
+            return 0f;
+        }
+        float dx = rx - lx;
+        float dy = ry - ly;
+        float interOcular = (float) Math.sqrt(dx * dx + dy * dy);
+        if (interOcular < MIN_INTER_OCULAR_PX) {
+            return 0f;
+        }
+
+        // The eye line angle is the in-plane roll measured directly in image coordinates,
+        // so de-rotating by it cancels getHeadEulerAngleZ() without depending on its sign.
+        float cos = dx / interOcular;
+        float sin = dy / interOcular;
+        float scale = 1f / interOcular;
+        float mx = (lx + rx) * 0.5f;
+        float my = (ly + ry) * 0.5f;
+
+        int o = outOffset;
+        for (int p = 2; p < pointCount; p++) {
+            float x = points[2 * p];
+            float y = points[2 * p + 1];
+            if (Float.isNaN(x) || Float.isNaN(y)) {
+                out[o++] = 0f;
+                out[o++] = 0f;
+                continue;
+            }
+            float tx = x - mx;
+            float ty = y - my;
+            // Rotate by -roll
+            out[o++] = (tx * cos + ty * sin) * scale;
+            out[o++] = (-tx * sin + ty * cos) * scale;
+        }
+        return interOcular;
+    }
+}
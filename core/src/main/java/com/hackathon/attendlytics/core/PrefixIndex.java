@@ -0,0 +1,104 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * In-memory prefix index from words to row numbers, for search-as-you-type over a list.
+ *
+ * Each added text is split into lower-cased words of letters and digits, kept in one sorted
+ * array. A query matches a row when every query word is a prefix of some word of the row, so
+ * "ra ku" finds "Kumar, Ravi" and "23071a" finds student id {@code 23071A12A6}. Rows can be
+ * added while the list pages in; the array is re-sorted on the first search after an add.
+ * Not thread-safe.
+ */
+public final class PrefixIndex {
+
+    private static final class Entry {
+        final String word;
+        final int row;
+
+        Entry(String word, int row) {
+            this.word = word;
+            this.row = row;
+        }
+    }
+
+    private Entry[] entries = new Entry[64];
+    private int size;
+    private boolean sorted = true;
+
+    /** Indexes every word of {@code text} under {@code row}. */
+    public void add(int row, @NonNull String text) {
+        for (String word : words(text)) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entries[size++] = new Entry(word, row);
+            sorted = false;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0, size, null);
+        size = 0;
+        sorted = true;
+    }
+
+    /** Rows matching every word of {@code query}, ascending. An empty query matches nothing. */
+    @NonNull
+    public int[] search(@NonNull String query) {
+        ArrayList<String> words = words(query);
+        if (words.isEmpty()) return new int[0];
+        if (!sorted) {
+            Arrays.sort(entries, 0, size, (a, b) -> a.word.compareTo(b.word));
+            sorted = true;
+        }
+        BitSet result = null;
+        for (String word : words) {
+            BitSet rows = new BitSet();
+            for (int i = lowerBound(word); i < size && entries[i].word.startsWith(word); i++) {
+                rows.set(entries[i].row);
+            }
+            if (result == null) {
+                result = rows;
+            } else {
+                result.and(rows);
+            }
+            if (result.isEmpty()) break;
+        }
+        return result.stream().toArray();
+    }
+
+    // First entry whose word is not less than prefix
+    private int lowerBound(String prefix) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries[mid].word.compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static ArrayList<String> words(String text) {
+        ArrayList<String> words = new ArrayList<>(4);
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
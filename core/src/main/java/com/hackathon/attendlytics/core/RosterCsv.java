@@ -0,0 +1,91 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validation of roster import rows: student id, name, department, year, section.
+ *
+ * Values are normalized the way the student profile screen stores them: upper-case ids and
+ * sections, department codes, and years as {@code "3rd Year"}. A row that cannot be imported
+ * is rejected with a message naming the offending column.
+ */
+public final class RosterCsv {
+
+    public static final int COLUMNS = 5;
+    private static final Pattern STUDENT_ID = Pattern.compile("[A-Z0-9]{10,20}");
+    private static final Pattern SECTION = Pattern.compile("[A-Z0-9]{1,3}");
+    private static final Pattern YEAR = Pattern.compile("([1-4])\\s*(st|nd|rd|th)?(\\s+year)?");
+    private static final String[] YEAR_LABELS = {"1st Year", "2nd Year", "3rd Year", "4th Year"};
+    private static final int MAX_NAME_LENGTH = 80;
+
+    /** One valid row. */
+    public static final class Student {
+        public final String studentId;
+        public final String name;
+        public final String department;
+        public final String year;
+        public final String section;
+
+        Student(String studentId, String name, String department, String year, String section) {
+            this.studentId = studentId;
+            this.name = name;
+            this.department = department;
+            this.year = year;
+            this.section = section;
+        }
+    }
+
+    private final Function<String, String> departmentCode;
+
+    /** @param departmentCode maps a department as written in the file to its code, or null if unknown */
+    public RosterCsv(@NonNull Function<String, String> departmentCode) {
+        this.departmentCode = departmentCode;
+    }
+
+    /** True for a header row such as {@code Student ID,Name,...}: its first field has no digit. */
+    public static boolean isHeader(@NonNull String[] record) {
+        return record.length > 0 && !record[0].matches(".*\\d.*");
+    }
+
+    /** @throws IllegalArgumentException with a message for the user if the row is invalid */
+    @NonNull
+    public Student parse(@NonNull String[] record) {
+        if (record.length < COLUMNS) {
+            throw new IllegalArgumentException("expected " + COLUMNS + " columns, found " + record.length);
+        }
+        String studentId = record[0].trim().toUpperCase(Locale.ROOT);
+        if (!STUDENT_ID.matcher(studentId).matches()) {
+            throw new IllegalArgumentException("invalid student ID '" + record[0].trim() + "'");
+        }
+        String name = record[1].trim().replaceAll("\\s+", " ");
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name must be 1 to " + MAX_NAME_LENGTH + " characters");
+        }
+        String department = departmentCode.apply(record[2].trim());
+        if (department == null) {
+            throw new IllegalArgumentException("unknown department '" + record[2].trim() + "'");
+        }
+        String year = yearLabel(record[3]);
+        if (year == null) {
+            throw new IllegalArgumentException("invalid year '" + record[3].trim() + "'");
+        }
+        String section = record[4].trim().toUpperCase(Locale.ROOT);
+        if (!SECTION.matcher(section).matches()) {
+            throw new IllegalArgumentException("invalid section '" + record[4].trim() + "'");
+        }
+        return new Student(studentId, name, department, year, section);
+    }
+
+    /** {@code "3"}, {@code "3rd"} or {@code "3rd year"} as {@code "3rd Year"}; null otherwise. */
+    @Nullable
+    public static String yearLabel(@NonNull String year) {
+        Matcher matcher = YEAR.matcher(year.trim().toLowerCase(Locale.ROOT));
+        return matcher.matches() ? YEAR_LABELS[matcher.group(1).charAt(0) - '1'] : null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Attendance report of one section and subject, computed from pre-rolled monthly aggregates.
+ *
+ * The aggregates are sets of short session keys: for each month the sessions that were held,
+ * and for each student and month the sessions they attended. Sets rather than counters keep
+ * the writes idempotent, so a replayed attendance write never counts twice. Building a report
+ * is then a walk over at most a semester of session keys per student, with no attendance
+ * records involved.
+ */
+public final class SectionReport {
+
+    /** Students below this attendance percentage are listed as defaulters. */
+    public static final double DEFAULTER_PERCENT = 75.0;
+
+    /** One student's line in the report. */
+    public static final class StudentRow {
+        public final String uid;
+        public final String name;
+        public final int attended;
+        public final int held;
+        /** Sessions attended in a row up to the latest one held. */
+        public final int currentStreak;
+        public final int longestStreak;
+
+        StudentRow(String uid, String name, int attended, int held, int currentStreak, int longestStreak) {
+            this.uid = uid;
+            this.name = name;
+            this.attended = attended;
+            this.held = held;
+            this.currentStreak = currentStreak;
+            this.longestStreak = longestStreak;
+        }
+
+        public double getPercent() {
+            return held == 0 ? 100.0 : attended * 100.0 / held;
+        }
+
+        public boolean isDefaulter() {
+            return getPercent() < DEFAULTER_PERCENT;
+        }
+    }
+
+    private final String title;
+    private final int held;
+    private final List<StudentRow> rows;
+
+    private SectionReport(String title, int held, List<StudentRow> rows) {
+        this.title = title;
+        this.held = held;
+        this.rows = rows;
+    }
+
+    /**
+     * Aggregate document id for a section and subject, e.g. {@code CSE_3_A_CS101}. Slashes,
+     * which Firestore does not allow in ids, become dashes.
+     */
+    @NonNull
+    public static String statsId(@NonNull String department, @NonNull String year, @NonNull String section,
+                                 @NonNull String subject) {
+        return (department + "_" + year + "_" + section + "_" + subject).replace('/', '-');
+    }
+
+    /**
+     * Short, time-ordered key of a session. Session ids start with the start time in millis,
+     * which is written in base 36; ids in any other form are used as they are.
+     */
+    @NonNull
+    public static String sessionKey(@NonNull String sessionId) {
+        int end = sessionId.indexOf('_');
+        try {
+            return Long.toString(Long.parseLong(end > 0 ? sessionId.substring(0, end) : sessionId), 36);
+        } catch (NumberFormatException e) {
+            return sessionId;
+        }
+    }
+
+    /** Month bucket of a time in the device time zone, e.g. {@code 202509}. */
+    @NonNull
+    public static String monthKey(long timeMillis) {
+        return new SimpleDateFormat("yyyyMM", Locale.US).format(new Date(timeMillis));
+    }
+
+    /**
+     * Start time of a session, read from its id, so a mark made after midnight is still filed
+     * under the day the session was held. Falls back to {@code fallbackMillis} for ids in
+     * another form.
+     */
+    public static long sessionStart(@NonNull String sessionId, long fallbackMillis) {
+        int end = sessionId.indexOf('_');
+        try {
+            return Long.parseLong(end > 0 ? sessionId.substring(0, end) : sessionId);
+        } catch (NumberFormatException e) {
+            return fallbackMillis;
+        }
+    }
+
+    /** Month bucket of the session's start; see {@link #sessionStart}. */
+    @NonNull
+    public static String monthOfSession(@NonNull String sessionId, long fallbackMillis) {
+        return monthKey(sessionStart(sessionId, fallbackMillis));
+    }
+
+    /** First month of the semester containing {@code timeMillis}: January or July. */
+    @NonNull
+    public static String semesterStart(long timeMillis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMillis);
+        int month = calendar.get(Calendar.MONTH) < Calendar.JULY ? 1 : 7;
+        return String.format(Locale.US, "%04d%02d", calendar.get(Calendar.YEAR), month);
+    }
+
+    /**
+     * Builds the report over the months {@code fromMonth} to {@code toMonth} inclusive.
+     *
+     * @param heldByMonth      month to the keys of the sessions held
+     * @param presentByStudent uid to month to the keys of the sessions attended
+     * @param roster           uid to name of every student of the section, or null to report
+     *                         only students who attended at least once
+     */
+    @NonNull
+    public static SectionReport build(@NonNull String title,
+                                      @NonNull Map<String, ? extends Collection<String>> heldByMonth,
+                                      @NonNull Map<String, ? extends Map<String, ? extends Collection<String>>> presentByStudent,
+                                      @Nullable Map<String, String> roster,
+                                      @NonNull String fromMonth, @NonNull String toMonth) {
+        ArrayList<String> held = new ArrayList<>();
+        for (Map.Entry<String, ? extends Collection<String>> month : heldByMonth.entrySet()) {
+            if (inRange(month.getKey(), fromMonth, toMonth)) held.addAll(month.getValue());
+        }
+        Collections.sort(held, SectionReport::compareKeys);
+
+        LinkedHashMap<String, String> students = new LinkedHashMap<>();
+        if (roster != null) students.putAll(roster);
+        for (String uid : presentByStudent.keySet()) {
+            if (!students.containsKey(uid)) students.put(uid, uid);
+        }
+
+        ArrayList<StudentRow> rows = new ArrayList<>(students.size());
+        HashSet<String> attended = new HashSet<>();
+        for (Map.Entry<String, String> student : students.entrySet()) {
+            attended.clear();
+            Map<String, ? extends Collection<String>> months = presentByStudent.get(student.getKey());
+            if (months != null) {
+                for (Map.Entry<String, ? extends Collection<String>> month : months.entrySet()) {
+                    if (inRange(month.getKey(), fromMonth, toMonth)) attended.addAll(month.getValue());
+                }
+            }
+            int count = 0, streak = 0, longest = 0;
+            for (String key : held) {
+                if (attended.contains(key)) {
+                    count++;
+                    longest = Math.max(longest, ++streak);
+                } else {
+                    streak = 0;
+                }
+            }
+            rows.add(new StudentRow(student.getKey(), student.getValue(), count, held.size(), streak, longest));
+        }
+        // Lowest attendance first, so defaulters lead the list
+        Collections.sort(rows, (a, b) -> {
+            int byPercent = Double.compare(a.getPercent(), b.getPercent());
+            return byPercent != 0 ? byPercent : a.name.compareToIgnoreCase(b.name);
+        });
+        return new SectionReport(title, held.size(), rows);
+    }
+
+    @NonNull
+    public String getTitle() {
+        return title;
+    }
+
+    /** Sessions held in the report period. */
+    public int getHeld() {
+        return held;
+    }
+
+    /** Every student, lowest attendance first. */
+    @NonNull
+    public List<StudentRow> getRows() {
+        return rows;
+    }
+
+    @NonNull
+    public List<StudentRow> getDefaulters() {
+        ArrayList<StudentRow> defaulters = new ArrayList<>();
+        for (StudentRow row : rows) {
+            if (row.isDefaulter()) defaulters.add(row);
+        }
+        return defaulters;
+    }
+
+    /** Mean attendance percentage over all students; 100 when nothing was held. */
+    public double getAveragePercent() {
+        if (rows.isEmpty()) return 100.0;
+        double sum = 0;
+        for (StudentRow row : rows) {
+            sum += row.getPercent();
+        }
+        return sum / rows.size();
+    }
+
+    private static boolean inRange(String month, String from, String to) {
+        return month.compareTo(from) >= 0 && month.compareTo(to) <= 0;
+    }
+
+    // Base-36 keys of equal length sort as strings; shorter keys are older
+    private static int compareKeys(String a, String b) {
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+}
@@ -0,0 +1,17 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Row-at-a-time spreadsheet output. Rows go straight to the underlying stream, so a sheet of
+ * any length is written in constant memory. {@link #close} finishes the file and closes the
+ * stream.
+ */
+public interface SheetWriter extends Closeable {
+
+    /** Writes one row. Numbers are written as numbers, anything else as text; nulls as empty cells. */
+    void writeRow(@NonNull Object... cells) throws IOException;
+}
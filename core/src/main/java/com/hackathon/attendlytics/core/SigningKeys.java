@@ -0,0 +1,61 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * EC P-256 keys for attendance codes and passes, and their stored form.
+ *
+ * Only public keys are ever written to Firestore, as base64url X.509 SubjectPublicKeyInfo;
+ * private keys stay on the device that signs.
+ */
+public final class SigningKeys {
+
+    public static final String KEY_ALGORITHM = "EC";
+    public static final String CURVE = "secp256r1";
+    public static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private SigningKeys() {
+    }
+
+    /** New in-memory key pair, for keys that never outlive the process. */
+    @NonNull
+    public static KeyPair newKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+            generator.initialize(new ECGenParameterSpec(CURVE));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(CURVE + " unavailable", e);
+        }
+    }
+
+    @NonNull
+    public static String encode(@NonNull PublicKey key) {
+        return ENCODER.encodeToString(key.getEncoded());
+    }
+
+    /** Returns null if {@code encoded} is not a base64url EC public key. */
+    @Nullable
+    public static PublicKey decode(@Nullable String encoded) {
+        if (encoded == null || encoded.isEmpty()) return null;
+        try {
+            return KeyFactory.getInstance(KEY_ALGORITHM)
+                    .generatePublic(new X509EncodedKeySpec(DECODER.decode(encoded)));
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+}
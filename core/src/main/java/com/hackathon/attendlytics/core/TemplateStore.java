@@ -0,0 +1,294 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Roster and face templates of one section in a single memory-mapped file.
+ *
+ * The file is a fixed header followed by fixed-width records, one per student: uid, display
+ * name, last update time, and the template if the student has enrolled. Records are updated
+ * in place, so applying a sync delta writes only the students that changed, and reading a
+ * template copies it straight out of the mapping into the caller's buffer; templates are
+ * never all held on the heap at once. Only the uid-to-record map lives in memory.
+ *
+ * The header carries two caller-defined watermarks, the newest profile and the newest face
+ * update already applied, so the next sync can ask only for later changes. Not thread-safe.
+ */
+public final class TemplateStore implements Closeable {
+
+    private static final int MAGIC = 0x53504D54; // "TMPS", little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    // Firebase uids are 28 characters; names are cut at a byte boundary that stays valid UTF-8
+    static final int UID_BYTES = 64;
+    static final int NAME_BYTES = 96;
+    private static final int FLAG_TEMPLATE = 1;
+
+    private final File file;
+    private final int dimension;
+    private final int recordBytes;
+    private RandomAccessFile raf;
+    private MappedByteBuffer map;
+    private int count;
+    private int capacity;
+    private long profileWatermark;
+    private long faceWatermark;
+    private final HashMap<String, Integer> recordByUid = new HashMap<>();
+    private final byte[] scratch = new byte[Math.max(UID_BYTES, NAME_BYTES)];
+
+    private TemplateStore(File file, int dimension) {
+        this.file = file;
+        this.dimension = dimension;
+        this.recordBytes = 2 + UID_BYTES + 2 + NAME_BYTES + Long.BYTES + Integer.BYTES + dimension * Float.BYTES;
+    }
+
+    /**
+     * Opens the store at {@code file}, creating it if needed. A file written for another
+     * template dimension, or one that cannot be read, is discarded and starts empty.
+     */
+    @NonNull
+    public static TemplateStore open(@NonNull File file, int dimension) throws IOException {
+        TemplateStore store = new TemplateStore(file, dimension);
+        store.raf = new RandomAccessFile(file, "rw");
+        try {
+            if (!store.readHeader()) {
+                store.reset(16);
+            }
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt template store " + file, e);
+        }
+        return store;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /** Number of students in the store. */
+    public int size() {
+        return count;
+    }
+
+    public long getProfileWatermark() {
+        return profileWatermark;
+    }
+
+    public long getFaceWatermark() {
+        return faceWatermark;
+    }
+
+    /** Records the newest changes applied so far; written to the header immediately. */
+    public void setWatermarks(long profileWatermark, long faceWatermark) {
+        this.profileWatermark = profileWatermark;
+        this.faceWatermark = faceWatermark;
+        map.putLong(16, profileWatermark);
+        map.putLong(24, faceWatermark);
+    }
+
+    /** Record index of {@code uid}, or -1 if it is not in the store. */
+    public int indexOf(@NonNull String uid) {
+        Integer index = recordByUid.get(uid);
+        return index != null ? index : -1;
+    }
+
+    @NonNull
+    public String uidAt(int index) {
+        return readString(offsetOf(index), UID_BYTES);
+    }
+
+    @NonNull
+    public String nameAt(int index) {
+        return readString(offsetOf(index) + 2 + UID_BYTES, NAME_BYTES);
+    }
+
+    public long updatedAt(int index) {
+        return map.getLong(offsetOf(index) + 4 + UID_BYTES + NAME_BYTES);
+    }
+
+    public boolean hasTemplate(int index) {
+        return (map.getInt(offsetOf(index) + 4 + UID_BYTES + NAME_BYTES + Long.BYTES) & FLAG_TEMPLATE) != 0;
+    }
+
+    /** Copies the template of record {@code index} into {@code out}. Returns false if it has none. */
+    public boolean readTemplate(int index, @NonNull float[] out) {
+        if (!hasTemplate(index)) return false;
+        int offset = templateOffset(index);
+        for (int i = 0; i < dimension; i++) {
+            out[i] = map.getFloat(offset + i * Float.BYTES);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts or overwrites a student. A null {@code name} keeps the stored one; a null
+     * {@code template} keeps the stored template, so profile and face changes can be applied
+     * separately. Returns the record index.
+     */
+    public int put(@NonNull String uid, @Nullable String name, long updatedAt, @Nullable float[] template)
+            throws IOException {
+        if (template != null && template.length != dimension) {
+            throw new IllegalArgumentException("Expected " + dimension + " values, got " + template.length);
+        }
+        if (uid.getBytes(StandardCharsets.UTF_8).length > UID_BYTES) {
+            throw new IllegalArgumentException("uid longer than " + UID_BYTES + " bytes: " + uid);
+        }
+        int index = indexOf(uid);
+        if (index < 0) {
+            if (count == capacity) grow(capacity * 2);
+            index = count++;
+            int offset = offsetOf(index);
+            for (int i = 0; i < recordBytes; i++) {
+                map.put(offset + i, (byte) 0);
+            }
+            writeString(offset, uid, UID_BYTES);
+            recordByUid.put(uid, index);
+            map.putInt(12, count);
+        }
+        int offset = offsetOf(index);
+        if (name != null) writeString(offset + 2 + UID_BYTES, name, NAME_BYTES);
+        map.putLong(offset + 4 + UID_BYTES + NAME_BYTES, Math.max(updatedAt, updatedAt(index)));
+        if (template != null) {
+            int values = templateOffset(index);
+            for (int i = 0; i < dimension; i++) {
+                map.putFloat(values + i * Float.BYTES, template[i]);
+            }
+            map.putInt(offset + 4 + UID_BYTES + NAME_BYTES + Long.BYTES, FLAG_TEMPLATE);
+        }
+        return index;
+    }
+
+    /** Drops the template of record {@code index}, for a student whose face enrollment was withdrawn. */
+    public void clearTemplate(int index) {
+        map.putInt(offsetOf(index) + 4 + UID_BYTES + NAME_BYTES + Long.BYTES, 0);
+    }
+
+    /**
+     * Removes a student. The last record moves into the freed slot, so the record index of one
+     * other student may change. Returns false if {@code uid} is not in the store.
+     */
+    public boolean remove(@NonNull String uid) {
+        Integer index = recordByUid.remove(uid);
+        if (index == null) return false;
+        int last = count - 1;
+        if (index != last) {
+            int from = offsetOf(last);
+            int to = offsetOf(index);
+            for (int i = 0; i < recordBytes; i++) {
+                map.put(to + i, map.get(from + i));
+            }
+            recordByUid.put(uidAt(index), index);
+        }
+        count = last;
+        map.putInt(12, count);
+        return true;
+    }
+
+    /** Flushes changed pages to disk. */
+    public void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (map != null) map.force();
+        map = null;
+        if (raf != null) raf.close();
+        raf = null;
+    }
+
+    private boolean readHeader() throws IOException {
+        if (raf.length() < HEADER_BYTES) return false;
+        MappedByteBuffer header = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION || header.getInt(8) != dimension) {
+            return false;
+        }
+        int storedCount = header.getInt(12);
+        int storedCapacity = header.getInt(32);
+        if (storedCount < 0 || storedCapacity < storedCount
+                || raf.length() < HEADER_BYTES + (long) storedCapacity * recordBytes) {
+            return false;
+        }
+        map(storedCapacity);
+        count = storedCount;
+        profileWatermark = header.getLong(16);
+        faceWatermark = header.getLong(24);
+        for (int i = 0; i < count; i++) {
+            recordByUid.put(uidAt(i), i);
+        }
+        return true;
+    }
+
+    private void reset(int initialCapacity) throws IOException {
+        raf.setLength(0);
+        recordByUid.clear();
+        count = 0;
+        profileWatermark = 0;
+        faceWatermark = 0;
+        map(initialCapacity);
+        map.putInt(0, MAGIC);
+        map.putInt(4, FORMAT_VERSION);
+        map.putInt(8, dimension);
+        map.putInt(12, 0);
+        map.putLong(16, 0);
+        map.putLong(24, 0);
+    }
+
+    private void grow(int newCapacity) throws IOException {
+        map.force();
+        map(newCapacity);
+    }
+
+    // Maps header plus newCapacity records, extending the file if needed
+    private void map(int newCapacity) throws IOException {
+        long size = HEADER_BYTES + (long) newCapacity * recordBytes;
+        if (size > Integer.MAX_VALUE) throw new IOException("Template store too large");
+        if (raf.length() < size) raf.setLength(size);
+        map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        capacity = newCapacity;
+        map.putInt(32, capacity);
+    }
+
+    private int offsetOf(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("record " + index);
+        return HEADER_BYTES + index * recordBytes;
+    }
+
+    private int templateOffset(int index) {
+        return offsetOf(index) + 4 + UID_BYTES + NAME_BYTES + Long.BYTES + Integer.BYTES;
+    }
+
+    private String readString(int offset, int maxBytes) {
+        int length = Math.min(map.getShort(offset) & 0xFFFF, maxBytes);
+        for (int i = 0; i < length; i++) {
+            scratch[i] = map.get(offset + 2 + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void writeString(int offset, String value, int maxBytes) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, maxBytes);
+        // Never cut a multi-byte character in half
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        map.putShort(offset, (short) length);
+        for (int i = 0; i < length; i++) {
+            map.put(offset + 2 + i, bytes[i]);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.hackathon.attendlytics.core;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * {@link SheetWriter} for a single-sheet Excel workbook (Office Open XML, {@code .xlsx}).
+ *
+ * The fixed package parts are written first and the worksheet last, so its rows can be
+ * streamed into the zip entry as they arrive. Text goes in as inline strings rather than a
+ * shared string table, which would have to be held in memory until the end; the file is a
+ * little larger and Excel and LibreOffice open it the same.
+ */
+public final class XlsxWriter implements SheetWriter {
+
+    private static final String CONTENT_TYPES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+            + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+            + "</Types>";
+    private static final String ROOT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+    private static final String WORKBOOK_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+            + "</Relationships>";
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private int rowNumber;
+    private boolean closed;
+
+    public XlsxWriter(@NonNull OutputStream stream, @NonNull String sheetName) throws IOException {
+        zip = new ZipOutputStream(stream);
+        out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        writeEntry("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                + "<sheets><sheet name=\"" + escape(sheetName(sheetName)) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+                + "</workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    @Override
+    public void writeRow(@NonNull Object... cells) throws IOException {
+        rowNumber++;
+        out.write("<row r=\"");
+        out.write(Integer.toString(rowNumber));
+        out.write("\">");
+        for (int i = 0; i < cells.length; i++) {
+            Object cell = cells[i];
+            if (cell == null) continue;
+            out.write("<c r=\"");
+            out.write(columnName(i));
+            out.write(Integer.toString(rowNumber));
+            if (cell instanceof Number) {
+                out.write("\"><v>");
+                out.write(cell.toString());
+                out.write("</v></c>");
+            } else {
+                out.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                out.write(escape(cell.toString()));
+                out.write("</t></is></c>");
+            }
+        }
+        out.write("</row>");
+    }
+
+    /** Rows written so far. */
+    public int getRowCount() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+        zip.close();
+    }
+
+    /** Spreadsheet column letters: A to Z, then AA, AB, ... */
+    @NonNull
+    static String columnName(int index) {
+        StringBuilder name = new StringBuilder(2);
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    // Excel limits sheet names to 31 characters without []:*?/\
+    private static String sheetName(String name) {
+        String cleaned = name.replaceAll("[\\[\\]:*?/\\\\]", " ").trim();
+        if (cleaned.isEmpty()) cleaned = "Sheet1";
+        return cleaned.length() > 31 ? cleaned.substring(0, 31) : cleaned;
+    }
+
+    // Escapes markup and drops control characters XML 1.0 cannot carry
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '"') {
+                replacement = "&quot;";
+            } else if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                replacement = "";
+            } else {
+                if (escaped != null) escaped.append(c);
+                continue;
+            }
+            if (escaped == null) {
+                escaped = new StringBuilder(value.length() + 16);
+                escaped.append(value, 0, i);
+            }
+            escaped.append(replacement);
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+}
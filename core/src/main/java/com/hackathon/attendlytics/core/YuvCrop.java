@@ -0,0 +1,104 @@
+package com.hackathon.attendlytics.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Crops and resizes a region straight out of YUV_420_888 planes into a caller-owned buffer.
+ *
+ * Works on the raw plane {@link ByteBuffer}s with their row and pixel strides, so it handles
+ * both planar (I420) and semi-planar (NV21/NV12) layouts without first building a Bitmap.
+ * The crop rectangle is given in upright coordinates (after applying the frame's rotation,
+ * which is what ML Kit reports) and the rotation is undone per sample, so the output is
+ * upright. Sampling is nearest-neighbour and every read and write uses absolute indices:
+ * nothing is allocated and the buffers' positions are left untouched.
+ */
+public final class YuvCrop {
+
+    private YuvCrop() {
+    }
+
+    /**
+     * Writes {@code outWidth * outHeight} RGB pixels as three floats each to {@code out},
+     * starting at index 0, with every channel mapped to {@code (value - mean) / std}.
+     *
+     * @param frameWidth      sensor-oriented width of the Y plane
+     * @param frameHeight     sensor-oriented height of the Y plane
+     * @param rotationDegrees clockwise rotation that makes the frame upright (0, 90, 180, 270)
+     * @param left            upright crop rectangle, clamped by the caller to the upright frame
+     */
+    public static void cropToFloatRgb(ByteBuffer yPlane, int yRowStride, int yPixelStride,
+                                      ByteBuffer uPlane, ByteBuffer vPlane,
+                                      int uvRowStride, int uvPixelStride,
+                                      int frameWidth, int frameHeight, int rotationDegrees,
+                                      int left, int top, int right, int bottom,
+                                      int outWidth, int outHeight,
+                                      float mean, float std, ByteBuffer out) {
+        if (right <= left || bottom <= top) {
+            throw new IllegalArgumentException("Empty crop rectangle");
+        }
+        if (out.capacity() < outWidth * outHeight * 3 * Float.BYTES) {
+            throw new IllegalArgumentException("Output buffer too small for " + outWidth + "x" + outHeight);
+        }
+
+        // Upright (u, v) -> sensor (x, y) is affine with integer coefficients:
+        // x = ax * u + bx * v + cx, y = ay * u + by * v + cy
+        int ax, bx, cx, ay, by, cy;
+        switch (rotationDegrees) {
+            case 90:
+                ax = 0; bx = 1; cx = 0;
+                ay = -1; by = 0; cy = frameHeight - 1;
+                break;
+            case 180:
+                ax = -1; bx = 0; cx = frameWidth - 1;
+                ay = 0; by = -1; cy = frameHeight - 1;
+                break;
+            case 270:
+                ax = 0; bx = -1; cx = frameWidth - 1;
+                ay = 1; by = 0; cy = 0;
+                break;
+            default:
+                ax = 1; bx = 0; cx = 0;
+                ay = 0; by = 1; cy = 0;
+                break;
+        }
+
+        float stepU = (right - left) / (float) outWidth;
+        float stepV = (bottom - top) / (float) outHeight;
+        float invStd = 1f / std;
+        int maxX = frameWidth - 1;
+        int maxY = frameHeight - 1;
+        int index = 0;
+
+        for (int oy = 0; oy < outHeight; oy++) {
+            int v = top + (int) ((oy + 0.5f) * stepV);
+            for (int ox = 0; ox < outWidth; ox++) {
+                int u = left + (int) ((ox + 0.5f) * stepU);
+                int x = clamp(ax * u + bx * v + cx, maxX);
+                int y = clamp(ay * u + by * v + cy, maxY);
+
+                int luma = yPlane.get(y * yRowStride + x * yPixelStride) & 0xFF;
+                int uvIndex = (y >> 1) * uvRowStride + (x >> 1) * uvPixelStride;
+                int cb = (uPlane.get(uvIndex) & 0xFF) - 128;
+                int cr = (vPlane.get(uvIndex) & 0xFF) - 128;
+
+                // BT.601 full-range, which is what camera YUV_420_888 frames use
+                float r = luma + 1.402f * cr;
+                float g = luma - 0.344136f * cb - 0.714136f * cr;
+                float b = luma + 1.772f * cb;
+
+                out.putFloat(index, (clamp255(r) - mean) * invStd);
+                out.putFloat(index + 4, (clamp255(g) - mean) * invStd);
+                out.putFloat(index + 8, (clamp255(b) - mean) * invStd);
+                index += 12;
+            }
+        }
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : (value > max ? max : value);
+    }
+
+    private static float clamp255(float value) {
+        return value < 0f ? 0f : (value > 255f ? 255f : value);
+    }
+}
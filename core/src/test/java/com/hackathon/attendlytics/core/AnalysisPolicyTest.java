@@ -0,0 +1,97 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Frame pacing and resolution decisions of {@link AnalysisPolicy}. */
+public class AnalysisPolicyTest {
+
+    private static final long MS = 1_000_000L;
+    // Nonzero, as a real monotonic clock is
+    private static final long T0 = 5_000 * MS;
+
+    @Test
+    public void pacesToTheTargetRate() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        assertTrue(policy.shouldAnalyze(T0));
+        assertFalse(policy.shouldAnalyze(T0 + 99 * MS));
+        assertTrue(policy.shouldAnalyze(T0 + 100 * MS));
+        assertEquals(1, policy.getSkippedFrames());
+    }
+
+    @Test
+    public void thermalLevelsSlowAnalysisDown() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        policy.onThermalStatus(AnalysisPolicy.THERMAL_LIGHT);
+        assertEquals(100 * MS, policy.minIntervalNanos());
+        policy.onThermalStatus(AnalysisPolicy.THERMAL_MODERATE);
+        assertEquals(200 * MS, policy.minIntervalNanos());
+        policy.onThermalStatus(AnalysisPolicy.THERMAL_SEVERE);
+        assertEquals(400 * MS, policy.minIntervalNanos());
+
+        assertTrue(policy.shouldAnalyze(T0));
+        assertFalse(policy.shouldAnalyze(T0 + 399 * MS));
+        assertTrue(policy.shouldAnalyze(T0 + 400 * MS));
+    }
+
+    @Test
+    public void onlySevereHeatHalvesTheResolution() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        assertFalse(policy.onThermalStatus(AnalysisPolicy.THERMAL_MODERATE));
+        assertEquals(640, policy.getTargetWidth());
+        assertEquals(480, policy.getTargetHeight());
+
+        assertTrue(policy.onThermalStatus(AnalysisPolicy.THERMAL_SEVERE));
+        assertEquals(320, policy.getTargetWidth());
+        assertEquals(240, policy.getTargetHeight());
+
+        // Critical and above are treated as severe: no rebind needed
+        assertFalse(policy.onThermalStatus(AnalysisPolicy.THERMAL_SEVERE + 2));
+        assertEquals(AnalysisPolicy.THERMAL_SEVERE, policy.getThermalLevel());
+
+        assertTrue(policy.onThermalStatus(AnalysisPolicy.THERMAL_LIGHT));
+        assertEquals(640, policy.getTargetWidth());
+    }
+
+    @Test
+    public void slowDetectorSpacesFramesOut() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        // 50 ms at 60% duty is under the 100 ms frame interval: no change
+        policy.recordDetectorLatency(50 * MS);
+        assertEquals(100 * MS, policy.minIntervalNanos());
+
+        AnalysisPolicy slow = new AnalysisPolicy(640, 480, 10);
+        slow.recordDetectorLatency(90 * MS);
+        assertEquals(150 * MS, slow.minIntervalNanos(), MS / 1000);
+        assertTrue(slow.shouldAnalyze(T0));
+        assertFalse(slow.shouldAnalyze(T0 + 149 * MS));
+        assertTrue(slow.shouldAnalyze(T0 + 150 * MS));
+    }
+
+    @Test
+    public void latencyIsAMovingAverage() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        policy.recordDetectorLatency(90 * MS);
+        // One outlier moves the average a fifth of the way: 90 + 0.2 * (190 - 90) = 110 ms
+        policy.recordDetectorLatency(190 * MS);
+        assertEquals(110 * MS / 0.6, policy.minIntervalNanos(), MS / 100);
+        // Nonsense readings are ignored
+        policy.recordDetectorLatency(0);
+        policy.recordDetectorLatency(-5 * MS);
+        assertEquals(110 * MS / 0.6, policy.minIntervalNanos(), MS / 100);
+    }
+
+    @Test
+    public void heatAndLatencyTakeTheLongerInterval() {
+        AnalysisPolicy policy = new AnalysisPolicy(640, 480, 10);
+        policy.recordDetectorLatency(90 * MS);
+        policy.onThermalStatus(AnalysisPolicy.THERMAL_MODERATE);
+        assertEquals(200 * MS, policy.minIntervalNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroFpsIsRejected() {
+        new AnalysisPolicy(640, 480, 0);
+    }
+}
@@ -0,0 +1,73 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Queue line and Firestore forms of {@link AttendanceEvent}. */
+public class AttendanceEventTest {
+
+    @Test
+    public void eventsRoundTripThroughQueueLines() {
+        Random random = new Random(7);
+        String alphabet = "ab\t\n\\|xyz ";
+        for (int trial = 0; trial < 200; trial++) {
+            AttendanceEvent event = new AttendanceEvent("s" + trial, randomText(random, alphabet),
+                    randomText(random, alphabet), "CSE", "3", "A", AttendanceEvent.METHOD_QR,
+                    random.nextLong() & Long.MAX_VALUE, random.nextBoolean() ? randomText(random, alphabet) : null);
+            AttendanceEvent read = AttendanceEvent.fromLine(event.toLine());
+            assertNotNull(read);
+            assertEquals(event.eventId, read.eventId);
+            assertEquals(event.studentUid, read.studentUid);
+            assertEquals(event.subject, read.subject);
+            assertEquals(event.timestampMillis, read.timestampMillis);
+            assertEquals(event.token, read.token);
+        }
+        assertNull(AttendanceEvent.fromLine("truncated\tline"));
+    }
+
+    @Test
+    public void queueLinesWithoutATokenStillParse() {
+        AttendanceEvent read = AttendanceEvent.fromLine("s1\tu1\tCS101\tCSE\t3\tA\tqr\t1700000000000\t9");
+        assertNotNull(read);
+        assertEquals("u1", read.studentUid);
+        assertNull(read.token);
+    }
+
+    @Test
+    public void firestoreFormKeepsEveryField() {
+        AttendanceEvent event = new AttendanceEvent("s1", "u1", "CS101", "CSE", "3", "A",
+                AttendanceEvent.METHOD_FACE_QR, 1_700_000_000_000L, "ATQ2|s1|1|sig");
+        Map<String, Object> data = event.toFirestore();
+        assertEquals("s1_u1", data.get("eventId"));
+        assertEquals("s1", data.get("sessionId"));
+        assertEquals("u1", data.get("studentUid"));
+        assertEquals("CS101", data.get("subject"));
+        assertEquals("CSE", data.get("department"));
+        assertEquals("3", data.get("year"));
+        assertEquals("A", data.get("section"));
+        assertEquals(AttendanceEvent.METHOD_FACE_QR, data.get("method"));
+        assertEquals(1_700_000_000_000L, data.get("timestamp"));
+        assertEquals(event.getDate(), data.get("date"));
+        assertEquals("ATQ2|s1|1|sig", data.get("token"));
+    }
+
+    @Test
+    public void firestoreFormOmitsAMissingToken() {
+        AttendanceEvent event = new AttendanceEvent("s1", "u1", "CS101", "CSE", "3", "A",
+                AttendanceEvent.METHOD_FACE, 1_700_000_000_000L);
+        assertFalse(event.toFirestore().containsKey("token"));
+    }
+
+    private static String randomText(Random random, String alphabet) {
+        StringBuilder text = new StringBuilder();
+        int length = 1 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
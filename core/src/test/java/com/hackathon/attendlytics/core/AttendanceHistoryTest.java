@@ -0,0 +1,72 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/** Per-subject counts and the per-day calendar of a student summary. */
+public class AttendanceHistoryTest {
+
+    @Test
+    public void countsPerSubject() {
+        Map<String, List<String>> held = new HashMap<>();
+        held.put("Maths", Arrays.asList("a", "b", "c", "d"));
+        held.put("Physics", Arrays.asList("e", "f"));
+        Map<String, List<String>> attended = new HashMap<>();
+        attended.put("Maths", Arrays.asList("a", "c", "d", "c"));
+        // Joined after session g was started, but attended it
+        attended.put("Physics", Collections.singletonList("g"));
+
+        AttendanceHistory history = AttendanceHistory.build("202507", held, attended, Arrays.asList(0L, 3L));
+        assertEquals(2, history.getSubjects().size());
+        AttendanceHistory.SubjectLine maths = history.getSubjects().get(0);
+        assertEquals("Maths", maths.subject);
+        assertEquals(3, maths.attended);
+        assertEquals(4, maths.held);
+        AttendanceHistory.SubjectLine physics = history.getSubjects().get(1);
+        assertEquals(1, physics.attended);
+        assertEquals(3, physics.held);
+        assertEquals(4 * 100.0 / 7, history.getPercent(), 1e-9);
+        assertEquals(2, history.getDaysPresent().cardinality());
+    }
+
+    @Test
+    public void daysCountFromTheSemesterStart() {
+        assertEquals(0, AttendanceHistory.dayOfSemester(millis(2025, Calendar.JANUARY, 1)));
+        assertEquals(0, AttendanceHistory.dayOfSemester(millis(2025, Calendar.JULY, 1)));
+        assertEquals(31, AttendanceHistory.dayOfSemester(millis(2025, Calendar.AUGUST, 1)));
+        assertEquals(181, AttendanceHistory.dayOfSemester(millis(2024, Calendar.JUNE, 30)));
+    }
+
+    @Test
+    public void monthGridMarksPresentDays() {
+        long day = millis(2025, Calendar.AUGUST, 2);
+        AttendanceHistory history = AttendanceHistory.build("202507", Collections.<String, List<String>>emptyMap(),
+                Collections.<String, List<String>>emptyMap(),
+                Arrays.asList(0, AttendanceHistory.dayOfSemester(day)));
+        List<String> grid = history.monthGrid(day);
+        assertEquals(2, grid.size());
+        assertTrue(grid.get(0).endsWith("#" + repeat('.', 30)));
+        assertTrue(grid.get(1).endsWith(".#" + repeat('.', 29)));
+    }
+
+    private static long millis(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 10, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < n; i++) s.append(c);
+        return s.toString();
+    }
+}
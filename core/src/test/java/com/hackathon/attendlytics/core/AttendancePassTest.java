@@ -0,0 +1,49 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+
+import static org.junit.Assert.*;
+
+/** Student passes: only the student's own key produces a pass the kiosk accepts. */
+public class AttendancePassTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void passesNameTheStudentAndSession() {
+        KeyPair student = SigningKeys.newKeyPair();
+        AttendancePass passes = new AttendancePass();
+        String pass = passes.issue(student.getPrivate(), "s1", "student-7", NOW);
+        assertEquals("student-7", AttendancePass.studentUidOf(pass));
+        assertEquals(AttendanceToken.VALID, passes.verify(pass, "s1", student.getPublic(), NOW));
+        assertEquals(AttendanceToken.WRONG_SESSION, passes.verify(pass, "s2", student.getPublic(), NOW));
+        long late = NOW + (AttendanceToken.TOLERANCE_SLOTS + 2) * AttendanceToken.SLOT_MILLIS;
+        assertEquals(AttendanceToken.EXPIRED, passes.verify(pass, "s1", student.getPublic(), late));
+    }
+
+    @Test
+    public void passesForAnotherStudentAreRejected() {
+        KeyPair victim = SigningKeys.newKeyPair();
+        KeyPair forger = SigningKeys.newKeyPair();
+        AttendancePass passes = new AttendancePass();
+        // A classmate signs a pass naming the victim with their own key
+        String forged = passes.issue(forger.getPrivate(), "s1", "victim", NOW);
+        assertEquals(AttendanceToken.BAD_SIGNATURE, passes.verify(forged, "s1", victim.getPublic(), NOW));
+
+        // Or re-labels their own genuine pass
+        String own = passes.issue(forger.getPrivate(), "s1", "forger", NOW);
+        String relabeled = own.replace("|forger|", "|victim|");
+        assertEquals(AttendanceToken.BAD_SIGNATURE, passes.verify(relabeled, "s1", victim.getPublic(), NOW));
+        assertEquals(AttendanceToken.MALFORMED, passes.verify("ATP2|s1|victim|x", "s1", victim.getPublic(), NOW));
+    }
+
+    @Test
+    public void publicKeysSurviveEncoding() {
+        KeyPair keys = SigningKeys.newKeyPair();
+        assertEquals(keys.getPublic(), SigningKeys.decode(SigningKeys.encode(keys.getPublic())));
+        assertNull(SigningKeys.decode("%%%"));
+        assertNull(SigningKeys.decode(null));
+    }
+}
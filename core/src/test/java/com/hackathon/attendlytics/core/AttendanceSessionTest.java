@@ -0,0 +1,111 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Roster building, face-to-roster mapping and presence of {@link AttendanceSession}. */
+public class AttendanceSessionTest {
+
+    private static final int DIMENSION = EmbeddingCodec.CURRENT_DIMENSION;
+
+    private static AttendanceSession newSession(int expectedRosterSize) {
+        return new AttendanceSession("1700000000000_t1", "t1", "CS101", "CSE", "3", "A",
+                1_700_000_000_000L, expectedRosterSize);
+    }
+
+    @Test
+    public void studentsAreAddedOnce() {
+        AttendanceSession session = newSession(4);
+        assertEquals(0, session.addStudent("a", "Asha", null));
+        assertEquals(1, session.addStudent("b", null, null));
+        assertEquals(0, session.addStudent("a", "Asha again", null));
+        assertEquals(2, session.getRosterSize());
+        assertEquals("Asha", session.nameAt(0));
+        assertEquals("b", session.nameAt(1));
+        assertEquals(1, session.indexOf("b"));
+        assertEquals(AttendanceSession.NOT_ON_ROSTER, session.indexOf("z"));
+    }
+
+    @Test
+    public void matcherRowsMapToRosterAsTheRosterGrows() {
+        Random random = new Random(11);
+        // Starts far too small, so roster and matcher arrays both have to grow
+        AttendanceSession session = newSession(1);
+        float[][] templates = new float[40][];
+        for (int i = 0; i < templates.length; i++) {
+            // Every third student has no face; their roster index is not a matcher row
+            templates[i] = i % 3 == 0 ? null : FaceMatcherTest.randomVector(random, DIMENSION);
+            assertEquals(i, session.addStudent("uid-" + i, "Student " + i, templates[i]));
+        }
+        assertEquals(40, session.getRosterSize());
+        assertEquals(26, session.getEnrolledCount());
+
+        float[] score = new float[1];
+        for (int i = 0; i < templates.length; i++) {
+            if (templates[i] == null) continue;
+            int row = session.getMatcher().bestMatch(templates[i], FaceMatcher.DEFAULT_THRESHOLD, score);
+            assertEquals(i, session.rosterIndexOfMatch(row));
+        }
+        assertEquals(AttendanceSession.NOT_ON_ROSTER, session.rosterIndexOfMatch(-1));
+        assertEquals(AttendanceSession.NOT_ON_ROSTER, session.rosterIndexOfMatch(26));
+    }
+
+    @Test
+    public void templatesOfAnotherDimensionAreNotMatched() {
+        AttendanceSession session = newSession(2);
+        assertEquals(0, session.addStudent("a", "Asha", new float[DIMENSION + 1]));
+        assertEquals(0, session.getEnrolledCount());
+        assertEquals(1, session.getRosterSize());
+    }
+
+    @Test
+    public void markPresentCountsOnce() {
+        AttendanceSession session = newSession(3);
+        session.addStudent("a", "Asha", null);
+        session.addStudent("b", "Bala", null);
+        session.addStudent("c", "Chitra", null);
+
+        assertTrue(session.markPresent(2));
+        assertFalse(session.markPresent(2));
+        assertFalse(session.markPresent(AttendanceSession.NOT_ON_ROSTER));
+        assertFalse(session.markPresent(3));
+        assertEquals(1, session.getPresentCount());
+        assertTrue(session.isPresent(2));
+        assertFalse(session.isPresent(0));
+        assertFalse(session.isPresent(AttendanceSession.NOT_ON_ROSTER));
+    }
+
+    @Test
+    public void snapshotIsACopy() {
+        AttendanceSession session = newSession(2);
+        session.addStudent("a", "Asha", null);
+        session.addStudent("b", "Bala", null);
+        session.markPresent(1);
+
+        BitSet snapshot = session.snapshotPresent();
+        session.markPresent(0);
+        assertEquals(1, snapshot.cardinality());
+        assertTrue(snapshot.get(1));
+        assertEquals(2, session.snapshotPresent().cardinality());
+    }
+
+    @Test
+    public void eventsCarryTheSession() {
+        AttendanceSession session = newSession(1);
+        int index = session.addStudent("a", "Asha", null);
+        AttendanceEvent event = session.newEvent(index, AttendanceEvent.METHOD_FACE, 1_700_000_100_000L);
+        assertEquals(AttendanceEvent.eventIdFor(session.getSessionId(), "a"), event.eventId);
+        assertEquals("CS101", event.subject);
+        assertEquals("A", event.section);
+        assertNull(event.token);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void uidOutsideTheRosterThrows() {
+        newSession(1).uidAt(0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Property tests for rotating session codes. */
+public class AttendanceTokenTest {
+
+    private static final int TRIALS = 300;
+
+    @Test
+    public void issuedTokensVerifyWithinTolerance() {
+        Random random = new Random(18);
+        KeyPair keys = SigningKeys.newKeyPair();
+        AttendanceToken token = new AttendanceToken(keys.getPrivate(), keys.getPublic());
+        // What a student's phone holds: the public key only
+        AttendanceToken student = new AttendanceToken(null, keys.getPublic());
+        for (int trial = 0; trial < TRIALS; trial++) {
+            String sessionId = "1700000000000-t" + random.nextInt(1000);
+            long issuedAt = 1_700_000_000_000L + (long) (random.nextDouble() * 1e9);
+            String payload = token.issue(sessionId, issuedAt);
+
+            assertEquals(sessionId, AttendanceToken.sessionIdOf(payload));
+            long delay = (long) (random.nextDouble() * AttendanceToken.SLOT_MILLIS
+                    * AttendanceToken.TOLERANCE_SLOTS);
+            assertEquals(AttendanceToken.VALID, token.verify(payload, sessionId, issuedAt + delay));
+            assertEquals(AttendanceToken.VALID, student.verify(payload, null, issuedAt + delay));
+            assertEquals(AttendanceToken.WRONG_SESSION, token.verify(payload, sessionId + "x", issuedAt));
+        }
+    }
+
+    @Test
+    public void oldTokensExpire() {
+        AttendanceToken token = newToken();
+        long issuedAt = 1_700_000_000_000L;
+        String payload = token.issue("s1", issuedAt);
+        long late = issuedAt + (AttendanceToken.TOLERANCE_SLOTS + 2) * AttendanceToken.SLOT_MILLIS;
+        assertEquals(AttendanceToken.EXPIRED, token.verify(payload, "s1", late));
+    }
+
+    @Test
+    public void tamperedOrForeignTokensAreRejected() {
+        Random random = new Random(5);
+        AttendanceToken token = newToken();
+        AttendanceToken other = newToken();
+        long now = 1_700_000_000_000L;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            String payload = token.issue("s1", now);
+            assertNotEquals(AttendanceToken.VALID, other.verify(payload, "s1", now));
+
+            // Flip one character after the session id; the last one may only carry padding bits
+            char[] chars = payload.toCharArray();
+            int start = AttendanceToken.PREFIX.length() + "|s1|".length();
+            int at = start + random.nextInt(chars.length - start - 1);
+            chars[at] = chars[at] == 'A' ? 'B' : 'A';
+            assertNotEquals(AttendanceToken.VALID, token.verify(new String(chars), "s1", now));
+        }
+        assertEquals(AttendanceToken.MALFORMED, token.verify("not a token", null, now));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void verifyOnlyTokensCannotIssue() {
+        new AttendanceToken(null, SigningKeys.newKeyPair().getPublic()).issue("s1", 1_700_000_000_000L);
+    }
+
+    private static AttendanceToken newToken() {
+        KeyPair keys = SigningKeys.newKeyPair();
+        return new AttendanceToken(keys.getPrivate(), keys.getPublic());
+    }
+}
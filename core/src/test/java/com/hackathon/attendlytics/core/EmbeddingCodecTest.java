@@ -0,0 +1,31 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Round-trip tests for the stored form of templates. */
+public class EmbeddingCodecTest {
+
+    @Test
+    public void templatesRoundTrip() {
+        Random random = new Random(18);
+        for (int trial = 0; trial < 200; trial++) {
+            int version = 1 + random.nextInt(3);
+            float[] values = FaceMatcherTest.randomVector(random, random.nextInt(200));
+            byte[] bytes = EmbeddingCodec.encode(version, values);
+            assertEquals(EmbeddingCodec.HEADER_BYTES + values.length * Float.BYTES, bytes.length);
+            assertEquals(version, EmbeddingCodec.version(bytes));
+            assertArrayEquals(values, EmbeddingCodec.decode(bytes), 0f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedTemplatesAreRejected() {
+        byte[] bytes = EmbeddingCodec.encode(EmbeddingCodec.CURRENT_VERSION, new float[EmbeddingCodec.CURRENT_DIMENSION]);
+        EmbeddingCodec.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Property tests: {@link FaceMatcher#search} agrees with brute-force cosine similarity. */
+public class FaceMatcherTest {
+
+    private static final int TRIALS = 200;
+
+    @Test
+    public void searchMatchesBruteForce() {
+        Random random = new Random(18);
+        for (int trial = 0; trial < TRIALS; trial++) {
+            int dimension = 1 + random.nextInt(40);
+            int size = 1 + random.nextInt(60);
+            FaceMatcher matcher = new FaceMatcher(dimension, 4);
+            float[][] templates = new float[size][];
+            for (int i = 0; i < size; i++) {
+                templates[i] = randomVector(random, dimension);
+                assertEquals(i, matcher.add("s" + i, templates[i]));
+            }
+            float[] probe = randomVector(random, dimension);
+            int k = 1 + random.nextInt(5);
+            int[] indices = new int[k];
+            float[] scores = new float[k];
+            int found = matcher.search(probe, k, indices, scores);
+
+            assertEquals(Math.min(k, size), found);
+            for (int n = 0; n < found; n++) {
+                float expected = FaceMatcher.cosineSimilarity(probe, templates[indices[n]]);
+                assertEquals(expected, scores[n], 1e-4f);
+                if (n > 0) assertTrue(scores[n - 1] >= scores[n]);
+            }
+            // Nothing left out scores better than the worst match returned
+            for (int i = 0; i < size; i++) {
+                if (contains(indices, found, i)) continue;
+                assertTrue(FaceMatcher.cosineSimilarity(probe, templates[i]) <= scores[found - 1] + 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void exactTemplateIsBestMatchAtAnyScale() {
+        Random random = new Random(7);
+        FaceMatcher matcher = new FaceMatcher(18, 8);
+        float[][] templates = new float[50][];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = randomVector(random, 18);
+            matcher.add("s" + i, templates[i]);
+        }
+        float[] score = new float[1];
+        for (int i = 0; i < templates.length; i++) {
+            float[] probe = templates[i].clone();
+            float scale = 0.1f + random.nextFloat() * 10f;
+            for (int j = 0; j < probe.length; j++) probe[j] *= scale;
+            assertEquals(i, matcher.bestMatch(probe, FaceMatcher.DEFAULT_THRESHOLD, score));
+            assertEquals(1f, score[0], 1e-4f);
+        }
+    }
+
+    @Test
+    public void zeroVectorsAreRejected() {
+        FaceMatcher matcher = new FaceMatcher(3, 1);
+        assertEquals(-1, matcher.add("zero", new float[3]));
+        assertEquals(0, matcher.size());
+        matcher.add("one", new float[]{1f, 0f, 0f});
+        assertEquals(0, matcher.search(new float[3], 1, new int[1], new float[1]));
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+}
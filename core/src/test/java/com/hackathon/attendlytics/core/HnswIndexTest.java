@@ -0,0 +1,164 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Recall of {@link HnswIndex} against exhaustive {@link FaceMatcher} search, and persistence. */
+public class HnswIndexTest {
+
+    private static final int K = 5;
+
+    @Test
+    public void recallAgainstBruteForce() {
+        Random random = new Random(19);
+        int dimension = 32;
+        int size = 3000;
+        HnswIndex index = new HnswIndex(dimension, size);
+        FaceMatcher exact = new FaceMatcher(dimension, size);
+        for (int i = 0; i < size; i++) {
+            float[] template = FaceMatcherTest.randomVector(random, dimension);
+            assertEquals(i, index.add("s" + i, template));
+            exact.add("s" + i, template);
+        }
+        double recall = recall(index, exact, random, 200);
+        assertTrue("recall@5 " + recall, recall >= 0.95);
+    }
+
+    @Test
+    public void replacedTemplatesAreNotReturned() {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(8, 4);
+        float[] old = FaceMatcherTest.randomVector(random, 8);
+        index.add("a", old);
+        for (int i = 0; i < 50; i++) {
+            index.add("s" + i, FaceMatcherTest.randomVector(random, 8));
+        }
+        float[] updated = FaceMatcherTest.randomVector(random, 8);
+        int row = index.add("a", updated);
+        assertEquals(51, index.liveSize());
+
+        float[] score = new float[1];
+        assertEquals(row, index.bestMatch(updated, 0.99f, score));
+        int[] rows = new int[K];
+        float[] scores = new float[K];
+        int found = index.search(old, K, rows, scores);
+        for (int i = 0; i < found; i++) {
+            assertNotEquals(0, rows[i]);
+        }
+    }
+
+    @Test
+    public void removedTemplatesAreNotReturned() throws IOException {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(8, 4);
+        float[] withdrawn = FaceMatcherTest.randomVector(random, 8);
+        index.add("a", withdrawn);
+        for (int i = 0; i < 50; i++) {
+            index.add("s" + i, FaceMatcherTest.randomVector(random, 8));
+        }
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertFalse(index.contains("a"));
+        assertEquals(50, index.liveSize());
+
+        File file = File.createTempFile("faces", ".hnsw");
+        try {
+            index.save(file);
+            HnswIndex loaded = HnswIndex.load(file);
+            assertFalse(loaded.contains("a"));
+            assertEquals(50, loaded.liveSize());
+            for (HnswIndex searched : new HnswIndex[] {index, loaded}) {
+                float[] score = new float[1];
+                assertNotEquals(0, searched.bestMatch(withdrawn, 0.99f, score));
+                int[] rows = new int[K];
+                float[] scores = new float[K];
+                int found = searched.search(withdrawn, K, rows, scores);
+                assertEquals(K, found);
+                for (int i = 0; i < found; i++) {
+                    assertNotEquals(0, rows[i]);
+                }
+            }
+            // The id can be enrolled again
+            assertTrue(loaded.add("a", withdrawn) >= 0);
+            assertTrue(loaded.contains("a"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void saveAndLoadPreserveResults() throws IOException {
+        Random random = new Random(5);
+        HnswIndex index = new HnswIndex(18, 16);
+        for (int i = 0; i < 500; i++) {
+            index.add("student-" + i, FaceMatcherTest.randomVector(random, 18));
+        }
+        index.add("student-7", FaceMatcherTest.randomVector(random, 18));
+        index.setWatermark(1_700_000_000_000L);
+
+        File file = File.createTempFile("faces", ".hnsw");
+        try {
+            index.save(file);
+            HnswIndex loaded = HnswIndex.load(file);
+            assertEquals(index.size(), loaded.size());
+            assertEquals(index.liveSize(), loaded.liveSize());
+            assertEquals(index.getWatermark(), loaded.getWatermark());
+
+            int[] expectedRows = new int[K], actualRows = new int[K];
+            float[] expectedScores = new float[K], actualScores = new float[K];
+            for (int q = 0; q < 50; q++) {
+                float[] probe = FaceMatcherTest.randomVector(random, 18);
+                int found = index.search(probe, K, expectedRows, expectedScores);
+                assertEquals(found, loaded.search(probe, K, actualRows, actualScores));
+                for (int i = 0; i < found; i++) {
+                    assertEquals(index.idAt(expectedRows[i]), loaded.idAt(actualRows[i]));
+                    assertEquals(expectedScores[i], actualScores[i], 0f);
+                }
+            }
+            // Still accepts inserts after loading
+            assertTrue(loaded.add("late", FaceMatcherTest.randomVector(random, 18)) >= 0);
+            assertTrue(loaded.contains("late"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignFilesAreRejected() throws IOException {
+        File file = File.createTempFile("faces", ".hnsw");
+        try {
+            Files.write(file.toPath(), new byte[64]);
+            HnswIndex.load(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /** Fraction of the exact top-k that the index also returns, over random probes. */
+    static double recall(HnswIndex index, FaceMatcher exact, Random random, int queries) {
+        int[] expected = new int[K], actual = new int[K];
+        float[] expectedScores = new float[K], actualScores = new float[K];
+        int hits = 0, total = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] probe = FaceMatcherTest.randomVector(random, exact.getDimension());
+            int wanted = exact.search(probe, K, expected, expectedScores);
+            int found = index.search(probe, K, actual, actualScores);
+            for (int i = 0; i < wanted; i++) {
+                for (int j = 0; j < found; j++) {
+                    if (exact.idAt(expected[i]).equals(index.idAt(actual[j]))) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+            total += wanted;
+        }
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Property tests: normalized geometry ignores position, distance and in-plane roll. */
+public class LandmarkNormalizerTest {
+
+    private static final int TRIALS = 500;
+    private static final int POINTS = GeometricEmbedding.LANDMARK_COUNT;
+
+    @Test
+    public void invariantToTranslationScaleAndRotation() {
+        Random random = new Random(18);
+        float[] expected = new float[2 * (POINTS - 2)];
+        float[] actual = new float[expected.length];
+        for (int trial = 0; trial < TRIALS; trial++) {
+            float[] face = randomFace(random);
+            assertTrue(LandmarkNormalizer.normalize(face, POINTS, expected, 0) > 0f);
+
+            double angle = (random.nextDouble() - 0.5) * Math.PI / 2;
+            float scale = 0.5f + random.nextFloat() * 3f;
+            float dx = random.nextFloat() * 400f, dy = random.nextFloat() * 400f;
+            float[] moved = transform(face, angle, scale, dx, dy);
+            assertTrue(LandmarkNormalizer.normalize(moved, POINTS, actual, 0) > 0f);
+            assertArrayEquals(expected, actual, 1e-3f);
+        }
+    }
+
+    @Test
+    public void missingEyesOrCloseEyesGiveZero() {
+        float[] out = new float[2 * (POINTS - 2)];
+        float[] face = randomFace(new Random(1));
+        face[0] = Float.NaN;
+        assertEquals(0f, LandmarkNormalizer.normalize(face, POINTS, out, 0), 0f);
+
+        face = randomFace(new Random(1));
+        face[2] = face[0] + LandmarkNormalizer.MIN_INTER_OCULAR_PX / 2;
+        face[3] = face[1];
+        assertEquals(0f, LandmarkNormalizer.normalize(face, POINTS, out, 0), 0f);
+    }
+
+    @Test
+    public void missingPointsComeOutAsZero() {
+        float[] face = randomFace(new Random(3));
+        face[6] = Float.NaN;
+        face[7] = Float.NaN;
+        float[] out = new float[2 * (POINTS - 2)];
+        LandmarkNormalizer.normalize(face, POINTS, out, 0);
+        assertEquals(0f, out[2], 0f);
+        assertEquals(0f, out[3], 0f);
+    }
+
+    @Test
+    public void geometricEmbeddingNeedsNoseAndMouth() {
+        float[] face = randomFace(new Random(5));
+        float[] out = new float[EmbeddingCodec.DIMENSION_V2];
+        assertTrue(GeometricEmbedding.compute(face, 120f, 150f, out));
+        face[10] = Float.NaN;
+        assertFalse(GeometricEmbedding.compute(face, 120f, 150f, out));
+    }
+
+    // Eyes roughly level and 40-100 px apart, the other points scattered around the face
+    private static float[] randomFace(Random random) {
+        float[] points = new float[2 * POINTS];
+        float cx = 200f + random.nextFloat() * 100f, cy = 200f + random.nextFloat() * 100f;
+        float eyes = 40f + random.nextFloat() * 60f;
+        points[0] = cx - eyes / 2;
+        points[1] = cy + (random.nextFloat() - 0.5f) * 10f;
+        points[2] = cx + eyes / 2;
+        points[3] = cy + (random.nextFloat() - 0.5f) * 10f;
+        for (int i = 4; i < points.length; i += 2) {
+            points[i] = cx + (random.nextFloat() - 0.5f) * eyes * 2;
+            points[i + 1] = cy + random.nextFloat() * eyes * 2;
+        }
+        return points;
+    }
+
+    private static float[] transform(float[] points, double angle, float scale, float dx, float dy) {
+        float cos = (float) Math.cos(angle), sin = (float) Math.sin(angle);
+        float[] out = new float[points.length];
+        for (int i = 0; i < points.length; i += 2) {
+            float x = points[i], y = points[i + 1];
+            out[i] = (x * cos - y * sin) * scale + dx;
+            out[i + 1] = (x * sin + y * cos) * scale + dy;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Bucketing and percentile reporting of {@link LatencyHistogram}. */
+public class LatencyHistogramTest {
+
+    @Test
+    public void smallValuesHaveTheirOwnBuckets() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, LatencyHistogram.bucketIndex(micros));
+            assertEquals(micros, LatencyHistogram.bucketLowerBound(micros));
+        }
+        // Each power of two above is split in 16: [32, 34) is one bucket
+        assertEquals(LatencyHistogram.bucketIndex(32), LatencyHistogram.bucketIndex(33));
+        assertEquals(LatencyHistogram.bucketIndex(32) + 1, LatencyHistogram.bucketIndex(34));
+    }
+
+    @Test
+    public void everyValueFallsInsideItsBucket() {
+        for (long micros = 0; micros < 1 << 20; micros += 1 + micros / 50) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            long low = LatencyHistogram.bucketLowerBound(index);
+            long high = LatencyHistogram.bucketLowerBound(index + 1);
+            assertTrue(micros + " below " + low, micros >= low);
+            assertTrue(micros + " not below " + high, micros < high);
+            // Bucket width stays within 1/16 of the value, the promised ~6% precision
+            assertTrue(high - low <= Math.max(1, low / 16));
+        }
+    }
+
+    @Test
+    public void hugeValuesAreClampedIntoTheLastBucket() {
+        int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        assertEquals(last, LatencyHistogram.bucketIndex(1L << 50));
+        assertTrue(LatencyHistogram.bucketIndex(1L << 40) <= last);
+    }
+
+    @Test
+    public void exactPercentilesForSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10; micros++) {
+            histogram.recordNanos(micros * 1000L);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(1, histogram.getPercentileMicros(0));
+        assertEquals(5, histogram.getPercentileMicros(50));
+        assertEquals(9, histogram.getPercentileMicros(90));
+        assertEquals(10, histogram.getPercentileMicros(100));
+        assertEquals(10, histogram.getMaxMicros());
+        assertEquals(5.5, histogram.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.recordNanos(20_000_000L); // 20 ms
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.recordNanos(150_000_000L); // 150 ms
+        }
+        assertEquals(20_000, histogram.getPercentileMicros(50), 20_000 * 0.07);
+        assertEquals(20_000, histogram.getPercentileMicros(99), 20_000 * 0.07);
+        assertEquals(150_000, histogram.getPercentileMicros(99.5), 150_000 * 0.07);
+        // A bucket midpoint never reports more than was actually seen
+        assertEquals(150_000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void emptyAndNegativeRecordNothing() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(0, histogram.getMeanMicros(), 0);
+        histogram.recordNanos(-1);
+        assertEquals(0, histogram.getCount());
+        // Sub-microsecond values land in the zero bucket
+        histogram.recordNanos(999);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(5_000_000L);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(99));
+    }
+
+    @Test
+    public void jsonHoldsTheSummary() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(3_000);
+        histogram.recordNanos(5_000);
+        StringBuilder json = new StringBuilder();
+        histogram.appendJson(json);
+        assertEquals("{\"count\":2,\"meanUs\":4.0,\"p50Us\":3,\"p90Us\":5,\"p99Us\":5,\"maxUs\":5}",
+                json.toString());
+    }
+}
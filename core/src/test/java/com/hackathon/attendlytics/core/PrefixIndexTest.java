@@ -0,0 +1,41 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Word-prefix search over names and student ids. */
+public class PrefixIndexTest {
+
+    @Test
+    public void everyQueryWordMustPrefixAWordOfTheRow() {
+        PrefixIndex index = new PrefixIndex();
+        index.add(0, "Ravi Kumar 23071A12A6");
+        index.add(1, "Kumari Sharma 23071A12B1");
+        index.add(2, "Anil Ravindran 22071A0501");
+
+        assertArrayEquals(new int[]{0, 1}, index.search("kum"));
+        assertArrayEquals(new int[]{0}, index.search("ra ku"));
+        assertArrayEquals(new int[]{0, 2}, index.search("RAV"));
+        assertArrayEquals(new int[]{0, 1}, index.search("23071a"));
+        assertArrayEquals(new int[]{1}, index.search("23071a12b"));
+        assertArrayEquals(new int[]{1}, index.search("kumar sharma"));
+        assertArrayEquals(new int[0], index.search("ravi sharma"));
+        assertArrayEquals(new int[0], index.search("  "));
+    }
+
+    @Test
+    public void rowsAddedAfterASearchAreFound() {
+        PrefixIndex index = new PrefixIndex();
+        for (int i = 0; i < 200; i++) {
+            index.add(i, "Student" + i + " " + (1000 + i));
+        }
+        assertArrayEquals(new int[]{5}, index.search("student5 1005"));
+        index.add(200, "Zara Student");
+        assertArrayEquals(new int[]{200}, index.search("za"));
+        assertEquals(201, index.search("stu").length);
+
+        index.clear();
+        assertArrayEquals(new int[0], index.search("stu"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/** Streaming CSV parsing and roster row validation. */
+public class RosterCsvTest {
+
+    private final RosterCsv roster = new RosterCsv(name -> name.equalsIgnoreCase("cse") ? "CSE" : null);
+
+    @Test
+    public void readsQuotedFieldsAndLineEndings() throws IOException {
+        String csv = "\uFEFFStudent ID,Name\r\n"
+                + "23071A12A6,\"Kumar, Ravi\"\r\n"
+                + "\n"
+                + "23071A12B1,\"Says \"\"hi\"\"\nthere\"\n"
+                + "23071A12C2,last";
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        assertArrayEquals(new String[]{"Student ID", "Name"}, reader.next());
+        assertEquals(1, reader.getLine());
+        assertArrayEquals(new String[]{"23071A12A6", "Kumar, Ravi"}, reader.next());
+        assertEquals(2, reader.getLine());
+        assertArrayEquals(new String[]{"23071A12B1", "Says \"hi\"\nthere"}, reader.next());
+        assertEquals(4, reader.getLine());
+        assertArrayEquals(new String[]{"23071A12C2", "last"}, reader.next());
+        assertEquals(6, reader.getLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void readsLongInputInConstantSpace() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(2307100000L + i).append(",Student ").append(i).append(",CSE,1,A\n");
+        }
+        CsvReader reader = new CsvReader(new StringReader(csv.toString()));
+        int rows = 0;
+        String[] record;
+        while ((record = reader.next()) != null) {
+            assertEquals(RosterCsv.COLUMNS, record.length);
+            rows++;
+        }
+        assertEquals(20_000, rows);
+    }
+
+    @Test
+    public void unterminatedQuoteIsAnError() {
+        try {
+            new CsvReader(new StringReader("a,\"b\n")).next();
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("line 1"));
+        }
+    }
+
+    @Test
+    public void normalizesValidRows() {
+        RosterCsv.Student student = roster.parse(new String[]{" 23071a12a6 ", "Ravi   Kumar", "cse", "3rd year", "b"});
+        assertEquals("23071A12A6", student.studentId);
+        assertEquals("Ravi Kumar", student.name);
+        assertEquals("CSE", student.department);
+        assertEquals("3rd Year", student.year);
+        assertEquals("B", student.section);
+        assertEquals("1st Year", RosterCsv.yearLabel("1"));
+        assertNull(RosterCsv.yearLabel("5"));
+    }
+
+    @Test
+    public void rejectsInvalidRows() {
+        assertRejected(new String[]{"23071A12A6", "Ravi", "CSE", "3"}, "columns");
+        assertRejected(new String[]{"123", "Ravi", "CSE", "3", "A"}, "student ID");
+        assertRejected(new String[]{"23071A12A6", " ", "CSE", "3", "A"}, "name");
+        assertRejected(new String[]{"23071A12A6", "Ravi", "Physics", "3", "A"}, "department");
+        assertRejected(new String[]{"23071A12A6", "Ravi", "CSE", "third", "A"}, "year");
+        assertRejected(new String[]{"23071A12A6", "Ravi", "CSE", "3", "A-1"}, "section");
+        assertTrue(RosterCsv.isHeader(new String[]{"Student ID", "Name"}));
+        assertFalse(RosterCsv.isHeader(new String[]{"23071A12A6", "Ravi"}));
+    }
+
+    private void assertRejected(String[] record, String column) {
+        try {
+            roster.parse(record);
+            fail("expected " + column + " to be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains(column));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/** Percentages, streaks and defaulters computed from monthly aggregates. */
+public class SectionReportTest {
+
+    private static final String S1 = SectionReport.sessionKey("1756700000000_t");
+    private static final String S2 = SectionReport.sessionKey("1756800000000_t");
+    private static final String S3 = SectionReport.sessionKey("1759300000000_t");
+    private static final String S4 = SectionReport.sessionKey("1759400000000_t");
+
+    @Test
+    public void percentagesStreaksAndDefaulters() {
+        Map<String, List<String>> held = new HashMap<>();
+        held.put("202509", Arrays.asList(S2, S1));
+        held.put("202510", Arrays.asList(S3, S4));
+
+        Map<String, Map<String, List<String>>> present = new HashMap<>();
+        present.put("a", months("202509", Arrays.asList(S1, S2), "202510", Arrays.asList(S3, S4)));
+        present.put("b", months("202509", Collections.singletonList(S1), "202510", Arrays.asList(S3, S4)));
+        present.put("c", months("202509", Collections.singletonList(S2), "202510", Collections.<String>emptyList()));
+
+        Map<String, String> roster = new HashMap<>();
+        roster.put("a", "Asha");
+        roster.put("b", "Bala");
+        roster.put("c", "Chitra");
+        roster.put("d", "Dev");
+
+        SectionReport report = SectionReport.build("CSE 3 A", held, present, roster, "202507", "202512");
+        assertEquals(4, report.getHeld());
+        List<SectionReport.StudentRow> rows = report.getRows();
+        assertEquals(4, rows.size());
+        // Lowest first
+        assertEquals("d", rows.get(0).uid);
+        assertEquals(0, rows.get(0).attended);
+        assertEquals("c", rows.get(1).uid);
+        assertEquals(0, rows.get(1).currentStreak);
+        assertEquals(1, rows.get(1).longestStreak);
+        assertEquals("b", rows.get(2).uid);
+        assertEquals(75.0, rows.get(2).getPercent(), 1e-9);
+        assertEquals(2, rows.get(2).currentStreak);
+        assertEquals("a", rows.get(3).uid);
+        assertEquals(4, rows.get(3).longestStreak);
+
+        assertEquals(2, report.getDefaulters().size());
+        assertEquals((0 + 25 + 75 + 100) / 4.0, report.getAveragePercent(), 1e-9);
+    }
+
+    @Test
+    public void monthsOutsideThePeriodAreIgnored() {
+        Map<String, List<String>> held = new HashMap<>();
+        held.put("202506", Collections.singletonList(S1));
+        held.put("202509", Collections.singletonList(S2));
+        Map<String, Map<String, List<String>>> present = new HashMap<>();
+        present.put("a", months("202506", Collections.singletonList(S1), "202509", Collections.<String>emptyList()));
+
+        SectionReport report = SectionReport.build("t", held, present, null, "202507", "202512");
+        assertEquals(1, report.getHeld());
+        assertEquals(0, report.getRows().get(0).attended);
+        assertTrue(report.getRows().get(0).isDefaulter());
+    }
+
+    @Test
+    public void keysOrderByStartTime() {
+        assertTrue(S1.compareTo(S2) < 0);
+        assertEquals("not-a-time", SectionReport.sessionKey("not-a-time"));
+        assertEquals("CSE_3_A_CS101", SectionReport.statsId("CSE", "3", "A", "CS101"));
+    }
+
+    private static Map<String, List<String>> months(String m1, List<String> k1, String m2, List<String> k2) {
+        Map<String, List<String>> months = new HashMap<>();
+        months.put(m1, k1);
+        months.put(m2, k2);
+        return months;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+/** CSV round trips through {@link CsvReader}; XLSX packages hold the expected parts and rows. */
+public class SheetWriterTest {
+
+    @Test
+    public void csvRoundTripsAwkwardFields() throws IOException {
+        StringWriter text = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(text)) {
+            writer.writeRow("Date", "Name", "Count");
+            writer.writeRow("2025-09-18", "Kumar, \"Ravi\"\nB", 3);
+            writer.writeRow("2025-09-19", null, 0);
+        }
+        CsvReader reader = new CsvReader(new StringReader(text.toString()));
+        assertArrayEquals(new String[]{"Date", "Name", "Count"}, reader.next());
+        assertArrayEquals(new String[]{"2025-09-18", "Kumar, \"Ravi\"\nB", "3"}, reader.next());
+        assertArrayEquals(new String[]{"2025-09-19", "", "0"}, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void csvDefusesFormulas() throws IOException {
+        StringWriter text = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(text)) {
+            writer.writeRow("=HYPERLINK(\"http://x\")", "+1", "-2", "@SUM(A1)", "Ravi", -3);
+        }
+        CsvReader reader = new CsvReader(new StringReader(text.toString()));
+        assertArrayEquals(new String[]{"'=HYPERLINK(\"http://x\")", "'+1", "'-2", "'@SUM(A1)", "Ravi", "-3"},
+                reader.next());
+    }
+
+    @Test
+    public void xlsxHoldsPartsAndEscapedRows() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XlsxWriter writer = new XlsxWriter(bytes, "CSE 3rd Year/A")) {
+            writer.writeRow("Name", "Present");
+            writer.writeRow("R&D <lab>", 12);
+            assertEquals(2, writer.getRowCount());
+        }
+
+        List<String> names = new ArrayList<>();
+        String sheet = null;
+        String workbook = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = zip.read(buffer)) > 0) content.write(buffer, 0, n);
+                if (entry.getName().equals("xl/worksheets/sheet1.xml")) {
+                    sheet = new String(content.toByteArray(), StandardCharsets.UTF_8);
+                } else if (entry.getName().equals("xl/workbook.xml")) {
+                    workbook = new String(content.toByteArray(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertTrue(names.contains("[Content_Types].xml"));
+        assertTrue(names.contains("_rels/.rels"));
+        assertTrue(names.contains("xl/_rels/workbook.xml.rels"));
+        assertNotNull(sheet);
+        assertTrue(sheet, sheet.contains("<c r=\"A2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">R&amp;D &lt;lab&gt;</t></is></c>"));
+        assertTrue(sheet, sheet.contains("<c r=\"B2\"><v>12</v></c>"));
+        assertTrue(sheet.endsWith("</sheetData></worksheet>"));
+        assertTrue(workbook, workbook.contains("name=\"CSE 3rd Year A\""));
+    }
+
+    @Test
+    public void columnNames() {
+        assertEquals("A", XlsxWriter.columnName(0));
+        assertEquals("Z", XlsxWriter.columnName(25));
+        assertEquals("AA", XlsxWriter.columnName(26));
+        assertEquals("AZ", XlsxWriter.columnName(51));
+        assertEquals("BA", XlsxWriter.columnName(52));
+    }
+}
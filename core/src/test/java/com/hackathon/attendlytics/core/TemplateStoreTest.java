@@ -0,0 +1,140 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Persistence and partial-update behaviour of {@link TemplateStore}. */
+public class TemplateStoreTest {
+
+    private static final int DIMENSION = 18;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("templates", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void recordsSurviveReopenAndGrowth() throws IOException {
+        Random random = new Random(20);
+        float[][] templates = new float[100][];
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            for (int i = 0; i < templates.length; i++) {
+                templates[i] = FaceMatcherTest.randomVector(random, DIMENSION);
+                assertEquals(i, store.put("uid-" + i, "Student " + i, 1000 + i, templates[i]));
+            }
+            store.setWatermarks(5, 1099);
+        }
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            assertEquals(templates.length, store.size());
+            assertEquals(5, store.getProfileWatermark());
+            assertEquals(1099, store.getFaceWatermark());
+            float[] out = new float[DIMENSION];
+            for (int i = 0; i < templates.length; i++) {
+                int index = store.indexOf("uid-" + i);
+                assertEquals("Student " + i, store.nameAt(index));
+                assertEquals(1000 + i, store.updatedAt(index));
+                assertTrue(store.readTemplate(index, out));
+                assertArrayEquals(templates[i], out, 0f);
+            }
+        }
+    }
+
+    @Test
+    public void profileAndFaceChangesApplySeparately() throws IOException {
+        float[] template = FaceMatcherTest.randomVector(new Random(1), DIMENSION);
+        float[] out = new float[DIMENSION];
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            int index = store.put("a", "Asha", 10, null);
+            assertFalse(store.hasTemplate(index));
+            assertFalse(store.readTemplate(index, out));
+
+            assertEquals(index, store.put("a", null, 20, template));
+            assertEquals("Asha", store.nameAt(index));
+            assertTrue(store.readTemplate(index, out));
+
+            store.put("a", "Asha R", 15, null);
+            assertEquals("Asha R", store.nameAt(index));
+            assertEquals(20, store.updatedAt(index));
+            assertTrue(store.readTemplate(index, out));
+            assertArrayEquals(template, out, 0f);
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void removedStudentsLeaveNoGap() throws IOException {
+        float[] template = FaceMatcherTest.randomVector(new Random(3), DIMENSION);
+        float[] out = new float[DIMENSION];
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            store.put("a", "Asha", 1, null);
+            store.put("b", "Bala", 2, null);
+            store.put("c", "Chitra", 3, template);
+            assertTrue(store.remove("a"));
+            assertFalse(store.remove("a"));
+            assertEquals(2, store.size());
+            assertEquals(-1, store.indexOf("a"));
+        }
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            assertEquals(2, store.size());
+            assertEquals("Bala", store.nameAt(store.indexOf("b")));
+            int moved = store.indexOf("c");
+            assertEquals("Chitra", store.nameAt(moved));
+            assertTrue(store.readTemplate(moved, out));
+            assertArrayEquals(template, out, 0f);
+        }
+    }
+
+    @Test
+    public void clearedTemplateStaysCleared() throws IOException {
+        float[] out = new float[DIMENSION];
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            int index = store.put("a", "Asha", 10, FaceMatcherTest.randomVector(new Random(4), DIMENSION));
+            store.clearTemplate(store.put("a", null, 20, null));
+            assertFalse(store.hasTemplate(index));
+            assertEquals("Asha", store.nameAt(index));
+        }
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            assertFalse(store.readTemplate(store.indexOf("a"), out));
+            assertEquals(20, store.updatedAt(store.indexOf("a")));
+        }
+    }
+
+    @Test
+    public void otherDimensionStartsEmpty() throws IOException {
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            store.put("a", "Asha", 10, new float[DIMENSION]);
+        }
+        try (TemplateStore store = TemplateStore.open(file, 128)) {
+            assertEquals(0, store.size());
+            assertEquals(-1, store.indexOf("a"));
+        }
+    }
+
+    @Test
+    public void longNamesAreCutOnCharacterBoundaries() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < TemplateStore.NAME_BYTES; i++) {
+            name.append('\u00e9');
+        }
+        try (TemplateStore store = TemplateStore.open(file, DIMENSION)) {
+            int index = store.put("a", name.toString(), 1, null);
+            String stored = store.nameAt(index);
+            assertEquals(TemplateStore.NAME_BYTES / 2, stored.length());
+            assertTrue(name.toString().startsWith(stored));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.hackathon.attendlytics.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/** Index and stride arithmetic of {@link YuvCrop} on small synthetic planes. */
+public class YuvCropTest {
+
+    private static final int WIDTH = 6;
+    private static final int HEIGHT = 4;
+
+    @Test
+    public void rotationsProduceTheUprightImage() {
+        // Grey frame (neutral chroma) where every luma value is unique, so r == g == b == luma
+        int[][] sensor = new int[HEIGHT][WIDTH];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                sensor[y][x] = 10 * y + x + 1;
+            }
+        }
+        Planes planes = i420(sensor, WIDTH, 128, 128);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            int[][] upright = rotate(sensor, rotation);
+            int outHeight = upright.length;
+            int outWidth = upright[0].length;
+            float[] rgb = crop(planes, rotation, 0, 0, outWidth, outHeight, outWidth, outHeight);
+            for (int v = 0; v < outHeight; v++) {
+                for (int u = 0; u < outWidth; u++) {
+                    int at = (v * outWidth + u) * 3;
+                    String where = rotation + " degrees at (" + u + ", " + v + ")";
+                    assertEquals(where, upright[v][u], rgb[at], 0f);
+                    assertEquals(where, upright[v][u], rgb[at + 1], 0f);
+                    assertEquals(where, upright[v][u], rgb[at + 2], 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void cropRectangleIsInUprightCoordinates() {
+        int[][] sensor = new int[HEIGHT][WIDTH];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                sensor[y][x] = 10 * y + x + 1;
+            }
+        }
+        int[][] upright = rotate(sensor, 90);
+        // 2x3 window starting at upright (1, 2), sampled one to one
+        float[] rgb = crop(i420(sensor, WIDTH, 128, 128), 90, 1, 2, 3, 5, 2, 3);
+        for (int v = 0; v < 3; v++) {
+            for (int u = 0; u < 2; u++) {
+                assertEquals(upright[2 + v][1 + u], rgb[(v * 2 + u) * 3], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void semiPlanarChromaMatchesPlanar() {
+        int[][] sensor = new int[HEIGHT][WIDTH];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                sensor[y][x] = 100;
+            }
+        }
+        // One chroma sample per 2x2 block, all different
+        int[][] cb = {{60, 90, 120}, {150, 180, 210}};
+        int[][] cr = {{200, 170, 140}, {110, 80, 50}};
+        Planes planar = i420(sensor, WIDTH, 0, 0);
+        Planes semiPlanar = nv21(sensor, WIDTH, 0, 0);
+        for (int by = 0; by < HEIGHT / 2; by++) {
+            for (int bx = 0; bx < WIDTH / 2; bx++) {
+                planar.u.put(by * planar.uvRowStride + bx, (byte) cb[by][bx]);
+                planar.v.put(by * planar.uvRowStride + bx, (byte) cr[by][bx]);
+                semiPlanar.u.put(by * semiPlanar.uvRowStride + bx * 2, (byte) cb[by][bx]);
+                semiPlanar.v.put(by * semiPlanar.uvRowStride + bx * 2, (byte) cr[by][bx]);
+            }
+        }
+        float[] fromPlanar = crop(planar, 0, 0, 0, WIDTH, HEIGHT, WIDTH, HEIGHT);
+        float[] fromSemiPlanar = crop(semiPlanar, 0, 0, 0, WIDTH, HEIGHT, WIDTH, HEIGHT);
+        assertArrayEquals(fromPlanar, fromSemiPlanar, 0f);
+
+        // Bottom-right pixel belongs to the last chroma block
+        int at = (HEIGHT * WIDTH - 1) * 3;
+        float u = cb[1][2] - 128;
+        float v = cr[1][2] - 128;
+        assertEquals(clamp(100 + 1.402f * v), fromPlanar[at], 1e-3f);
+        assertEquals(clamp(100 - 0.344136f * u - 0.714136f * v), fromPlanar[at + 1], 1e-3f);
+        assertEquals(clamp(100 + 1.772f * u), fromPlanar[at + 2], 1e-3f);
+    }
+
+    @Test
+    public void rowPaddingIsSkipped() {
+        int[][] sensor = new int[HEIGHT][WIDTH];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                sensor[y][x] = 10 * y + x + 1;
+            }
+        }
+        // Padding is filled with a value no real pixel has
+        Planes padded = i420(sensor, WIDTH + 10, 128, 255);
+        Planes tight = i420(sensor, WIDTH, 128, 0);
+        for (int rotation = 0; rotation < 360; rotation += 90) {
+            boolean sideways = rotation % 180 != 0;
+            int outWidth = sideways ? HEIGHT : WIDTH;
+            int outHeight = sideways ? WIDTH : HEIGHT;
+            assertArrayEquals(crop(tight, rotation, 0, 0, outWidth, outHeight, outWidth, outHeight),
+                    crop(padded, rotation, 0, 0, outWidth, outHeight, outWidth, outHeight), 0f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooSmallOutputIsRejected() {
+        Planes planes = i420(new int[HEIGHT][WIDTH], WIDTH, 128, 0);
+        YuvCrop.cropToFloatRgb(planes.y, planes.yRowStride, 1, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, WIDTH, HEIGHT, 0,
+                0, 0, WIDTH, HEIGHT, 4, 4, 0f, 1f, ByteBuffer.allocate(4 * 4 * 3 * Float.BYTES - 1));
+    }
+
+    @Test
+    public void buffersAreNotMoved() {
+        Planes planes = i420(new int[HEIGHT][WIDTH], WIDTH, 128, 0);
+        ByteBuffer out = ByteBuffer.allocate(2 * 2 * 3 * Float.BYTES);
+        YuvCrop.cropToFloatRgb(planes.y, planes.yRowStride, 1, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, WIDTH, HEIGHT, 0,
+                0, 0, WIDTH, HEIGHT, 2, 2, 0f, 1f, out);
+        assertEquals(0, planes.y.position());
+        assertEquals(0, planes.u.position());
+        assertEquals(0, out.position());
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(255f, value));
+    }
+
+    private static final class Planes {
+        ByteBuffer y, u, v;
+        int yRowStride, uvRowStride, uvPixelStride;
+    }
+
+    /** Planar layout; rows are {@code rowStride} wide, padding filled with {@code pad}. */
+    private static Planes i420(int[][] luma, int rowStride, int chroma, int pad) {
+        Planes planes = new Planes();
+        planes.y = lumaPlane(luma, rowStride, pad);
+        planes.yRowStride = rowStride;
+        planes.uvRowStride = rowStride / 2;
+        planes.uvPixelStride = 1;
+        planes.u = filled(planes.uvRowStride * HEIGHT / 2, chroma);
+        planes.v = filled(planes.uvRowStride * HEIGHT / 2, chroma);
+        return planes;
+    }
+
+    /** Interleaved V/U as in NV21: the U plane is the V buffer shifted by one byte. */
+    private static Planes nv21(int[][] luma, int rowStride, int chroma, int pad) {
+        Planes planes = new Planes();
+        planes.y = lumaPlane(luma, rowStride, pad);
+        planes.yRowStride = rowStride;
+        planes.uvRowStride = rowStride;
+        planes.uvPixelStride = 2;
+        ByteBuffer interleaved = filled(rowStride * HEIGHT / 2, chroma);
+        planes.v = interleaved.duplicate();
+        interleaved.position(1);
+        planes.u = interleaved.slice();
+        return planes;
+    }
+
+    private static ByteBuffer lumaPlane(int[][] luma, int rowStride, int pad) {
+        ByteBuffer plane = filled(rowStride * HEIGHT, pad);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                plane.put(y * rowStride + x, (byte) luma[y][x]);
+            }
+        }
+        return plane;
+    }
+
+    private static ByteBuffer filled(int size, int value) {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            buffer.put(i, (byte) value);
+        }
+        return buffer;
+    }
+
+    /** Rotates a sensor image clockwise by {@code degrees}, the way the frame is shown upright. */
+    private static int[][] rotate(int[][] image, int degrees) {
+        int[][] result = image;
+        for (int turn = 0; turn < degrees / 90; turn++) {
+            int height = result.length;
+            int width = result[0].length;
+            int[][] turned = new int[width][height];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    turned[x][height - 1 - y] = result[y][x];
+                }
+            }
+            result = turned;
+        }
+        return result;
+    }
+
+    private static float[] crop(Planes planes, int rotation, int left, int top, int right, int bottom,
+                                int outWidth, int outHeight) {
+        ByteBuffer out = ByteBuffer.allocate(outWidth * outHeight * 3 * Float.BYTES);
+        YuvCrop.cropToFloatRgb(planes.y, planes.yRowStride, 1, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, WIDTH, HEIGHT, rotation,
+                left, top, right, bottom, outWidth, outHeight, 0f, 1f, out);
+        float[] values = new float[outWidth * outHeight * 3];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = out.getFloat(i * Float.BYTES);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,47 @@
+plugins {
+    id("com.android.test")
+}
+
+android {
+    namespace = "com.hackathon.attendlytics.macrobenchmark"
+    compileSdk = 36
+
+    defaultConfig {
+        // Macrobenchmark needs API 28+ to trace startup
+        minSdk = 28
+        targetSdk = 36
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // JSON results land in build/outputs/connected_android_test_additional_output
+        testInstrumentationRunnerArguments["androidx.benchmark.output.enable"] = "true"
+    }
+
+    buildTypes {
+        // Matches the app's "benchmark" build type: release code, debug signing
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.3.0")
+    implementation("androidx.test.uiautomator:uiautomator:2.3.0")
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.4.1")
+}
+
+androidComponents {
+    // Measuring a debuggable debug build would be meaningless
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,34 @@
+package com.hackathon.attendlytics.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the classes and methods used during a cold start into a baseline profile.
+ *
+ * Run on a rooted device or emulator with
+ * {@code ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.hackathon.attendlytics.macrobenchmark.BaselineProfileGenerator}
+ * and copy the generated {@code *-baseline-prof.txt} over {@code app/src/main/baseline-prof.txt}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        baselineProfileRule.collect(StartupBenchmark.TARGET_PACKAGE, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            return Unit.INSTANCE;
+        });
+    }
+}
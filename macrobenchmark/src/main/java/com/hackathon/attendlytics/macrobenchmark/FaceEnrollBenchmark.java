@@ -0,0 +1,68 @@
+package com.hackathon.attendlytics.macrobenchmark;
+
+import android.content.Intent;
+import android.net.Uri;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.UiDevice;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing of the face enrollment screen while the camera preview runs and frames are
+ * captured. Opens the screen through a deep link that only the app's benchmark build type
+ * declares; the device must be signed in as a student and should have a face in front of the
+ * front camera.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FaceEnrollBenchmark {
+
+    private static final String PKG = StartupBenchmark.TARGET_PACKAGE;
+    private static final long CAPTURE_MS = 5_000;
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void enrollCapture() {
+        benchmarkRule.measureRepeated(
+                PKG,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    scope.getDevice().executeShellCommand("pm grant " + PKG + " android.permission.CAMERA");
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait(intent -> {
+                        intent.setAction(Intent.ACTION_VIEW);
+                        intent.setData(Uri.parse("attendlytics://enroll"));
+                        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TASK | Intent.FLAG_ACTIVITY_NEW_TASK);
+                        return Unit.INSTANCE;
+                    });
+                    UiDevice device = scope.getDevice();
+                    SignInBenchmark.click(device, "buttonCaptureFace");
+                    // Preview and capture run together for a fixed window
+                    try {
+                        Thread.sleep(CAPTURE_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,86 @@
+package com.hackathon.attendlytics.macrobenchmark;
+
+import android.os.Bundle;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * From a signed-out cold start through phone sign-in to a rendered student dashboard.
+ *
+ * Needs a Firebase test phone number registered to a fully enrolled student, passed as
+ * instrumentation arguments {@code testPhoneNumber} and {@code testOtp}; skipped otherwise.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SignInBenchmark {
+
+    private static final String PKG = StartupBenchmark.TARGET_PACKAGE;
+    private static final long TIMEOUT_MS = 15_000;
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void signInToDashboard() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        String phoneNumber = args.getString("testPhoneNumber");
+        String otp = args.getString("testOtp");
+        Assume.assumeTrue("testPhoneNumber and testOtp not provided", phoneNumber != null && otp != null);
+
+        benchmarkRule.measureRepeated(
+                PKG,
+                Arrays.asList(new StartupTimingMetric(), new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                null,
+                ITERATIONS,
+                scope -> {
+                    // Signed out, no cached role or profile: the full first-run path
+                    scope.pressHome();
+                    scope.getDevice().executeShellCommand("pm clear " + PKG);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    UiDevice device = scope.getDevice();
+                    click(device, "buttonStudent");
+                    click(device, "buttonSignIn");
+                    find(device, "editTextPhoneNumberSignIn").setText(phoneNumber);
+                    click(device, "buttonSendOtpSignIn");
+                    find(device, "editTextOtpSignIn").setText(otp);
+                    click(device, "buttonVerifyOtpSignIn");
+                    // Student info is filled in from the profile once the dashboard has it
+                    device.wait(Until.hasObject(By.res(PKG, "textViewStudentInfo").textStartsWith("ID: ")), TIMEOUT_MS);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    static UiObject2 find(UiDevice device, String resourceId) {
+        UiObject2 view = device.wait(Until.findObject(By.res(PKG, resourceId)), TIMEOUT_MS);
+        if (view == null) {
+            throw new AssertionError("View not found: " + resourceId);
+        }
+        return view;
+    }
+
+    static void click(UiDevice device, String resourceId) {
+        find(device, resourceId).click();
+    }
+}
@@ -0,0 +1,61 @@
+package com.hackathon.attendlytics.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of the app to its first screen, reported as time to initial display (and time to
+ * full display where the dashboard calls reportFullyDrawn).
+ *
+ * Compares no AOT compilation against the bundled baseline profile; the difference is what
+ * the profile buys on a fresh install. Run with
+ * {@code ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest} on a physical device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    static final String TARGET_PACKAGE = "com.hackathon.attendlytics";
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartNoCompilation() {
+        coldStart(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartBaselineProfile() {
+        coldStart(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void coldStart(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                TARGET_PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -23,3 +23,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Attendlytics"
 include(":app")
+include(":core")
+include(":macrobenchmark")
+include(":benchmark")